@@ -0,0 +1,105 @@
+package calendar.bench;
+
+import calendar.model.api.EventDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.internal.InMemoryCalendar;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading {@code events} timed events into an empty {@link InMemoryCalendar}, one
+ * {@code create} at a time against one {@code createAll}.
+ *
+ * <p>The events are spread over two years with gaps between them, so most keep a busy range of
+ * their own and the calendar ends with as many busy ranges as events. {@code SORTED} feeds them
+ * in start order, the shape of an export being loaded back; {@code SHUFFLED} in random order,
+ * where each per-event create lands in the middle of the time index and busy ranges. Events
+ * per second is {@code events / score}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CalendarCreateBenchmark {
+  /**
+   * The order the events are created in.
+   */
+  public enum Order { SORTED, SHUFFLED }
+
+  @Param({"100000"})
+  public int events;
+
+  @Param({"SORTED", "SHUFFLED"})
+  public Order order;
+
+  private final CalendarSettings settings = CalendarSettings.defaults();
+  private List<EventDraft> drafts;
+  private InMemoryCalendar calendar;
+
+  /**
+   * Builds the drafts in the chosen order.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    drafts = new ArrayList<>(events);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    long step = 2L * 365 * 24 * 60 / events;
+    for (int i = 0; i < events; i++) {
+      LocalDateTime start = base.plusMinutes(step * i);
+      EventDraft d = new EventDraft();
+      d.subject = "Event " + i;
+      d.start = Optional.of(start);
+      d.end = Optional.of(start.plusMinutes(Math.max(1, step / 2)));
+      drafts.add(d);
+    }
+    if (order == Order.SHUFFLED) {
+      Collections.shuffle(drafts, new Random(42));
+    }
+  }
+
+  /**
+   * Starts every invocation from an empty calendar.
+   */
+  @Setup(Level.Invocation)
+  public void emptyCalendar() {
+    calendar = new InMemoryCalendar(settings);
+  }
+
+  /**
+   * Creates the events one call at a time.
+   */
+  @Benchmark
+  public int createEach() {
+    int created = 0;
+    for (EventDraft d : drafts) {
+      calendar.create(d);
+      created++;
+    }
+    return created;
+  }
+
+  /**
+   * Creates the events in one batch.
+   */
+  @Benchmark
+  public int createAll() {
+    return calendar.createAll(drafts).size();
+  }
+}
@@ -0,0 +1,161 @@
+package calendar.bench;
+
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.LockingMode;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.internal.InMemoryCalendar;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Read throughput of {@link InMemoryCalendar} under each {@link LockingMode}.
+ *
+ * <p>Run with different thread counts to see how reads scale, e.g.
+ * {@code ./gradlew jmh -PjmhThreads=1} then {@code -PjmhThreads=8}. With MONITOR the total
+ * throughput stays flat as threads are added; READ_WRITE and STAMPED should grow with cores.
+ * The {@code mixed} group runs three readers against one writer that keeps editing an event,
+ * which is where optimistic {@code statusAt} reads pay off.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CalendarReadBenchmark {
+  private static final int PROBES = 1024;
+
+  @Param({"MONITOR", "READ_WRITE", "STAMPED"})
+  public LockingMode mode;
+
+  @Param({"10000"})
+  public int events;
+
+  private InMemoryCalendar calendar;
+  private LocalDateTime[] instants;
+  private LocalDate[] days;
+  private EventId[] ids;
+  private EventSelector edited;
+
+  /**
+   * Per-thread position in the probe arrays, so threads do not contend on a shared counter.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+
+    int advance() {
+      next = (next + 1) & (PROBES - 1);
+      return next;
+    }
+  }
+
+  /**
+   * Fills a calendar with single events and one weekday series.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    calendar = new InMemoryCalendar(CalendarSettings.defaults().withLockingMode(mode));
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < events; i++) {
+      EventDraft d = new EventDraft();
+      d.subject = "Event " + i;
+      d.start = Optional.of(base.plusMinutes(90L * i));
+      d.end = Optional.of(base.plusMinutes(90L * i + 45));
+      calendar.create(d);
+    }
+
+    SeriesDraft s = new SeriesDraft();
+    s.subject = "Standup";
+    s.startDate = base.toLocalDate();
+    s.startTime = Optional.of(LocalTime.of(9, 30));
+    s.endTime = Optional.of(LocalTime.of(9, 45));
+    s.rule = new RecurrenceRule(EnumSet.of(Weekday.M, Weekday.T, Weekday.W, Weekday.R,
+        Weekday.F), Optional.of(200), Optional.empty());
+    calendar.createSeries(s);
+
+    List<Event> all = calendar.allEvents();
+    instants = new LocalDateTime[PROBES];
+    days = new LocalDate[PROBES];
+    ids = new EventId[PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      Event e = all.get((int) ((i * 7919L) % all.size()));
+      instants[i] = e.start().plusMinutes(i % 60);
+      days[i] = e.start().toLocalDate();
+      ids[i] = e.id();
+    }
+
+    edited = new EventSelector();
+    edited.subject = "Event 0";
+    edited.start = base;
+  }
+
+  /**
+   * Point lookup; optimistic under STAMPED.
+   */
+  @Benchmark
+  public BusyStatus statusAt(Cursor c) {
+    return calendar.statusAt(instants[c.advance()]);
+  }
+
+  /**
+   * Range query that builds a result list under the read lock.
+   */
+  @Benchmark
+  public List<Event> eventsOn(Cursor c) {
+    return calendar.eventsOn(days[c.advance()]);
+  }
+
+  /**
+   * Map lookup; optimistic under STAMPED.
+   */
+  @Benchmark
+  public Optional<SeriesId> seriesOfEvent(Cursor c) {
+    return calendar.seriesOfEvent(ids[c.advance()]);
+  }
+
+  /**
+   * Reader side of the mixed workload.
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public BusyStatus mixedStatusAt(Cursor c) {
+    return calendar.statusAt(instants[c.advance()]);
+  }
+
+  /**
+   * Alternates the description of one event, so the calendar does not grow.
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public void mixedEdit(Cursor c) {
+    EventPatch p = new EventPatch();
+    p.description = Optional.of((c.advance() & 1) == 0 ? "even" : "odd");
+    calendar.updateBySelector(edited, p, EditScope.SINGLE);
+  }
+}
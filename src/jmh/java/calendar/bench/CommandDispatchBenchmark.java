@@ -0,0 +1,158 @@
+package calendar.bench;
+
+import calendar.controller.CalendarControllerImpl;
+import calendar.controller.CommandPatterns;
+import calendar.controller.HeadlessPipeline;
+import calendar.model.CalendarManager;
+import calendar.model.config.CalendarSettings;
+import calendar.view.CalendarViewImpl;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-line cost of a headless script run through {@link CalendarControllerImpl}.
+ *
+ * <p>The script creates one calendar and then mixes {@code lines} commands the way a generated
+ * script does: mostly timed creates with distinct subjects, plus prints, status checks and
+ * single-occurrence edits. {@code headlessScript} runs the whole script with output discarded;
+ * lines per second is {@code lines / score}. {@code pipelinedScript} runs the same script
+ * through {@link HeadlessPipeline}; its score can only beat {@code headlessScript} by the
+ * reading, parsing and writing it overlaps with execution.</p>
+ *
+ * <p>{@code recompilingMatch} and {@code precompiledMatch} isolate the validation step: every
+ * create line is matched against the create pattern, once with {@code String.matches} (a new
+ * regex per call, as before) and once with the compiled {@link CommandPatterns#CREATE_SINGLE}.
+ * The gap between them is what each line no longer pays.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class CommandDispatchBenchmark {
+  @Param({"2000000"})
+  public int lines;
+
+  private final CalendarSettings settings = CalendarSettings.defaults();
+  private String script;
+  private List<String> creates;
+
+  /**
+   * Builds the script.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    StringBuilder sb = new StringBuilder(lines * 64);
+    creates = new ArrayList<>(lines);
+    sb.append("create calendar --name bench --timezone America/New_York\n");
+    sb.append("use calendar --name bench\n");
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < lines; i++) {
+      LocalDateTime start = base.plusMinutes(30L * (i % 17_520));
+      String line;
+      switch (i % 10) {
+        case 7:
+          line = "print events on " + start.toLocalDate();
+          break;
+        case 8:
+          line = "show status on " + start;
+          break;
+        case 9:
+          LocalDateTime created = base.plusMinutes(30L * ((i - 3) % 17_520));
+          line = "edit event location E" + (i - 3) + " from " + created + " to "
+              + created.plusMinutes(30) + " with Room" + (i % 50);
+          break;
+        default:
+          line = "create event E" + i + " from " + start + " to " + start.plusMinutes(30);
+          creates.add(line);
+          break;
+      }
+      sb.append(line).append('\n');
+    }
+    sb.append("exit\n");
+    script = sb.toString();
+  }
+
+  /**
+   * Runs the whole script against a fresh controller, discarding output.
+   */
+  @Benchmark
+  public long headlessScript() throws IOException {
+    Appendable sink = new NullAppendable();
+    new CalendarControllerImpl(new StringReader(script), sink, settings)
+        .go(new CalendarViewImpl(sink));
+    return script.length();
+  }
+
+  /**
+   * Runs the whole script through the three-stage pipeline, discarding output.
+   */
+  @Benchmark
+  public boolean pipelinedScript() throws IOException {
+    return new HeadlessPipeline(settings, new CalendarManager())
+        .run(new StringReader(script), new NullAppendable());
+  }
+
+  /**
+   * Validates every create line with {@code String.matches}, compiling the regex each time.
+   */
+  @Benchmark
+  public long recompilingMatch() {
+    String regex = CommandPatterns.CREATE_SINGLE.pattern();
+    long matched = 0;
+    for (String line : creates) {
+      if (line.matches(regex)) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Validates every create line with the precompiled pattern.
+   */
+  @Benchmark
+  public long precompiledMatch() {
+    Pattern pattern = CommandPatterns.CREATE_SINGLE;
+    long matched = 0;
+    for (String line : creates) {
+      if (pattern.matcher(line).matches()) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+
+  private static final class NullAppendable implements Appendable {
+    @Override
+    public Appendable append(CharSequence csq) {
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package calendar.bench;
+
+import calendar.export.CsvExporter;
+import calendar.export.CsvImporter;
+import calendar.export.ImportReport;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.internal.InMemoryCalendar;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link CsvImporter} on a file written by {@link CsvExporter}.
+ *
+ * <p>The file holds {@code rows} half-hour events, a tenth of them private and a third with a
+ * quoted, comma-bearing description, spread over a year so dates repeat the way they do in a
+ * real export. {@code parse} measures reading and converting rows alone; {@code importInto}
+ * adds creating the events in an {@link InMemoryCalendar}. Rows per second is
+ * {@code rows / score}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CsvImportBenchmark {
+  @Param({"1000000"})
+  public int rows;
+
+  private final CalendarSettings settings = CalendarSettings.defaults();
+  private Path file;
+
+  /**
+   * Writes the file to import.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    file = Files.createTempFile("csv-bench", ".csv");
+    List<Event> events = new ArrayList<>(rows);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < rows; i++) {
+      LocalDateTime start = base.plusMinutes(30L * (i % 17_520));
+      Event.Builder b = new Event.Builder()
+          .subject("Event " + i)
+          .start(start)
+          .end(start.plusMinutes(30))
+          .location("Room " + (i % 50));
+      if (i % 3 == 0) {
+        b.description("Agenda: review, plan, \"retro\"");
+      }
+      if (i % 10 == 0) {
+        b.status(Status.PRIVATE);
+      }
+      events.add(b.build());
+    }
+    new CsvExporter(settings).export(file, events);
+  }
+
+  /**
+   * Deletes the file.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Reads every row into a draft, creating nothing.
+   */
+  @Benchmark
+  public long parse() throws IOException {
+    long[] subjects = new long[1];
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      ImportReport report = new CsvImporter(settings)
+          .parse(in, d -> subjects[0] += d.subject.length());
+      return report.imported() + subjects[0];
+    }
+  }
+
+  /**
+   * Imports every row into an empty calendar.
+   */
+  @Benchmark
+  public long importInto() {
+    return new CsvImporter(settings).importInto(file, new InMemoryCalendar(settings)).imported();
+  }
+}
@@ -0,0 +1,133 @@
+package calendar.bench;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.Status;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Retained heap per {@link Event}, against an event that keeps two {@link LocalDateTime}s.
+ *
+ * <p>Each invocation builds {@code events} half-hour events with distinct times, a shared
+ * subject and their own IDs, keeps them, and reports the growth of the used heap after a full
+ * GC divided by {@code events} as the {@code bytesPerEvent} counter. {@code EVENT} builds
+ * {@link Event}s, which hold their times as primitives; {@code LOCAL_DATE_TIMES} builds the same
+ * fields with the times as LocalDateTimes, which is how Event stored them before. The array
+ * holding the events is allocated before measuring, so only the events are counted. The score
+ * itself is the time to build them.</p>
+ *
+ * <p>The fork uses the parallel collector, whose {@code System.gc()} is a full stop-the-world
+ * collection; with G1 the used heap after it varies by whole regions and the counter is noise.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseParallelGC", "-Xms2g", "-Xmx2g"})
+public class EventFootprintBenchmark {
+  /**
+   * How the events keep their times.
+   */
+  public enum Layout { EVENT, LOCAL_DATE_TIMES }
+
+  @Param({"500000"})
+  public int events;
+
+  @Param({"EVENT", "LOCAL_DATE_TIMES"})
+  public Layout layout;
+
+  private Object[] kept;
+
+  /**
+   * Bytes retained per event by the last invocation.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Footprint {
+    public double bytesPerEvent;
+  }
+
+  /**
+   * Drops the previous iteration's events and allocates the array for the next ones.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    kept = null;
+    kept = new Object[events];
+  }
+
+  /**
+   * Builds and keeps every event, then records the heap they retain.
+   */
+  @Benchmark
+  public Object[] build(Footprint footprint) {
+    long before = usedHeap();
+    for (int i = 0; i < events; i++) {
+      int minute = 30 * (i % 17_520);
+      LocalDateTime start = LocalDateTime.of(2025, 1 + minute / 43_200 % 12,
+          1 + minute / 1_440 % 28, minute / 60 % 24, minute % 60);
+      LocalDateTime end = start.plusMinutes(30);
+      kept[i] = layout == Layout.EVENT
+          ? new Event.Builder().subject("Meeting").start(start).end(end).build()
+          : new LocalDateTimeEvent(new EventId(UUID.randomUUID()), "Meeting", start, end);
+    }
+    footprint.bytesPerEvent = (double) (usedHeap() - before) / events;
+    return kept;
+  }
+
+  /**
+   * Returns the used heap once full GCs stop reclaiming anything.
+   */
+  private static long usedHeap() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long now = memory.getHeapMemoryUsage().getUsed();
+      if (now >= used) {
+        break;
+      }
+      used = now;
+    }
+    return used;
+  }
+
+  /**
+   * The fields of an {@link Event} with its times as LocalDateTimes.
+   */
+  private static final class LocalDateTimeEvent {
+    final EventId id;
+    final String subject;
+    final LocalDateTime start;
+    final LocalDateTime end;
+    final String description = "";
+    final String location = "";
+    final Status status = Status.PUBLIC;
+
+    LocalDateTimeEvent(EventId id, String subject, LocalDateTime start, LocalDateTime end) {
+      this.id = id;
+      this.subject = subject;
+      this.start = start;
+      this.end = end;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package calendar.bench;
+
+import calendar.controller.CalendarControllerImpl;
+import calendar.controller.ParallelHeadless;
+import calendar.model.CalendarManager;
+import calendar.model.config.CalendarSettings;
+import calendar.view.CalendarViewImpl;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wall-clock time of a headless script that interleaves work on several calendars.
+ *
+ * <p>The script creates {@code calendars} calendars and then {@code lines} timed creates,
+ * switching calendar with {@code use calendar} every 50 lines, as a generated batch script
+ * does. {@code serial} runs it through the controller loop; {@code parallel} runs it through
+ * {@link ParallelHeadless} with one worker per available processor. With at least as many
+ * cores as calendars, {@code serial / parallel} should approach {@code calendars}; at
+ * {@code calendars = 1} the two should be about equal, which shows the cost of splitting the
+ * script into streams.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class ParallelHeadlessBenchmark {
+  @Param({"1", "4", "8"})
+  public int calendars;
+
+  @Param({"400000"})
+  public int lines;
+
+  private final CalendarSettings settings = CalendarSettings.defaults();
+  private String script;
+
+  /**
+   * Builds the script.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    StringBuilder sb = new StringBuilder(lines * 64);
+    for (int c = 0; c < calendars; c++) {
+      sb.append("create calendar --name c").append(c).append(" --timezone America/New_York\n");
+    }
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < lines; i++) {
+      if (i % 50 == 0) {
+        sb.append("use calendar --name c").append((i / 50) % calendars).append('\n');
+      }
+      LocalDateTime start = base.plusMinutes(30L * (i % 17_520));
+      sb.append("create event E").append(i).append(" from ").append(start)
+          .append(" to ").append(start.plusMinutes(30)).append('\n');
+    }
+    sb.append("exit\n");
+    script = sb.toString();
+  }
+
+  /**
+   * Runs the script through the serial controller loop.
+   */
+  @Benchmark
+  public int serial() throws IOException {
+    StringBuilder out = new StringBuilder();
+    new CalendarControllerImpl(new StringReader(script), out, settings, new CalendarManager())
+        .go(new CalendarViewImpl(out));
+    return out.length();
+  }
+
+  /**
+   * Runs the script with each calendar's commands on a worker.
+   */
+  @Benchmark
+  public int parallel() throws IOException {
+    StringBuilder out = new StringBuilder();
+    new ParallelHeadless(settings, new CalendarManager(),
+        Runtime.getRuntime().availableProcessors()).run(new StringReader(script), out);
+    return out.length();
+  }
+}
@@ -0,0 +1,86 @@
+package calendar.bench;
+
+import calendar.model.domain.Event;
+import calendar.view.BatchedOutput;
+import calendar.view.CalendarViewImpl;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to print a long event listing through {@link CalendarViewImpl}.
+ *
+ * <p>Both benchmarks print {@code events} events with {@code printEventsFromTo} to a
+ * {@link PrintStream} that discards its bytes, so the score is the cost of formatting and of
+ * getting the text into the stream, not of a terminal. {@code direct} writes to the stream as
+ * the headless runner did before; {@code batched} goes through {@link BatchedOutput#async} as
+ * it does now. The two should be close: the view already hands the stream one large chunk at a
+ * time, and the writer thread only pays off when the sink itself is slow.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ViewOutputBenchmark {
+  @Param({"1000000"})
+  public int events;
+
+  private final LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+  private List<Event> listing;
+  private PrintStream sink;
+
+  /**
+   * Builds the events and the discarding stream.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    listing = new ArrayList<>(events);
+    for (int i = 0; i < events; i++) {
+      LocalDateTime start = from.plusMinutes(30L * i);
+      Event.Builder b = new Event.Builder()
+          .subject("Event " + i).start(start).end(start.plusMinutes(25));
+      if (i % 2 == 0) {
+        b.location("Room " + i % 40);
+      }
+      listing.add(b.build());
+    }
+    sink = new PrintStream(OutputStream.nullOutputStream(), false);
+  }
+
+  /**
+   * Prints straight to the stream.
+   */
+  @Benchmark
+  public void direct() {
+    new CalendarViewImpl(sink).printEventsFromTo(from, from.plusYears(100), listing);
+    sink.flush();
+  }
+
+  /**
+   * Prints through an asynchronous batched output, closed at the end of the command.
+   */
+  @Benchmark
+  public void batched() throws IOException {
+    try (BatchedOutput out = BatchedOutput.async(sink, BatchedOutput.DEFAULT_BLOCK_CHARS)) {
+      CalendarViewImpl view = new CalendarViewImpl(out);
+      view.printEventsFromTo(from, from.plusYears(100), listing);
+      view.endCommand();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package calendar.bench;
+
+import calendar.model.CalendarManager;
+import calendar.model.DefaultCalendarFactory;
+import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.api.EventDraft;
+import calendar.model.wal.Journal;
+import calendar.model.wal.WalOptions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup cost of a {@link Journal}: the time to replay a log of {@code records} mutations
+ * back into a {@link CalendarManager}.
+ *
+ * <p>The log is written once per trial, with fsync switched off since only its contents
+ * matter, and spreads one-hour events over {@code CALENDARS} calendars. With
+ * {@code snapshot} set, the trial ends by snapshotting the journal, so recovery reads the
+ * snapshot and an empty log tail instead of replaying every record. Each measured iteration
+ * is one cold open, so the score is the recovery time.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class WalRecoveryBenchmark {
+  private static final int CALENDARS = 16;
+
+  @Param({"1000000"})
+  public int records;
+
+  @Param({"false", "true"})
+  public boolean snapshot;
+
+  private Path dir;
+  private Path file;
+
+  /**
+   * Writes the log to recover.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("wal-bench");
+    file = dir.resolve("calendar.log");
+    try (Journal journal = Journal.open(file, WalOptions.defaults().withSyncEvery(0),
+        new DefaultCalendarFactory())) {
+      CalendarManager manager = journal.manager();
+      TimeZoneInMemoryCalendarInterface[] calendars =
+          new TimeZoneInMemoryCalendarInterface[CALENDARS];
+      for (int c = 0; c < CALENDARS; c++) {
+        calendars[c] = manager.createCalendar("Calendar " + c, "America/New_York");
+      }
+      LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+      for (int i = CALENDARS; i < records; i++) {
+        LocalDateTime start = base.plusHours(i / CALENDARS);
+        EventDraft d = new EventDraft();
+        d.subject = "Event " + i;
+        d.start = Optional.of(start);
+        d.end = Optional.of(start.plusHours(1));
+        d.location = Optional.of("Room " + (i % 50));
+        calendars[i % CALENDARS].create(d);
+      }
+      if (snapshot) {
+        journal.snapshot();
+      }
+    }
+  }
+
+  /**
+   * Deletes the log and its snapshot.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(dir.resolve("calendar.log.snapshot"));
+    Files.deleteIfExists(dir);
+  }
+
+  /**
+   * Opens the journal, restoring the snapshot if any and replaying the log after it.
+   */
+  @Benchmark
+  public long recover() throws IOException {
+    try (Journal journal = Journal.open(file, WalOptions.defaults(),
+        new DefaultCalendarFactory())) {
+      return journal.recovered();
+    }
+  }
+}
@@ -1,67 +1,113 @@
 import calendar.controller.CalendarController;
 import calendar.controller.CalendarControllerImpl;
 import calendar.controller.CalendarGuiController;
+import calendar.controller.HeadlessPipeline;
+import calendar.controller.ParallelHeadless;
 import calendar.model.CalendarManager;
+import calendar.model.DefaultCalendarFactory;
 import calendar.model.GuiCalendar;
 import calendar.model.TimeZoneInMemoryCalendarInterface;
 import calendar.model.api.CalendarApi;
 import calendar.model.config.CalendarSettings;
 import calendar.model.internal.InMemoryCalendar;
+import calendar.model.wal.Journal;
+import calendar.model.wal.WalOptions;
+import calendar.view.BatchedOutput;
 import calendar.view.CalendarGuiView;
 import calendar.view.CalendarView;
 import calendar.view.CalendarViewImpl;
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 
 /**
  * Program runner.
  */
 public class CalendarRunner {
+  /** Logged changes between background snapshots of a {@code --wal} journal. */
+  private static final long SNAPSHOT_EVERY = 100_000;
+
   /**
    * Main entry point for the calendar app.
    *
    * @param args command line arguments:
    *             (--mode interactive)
-   *             (--mode headless commands.txt).
+   *             (--mode headless commands.txt),
+   *             (--mode headless-pipelined commands.txt) to read, run and print the
+   *             commands on separate threads,
+   *             (--mode headless-parallel commands.txt) to run different calendars'
+   *             commands concurrently,
+   *             optionally preceded by (--wal calendar.log) to keep calendars in a
+   *             write-ahead log across runs; the log is snapshotted and truncated as
+   *             it grows.
    */
   public static void main(String[] args) {
     CalendarSettings settings = CalendarSettings.defaults();
     CalendarApi model = new InMemoryCalendar(settings);
+    List<String> rest = new ArrayList<>(args == null ? List.of() : Arrays.asList(args));
+    Journal journal = null;
+    CalendarManager calendarManager = null;
 
     try {
-      if (args == null || args.length == 0) {
-        runGui(settings);
+      if (rest.size() >= 2 && "--wal".equalsIgnoreCase(rest.get(0))) {
+        journal = Journal.open(Paths.get(rest.get(1)),
+            WalOptions.defaults().withSnapshotEvery(SNAPSHOT_EVERY),
+            new DefaultCalendarFactory(settings));
+        rest = rest.subList(2, rest.size());
+      }
+      calendarManager = journal != null ? journal.manager() : new CalendarManager();
+      args = rest.toArray(new String[0]);
+
+      if (args.length == 0) {
+        runGui(settings, calendarManager, journal != null ? journal : calendarManager);
         return;
       }
 
       if (args.length >= 2 && "--mode".equalsIgnoreCase(args[0])) {
         String mode = args[1].toLowerCase(Locale.ROOT);
         if (mode.equals("interactive")) {
-          runInteractive(model, settings);
+          runInteractive(model, settings, calendarManager);
           return;
-        } else if (mode.equals("headless")) {
+        } else if (mode.equals("headless") || mode.equals("headless-pipelined")
+            || mode.equals("headless-parallel")) {
           if (args.length < 3) {
             System.err.println("Missing file path for headless mode.");
             return;
           }
-          runHeadless(model, settings, args[2]);
+          if (mode.equals("headless")) {
+            runHeadless(model, settings, calendarManager, args[2]);
+          } else if (mode.equals("headless-pipelined")) {
+            runHeadlessPipelined(settings, calendarManager, args[2]);
+          } else {
+            runHeadlessParallel(settings, calendarManager, args[2]);
+          }
           return;
         } else {
           System.err.println("Invalid mode: " + args[1]);
-          System.err.println("Valid options are: interactive, headless");
+          System.err.println(
+              "Valid options are: interactive, headless, headless-pipelined, headless-parallel");
           return;
         }
       }
 
-      runInteractive(model, settings);
-    } catch (IOException e) {
+      runInteractive(model, settings, calendarManager);
+    } catch (IOException | UncheckedIOException e) {
       System.err.println("Error: " + e.getMessage());
+    } finally {
+      if (args.length > 0) {
+        close(journal != null ? journal : calendarManager);
+      }
     }
   }
 
@@ -71,17 +117,20 @@ public class CalendarRunner {
    *
    * @param model    the calendar model used by the interactive session
    * @param settings configuration for the session's behavior and display
+   * @param calendarManager the calendars the session works on
    * @throws IOException if an I/O error occurs while reading from standard input
    *                     or writing to standard output
    */
-  private static void runInteractive(CalendarApi model, CalendarSettings settings)
+  private static void runInteractive(CalendarApi model, CalendarSettings settings,
+                                     CalendarManager calendarManager)
       throws IOException {
     CalendarView view = new CalendarViewImpl(System.out);
     CalendarController controller =
         new CalendarControllerImpl(
             new InputStreamReader(System.in),
             System.out,
-            settings);
+            settings,
+            calendarManager);
     controller.go(view);
   }
 
@@ -89,16 +138,22 @@ public class CalendarRunner {
    * Runs the calendar app with a GUI.
    *
    * @param settings configuration for the session's behavior and display
+   * @param calendarManager the calendars the GUI works on
+   * @param resources the log behind {@code calendarManager}, or the manager itself, closed at
+   *                  shutdown
    * @throws IOException error.
    */
-  private static void runGui(CalendarSettings settings)
+  private static void runGui(CalendarSettings settings, CalendarManager calendarManager,
+                             Closeable resources)
       throws IOException {
     CalendarGuiView view = new CalendarGuiView();
 
-    CalendarManager calendarManager = new CalendarManager();
     ZoneId systemZone = ZoneId.systemDefault();
-    TimeZoneInMemoryCalendarInterface inUseCalendar = calendarManager.createCalendar(
-        "Default Calendar", systemZone.toString());
+    TimeZoneInMemoryCalendarInterface inUseCalendar =
+        calendarManager.hasCalendar("Default Calendar")
+            ? calendarManager.getCalendar("Default Calendar")
+            : calendarManager.createCalendar("Default Calendar", systemZone.toString());
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> close(resources)));
     GuiCalendar guiCalendar = new GuiCalendar(inUseCalendar);
 
     CalendarGuiController controller = new CalendarGuiController(settings,
@@ -111,14 +166,18 @@ public class CalendarRunner {
    * Execute the calendar in headless mode by reading commands from the given file.
    * Attempts to open and process the file at {@code filePath} with a controller connected
    * to {@code settings} and standard output; prints an error and returns if the file
-   * does not exist or if the file does not end with an "exit" command.
+   * does not exist or if the file does not end with an "exit" command. Output is batched
+   * and written on a separate thread; interactive mode writes directly so that prompts
+   * appear before it waits for input.
    *
    * @param model the calendar model (unused by this method but provided for symmetry)
    * @param settings runtime settings used to construct the controller
+   * @param calendarManager the calendars the commands work on
    * @param filePath path to the commands file to execute
    * @throws IOException if an I/O error occurs while reading the commands file or writing output
    */
-  private static void runHeadless(CalendarApi model, CalendarSettings settings, String filePath)
+  private static void runHeadless(CalendarApi model, CalendarSettings settings,
+                                  CalendarManager calendarManager, String filePath)
       throws IOException {
     File file = new File(filePath);
     if (!file.exists()) {
@@ -126,19 +185,97 @@ public class CalendarRunner {
       return;
     }
 
-    try (Reader reader = new FileReader(file)) {
-      CalendarView view = new CalendarViewImpl(System.out);
+    try (Reader reader = new FileReader(file);
+         BatchedOutput out = BatchedOutput.async(System.out, BatchedOutput.DEFAULT_BLOCK_CHARS)) {
+      CalendarView view = new CalendarViewImpl(out);
       CalendarController controller =
           new CalendarControllerImpl(
               reader,
-              System.out,
-              settings);
+              out,
+              settings,
+              calendarManager);
 
       controller.go(view);
+    }
 
-      if (!fileContainsExit(file)) {
-        System.err.println("Error: Command file ended without an 'exit' command.");
-      }
+    if (!fileContainsExit(file)) {
+      System.err.println("Error: Command file ended without an 'exit' command.");
+    }
+  }
+
+  /**
+   * Execute the calendar in headless mode with reading, running and printing on separate
+   * threads. Output and error messages are the same as {@link #runHeadless}, and the check for
+   * a final "exit" command is made while the file is read, not by reading it again.
+   *
+   * @param settings runtime settings used to construct the controller
+   * @param calendarManager the calendars the commands work on
+   * @param filePath path to the commands file to execute
+   * @throws IOException if an I/O error occurs while reading the commands file or writing output
+   */
+  private static void runHeadlessPipelined(CalendarSettings settings,
+                                           CalendarManager calendarManager, String filePath)
+      throws IOException {
+    File file = new File(filePath);
+    if (!file.exists()) {
+      System.err.println("Commands file not found: " + filePath);
+      return;
+    }
+
+    boolean endsWithExit;
+    try (Reader script = new FileReader(file)) {
+      endsWithExit = new HeadlessPipeline(settings, calendarManager).run(script, System.out);
+    }
+    if (!endsWithExit) {
+      System.err.println("Error: Command file ended without an 'exit' command.");
+    }
+  }
+
+  /**
+   * Execute the calendar in headless mode with the commands of different calendars running
+   * concurrently, one worker per available processor. Output and error messages are the same
+   * as {@link #runHeadless}.
+   *
+   * @param settings runtime settings used to construct the controllers
+   * @param calendarManager the calendars the commands work on
+   * @param filePath path to the commands file to execute
+   * @throws IOException if an I/O error occurs while reading the commands file or writing output
+   */
+  private static void runHeadlessParallel(CalendarSettings settings,
+                                          CalendarManager calendarManager, String filePath)
+      throws IOException {
+    File file = new File(filePath);
+    if (!file.exists()) {
+      System.err.println("Commands file not found: " + filePath);
+      return;
+    }
+
+    boolean endsWithExit;
+    try (Reader script = new FileReader(file);
+         BatchedOutput out =
+             BatchedOutput.async(System.out, BatchedOutput.DEFAULT_BLOCK_CHARS)) {
+      endsWithExit = new ParallelHeadless(settings, calendarManager,
+          Runtime.getRuntime().availableProcessors()).run(script, out);
+    }
+    if (!endsWithExit) {
+      System.err.println("Error: Command file ended without an 'exit' command.");
+    }
+  }
+
+  /**
+   * Closes the journal or calendar manager, syncing anything logged or stored since the last
+   * sync. Does nothing if it was never opened.
+   *
+   * @param resources the journal or manager to close; may be null.
+   */
+  private static void close(Closeable resources) {
+    if (resources == null) {
+      return;
+    }
+    try {
+      resources.close();
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
     }
   }
 
@@ -1,20 +1,27 @@
 package calendar.controller;
 
 import static calendar.controller.CommandPatterns.EXPORT;
+import static calendar.controller.CommandPatterns.IMPORT;
 import static calendar.controller.CommandPatterns.SHOW_STATUS_ON;
 import static calendar.controller.service.CommandTokenizer.tokenize;
 
 import calendar.controller.commands.CommandHandler;
+import calendar.controller.commands.CommandTrie;
 import calendar.controller.commands.HandleEvents;
 import calendar.controller.service.CalendarFormService;
 import calendar.controller.service.EventCreationRequest;
 import calendar.controller.service.EventEditRequest;
 import calendar.export.CalendarExporter;
+import calendar.export.CalendarImporter;
 import calendar.export.CsvExporter;
+import calendar.export.CsvImporter;
 import calendar.export.IcalExporter;
+import calendar.export.IcalImporter;
+import calendar.export.ImportReport;
 import calendar.model.CalendarManager;
 import calendar.model.TimeZoneInMemoryCalendarInterface;
 import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
 import calendar.model.api.EditScope;
 import calendar.model.config.CalendarSettings;
 import calendar.model.domain.BusyStatus;
@@ -27,10 +34,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
 
@@ -42,10 +48,16 @@ public class CalendarControllerImpl implements CalendarController {
   private final Appendable output;
   private final CalendarExporter csvExporter;
   private final CalendarExporter icalExporter;
+  private final CalendarImporter csvImporter;
+  private final CalendarImporter icalImporter;
   private final CalendarManager calendarManager;
   private final CalendarFormService formService;
-  private final Map<String, CommandHandler> commandHandlers = new HashMap<>();
+  private final CommandTrie commandHandlers = new CommandTrie();
+  private CommandHandler createHandler;
+  private CommandHandler editHandler;
   private TimeZoneInMemoryCalendarInterface inUseCalendar = null;
+  private PreparedCommand executing;
+  static final String PROMPT = "Enter a command: ";
   private static final String ERROR_NO_CALENDAR =
       "Error: No calendar selected.";
 
@@ -63,32 +75,43 @@ public class CalendarControllerImpl implements CalendarController {
    * Creates a controller that shares {@link CalendarSettings} with the model/exporters.
    */
   public CalendarControllerImpl(Readable input, Appendable output, CalendarSettings settings) {
+    this(input, output, settings, new CalendarManager());
+  }
+
+  /**
+   * Creates a controller over an existing {@link CalendarManager}, such as one recovered from a
+   * write-ahead log.
+   */
+  public CalendarControllerImpl(Readable input, Appendable output, CalendarSettings settings,
+                                CalendarManager calendarManager) {
     this.input = Objects.requireNonNull(input, "input");
     this.output = Objects.requireNonNull(output, "output");
     CalendarSettings sharedSettings = Objects.requireNonNull(settings, "settings");
     this.csvExporter = new CsvExporter(sharedSettings);
     this.icalExporter = new IcalExporter(sharedSettings);
-    this.calendarManager = new CalendarManager();
+    this.csvImporter = new CsvImporter(sharedSettings);
+    this.icalImporter = new IcalImporter(sharedSettings);
+    this.calendarManager = Objects.requireNonNull(calendarManager, "calendarManager");
     this.formService = new CalendarFormService();
   }
 
   /**
-   * Registers the controller's text command handlers into the commandHandlers map.
+   * Registers the controller's text command handlers into the commandHandlers trie.
    *
    * <p>The registered handlers parse and dispatch user command lines for creating, editing,
-   * printing, exporting, and managing calendars; handlers that require an active calendar will
-   * print an error if no calendar is selected. The "use calendar" handler updates the
-   * controller's active calendar when a calendar is successfully selected.
+   * printing, exporting, importing, and managing calendars; handlers that require an active
+   * calendar will print an error if no calendar is selected. The "use calendar" handler updates
+   * the controller's active calendar when a calendar is successfully selected.
    */
   public void registerCommands() {
-    commandHandlers.put("create event", (line, view) -> guardWithActiveCalendar(view,
-        () -> handleCreateEvent(line, inUseCalendar, view)));
-
-    commandHandlers.put("edit", (line, view) -> guardWithActiveCalendar(view,
-        () -> handleEditEvent(line, inUseCalendar, view)));
+    createHandler = (line, view) -> guardWithActiveCalendar(view,
+        () -> handleCreateEvent(line, inUseCalendar, view));
+    commandHandlers.put("create event", createHandler);
 
-    commandHandlers.put("edit event", (line, view) -> guardWithActiveCalendar(view,
-        () -> handleEditEvent(line, inUseCalendar, view)));
+    editHandler = (line, view) -> guardWithActiveCalendar(view,
+        () -> handleEditEvent(line, inUseCalendar, view));
+    commandHandlers.put("edit", editHandler);
+    commandHandlers.put("edit event", editHandler);
 
     commandHandlers.put("print", (line, view) -> guardWithActiveCalendar(view,
         () -> HandleEvents.handlePrintEvent(line, view, calendarManager)));
@@ -99,6 +122,9 @@ public class CalendarControllerImpl implements CalendarController {
     commandHandlers.put("export cal", (line, view) -> guardWithActiveCalendar(view,
         () -> handleExport(line, inUseCalendar, view)));
 
+    commandHandlers.put("import cal", (line, view) -> guardWithActiveCalendar(view,
+        () -> handleImport(line, inUseCalendar, view)));
+
     commandHandlers.put("create calendar", (line, view) ->
         HandleEvents.handleCreateCalendarEvent(line, calendarManager, view)
     );
@@ -146,44 +172,123 @@ public class CalendarControllerImpl implements CalendarController {
   public void go(CalendarView view) throws IOException {
     Objects.requireNonNull(view, "view");
 
-    output.append("Welcome to Calendar. Type 'exit' to quit.");
-    output.append(System.lineSeparator());
-
-    registerCommands();
+    start();
 
     Scanner scan = new Scanner(this.input);
     while (true) {
-      output.append("Enter a command: ");
+      output.append(PROMPT);
       if (!scan.hasNextLine()) {
         return;
       }
-
-      String line = scan.nextLine().trim();
-
-      if (line.equals("exit")) {
+      if (!execute(prepare(scan.nextLine()), view)) {
         return;
       }
+    }
+  }
 
-      Map.Entry<String, CommandHandler> bestMatch = null;
-      for (Map.Entry<String, CommandHandler> entry : commandHandlers.entrySet()) {
-        String key = entry.getKey();
-        if (line.startsWith(key)) {
-          if (bestMatch == null || key.length() > bestMatch.getKey().length()) {
-            bestMatch = entry;
-          }
-        }
+  /**
+   * Writes the welcome line and registers the command handlers; called once before the first
+   * {@link #prepare}.
+   */
+  void start() throws IOException {
+    output.append("Welcome to Calendar. Type 'exit' to quit.");
+    output.append(System.lineSeparator());
+
+    registerCommands();
+  }
+
+  /**
+   * Does the part of handling {@code rawLine} that reads no calendar state: trims it, routes
+   * it, and parses create and edit commands. Safe to call from another thread once
+   * {@link #start} has returned, since it only reads the handler trie and the stateless
+   * parsers.
+   *
+   * @param rawLine line as read
+   * @return the prepared command
+   */
+  PreparedCommand prepare(String rawLine) {
+    String line = rawLine.trim();
+    if (line.equals("exit")) {
+      return new PreparedCommand(line, null, null, null);
+    }
+    String keyword = commandHandlers.keywordOf(line);
+    CommandHandler handler = keyword == null ? null : commandHandlers.lookup(keyword);
+    Object request = null;
+    RuntimeException failure = null;
+    try {
+      if (handler == createHandler) {
+        request = formService.parseCreateEventCommand(line);
+      } else if (handler == editHandler) {
+        request = formService.parseEditEventCommand(line);
       }
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+    return new PreparedCommand(line, keyword, request, failure);
+  }
 
-      if (bestMatch != null) {
-        try {
-          bestMatch.getValue().handle(line, view);
-        } catch (IOException e) {
-          safePrintMessage(view, "Error: " + e.getMessage());
-        }
-      } else {
-        safePrintMessage(view, "Error: Invalid command");
+  /**
+   * Runs a prepared command against the current calendars, then tells the view the command's
+   * output is complete.
+   *
+   * @param command command from {@link #prepare}
+   * @param view the CalendarView used to display command output
+   * @return false if the command ends the session
+   */
+  boolean execute(PreparedCommand command, CalendarView view) {
+    if (command.isExit()) {
+      return false;
+    }
+    CommandHandler handler = command.keyword == null ? null
+        : commandHandlers.lookup(command.keyword);
+    if (handler == null) {
+      safePrintMessage(view, "Error: Invalid command");
+    } else {
+      executing = command;
+      try {
+        handler.handle(command.line, view);
+      } catch (IOException e) {
+        safePrintMessage(view, "Error: " + e.getMessage());
+      } finally {
+        executing = null;
       }
     }
+    try {
+      view.endCommand();
+    } catch (IOException e) {
+      safePrintMessage(view, "Error: " + e.getMessage());
+    }
+    return true;
+  }
+
+  /**
+   * The calendar commands currently work on, or null if none has been selected.
+   */
+  TimeZoneInMemoryCalendarInterface activeCalendar() {
+    return inUseCalendar;
+  }
+
+  /**
+   * Makes {@code calendar} the one commands work on, as a successful {@code use calendar}
+   * would, without printing anything.
+   */
+  void useCalendar(TimeZoneInMemoryCalendarInterface calendar) {
+    inUseCalendar = calendar;
+  }
+
+  /**
+   * Returns the request {@link #prepare} parsed for the command being executed, parsing
+   * {@code input} now if there is none.
+   */
+  private <T> T preparedRequest(Class<T> type, String input) {
+    PreparedCommand command = executing;
+    T request = command != null && command.line.equals(input) ? command.request(type) : null;
+    if (request != null) {
+      return request;
+    }
+    return type == EventCreationRequest.class
+        ? type.cast(formService.parseCreateEventCommand(input.trim()))
+        : type.cast(formService.parseEditEventCommand(input.trim()));
   }
 
   /**
@@ -213,7 +318,7 @@ public class CalendarControllerImpl implements CalendarController {
   private void handleCreateEvent(String input, CalendarApi calendar, CalendarView view)
       throws IOException {
     try {
-      EventCreationRequest request = formService.parseCreateEventCommand(input.trim());
+      EventCreationRequest request = preparedRequest(EventCreationRequest.class, input);
       formService.applyCreateEvent(request, calendar);
       safePrintMessage(view, "Event created successfully.");
     } catch (ValidationException e) {
@@ -237,7 +342,7 @@ public class CalendarControllerImpl implements CalendarController {
   private void handleEditEvent(String input, CalendarApi calendar, CalendarView view)
       throws IOException {
     try {
-      EventEditRequest request = formService.parseEditEventCommand(input.trim());
+      EventEditRequest request = preparedRequest(EventEditRequest.class, input);
       formService.applyEditEvent(request, calendar);
       String successMessage = request.scope() == EditScope.SINGLE
           ? "Event updated successfully."
@@ -266,7 +371,7 @@ public class CalendarControllerImpl implements CalendarController {
    */
   private void handleShowStatus(String input, CalendarApi calendar, CalendarView view)
       throws IOException {
-    if (input.trim().matches(SHOW_STATUS_ON)) {
+    if (SHOW_STATUS_ON.matcher(input.trim()).matches()) {
       String[] parts = tokenize(input);
       LocalDateTime dateString = LocalDateTime.parse(parts[3]);
 
@@ -291,14 +396,13 @@ public class CalendarControllerImpl implements CalendarController {
    */
   private void handleExport(String input, CalendarApi calendar, CalendarView view)
       throws IOException {
-    if (input.trim().matches(EXPORT)) {
+    if (EXPORT.matcher(input.trim()).matches()) {
       String[] parts = tokenize(input);
       String fileName = parts[2];
 
       try {
         Path targetPath = Path.of(fileName);
-        List<Event> events = calendar.allEvents();
-        Path exportedFile = exportByExtension(targetPath, events);
+        Path exportedFile = exportByExtension(targetPath, calendar);
 
         try {
           view.printMessage("Exported calendar to: " + exportedFile.toAbsolutePath());
@@ -331,6 +435,36 @@ public class CalendarControllerImpl implements CalendarController {
     }
   }
 
+  /**
+   * Handles the import command by reading events from a file into the provided calendar.
+   * Reports how many entries were imported and rejected, then one line per kept problem. A
+   * file that cannot be read, or whose format is unknown, is reported as an error and imports
+   * nothing further.
+   *
+   * @param input    the raw command input expected to match the IMPORT pattern
+   * @param calendar the calendar receiving the events
+   * @param view     the view used to display the outcome
+   */
+  private void handleImport(String input, CalendarApi calendar, CalendarView view) {
+    if (!IMPORT.matcher(input.trim()).matches()) {
+      safePrintMessage(view, "Error: Invalid import command format.");
+      return;
+    }
+    Path sourcePath = Path.of(tokenize(input)[2]);
+    ImportReport report;
+    try {
+      report = importByExtension(sourcePath, calendar);
+    } catch (RuntimeException e) {
+      safePrintMessage(view, "Error: Failed to import calendar: " + e.getMessage());
+      return;
+    }
+    safePrintMessage(view, "Imported calendar from: " + sourcePath.toAbsolutePath() + " ("
+        + report.imported() + " imported, " + report.rejected() + " rejected)");
+    for (ImportReport.Problem problem : report.problems()) {
+      safePrintMessage(view, "  " + problem);
+    }
+  }
+
   /**
    * Exports via extension.
    *
@@ -340,13 +474,75 @@ public class CalendarControllerImpl implements CalendarController {
    * @return path to file.
    */
   public Path exportByExtension(Path targetPath, List<Event> events) {
+    return exportByExtension(targetPath, events.iterator());
+  }
+
+  /**
+   * Exports a snapshot via extension; iCalendar files write each series once, with its
+   * recurrence rule.
+   *
+   * @param targetPath target.
+   * @param snapshot calendar contents to write.
+   *
+   * @return path to file.
+   */
+  public Path exportByExtension(Path targetPath, CalendarSnapshot snapshot) {
+    if (isIcal(targetPath)) {
+      return icalExporter.export(targetPath, snapshot.eventsInOrder(),
+          snapshot.seriesMembership());
+    }
+    return exportByExtension(targetPath, snapshot.eventsInOrder());
+  }
+
+  /**
+   * Exports a live calendar via extension. CSV rows are streamed from
+   * {@link CalendarApi#eventsInOrder} as they are read; iCalendar files need series membership
+   * to agree with the events, so they are written from one snapshot.
+   *
+   * @param targetPath target.
+   * @param calendar calendar to write.
+   *
+   * @return path to file.
+   */
+  public Path exportByExtension(Path targetPath, CalendarApi calendar) {
+    if (isIcal(targetPath)) {
+      return exportByExtension(targetPath, calendar.snapshot());
+    }
+    return exportByExtension(targetPath, calendar.eventsInOrder());
+  }
+
+  private Path exportByExtension(Path targetPath, Iterator<Event> events) {
     String lowerName = targetPath.getFileName().toString().toLowerCase(Locale.ROOT);
     if (lowerName.endsWith(".csv")) {
       return csvExporter.export(targetPath, events);
-    } else if (lowerName.endsWith(".ics") || lowerName.endsWith(".ical")) {
+    } else if (isIcal(targetPath)) {
       return icalExporter.export(targetPath, events);
     }
     throw new IllegalArgumentException("Unsupported export format: " + targetPath);
   }
 
+  private static boolean isIcal(Path targetPath) {
+    String lowerName = targetPath.getFileName().toString().toLowerCase(Locale.ROOT);
+    return lowerName.endsWith(".ics") || lowerName.endsWith(".ical");
+  }
+
+  /**
+   * Imports via extension: {@code .csv} files with {@link CsvImporter}, {@code .ics} and
+   * {@code .ical} files with {@link IcalImporter}.
+   *
+   * @param sourcePath file to read.
+   * @param calendar calendar receiving the events.
+   *
+   * @return what was imported and rejected.
+   */
+  public ImportReport importByExtension(Path sourcePath, CalendarApi calendar) {
+    String lowerName = sourcePath.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (lowerName.endsWith(".csv")) {
+      return csvImporter.importInto(sourcePath, calendar);
+    } else if (lowerName.endsWith(".ics") || lowerName.endsWith(".ical")) {
+      return icalImporter.importInto(sourcePath, calendar);
+    }
+    throw new IllegalArgumentException("Unsupported import format: " + sourcePath);
+  }
+
 }
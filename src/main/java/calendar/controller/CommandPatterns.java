@@ -1,7 +1,13 @@
 package calendar.controller;
 
+import java.util.regex.Pattern;
+
 /**
  * The regex patterns for matching with user input for validation.
+ *
+ * <p>The building blocks ({@link #DATE_TIME}, {@link #SUBJECT}, ...) are regex source strings
+ * so they can be combined. Whole-command patterns are compiled once here: matching a line
+ * with {@code String.matches} recompiled the regex on every call, several times per line.</p>
  */
 public class CommandPatterns {
   public static final String DATE_TIME = "\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}";
@@ -12,53 +18,57 @@ public class CommandPatterns {
   public static final String PROPERTY = "(subject|start|end|location|description|status)";
 
   // Create commands
-  public static final String CREATE_SINGLE =
-      "^create event " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME + "$";
+  public static final Pattern CREATE_SINGLE =
+      Pattern.compile("^create event " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME
+          + "$");
 
-  public static final String CREATE_REPEAT_N =
-      "create event " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME
-          + " repeats " + WEEKDAYS + " for \\d+ times";
+  public static final Pattern CREATE_REPEAT_N =
+      Pattern.compile("create event " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME
+          + " repeats " + WEEKDAYS + " for \\d+ times");
 
-  public static final String CREATE_REPEAT_UNTIL =
-      "create event " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME
-          + " repeats " + WEEKDAYS + " until " + DATE_ONLY;
+  public static final Pattern CREATE_REPEAT_UNTIL =
+      Pattern.compile("create event " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME
+          + " repeats " + WEEKDAYS + " until " + DATE_ONLY);
 
-  public static final String CREATE_ALLDAY =
-      "create event " + SUBJECT + " on " + DATE_ONLY;
+  public static final Pattern CREATE_ALLDAY =
+      Pattern.compile("create event " + SUBJECT + " on " + DATE_ONLY);
 
-  public static final String CREATE_ALLDAY_REPEAT_N =
-      "create event " + SUBJECT + " on " + DATE_ONLY
-          + " repeats " + WEEKDAYS + " for \\d+ times";
+  public static final Pattern CREATE_ALLDAY_REPEAT_N =
+      Pattern.compile("create event " + SUBJECT + " on " + DATE_ONLY
+          + " repeats " + WEEKDAYS + " for \\d+ times");
 
-  public static final String CREATE_ALLDAY_REPEAT_UNTIL =
-      "create event " + SUBJECT + " on " + DATE_ONLY
-          + " repeats " + WEEKDAYS + " until " + DATE_ONLY;
+  public static final Pattern CREATE_ALLDAY_REPEAT_UNTIL =
+      Pattern.compile("create event " + SUBJECT + " on " + DATE_ONLY
+          + " repeats " + WEEKDAYS + " until " + DATE_ONLY);
 
   // Edit commands
-  public static final String EDIT_SINGLE =
-      "^edit event " + PROPERTY + " " + SUBJECT + " from " + DATE_TIME + " to " + DATE_TIME
-          + " with " + VALUE + "$";
+  public static final Pattern EDIT_SINGLE =
+      Pattern.compile("^edit event " + PROPERTY + " " + SUBJECT + " from " + DATE_TIME
+          + " to " + DATE_TIME + " with " + VALUE + "$");
 
-  public static final String EDIT_EVENTS =
-      "^edit events " + PROPERTY + " " + SUBJECT + " from " + DATE_TIME
-          + " with " + VALUE + "$";
+  public static final Pattern EDIT_EVENTS =
+      Pattern.compile("^edit events " + PROPERTY + " " + SUBJECT + " from " + DATE_TIME
+          + " with " + VALUE + "$");
 
-  public static final String EDIT_SERIES =
-      "^edit series " + PROPERTY + " " + SUBJECT + " from " + DATE_TIME
-          + " with " + VALUE + "$";
+  public static final Pattern EDIT_SERIES =
+      Pattern.compile("^edit series " + PROPERTY + " " + SUBJECT + " from " + DATE_TIME
+          + " with " + VALUE + "$");
 
   // Print commands
-  public static final String PRINT_ON =
-      "^print events on " + DATE_ONLY + "$";
+  public static final Pattern PRINT_ON =
+      Pattern.compile("^print events on " + DATE_ONLY + "$");
+
+  public static final Pattern PRINT_FROM_TO =
+      Pattern.compile("^print events from " + DATE_TIME + " to " + DATE_TIME + "$");
 
-  public static final String PRINT_FROM_TO =
-      "^print events from " + DATE_TIME + " to " + DATE_TIME + "$";
+  public static final Pattern EXPORT =
+      Pattern.compile("^export cal \\S+$");
 
-  public static final String EXPORT =
-      "^export cal \\S+$";
+  public static final Pattern IMPORT =
+      Pattern.compile("^import cal \\S+$");
 
-  public static final String SHOW_STATUS_ON =
-      "^show status on (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2})$";
+  public static final Pattern SHOW_STATUS_ON =
+      Pattern.compile("^show status on (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2})$");
 
   /**
    * Prevents instantiation.
@@ -4,33 +4,37 @@ import static calendar.controller.CommandPatterns.DATE_ONLY;
 import static calendar.controller.CommandPatterns.DATE_TIME;
 import static calendar.controller.CommandPatterns.SUBJECT;
 
+import java.util.regex.Pattern;
+
 /**
- * Regex Patterns for new commands.
+ * Regex Patterns for new commands, compiled once like {@link CommandPatterns}.
  */
 public class CommandPatternsExtended {
   private static final String TIMEZONE_SEGMENT = "[A-Za-z0-9_+\\-]+";
   private static final String TIMEZONE =
       "(" + TIMEZONE_SEGMENT + "(?:/" + TIMEZONE_SEGMENT + ")*)";
 
-  public static final String CREATE_CALENDAR =
-      "^create calendar --name (\\S+) --timezone " + TIMEZONE + "$";
+  public static final Pattern CREATE_CALENDAR =
+      Pattern.compile("^create calendar --name (\\S+) --timezone " + TIMEZONE + "$");
 
-  public static final String EDIT_CALENDAR_NAME =
-      "^edit calendar --name (\\S+) --property name (\\S+)$";
+  public static final Pattern EDIT_CALENDAR_NAME =
+      Pattern.compile("^edit calendar --name (\\S+) --property name (\\S+)$");
 
-  public static final String EDIT_CALENDAR_TIMEZONE =
-      "^edit calendar --name (\\S+) --property timezone " + TIMEZONE + "$";
+  public static final Pattern EDIT_CALENDAR_TIMEZONE =
+      Pattern.compile("^edit calendar --name (\\S+) --property timezone " + TIMEZONE + "$");
 
-  public static final String USE_CALENDAR =
-      "^use calendar --name (\\S+)$";
+  public static final Pattern USE_CALENDAR =
+      Pattern.compile("^use calendar --name (\\S+)$");
 
-  public static final String COPY_EVENT =
-      "^copy event " + SUBJECT + " on " + DATE_TIME + " --target (\\S+) to " + DATE_TIME + "$";
+  public static final Pattern COPY_EVENT =
+      Pattern.compile("^copy event " + SUBJECT + " on " + DATE_TIME + " --target (\\S+) to "
+          + DATE_TIME + "$");
 
-  public static final String COPY_EVENTS_ON =
-      "^copy events on " + DATE_ONLY + " --target (\\S+) to " + DATE_ONLY + "$";
+  public static final Pattern COPY_EVENTS_ON =
+      Pattern.compile("^copy events on " + DATE_ONLY + " --target (\\S+) to " + DATE_ONLY
+          + "$");
 
-  public static final String COPY_EVENTS_BETWEEN =
-      "^copy events between " + DATE_ONLY + " and " + DATE_ONLY + " --target (\\S+) to "
-          + DATE_ONLY + "$";
+  public static final Pattern COPY_EVENTS_BETWEEN =
+      Pattern.compile("^copy events between " + DATE_ONLY + " and " + DATE_ONLY
+          + " --target (\\S+) to " + DATE_ONLY + "$");
 }
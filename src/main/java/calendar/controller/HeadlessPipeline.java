@@ -0,0 +1,175 @@
+package calendar.controller;
+
+import calendar.model.CalendarManager;
+import calendar.model.config.CalendarSettings;
+import calendar.view.BatchedOutput;
+import calendar.view.CalendarView;
+import calendar.view.CalendarViewImpl;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs a headless command script as three stages on their own threads: reading and preparing
+ * commands, executing them, and writing their output.
+ *
+ * <h2>Design: Bounded Three-Stage Pipeline</h2>
+ *
+ * <p>The reader streams the script through {@link ScriptLines}, which splits it exactly as
+ * {@link java.util.Scanner#nextLine} does, and hands each line to
+ * {@link CalendarControllerImpl#prepare}, which routes it and parses create and edit commands.
+ * Prepared commands go to the executor through a bounded queue. The executor runs them in
+ * order with {@link CalendarControllerImpl#execute}, the same step the serial loop uses, and
+ * formats their output into an asynchronous {@link BatchedOutput}, whose writer thread is the
+ * third stage.
+ * Both queues are bounded, so a slow stage holds back the ones before it instead of letting
+ * memory grow.</p>
+ *
+ * <p><b>Why is the output identical?</b> Only the executor touches calendars, and it sees the
+ * commands in file order. Parsing reads no calendar state, and a parse failure is reported by
+ * the executor at the point where the serial loop would have parsed the line. The executor
+ * writes the welcome line and the prompts into the same block as the command output, and the
+ * writer appends blocks in the order they were made.</p>
+ *
+ * <p>The reader also remembers the last non-blank line while it reads. After {@code exit} it
+ * keeps scanning without preparing anything, so {@link #run} can report whether the script
+ * ended with {@code exit} without reading the file a second time.</p>
+ */
+public final class HeadlessPipeline {
+  private static final int QUEUE_CAPACITY = 1024;
+  private static final PreparedCommand END_OF_SCRIPT = new PreparedCommand("", null, null, null);
+
+  private final CalendarSettings settings;
+  private final CalendarManager calendarManager;
+
+  /**
+   * Creates a pipeline whose commands work on {@code calendarManager}.
+   *
+   * @param settings runtime settings used to construct the controller
+   * @param calendarManager the calendars the commands work on
+   */
+  public HeadlessPipeline(CalendarSettings settings, CalendarManager calendarManager) {
+    this.settings = Objects.requireNonNull(settings, "settings");
+    this.calendarManager = Objects.requireNonNull(calendarManager, "calendarManager");
+  }
+
+  /**
+   * Runs {@code script} to its first {@code exit} line or its end, writing everything the
+   * serial controller would write to {@code out}. All output is written before this returns.
+   *
+   * @param script the commands; closed when read
+   * @param out where output goes
+   * @return true if the last non-blank line of the script is {@code exit}, in any case
+   * @throws IOException if the script cannot be read or the output cannot be written
+   */
+  public boolean run(Reader script, Appendable out) throws IOException {
+    Objects.requireNonNull(script, "script");
+    Objects.requireNonNull(out, "out");
+    ReadStage reader;
+    Thread readThread;
+    try (BatchedOutput batched = BatchedOutput.async(out, BatchedOutput.DEFAULT_BLOCK_CHARS)) {
+      CalendarControllerImpl controller =
+          new CalendarControllerImpl(Reader.nullReader(), batched, settings, calendarManager);
+      CalendarView view = new CalendarViewImpl(batched);
+      controller.start();
+
+      reader = new ReadStage(script, controller);
+      readThread = new Thread(reader, "headless-read");
+      readThread.setDaemon(true);
+      readThread.start();
+
+      boolean finished = false;
+      try {
+        while (true) {
+          batched.append(CalendarControllerImpl.PROMPT);
+          PreparedCommand command = reader.commands.take();
+          if (command == END_OF_SCRIPT || !controller.execute(command, view)) {
+            break;
+          }
+        }
+        finished = true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while running script", e);
+      } finally {
+        if (!finished) {
+          readThread.interrupt();
+        }
+      }
+    }
+    joinQuietly(readThread);
+    Throwable failure = reader.failure;
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    return reader.endsWithExit;
+  }
+
+  private static void joinQuietly(Thread thread) {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reads lines, prepares them up to {@code exit}, then reads to the end for the exit check.
+   *
+   * <p>However reading stops, short of an {@code exit} line or an interrupt from the executor,
+   * the end-of-script marker is queued so the executor never waits for a command that will not
+   * come. What stopped it is kept in {@link #failure} for {@link #run} to rethrow.</p>
+   */
+  private static final class ReadStage implements Runnable {
+    final BlockingQueue<PreparedCommand> commands = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Reader script;
+    private final CalendarControllerImpl controller;
+    boolean endsWithExit;
+    Throwable failure;
+
+    ReadStage(Reader script, CalendarControllerImpl controller) {
+      this.script = script;
+      this.controller = controller;
+    }
+
+    @Override
+    public void run() {
+      boolean exited = false;
+      boolean interrupted = false;
+      try (ScriptLines lines = new ScriptLines(script)) {
+        String line;
+        while (!exited && (line = lines.next()) != null) {
+          PreparedCommand command = controller.prepare(line);
+          exited = command.isExit();
+          commands.put(command);
+        }
+        lines.skipRest();
+        endsWithExit = lines.endsWithExit();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      } catch (IOException | RuntimeException | Error e) {
+        failure = e;
+      } finally {
+        if (!exited && !interrupted) {
+          endOfScript();
+        }
+      }
+    }
+
+    private void endOfScript() {
+      try {
+        commands.put(END_OF_SCRIPT);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
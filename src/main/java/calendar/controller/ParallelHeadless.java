@@ -0,0 +1,299 @@
+package calendar.controller;
+
+import calendar.model.CalendarManager;
+import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.config.CalendarSettings;
+import calendar.view.CalendarView;
+import calendar.view.CalendarViewImpl;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a headless command script with the commands for different calendars executing
+ * concurrently, producing exactly the output of the serial loop.
+ *
+ * <h2>Design: Epochs of Per-Calendar Streams</h2>
+ *
+ * <p>The script is read in order and cut into epochs. Inside an epoch, each command that works
+ * only on the active calendar ({@code create event}, {@code edit ...},
+ * {@code show status on}) joins the stream of the calendar that is active at that line;
+ * {@code use calendar} is resolved on the spot, since nothing in an epoch can add, rename or
+ * remove a calendar. When an epoch ends, its streams run on a worker pool, one task per
+ * calendar, each on its own controller. Every command's output goes into its own slot, and
+ * the slots are written in file order.</p>
+ *
+ * <p>Anything else ends the epoch and runs alone once every stream has finished: commands that
+ * read or change several calendars or the set of calendars ({@code print}, {@code copy event},
+ * {@code create calendar}, {@code edit calendar}), commands with effects outside the calendars
+ * ({@code export cal}, {@code import cal}), and any line whose parse already failed in a way
+ * the serial loop would not catch. These barriers keep every calendar's commands in file order
+ * relative to everything that can observe them, so each calendar ends in the same state and
+ * every line prints the same text as it would serially.</p>
+ *
+ * <p><b>When does it scale?</b> Wall-clock time falls with the number of calendars that have
+ * work in the same epoch, up to the pool size. A script that works on one calendar, or that
+ * prints after every few commands, runs about as fast as the serial loop.</p>
+ *
+ * <p>Preparing commands and commands that only print an error run on the calling thread.
+ * If a command in a stream throws an exception the serial loop would not have caught, output
+ * stops after that command's partial output and the exception is rethrown, as serially; other
+ * calendars' streams in the same epoch may by then have applied later commands.</p>
+ */
+public final class ParallelHeadless {
+  private static final int EPOCH_COMMANDS = 4096;
+  private static final String USE_CALENDAR = "use calendar";
+  private static final Set<String> CALENDAR_LOCAL =
+      Set.of("create event", "edit", "edit event", "show status on");
+
+  private final CalendarSettings settings;
+  private final CalendarManager calendarManager;
+  private final int workers;
+
+  /**
+   * Creates a runner whose commands work on {@code calendarManager}.
+   *
+   * @param settings runtime settings used to construct the controllers
+   * @param calendarManager the calendars the commands work on
+   * @param workers threads running calendar streams; at least 1
+   */
+  public ParallelHeadless(CalendarSettings settings, CalendarManager calendarManager,
+                          int workers) {
+    this.settings = Objects.requireNonNull(settings, "settings");
+    this.calendarManager = Objects.requireNonNull(calendarManager, "calendarManager");
+    if (workers < 1) {
+      throw new IllegalArgumentException("workers must be at least 1");
+    }
+    this.workers = workers;
+  }
+
+  /**
+   * Runs {@code script} to its first {@code exit} line or its end, writing everything the
+   * serial controller would write to {@code out}.
+   *
+   * @param script the commands; closed when read
+   * @param out where output goes
+   * @return true if the last non-blank line of the script is {@code exit}, in any case
+   * @throws IOException if the script cannot be read or the output cannot be written
+   */
+  public boolean run(Reader script, Appendable out) throws IOException {
+    Objects.requireNonNull(script, "script");
+    Objects.requireNonNull(out, "out");
+    ExecutorService pool = Executors.newFixedThreadPool(workers, task -> {
+      Thread thread = new Thread(task, "headless-calendar");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (ScriptLines lines = new ScriptLines(script)) {
+      Session session = new Session(out, pool);
+      String line;
+      while ((line = lines.next()) != null) {
+        if (!session.accept(line)) {
+          lines.skipRest();
+          break;
+        }
+      }
+      session.finish();
+      if (out instanceof Flushable) {
+        ((Flushable) out).flush();
+      }
+      return lines.endsWithExit();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * One run: the serial controller that prepares and routes lines, the per-calendar streams,
+   * and the epoch being collected.
+   */
+  private final class Session {
+    private final Appendable out;
+    private final ExecutorService pool;
+    private final StringBuilder serialOut = new StringBuilder();
+    private final CalendarControllerImpl serial;
+    private final CalendarView serialView;
+    private final Map<TimeZoneInMemoryCalendarInterface, Stream> streams =
+        new IdentityHashMap<>();
+    private final PreparedCommand[] commands = new PreparedCommand[EPOCH_COMMANDS];
+    private final StringBuilder[] slotOut = new StringBuilder[EPOCH_COMMANDS];
+    private final int[] slotStart = new int[EPOCH_COMMANDS];
+    private final int[] slotEnd = new int[EPOCH_COMMANDS];
+    private int count;
+    private RuntimeException serialCrash;
+
+    Session(Appendable out, ExecutorService pool) throws IOException {
+      this.out = out;
+      this.pool = pool;
+      this.serial =
+          new CalendarControllerImpl(Reader.nullReader(), serialOut, settings, calendarManager);
+      this.serialView = new CalendarViewImpl(serialOut);
+      serial.start();
+      out.append(serialOut);
+      serialOut.setLength(0);
+    }
+
+    /**
+     * Takes the next line in file order.
+     *
+     * @return false if the line ends the session
+     */
+    boolean accept(String rawLine) throws IOException {
+      PreparedCommand command = serial.prepare(rawLine);
+      if (command.isExit()) {
+        return false;
+      }
+      boolean local = command.keyword != null && CALENDAR_LOCAL.contains(command.keyword);
+      if (command.failsUncaught()
+          || (command.keyword != null && !local && !USE_CALENDAR.equals(command.keyword))) {
+        runEpoch();
+        out.append(CalendarControllerImpl.PROMPT);
+        try {
+          serial.execute(command, serialView);
+        } finally {
+          out.append(serialOut);
+          serialOut.setLength(0);
+        }
+        return true;
+      }
+      int slot = count++;
+      commands[slot] = command;
+      TimeZoneInMemoryCalendarInterface calendar = serial.activeCalendar();
+      if (local && calendar != null) {
+        streams.computeIfAbsent(calendar, Stream::new).pending.add(slot);
+      } else {
+        // use calendar, an unknown command, or a missing-calendar error: no calendar state.
+        slotOut[slot] = serialOut;
+        slotStart[slot] = serialOut.length();
+        try {
+          serial.execute(command, serialView);
+        } catch (RuntimeException e) {
+          serialCrash = e;
+        } finally {
+          slotEnd[slot] = serialOut.length();
+        }
+        if (serialCrash != null) {
+          runEpoch();
+        }
+      }
+      if (count == EPOCH_COMMANDS) {
+        runEpoch();
+      }
+      return true;
+    }
+
+    /**
+     * Runs what is left and writes the prompt the serial loop prints before it stops.
+     */
+    void finish() throws IOException {
+      runEpoch();
+      out.append(CalendarControllerImpl.PROMPT);
+    }
+
+    private void runEpoch() throws IOException {
+      if (count == 0) {
+        return;
+      }
+      List<Future<?>> running = new ArrayList<>();
+      for (Stream stream : streams.values()) {
+        if (!stream.pending.isEmpty()) {
+          running.add(pool.submit(stream::runPending));
+        }
+      }
+      for (Future<?> future : running) {
+        await(future);
+      }
+      int crashed = serialCrash == null ? count : count - 1;
+      RuntimeException crash = serialCrash;
+      for (Stream stream : streams.values()) {
+        if (stream.crash != null && stream.crashSlot < crashed) {
+          crashed = stream.crashSlot;
+          crash = stream.crash;
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        out.append(CalendarControllerImpl.PROMPT);
+        out.append(slotOut[i], slotStart[i], slotEnd[i]);
+        if (i == crashed) {
+          throw crash;
+        }
+      }
+      for (Stream stream : streams.values()) {
+        stream.reset();
+      }
+      serialOut.setLength(0);
+      Arrays.fill(commands, 0, count, null);
+      Arrays.fill(slotOut, 0, count, null);
+      count = 0;
+    }
+
+    private void await(Future<?> future) throws IOException {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while running script", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IOException("Calendar stream failed", cause);
+      }
+    }
+
+    /**
+     * The commands of one calendar, run by a controller of its own that has the calendar
+     * selected.
+     */
+    private final class Stream {
+      private final StringBuilder buffer = new StringBuilder();
+      private final CalendarControllerImpl controller;
+      private final CalendarView view;
+      private final List<Integer> pending = new ArrayList<>();
+      private int crashSlot;
+      private RuntimeException crash;
+
+      Stream(TimeZoneInMemoryCalendarInterface calendar) {
+        controller =
+            new CalendarControllerImpl(Reader.nullReader(), buffer, settings, calendarManager);
+        controller.registerCommands();
+        controller.useCalendar(calendar);
+        view = new CalendarViewImpl(buffer);
+      }
+
+      void runPending() {
+        for (int slot : pending) {
+          slotOut[slot] = buffer;
+          slotStart[slot] = buffer.length();
+          try {
+            controller.execute(commands[slot], view);
+          } catch (RuntimeException e) {
+            crashSlot = slot;
+            crash = e;
+            return;
+          } finally {
+            slotEnd[slot] = buffer.length();
+          }
+        }
+      }
+
+      void reset() {
+        pending.clear();
+        buffer.setLength(0);
+        crash = null;
+      }
+    }
+  }
+}
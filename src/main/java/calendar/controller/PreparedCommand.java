@@ -0,0 +1,52 @@
+package calendar.controller;
+
+/**
+ * One command line after the work that does not depend on calendar state: the trimmed line,
+ * the keyword it routes by, and for create and edit commands the parsed request or the
+ * exception parsing threw. The keyword, not a handler, is kept so that any controller can
+ * execute the command against its own active calendar.
+ *
+ * <p>Preparing is side-effect free, so it can run ahead of execution on another thread.
+ * A parse failure is held back and rethrown by the handler at the point where the serial loop
+ * would have parsed the line, after the active-calendar check, so the user sees the same
+ * message in the same place.</p>
+ */
+final class PreparedCommand {
+  final String line;
+  final String keyword;
+  private final Object request;
+  private final RuntimeException failure;
+
+  PreparedCommand(String line, String keyword, Object request, RuntimeException failure) {
+    this.line = line;
+    this.keyword = keyword;
+    this.request = request;
+    this.failure = failure;
+  }
+
+  /**
+   * True for the line that ends the session.
+   */
+  boolean isExit() {
+    return line.equals("exit");
+  }
+
+  /**
+   * True if executing this command would throw something other than the
+   * {@link IllegalArgumentException} its handler reports as a message.
+   */
+  boolean failsUncaught() {
+    return failure != null && !(failure instanceof IllegalArgumentException);
+  }
+
+  /**
+   * Returns the request parsed ahead of time, rethrows the parse failure, or returns null if
+   * the line was not parsed ahead as a {@code type}.
+   */
+  <T> T request(Class<T> type) {
+    if (failure != null) {
+      throw failure;
+    }
+    return type.isInstance(request) ? type.cast(request) : null;
+  }
+}
@@ -0,0 +1,98 @@
+package calendar.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a headless script one line at a time through a large buffer.
+ *
+ * <p>Lines end where {@link java.util.Scanner#nextLine} ends them ({@code \r\n}, {@code \n},
+ * {@code \r}, U+2028, U+2029, U+0085), so a script runs the same whichever reader feeds it.
+ * The last non-blank line is remembered on the way, which answers "did the script end with
+ * {@code exit}?" without a second read.</p>
+ */
+final class ScriptLines implements Closeable {
+  private static final int BUFFER_CHARS = 1 << 16;
+
+  private final Reader in;
+  private final char[] buf = new char[BUFFER_CHARS];
+  private final StringBuilder line = new StringBuilder();
+  private int pos;
+  private int limit;
+  private boolean afterCr;
+  private boolean eof;
+  private String lastNonBlank;
+
+  /**
+   * Reads from {@code in}, which is closed by {@link #close}.
+   */
+  ScriptLines(Reader in) {
+    this.in = in;
+  }
+
+  /**
+   * Returns the next line without its terminator, or null at the end of the script.
+   */
+  String next() throws IOException {
+    while (true) {
+      if (pos == limit) {
+        if (eof) {
+          return null;
+        }
+        limit = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (limit < 0) {
+          limit = 0;
+          eof = true;
+          return line.length() > 0 ? take() : null;
+        }
+      }
+      char c = buf[pos++];
+      if (afterCr && c == '\n') {
+        afterCr = false;
+        continue;
+      }
+      afterCr = c == '\r';
+      if (isLineSeparator(c)) {
+        return take();
+      }
+      line.append(c);
+    }
+  }
+
+  /**
+   * Reads the rest of the script without returning it.
+   */
+  void skipRest() throws IOException {
+    while (next() != null) {
+      // Only the last non-blank line matters.
+    }
+  }
+
+  /**
+   * True if the last non-blank line read so far is {@code exit}, in any case.
+   */
+  boolean endsWithExit() {
+    return lastNonBlank != null && lastNonBlank.equalsIgnoreCase("exit");
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private String take() {
+    String text = line.toString();
+    line.setLength(0);
+    String trimmed = text.trim();
+    if (!trimmed.isEmpty()) {
+      lastNonBlank = trimmed;
+    }
+    return text;
+  }
+
+  private static boolean isLineSeparator(char c) {
+    return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+  }
+}
@@ -0,0 +1,114 @@
+package calendar.controller.commands;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Routes a command line to the handler registered under its longest matching keyword prefix.
+ *
+ * <h2>Design: Character Trie</h2>
+ *
+ * <p>Keywords such as {@code "edit"} and {@code "edit event"} are stored as paths of
+ * characters. {@link #lookup} walks the line from its first character and remembers the last
+ * node that ends a keyword, so a line is routed in one pass over at most the longest keyword,
+ * however many commands are registered. Checking each keyword with {@code startsWith} cost one
+ * comparison per registered command on every line.</p>
+ *
+ * <p><b>Why characters, not words?</b> Matching is by plain string prefix, exactly like the
+ * {@code startsWith} loop it replaces: {@code "printx"} still reaches the {@code "print"}
+ * handler, which then reports the malformed command itself.</p>
+ *
+ * <p>Nodes keep their children in small parallel arrays; a node rarely has more than a few,
+ * so a linear scan beats hashing boxed characters.</p>
+ */
+public final class CommandTrie {
+  private static final class Node {
+    char[] keys = new char[0];
+    Node[] children = new Node[0];
+    CommandHandler handler;
+    String keyword;
+
+    Node child(char c) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == c) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    Node addChild(char c) {
+      Node existing = child(c);
+      if (existing != null) {
+        return existing;
+      }
+      Node created = new Node();
+      keys = Arrays.copyOf(keys, keys.length + 1);
+      children = Arrays.copyOf(children, children.length + 1);
+      keys[keys.length - 1] = c;
+      children[children.length - 1] = created;
+      return created;
+    }
+  }
+
+  private final Node root = new Node();
+
+  /**
+   * Registers {@code handler} for lines starting with {@code keyword}, replacing any handler
+   * already registered for the same keyword.
+   *
+   * @param keyword non-empty command prefix
+   * @param handler handler for matching lines
+   */
+  public void put(String keyword, CommandHandler handler) {
+    Objects.requireNonNull(keyword, "keyword");
+    Objects.requireNonNull(handler, "handler");
+    if (keyword.isEmpty()) {
+      throw new IllegalArgumentException("keyword cannot be empty");
+    }
+    Node n = root;
+    for (int i = 0; i < keyword.length(); i++) {
+      n = n.addChild(keyword.charAt(i));
+    }
+    n.handler = handler;
+    n.keyword = keyword;
+  }
+
+  /**
+   * Returns the handler of the longest registered keyword that {@code line} starts with.
+   *
+   * @param line command line
+   * @return matching handler, or null if no keyword is a prefix of {@code line}
+   */
+  public CommandHandler lookup(String line) {
+    Node match = longestMatch(line);
+    return match == null ? null : match.handler;
+  }
+
+  /**
+   * Returns the longest registered keyword that {@code line} starts with, the one whose
+   * handler {@link #lookup} returns.
+   *
+   * @param line command line
+   * @return matching keyword, or null if no keyword is a prefix of {@code line}
+   */
+  public String keywordOf(String line) {
+    Node match = longestMatch(line);
+    return match == null ? null : match.keyword;
+  }
+
+  private Node longestMatch(String line) {
+    Node best = null;
+    Node n = root;
+    for (int i = 0; i < line.length(); i++) {
+      n = n.child(line.charAt(i));
+      if (n == null) {
+        break;
+      }
+      if (n.handler != null) {
+        best = n;
+      }
+    }
+    return best;
+  }
+}
@@ -33,7 +33,7 @@ public class HandleEvents {
   public static void handleCreateCalendarEvent(
       String input, CalendarManager manager, CalendarView view
   ) throws IOException {
-    if (input.matches(CommandPatternsExtended.CREATE_CALENDAR)) {
+    if (CommandPatternsExtended.CREATE_CALENDAR.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String name = parts[3];
       String timeZone = parts[5];
@@ -62,7 +62,7 @@ public class HandleEvents {
   public static void handleEditCalendarEvent(
       String input, CalendarManager manager, CalendarView view
   ) throws IOException, NotFoundException {
-    if (input.matches(CommandPatternsExtended.EDIT_CALENDAR_NAME)) {
+    if (CommandPatternsExtended.EDIT_CALENDAR_NAME.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String calendarName = parts[3];
       String newProperty = parts[6];
@@ -73,7 +73,7 @@ public class HandleEvents {
       } catch (Exception e) {
         view.printMessage(e.getMessage());
       }
-    } else if (input.matches(CommandPatternsExtended.EDIT_CALENDAR_TIMEZONE)) {
+    } else if (CommandPatternsExtended.EDIT_CALENDAR_TIMEZONE.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String calendarName = parts[3];
       String newProperty = parts[6];
@@ -105,7 +105,7 @@ public class HandleEvents {
   public static TimeZoneInMemoryCalendarInterface handleUseCalendarEvent(
       String input, CalendarManager manager, CalendarView view
   ) throws IOException, NotFoundException {
-    if (input.matches(CommandPatternsExtended.USE_CALENDAR)) {
+    if (CommandPatternsExtended.USE_CALENDAR.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String name = parts[3];
 
@@ -144,7 +144,7 @@ public class HandleEvents {
       return;
     }
 
-    if (input.matches(CommandPatternsExtended.COPY_EVENT)) {
+    if (CommandPatternsExtended.COPY_EVENT.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String eventName = parts[2];
       String eventFromTime = parts[4];
@@ -167,7 +167,7 @@ public class HandleEvents {
       } catch (Exception e) {
         view.printMessage(e.getMessage());
       }
-    } else if (input.matches(CommandPatternsExtended.COPY_EVENTS_ON)) {
+    } else if (CommandPatternsExtended.COPY_EVENTS_ON.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String onDate = parts[3];
       String destCalName = parts[5];
@@ -188,7 +188,7 @@ public class HandleEvents {
       } catch (Exception e) {
         view.printMessage(e.getMessage());
       }
-    } else if (input.matches(CommandPatternsExtended.COPY_EVENTS_BETWEEN)) {
+    } else if (CommandPatternsExtended.COPY_EVENTS_BETWEEN.matcher(input).matches()) {
       String[] parts = tokenize(input);
       String betweenDate1 = parts[3];
       String betweenDate2 = parts[5];
@@ -235,7 +235,7 @@ public class HandleEvents {
   ) throws IOException {
     input = input.trim();
 
-    if (input.matches(CommandPatterns.PRINT_ON)) {
+    if (CommandPatterns.PRINT_ON.matcher(input).matches()) {
       String[] parts = tokenize(input);
       LocalDate onDate = LocalDate.parse(parts[3]);
 
@@ -249,7 +249,7 @@ public class HandleEvents {
         view.printMessage("Events for calendar: " + calendarName);
         view.printEventsOn(onDate, events);
       }
-    } else if (input.matches(CommandPatterns.PRINT_FROM_TO)) {
+    } else if (CommandPatterns.PRINT_FROM_TO.matcher(input).matches()) {
       String[] parts = tokenize(input);
       LocalDateTime onDate = LocalDateTime.parse(parts[3]);
       LocalDateTime toDate = LocalDateTime.parse(parts[5]);
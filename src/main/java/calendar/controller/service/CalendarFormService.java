@@ -1,15 +1,5 @@
 package calendar.controller.service;
 
-import static calendar.controller.CommandPatterns.CREATE_ALLDAY;
-import static calendar.controller.CommandPatterns.CREATE_ALLDAY_REPEAT_N;
-import static calendar.controller.CommandPatterns.CREATE_ALLDAY_REPEAT_UNTIL;
-import static calendar.controller.CommandPatterns.CREATE_REPEAT_N;
-import static calendar.controller.CommandPatterns.CREATE_REPEAT_UNTIL;
-import static calendar.controller.CommandPatterns.CREATE_SINGLE;
-import static calendar.controller.CommandPatterns.EDIT_EVENTS;
-import static calendar.controller.CommandPatterns.EDIT_SERIES;
-import static calendar.controller.CommandPatterns.EDIT_SINGLE;
-
 import calendar.controller.EditProperty;
 import calendar.model.api.CalendarApi;
 import calendar.model.api.EditScope;
@@ -17,11 +7,8 @@ import calendar.model.api.EventDraft;
 import calendar.model.api.EventPatch;
 import calendar.model.api.EventSelector;
 import calendar.model.api.SeriesDraft;
-import calendar.model.recurrence.Weekday;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.EnumSet;
-import java.util.Locale;
 import java.util.Optional;
 
 /**
@@ -35,27 +22,22 @@ public class CalendarFormService {
   /**
    * Parses a "create event" CLI command into a normalized {@link EventCreationRequest}.
    *
+   * <p>The line is read once by a {@link CommandLexer}; values are decoded only after the
+   * whole command has been recognized.</p>
+   *
    * @param input raw user command
    * @return normalized request
    */
   public EventCreationRequest parseCreateEventCommand(String input) {
-    String trimmed = input.trim();
-
-    if (trimmed.matches(CREATE_SINGLE)) {
-      return parseSingleTimed(trimmed);
-    } else if (trimmed.matches(CREATE_REPEAT_N)) {
-      return parseRecurringTimedCount(trimmed);
-    } else if (trimmed.matches(CREATE_REPEAT_UNTIL)) {
-      return parseRecurringTimedUntil(trimmed);
-    } else if (trimmed.matches(CREATE_ALLDAY)) {
-      return parseSingleAllDay(trimmed);
-    } else if (trimmed.matches(CREATE_ALLDAY_REPEAT_N)) {
-      return parseRecurringAllDayCount(trimmed);
-    } else if (trimmed.matches(CREATE_ALLDAY_REPEAT_UNTIL)) {
-      return parseRecurringAllDayUntil(trimmed);
+    CommandLexer lexer = new CommandLexer(input.trim());
+    EventCreationRequest request = parseCreate(lexer, true);
+    if (request == null) {
+      request = parseCreate(lexer.reset(), false);
     }
-
-    throw new IllegalArgumentException("Error: Invalid create event command format.");
+    if (request == null) {
+      throw new IllegalArgumentException("Error: Invalid create event command format.");
+    }
+    return request;
   }
 
   /**
@@ -127,133 +109,185 @@ public class CalendarFormService {
    * @param input raw command.
    */
   public EventEditRequest parseEditEventCommand(String input) {
-    String trimmed = input.trim();
-
-    if (trimmed.matches(EDIT_SINGLE)) {
-      return parseEditSingle(trimmed);
-    } else if (trimmed.matches(EDIT_EVENTS)) {
-      return parseEditFollowing(trimmed);
-    } else if (trimmed.matches(EDIT_SERIES)) {
-      return parseEditSeries(trimmed);
+    CommandLexer lexer = new CommandLexer(input.trim());
+    EventEditRequest request = parseEdit(lexer, true);
+    if (request == null) {
+      request = parseEdit(lexer.reset(), false);
     }
-
-    throw new IllegalArgumentException("Error: Invalid edit command format.");
-  }
-
-  private EventCreationRequest parseSingleTimed(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventCreationRequest.Builder()
-        .pattern(EventCreationRequest.Pattern.SINGLE_TIMED)
-        .subject(parts[2])
-        .startDateTime(LocalDateTime.parse(parts[4]))
-        .endDateTime(LocalDateTime.parse(parts[6]))
-        .build();
-  }
-
-  private EventCreationRequest parseRecurringTimedCount(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventCreationRequest.Builder()
-        .pattern(EventCreationRequest.Pattern.RECURRING_TIMED_COUNT)
-        .subject(parts[2])
-        .startDateTime(LocalDateTime.parse(parts[4]))
-        .endDateTime(LocalDateTime.parse(parts[6]))
-        .weekdays(weekdaysSetFromString(parts[8]))
-        .occurrences(Integer.parseInt(parts[10]))
-        .build();
-  }
-
-  private EventCreationRequest parseRecurringTimedUntil(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    LocalDateTime start = LocalDateTime.parse(parts[4]);
-    LocalDate until = LocalDate.parse(parts[10]);
-    LocalDate startDate = start.toLocalDate();
-    if (!until.isAfter(startDate) && !until.isEqual(startDate)) {
-      throw new IllegalArgumentException(
-          "Fields are invalid Until date must be after or equal to start date");
+    if (request == null) {
+      throw new IllegalArgumentException("Error: Invalid edit command format.");
     }
-
-    return new EventCreationRequest.Builder()
-        .pattern(EventCreationRequest.Pattern.RECURRING_TIMED_UNTIL)
-        .subject(parts[2])
-        .startDateTime(start)
-        .endDateTime(LocalDateTime.parse(parts[6]))
-        .weekdays(weekdaysSetFromString(parts[8]))
-        .untilDate(until)
-        .build();
-  }
-
-  private EventCreationRequest parseSingleAllDay(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventCreationRequest.Builder()
-        .pattern(EventCreationRequest.Pattern.SINGLE_ALL_DAY)
-        .subject(parts[2])
-        .allDayDate(LocalDate.parse(parts[4]))
-        .build();
-  }
-
-  private EventCreationRequest parseRecurringAllDayCount(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventCreationRequest.Builder()
-        .pattern(EventCreationRequest.Pattern.RECURRING_ALL_DAY_COUNT)
-        .subject(parts[2])
-        .allDayDate(LocalDate.parse(parts[4]))
-        .weekdays(weekdaysSetFromString(parts[6]))
-        .occurrences(Integer.parseInt(parts[8]))
-        .build();
+    return request;
   }
 
-  private EventCreationRequest parseRecurringAllDayUntil(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    LocalDate onDate = LocalDate.parse(parts[4]);
-    LocalDate until = LocalDate.parse(parts[8]);
-    if (!until.isAfter(onDate) && !until.isEqual(onDate)) {
-      throw new IllegalArgumentException(
-          "Fields are invalid Until date must be after or equal to start date");
+  /**
+   * Reads one of the create shapes in {@link calendar.controller.CommandPatterns}, or returns
+   * null if the line has none of them.
+   */
+  private EventCreationRequest parseCreate(CommandLexer lexer, boolean quotedSubject) {
+    if (!lexer.literal("create event ") || !lexer.text(quotedSubject)) {
+      return null;
     }
-
+    final int subjectStart = lexer.textStart();
+    final int subjectEnd = lexer.textEnd();
+    if (lexer.literal(" from ")) {
+      int start = lexer.dateTime();
+      if (start < 0 || !lexer.literal(" to ")) {
+        return null;
+      }
+      int end = lexer.dateTime();
+      if (end < 0) {
+        return null;
+      }
+      if (lexer.atEnd()) {
+        return new EventCreationRequest.Builder()
+            .pattern(EventCreationRequest.Pattern.SINGLE_TIMED)
+            .subject(lexer.textAt(subjectStart, subjectEnd))
+            .startDateTime(lexer.dateTimeAt(start))
+            .endDateTime(lexer.dateTimeAt(end))
+            .build();
+      }
+      int weekdays = lexer.literal(" repeats ") ? lexer.weekdays() : 0;
+      if (weekdays == 0) {
+        return null;
+      }
+      if (lexer.literal(" for ")) {
+        if (!lexer.number()) {
+          return null;
+        }
+        int countStart = lexer.textStart();
+        int countEnd = lexer.textEnd();
+        if (!lexer.literal(" times") || !lexer.atEnd()) {
+          return null;
+        }
+        return new EventCreationRequest.Builder()
+            .pattern(EventCreationRequest.Pattern.RECURRING_TIMED_COUNT)
+            .subject(lexer.textAt(subjectStart, subjectEnd))
+            .startDateTime(lexer.dateTimeAt(start))
+            .endDateTime(lexer.dateTimeAt(end))
+            .weekdays(CommandLexer.weekdaySet(weekdays))
+            .occurrences(lexer.intAt(countStart, countEnd))
+            .build();
+      }
+      int until = lexer.literal(" until ") ? lexer.date() : -1;
+      if (until < 0 || !lexer.atEnd()) {
+        return null;
+      }
+      LocalDateTime startDateTime = lexer.dateTimeAt(start);
+      LocalDate untilDate = lexer.dateAt(until);
+      requireUntilNotBefore(untilDate, startDateTime.toLocalDate());
+      return new EventCreationRequest.Builder()
+          .pattern(EventCreationRequest.Pattern.RECURRING_TIMED_UNTIL)
+          .subject(lexer.textAt(subjectStart, subjectEnd))
+          .startDateTime(startDateTime)
+          .endDateTime(lexer.dateTimeAt(end))
+          .weekdays(CommandLexer.weekdaySet(weekdays))
+          .untilDate(untilDate)
+          .build();
+    }
+    if (!lexer.literal(" on ")) {
+      return null;
+    }
+    int on = lexer.date();
+    if (on < 0) {
+      return null;
+    }
+    if (lexer.atEnd()) {
+      return new EventCreationRequest.Builder()
+          .pattern(EventCreationRequest.Pattern.SINGLE_ALL_DAY)
+          .subject(lexer.textAt(subjectStart, subjectEnd))
+          .allDayDate(lexer.dateAt(on))
+          .build();
+    }
+    int weekdays = lexer.literal(" repeats ") ? lexer.weekdays() : 0;
+    if (weekdays == 0) {
+      return null;
+    }
+    if (lexer.literal(" for ")) {
+      if (!lexer.number()) {
+        return null;
+      }
+      int countStart = lexer.textStart();
+      int countEnd = lexer.textEnd();
+      if (!lexer.literal(" times") || !lexer.atEnd()) {
+        return null;
+      }
+      return new EventCreationRequest.Builder()
+          .pattern(EventCreationRequest.Pattern.RECURRING_ALL_DAY_COUNT)
+          .subject(lexer.textAt(subjectStart, subjectEnd))
+          .allDayDate(lexer.dateAt(on))
+          .weekdays(CommandLexer.weekdaySet(weekdays))
+          .occurrences(lexer.intAt(countStart, countEnd))
+          .build();
+    }
+    int until = lexer.literal(" until ") ? lexer.date() : -1;
+    if (until < 0 || !lexer.atEnd()) {
+      return null;
+    }
+    LocalDate onDate = lexer.dateAt(on);
+    LocalDate untilDate = lexer.dateAt(until);
+    requireUntilNotBefore(untilDate, onDate);
     return new EventCreationRequest.Builder()
         .pattern(EventCreationRequest.Pattern.RECURRING_ALL_DAY_UNTIL)
-        .subject(parts[2])
+        .subject(lexer.textAt(subjectStart, subjectEnd))
         .allDayDate(onDate)
-        .weekdays(weekdaysSetFromString(parts[6]))
-        .untilDate(until)
-        .build();
-  }
-
-  private EventEditRequest parseEditSingle(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventEditRequest.Builder()
-        .property(EditProperty.from(parts[2])
-            .orElseThrow(() -> new IllegalArgumentException("Invalid property: " + parts[2])))
-        .subject(parts[3])
-        .start(LocalDateTime.parse(parts[5]))
-        .end(LocalDateTime.parse(parts[7]))
-        .newValue(parts[9])
-        .scope(EditScope.SINGLE)
+        .weekdays(CommandLexer.weekdaySet(weekdays))
+        .untilDate(untilDate)
         .build();
   }
 
-  private EventEditRequest parseEditFollowing(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventEditRequest.Builder()
-        .property(EditProperty.from(parts[2])
-            .orElseThrow(() -> new IllegalArgumentException("Invalid property: " + parts[2])))
-        .subject(parts[3])
-        .start(LocalDateTime.parse(parts[5]))
-        .newValue(parts[7])
-        .scope(EditScope.FOLLOWING)
-        .build();
+  private static void requireUntilNotBefore(LocalDate until, LocalDate start) {
+    if (until.isBefore(start)) {
+      throw new IllegalArgumentException(
+          "Fields are invalid Until date must be after or equal to start date");
+    }
   }
 
-  private EventEditRequest parseEditSeries(String trimmed) {
-    String[] parts = CommandTokenizer.tokenize(trimmed);
-    return new EventEditRequest.Builder()
-        .property(EditProperty.from(parts[2])
-            .orElseThrow(() -> new IllegalArgumentException("Invalid property: " + parts[2])))
-        .subject(parts[3])
-        .start(LocalDateTime.parse(parts[5]))
-        .newValue(parts[7])
-        .scope(EditScope.ENTIRE_SERIES)
+  /**
+   * Reads one of the edit shapes ({@code edit event}, {@code edit events},
+   * {@code edit series}), or returns null if the line has none of them.
+   */
+  private EventEditRequest parseEdit(CommandLexer lexer, boolean quotedSubject) {
+    EditScope scope;
+    if (lexer.literal("edit event ")) {
+      scope = EditScope.SINGLE;
+    } else if (lexer.literal("edit events ")) {
+      scope = EditScope.FOLLOWING;
+    } else if (lexer.literal("edit series ")) {
+      scope = EditScope.ENTIRE_SERIES;
+    } else {
+      return null;
+    }
+    EditProperty property = lexer.property();
+    if (property == null || !lexer.literal(" ") || !lexer.text(quotedSubject)) {
+      return null;
+    }
+    final int subjectStart = lexer.textStart();
+    final int subjectEnd = lexer.textEnd();
+    int start = lexer.literal(" from ") ? lexer.dateTime() : -1;
+    if (start < 0) {
+      return null;
+    }
+    int end = -1;
+    if (scope == EditScope.SINGLE) {
+      end = lexer.literal(" to ") ? lexer.dateTime() : -1;
+      if (end < 0) {
+        return null;
+      }
+    }
+    if (!lexer.literal(" with ") || !lexer.textToEnd()) {
+      return null;
+    }
+    EventEditRequest.Builder builder = new EventEditRequest.Builder()
+        .property(property)
+        .subject(lexer.textAt(subjectStart, subjectEnd))
+        .start(lexer.dateTimeAt(start));
+    if (end >= 0) {
+      builder.end(lexer.dateTimeAt(end));
+    }
+    return builder
+        .newValue(lexer.textAt(lexer.textStart(), lexer.textEnd()))
+        .scope(scope)
         .build();
   }
 
@@ -275,12 +309,4 @@ public class CalendarFormService {
 
     calendar.updateBySelector(selector, patch, request.scope());
   }
-
-  private EnumSet<Weekday> weekdaysSetFromString(String weekdays) {
-    EnumSet<Weekday> set = EnumSet.noneOf(Weekday.class);
-    for (char c : weekdays.toCharArray()) {
-      set.add(Weekday.valueOf(String.valueOf(c).toUpperCase(Locale.ROOT)));
-    }
-    return set;
-  }
 }
@@ -0,0 +1,392 @@
+package calendar.controller.service;
+
+import calendar.controller.EditProperty;
+import calendar.model.recurrence.Weekday;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Single-pass, regex-free reader for CLI command lines.
+ *
+ * <h2>Design: Typed Pull Lexer</h2>
+ *
+ * <p>The parser asks for the token it expects next ({@link #literal}, {@link #text},
+ * {@link #dateTime}, {@link #date}, {@link #weekdays}, {@link #number}, {@link #property}) and
+ * the lexer either consumes it and returns its position or kind, or leaves the cursor where it
+ * was. Nothing is copied while the line is being recognized: date-times are checked digit by
+ * digit and decoded later straight from the input with {@link #dateTimeAt}, weekday letters
+ * become a bit mask, and a subject is only turned into a String once the whole command is known
+ * to be valid.</p>
+ *
+ * <p>The grammar is the one in {@link calendar.controller.CommandPatterns}: tokens are
+ * separated by exactly one space, {@code SUBJECT} is either {@code "..."} (no inner quotes) or
+ * a run of non-whitespace, dates are {@code yyyy-MM-dd} and date-times
+ * {@code yyyy-MM-ddTHH:mm} with ASCII digits. A regex tries the quoted form of a subject first
+ * and falls back to the bare form if the rest of the line then fails; callers get the same
+ * result by parsing once with {@code text(true)} and, on failure, again from {@link #reset}
+ * with {@code text(false)}. A text token that ends the line needs no retry: {@link #textToEnd}
+ * tries both forms in place.</p>
+ *
+ * <p><b>Why decode values only at the end?</b> Out-of-range values such as month 13 must fail
+ * the same way they did under {@code LocalDateTime.parse}, and only for a line whose shape is
+ * otherwise valid. The decoders build values from the digits directly and fall back to
+ * {@code parse} of the same text solely to raise that exception.</p>
+ *
+ * <p>A lexer holds one line and a cursor; it is cheap to create and not thread-safe.</p>
+ */
+public final class CommandLexer {
+  private static final int DATE_LENGTH = 10;
+  private static final int DATE_TIME_LENGTH = 16;
+  private static final EditProperty[] PROPERTIES = EditProperty.values();
+  private static final String[] PROPERTY_WORDS = new String[PROPERTIES.length];
+
+  static {
+    for (EditProperty p : PROPERTIES) {
+      PROPERTY_WORDS[p.ordinal()] = p.name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private final CharSequence in;
+  private int pos;
+  private int textStart;
+  private int textEnd;
+
+  /**
+   * Creates a lexer positioned at the start of {@code input}.
+   *
+   * @param input command line, already trimmed
+   */
+  public CommandLexer(CharSequence input) {
+    this.in = input;
+  }
+
+  /**
+   * Moves the cursor back to the start of the line.
+   *
+   * @return this lexer
+   */
+  public CommandLexer reset() {
+    pos = 0;
+    return this;
+  }
+
+  /**
+   * True once every character has been consumed.
+   */
+  public boolean atEnd() {
+    return pos == in.length();
+  }
+
+  /**
+   * Consumes {@code word} if the input continues with exactly those characters.
+   *
+   * @param word expected characters, spaces included
+   * @return true if consumed
+   */
+  public boolean literal(String word) {
+    int n = word.length();
+    if (pos + n > in.length()) {
+      return false;
+    }
+    for (int i = 0; i < n; i++) {
+      if (in.charAt(pos + i) != word.charAt(i)) {
+        return false;
+      }
+    }
+    pos += n;
+    return true;
+  }
+
+  /**
+   * Consumes a subject or value: {@code "..."} with at least one character and no inner quote
+   * if {@code quoted}, otherwise a run of non-whitespace. The text without surrounding quotes
+   * is then between {@link #textStart} and {@link #textEnd}.
+   *
+   * @param quoted which form to accept
+   * @return true if consumed
+   */
+  public boolean text(boolean quoted) {
+    int n = in.length();
+    if (quoted) {
+      if (pos >= n || in.charAt(pos) != '"') {
+        return false;
+      }
+      int close = pos + 1;
+      while (close < n && in.charAt(close) != '"') {
+        close++;
+      }
+      if (close >= n || close == pos + 1) {
+        return false;
+      }
+      textStart = pos + 1;
+      textEnd = close;
+      pos = close + 1;
+      return true;
+    }
+    int end = pos;
+    while (end < n && !isWhitespace(in.charAt(end))) {
+      end++;
+    }
+    if (end == pos) {
+      return false;
+    }
+    boolean wrapped = end - pos >= 2 && in.charAt(pos) == '"' && in.charAt(end - 1) == '"';
+    textStart = wrapped ? pos + 1 : pos;
+    textEnd = wrapped ? end - 1 : end;
+    pos = end;
+    return true;
+  }
+
+  /**
+   * Consumes the rest of the line as one {@link #text}, trying the quoted form first as the
+   * regex does for a trailing {@code VALUE}.
+   *
+   * @return true if the remaining input is exactly one text token
+   */
+  public boolean textToEnd() {
+    int from = pos;
+    if (text(true) && atEnd()) {
+      return true;
+    }
+    pos = from;
+    return text(false) && atEnd();
+  }
+
+  /**
+   * Start of the text consumed by the last successful {@link #text}.
+   */
+  public int textStart() {
+    return textStart;
+  }
+
+  /**
+   * End (exclusive) of the text consumed by the last successful {@link #text}.
+   */
+  public int textEnd() {
+    return textEnd;
+  }
+
+  /**
+   * Consumes {@code yyyy-MM-ddTHH:mm}.
+   *
+   * @return offset of the token, or -1 if the input does not continue with one
+   */
+  public int dateTime() {
+    int at = pos;
+    if (!digitsAt(at, "dddd-dd-ddTdd:dd")) {
+      return -1;
+    }
+    pos += DATE_TIME_LENGTH;
+    return at;
+  }
+
+  /**
+   * Consumes {@code yyyy-MM-dd}.
+   *
+   * @return offset of the token, or -1 if the input does not continue with one
+   */
+  public int date() {
+    int at = pos;
+    if (!digitsAt(at, "dddd-dd-dd")) {
+      return -1;
+    }
+    pos += DATE_LENGTH;
+    return at;
+  }
+
+  /**
+   * Consumes a run of weekday letters ({@code MTWRFSU}).
+   *
+   * @return bit mask with bit {@code ordinal()} set per letter, or 0 if there is none
+   */
+  public int weekdays() {
+    int mask = 0;
+    int n = in.length();
+    while (pos < n) {
+      int bit = weekdayBit(in.charAt(pos));
+      if (bit == 0) {
+        break;
+      }
+      mask |= bit;
+      pos++;
+    }
+    return mask;
+  }
+
+  /**
+   * Consumes a run of ASCII digits; the run is then between {@link #textStart} and
+   * {@link #textEnd}.
+   *
+   * @return true if at least one digit was consumed
+   */
+  public boolean number() {
+    int end = pos;
+    while (end < in.length() && isDigit(in.charAt(end))) {
+      end++;
+    }
+    if (end == pos) {
+      return false;
+    }
+    textStart = pos;
+    textEnd = end;
+    pos = end;
+    return true;
+  }
+
+  /**
+   * Consumes one of the editable property names.
+   *
+   * @return the property, or null if the input does not continue with one
+   */
+  public EditProperty property() {
+    for (EditProperty p : PROPERTIES) {
+      if (literal(PROPERTY_WORDS[p.ordinal()])) {
+        return p;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the characters between {@code start} and {@code end}.
+   */
+  public String textAt(int start, int end) {
+    return in.subSequence(start, end).toString();
+  }
+
+  /**
+   * Decodes a number consumed by {@link #number}, failing like {@code Integer.parseInt}.
+   */
+  public int intAt(int start, int end) {
+    if (end - start > 9) {
+      return Integer.parseInt(textAt(start, end));
+    }
+    int v = 0;
+    for (int i = start; i < end; i++) {
+      v = v * 10 + (in.charAt(i) - '0');
+    }
+    return v;
+  }
+
+  /**
+   * Decodes a date-time consumed by {@link #dateTime} at {@code offset}, failing like
+   * {@code LocalDateTime.parse} if a field is out of range.
+   */
+  public LocalDateTime dateTimeAt(int offset) {
+    int year = digits(offset, 4);
+    int month = digits(offset + 5, 2);
+    int day = digits(offset + 8, 2);
+    int hour = digits(offset + 11, 2);
+    int minute = digits(offset + 14, 2);
+    if (validDate(year, month, day) && hour < 24 && minute < 60) {
+      return LocalDateTime.of(year, month, day, hour, minute);
+    }
+    return LocalDateTime.parse(in.subSequence(offset, offset + DATE_TIME_LENGTH));
+  }
+
+  /**
+   * Decodes a date consumed by {@link #date} at {@code offset}, failing like
+   * {@code LocalDate.parse} if a field is out of range.
+   */
+  public LocalDate dateAt(int offset) {
+    int year = digits(offset, 4);
+    int month = digits(offset + 5, 2);
+    int day = digits(offset + 8, 2);
+    if (validDate(year, month, day)) {
+      return LocalDate.of(year, month, day);
+    }
+    return LocalDate.parse(in.subSequence(offset, offset + DATE_LENGTH));
+  }
+
+  /**
+   * Converts a mask from {@link #weekdays} into the set it describes.
+   */
+  public static EnumSet<Weekday> weekdaySet(int mask) {
+    EnumSet<Weekday> set = EnumSet.noneOf(Weekday.class);
+    for (Weekday day : Weekday.values()) {
+      if ((mask & (1 << day.ordinal())) != 0) {
+        set.add(day);
+      }
+    }
+    return set;
+  }
+
+  private boolean digitsAt(int at, String shape) {
+    if (at + shape.length() > in.length()) {
+      return false;
+    }
+    for (int i = 0; i < shape.length(); i++) {
+      char want = shape.charAt(i);
+      char c = in.charAt(at + i);
+      if (want == 'd' ? !isDigit(c) : c != want) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int digits(int at, int count) {
+    int v = 0;
+    for (int i = at; i < at + count; i++) {
+      v = v * 10 + (in.charAt(i) - '0');
+    }
+    return v;
+  }
+
+  private static boolean validDate(int year, int month, int day) {
+    if (month < 1 || month > 12 || day < 1) {
+      return false;
+    }
+    int length;
+    switch (month) {
+      case 2:
+        boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        length = leap ? 29 : 28;
+        break;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        length = 30;
+        break;
+      default:
+        length = 31;
+        break;
+    }
+    return day <= length;
+  }
+
+  private static int weekdayBit(char c) {
+    switch (c) {
+      case 'M':
+        return 1 << Weekday.M.ordinal();
+      case 'T':
+        return 1 << Weekday.T.ordinal();
+      case 'W':
+        return 1 << Weekday.W.ordinal();
+      case 'R':
+        return 1 << Weekday.R.ordinal();
+      case 'F':
+        return 1 << Weekday.F.ordinal();
+      case 'S':
+        return 1 << Weekday.S.ordinal();
+      case 'U':
+        return 1 << Weekday.U.ordinal();
+      default:
+        return 0;
+    }
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * The characters regex {@code \s} matches.
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
@@ -1,14 +1,33 @@
 package calendar.export;
 
 import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
 import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Strategy interface for exporting events to an external file format.
+ *
+ * <p>Exporters consume an {@link Iterator} and write each event as it is reached, so a
+ * calendar streamed from {@code CalendarApi.eventsInOrder()} is never held in memory as a
+ * whole and the first bytes are written immediately. The {@link List} overloads are
+ * conveniences over the same path.</p>
  */
 public interface CalendarExporter {
 
+  /**
+   * Writes the events to {@code targetFile} in the exporter's format, in iteration order.
+   *
+   * @param targetFile destination file (may be relative)
+   * @param orderedEvents events sorted in the desired order; consumed once
+   * @return absolute path of the written file
+   */
+  Path export(Path targetFile, Iterator<Event> orderedEvents);
+
   /**
    * Writes the provided events to {@code targetFile} in the exporter's format.
    *
@@ -16,5 +35,38 @@ public interface CalendarExporter {
    * @param orderedEvents events sorted in the desired order
    * @return absolute path of the written file
    */
-  Path export(Path targetFile, List<Event> orderedEvents);
+  default Path export(Path targetFile, List<Event> orderedEvents) {
+    Objects.requireNonNull(orderedEvents, "orderedEvents");
+    return export(targetFile, orderedEvents.iterator());
+  }
+
+  /**
+   * Writes the provided events, told which of them belong to a series. Formats that can
+   * describe a recurrence write each series once; the default ignores {@code series} and
+   * writes every occurrence.
+   *
+   * @param targetFile destination file (may be relative)
+   * @param orderedEvents events sorted in the desired order
+   * @param series series by event, as from {@code CalendarSnapshot.seriesMembership()};
+   *               events missing from it are written on their own
+   * @return absolute path of the written file
+   */
+  default Path export(Path targetFile, List<Event> orderedEvents,
+                      Map<EventId, SeriesId> series) {
+    Objects.requireNonNull(orderedEvents, "orderedEvents");
+    return export(targetFile, orderedEvents.iterator(), series);
+  }
+
+  /**
+   * Streaming form of {@link #export(Path, List, Map)}.
+   *
+   * @param targetFile destination file (may be relative)
+   * @param orderedEvents events sorted in the desired order; consumed once
+   * @param series series by event; events missing from it are written on their own
+   * @return absolute path of the written file
+   */
+  default Path export(Path targetFile, Iterator<Event> orderedEvents,
+                      Map<EventId, SeriesId> series) {
+    return export(targetFile, orderedEvents);
+  }
 }
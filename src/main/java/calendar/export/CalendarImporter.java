@@ -0,0 +1,21 @@
+package calendar.export;
+
+import calendar.model.api.CalendarApi;
+import java.nio.file.Path;
+
+/**
+ * Strategy interface for importing events from an external file format.
+ */
+public interface CalendarImporter {
+
+  /**
+   * Reads {@code sourceFile} in the importer's format and creates its events in
+   * {@code calendar}. Malformed entries and entries the calendar rejects are skipped and
+   * reported; the rest are still created.
+   *
+   * @param sourceFile file to read (may be relative)
+   * @param calendar   calendar receiving the events
+   * @return counts of created and rejected entries, with the reasons for rejection
+   */
+  ImportReport importInto(Path sourceFile, CalendarApi calendar);
+}
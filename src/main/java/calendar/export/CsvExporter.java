@@ -7,8 +7,9 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Objects;
 
 /**
@@ -27,7 +28,7 @@ public final class CsvExporter implements CalendarExporter {
   }
 
   @Override
-  public Path export(Path targetFile, List<Event> orderedEvents) {
+  public Path export(Path targetFile, Iterator<Event> orderedEvents) {
     Objects.requireNonNull(targetFile, "targetFile");
     Objects.requireNonNull(orderedEvents, "orderedEvents");
     DateTimeFormatter dfmt = DateTimeFormatter.ofPattern("MM/dd/yyyy");
@@ -37,15 +38,18 @@ public final class CsvExporter implements CalendarExporter {
       w.write("Subject,Start Date,Start Time,End Date,"
           + "End Time,All Day Event,Description,Location,Private");
       w.newLine();
-      for (Event e : orderedEvents) {
-        boolean sameDay = e.start().toLocalDate().equals(e.end().toLocalDate());
-        boolean isAllDay = sameDay && e.start().toLocalTime().equals(settings.allDayStart())
-            && e.end().toLocalTime().equals(settings.allDayEnd());
+      while (orderedEvents.hasNext()) {
+        Event e = orderedEvents.next();
+        LocalDateTime start = e.start();
+        LocalDateTime end = e.end();
+        boolean sameDay = start.toLocalDate().equals(end.toLocalDate());
+        boolean isAllDay = sameDay && start.toLocalTime().equals(settings.allDayStart())
+            && end.toLocalTime().equals(settings.allDayEnd());
 
-        String startDate = e.start().toLocalDate().format(dfmt);
-        String endDate = e.end().toLocalDate().format(dfmt);
-        String startTime = isAllDay ? "" : e.start().toLocalTime().format(tfmt);
-        String endTime = isAllDay ? "" : e.end().toLocalTime().format(tfmt);
+        String startDate = start.toLocalDate().format(dfmt);
+        String endDate = end.toLocalDate().format(dfmt);
+        String startTime = isAllDay ? "" : start.toLocalTime().format(tfmt);
+        String endTime = isAllDay ? "" : end.toLocalTime().format(tfmt);
         String allDay = isAllDay ? "True" : "False";
         String priv = e.status() == Status.PRIVATE ? "True" : "False";
 
@@ -0,0 +1,336 @@
+package calendar.export;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.EventDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Status;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalQuery;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Imports events from the CSV format written by {@link CsvExporter}.
+ *
+ * <h2>Design: Stream, Convert, Batch</h2>
+ *
+ * <p>The file is read one record at a time by {@link CsvReader}; nothing but the current batch
+ * is held in memory, so file size does not matter. Columns are found by their header names,
+ * case-insensitively, so files from other tools that use the same headers in another order,
+ * or leave some out, import too. Only {@code Subject} and {@code Start Date} are required.</p>
+ *
+ * <p>Each row becomes an {@link EventDraft} in the calendar's local time, the same frame the
+ * exporter writes. Drafts go to {@link CalendarApi#createAll} in batches, so the calendar
+ * updates its indexes once per batch rather than once per event.</p>
+ *
+ * <p><b>Why cache parsed dates and times?</b> {@link DateTimeFormatter} parsing costs far more
+ * than scanning the row, and an export repeats the same few hundred dates and times across
+ * all its rows. Each distinct string is parsed once per import.</p>
+ *
+ * <p><b>Errors:</b> a malformed row, or one the calendar rejects (such as a duplicate), is
+ * skipped and reported in the {@link ImportReport} with its line number; the import goes on.
+ * A missing required column, or a file that cannot be read, fails the whole import.</p>
+ */
+public final class CsvImporter implements CalendarImporter {
+  /** Default number of drafts handed to {@link CalendarApi#createAll} at once. */
+  public static final int DEFAULT_BATCH = 4096;
+
+  private static final int CACHE_LIMIT = 1 << 14;
+  private static final DateTimeFormatter[] DATE_FORMATS = {
+      DateTimeFormatter.ofPattern("M/d/uuuu", Locale.US).withResolverStyle(ResolverStyle.STRICT),
+      DateTimeFormatter.ISO_LOCAL_DATE
+  };
+  private static final DateTimeFormatter[] TIME_FORMATS = {
+      new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("h:mm[:ss] a")
+          .toFormatter(Locale.US),
+      DateTimeFormatter.ofPattern("H:mm[:ss]", Locale.US)
+  };
+
+  private final CalendarSettings settings;
+  private final int batchSize;
+
+  /**
+   * Creates an importer that places all-day rows per the provided {@link CalendarSettings}.
+   *
+   * @param settings calendar policy giving the all-day window
+   */
+  public CsvImporter(CalendarSettings settings) {
+    this(settings, DEFAULT_BATCH);
+  }
+
+  /**
+   * Creates an importer that hands drafts to the calendar {@code batchSize} at a time.
+   *
+   * @param settings  calendar policy giving the all-day window
+   * @param batchSize drafts per {@link CalendarApi#createAll} call; at least 1
+   */
+  public CsvImporter(CalendarSettings settings, int batchSize) {
+    this.settings = Objects.requireNonNull(settings, "settings");
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be at least 1");
+    }
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public ImportReport importInto(Path sourceFile, CalendarApi calendar) {
+    Objects.requireNonNull(sourceFile, "sourceFile");
+    try (BufferedReader in = Files.newBufferedReader(sourceFile.toAbsolutePath(),
+        StandardCharsets.UTF_8)) {
+      return importInto(in, calendar);
+    } catch (IOException ioe) {
+      throw new RuntimeException("Failed to import CSV: " + ioe.getMessage(), ioe);
+    }
+  }
+
+  /**
+   * Reads CSV text from {@code source} and creates its events in {@code calendar}.
+   *
+   * @param source   CSV text, header first; not closed
+   * @param calendar calendar receiving the events
+   * @return counts of created and rejected rows, with the reasons for rejection
+   * @throws IOException if {@code source} cannot be read
+   * @throws IllegalArgumentException if the header lacks a required column
+   */
+  public ImportReport importInto(Reader source, CalendarApi calendar) throws IOException {
+    Objects.requireNonNull(calendar, "calendar");
+    ImportReport.Builder report = new ImportReport.Builder();
+    DraftBatch batch = new DraftBatch(calendar, report, batchSize);
+    read(source, report, batch::add);
+    batch.flush();
+    return report.build();
+  }
+
+  /**
+   * Reads CSV text from {@code source} and passes each row's draft to {@code sink}, without
+   * creating anything. Malformed rows are reported instead of passed on.
+   *
+   * @param source CSV text, header first; not closed
+   * @param sink   receives one draft per well-formed row, in file order
+   * @return the number of drafts passed on, and the rows rejected
+   * @throws IOException if {@code source} cannot be read
+   * @throws IllegalArgumentException if the header lacks a required column
+   */
+  public ImportReport parse(Reader source, Consumer<EventDraft> sink) throws IOException {
+    Objects.requireNonNull(sink, "sink");
+    ImportReport.Builder report = new ImportReport.Builder();
+    read(source, report, (draft, line) -> {
+      sink.accept(draft);
+      report.imported(1);
+    });
+    return report.build();
+  }
+
+  private void read(Reader source, ImportReport.Builder report, Sink sink) throws IOException {
+    CsvReader reader = new CsvReader(Objects.requireNonNull(source, "source"));
+    List<String> fields = new ArrayList<>();
+    if (!reader.next(fields)) {
+      throw new IllegalArgumentException("CSV file is empty");
+    }
+    Columns columns = new Columns(fields);
+    Rows rows = new Rows(columns);
+    while (reader.next(fields)) {
+      if (fields.size() == 1 && fields.get(0).isEmpty()) {
+        continue;
+      }
+      long line = reader.recordLine();
+      if (reader.problem() != null) {
+        report.reject(line, reader.problem());
+        continue;
+      }
+      EventDraft draft;
+      try {
+        draft = rows.toDraft(fields);
+      } catch (IllegalArgumentException e) {
+        report.reject(line, e.getMessage());
+        continue;
+      }
+      sink.accept(draft, line);
+    }
+  }
+
+  /**
+   * Receives each well-formed row's draft with the line it started on.
+   */
+  private interface Sink {
+    void accept(EventDraft draft, long line);
+  }
+
+  /**
+   * Column positions, by header name.
+   */
+  private static final class Columns {
+    final int subject;
+    final int startDate;
+    final int startTime;
+    final int endDate;
+    final int endTime;
+    final int allDay;
+    final int description;
+    final int location;
+    final int priv;
+
+    Columns(List<String> header) {
+      Map<String, Integer> byName = new HashMap<>();
+      for (int i = 0; i < header.size(); i++) {
+        String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+        if (i == 0 && name.startsWith("\uFEFF")) {
+          name = name.substring(1);
+        }
+        byName.putIfAbsent(name, i);
+      }
+      subject = required(byName, "Subject");
+      startDate = required(byName, "Start Date");
+      startTime = byName.getOrDefault("start time", -1);
+      endDate = byName.getOrDefault("end date", -1);
+      endTime = byName.getOrDefault("end time", -1);
+      allDay = byName.getOrDefault("all day event", -1);
+      description = byName.getOrDefault("description", -1);
+      location = byName.getOrDefault("location", -1);
+      priv = byName.getOrDefault("private", -1);
+    }
+
+    private static int required(Map<String, Integer> byName, String name) {
+      Integer column = byName.get(name.toLowerCase(Locale.ROOT));
+      if (column == null) {
+        throw new IllegalArgumentException("CSV header has no " + name + " column");
+      }
+      return column;
+    }
+  }
+
+  /**
+   * Turns rows into drafts, caching every date and time string it parses.
+   */
+  private final class Rows {
+    private final Columns columns;
+    private final Map<String, LocalDate> dates = new HashMap<>();
+    private final Map<String, LocalTime> times = new HashMap<>();
+
+    Rows(Columns columns) {
+      this.columns = columns;
+    }
+
+    EventDraft toDraft(List<String> f) {
+      String subject = field(f, columns.subject).trim();
+      if (subject.isEmpty()) {
+        throw new IllegalArgumentException("missing Subject");
+      }
+      String startDateText = field(f, columns.startDate);
+      if (startDateText.isEmpty()) {
+        throw new IllegalArgumentException("missing Start Date");
+      }
+      LocalDate startDate = date(startDateText, "Start Date");
+      String endDateText = field(f, columns.endDate);
+      LocalDate endDate = endDateText.isEmpty() ? startDate : date(endDateText, "End Date");
+      String startTime = field(f, columns.startTime);
+      String endTime = field(f, columns.endTime);
+      boolean allDay = flag(f, columns.allDay, "All Day Event")
+          || startTime.isEmpty() && endTime.isEmpty();
+
+      EventDraft d = new EventDraft();
+      d.subject = subject;
+      if (allDay && endDate.equals(startDate)) {
+        d.allDayDate = Optional.of(startDate);
+      } else if (allDay) {
+        d.start = Optional.of(startDate.atTime(settings.allDayStart()));
+        d.end = Optional.of(endDate.atTime(settings.allDayEnd()));
+      } else {
+        if (startTime.isEmpty()) {
+          throw new IllegalArgumentException("missing Start Time");
+        }
+        if (endTime.isEmpty()) {
+          throw new IllegalArgumentException("missing End Time");
+        }
+        d.start = Optional.of(startDate.atTime(time(startTime, "Start Time")));
+        d.end = Optional.of(endDate.atTime(time(endTime, "End Time")));
+      }
+      String description = field(f, columns.description);
+      if (!description.isEmpty()) {
+        d.description = Optional.of(description);
+      }
+      String location = field(f, columns.location);
+      if (!location.isEmpty()) {
+        d.location = Optional.of(location);
+      }
+      if (flag(f, columns.priv, "Private")) {
+        d.status = Optional.of(Status.PRIVATE);
+      }
+      return d;
+    }
+
+    private LocalDate date(String text, String column) {
+      LocalDate cached = dates.get(text);
+      if (cached == null) {
+        cached = parse(text, DATE_FORMATS, LocalDate::from, column);
+        remember(dates, text, cached);
+      }
+      return cached;
+    }
+
+    private LocalTime time(String text, String column) {
+      LocalTime cached = times.get(text);
+      if (cached == null) {
+        cached = parse(text, TIME_FORMATS, LocalTime::from, column);
+        remember(times, text, cached);
+      }
+      return cached;
+    }
+  }
+
+  private static String field(List<String> fields, int column) {
+    return column >= 0 && column < fields.size() ? fields.get(column) : "";
+  }
+
+  private static boolean flag(List<String> fields, int column, String name) {
+    String text = field(fields, column).trim();
+    if (text.isEmpty() || text.equalsIgnoreCase("false")) {
+      return false;
+    }
+    if (text.equalsIgnoreCase("true")) {
+      return true;
+    }
+    throw new IllegalArgumentException("bad " + name + ": '" + text + "'");
+  }
+
+  private static <T> T parse(String text, DateTimeFormatter[] formats, TemporalQuery<T> query,
+                             String column) {
+    String trimmed = text.trim();
+    for (DateTimeFormatter format : formats) {
+      try {
+        return format.parse(trimmed, query);
+      } catch (DateTimeParseException e) {
+        // Try the next format.
+      }
+    }
+    throw new IllegalArgumentException("bad " + column + ": '" + text + "'");
+  }
+
+  /**
+   * Caches a parsed value; a file with an unusual number of distinct values starts over rather
+   * than growing the cache without bound.
+   */
+  private static <T> void remember(Map<String, T> cache, String text, T value) {
+    if (cache.size() >= CACHE_LIMIT) {
+      cache.clear();
+    }
+    cache.put(text, value);
+  }
+}
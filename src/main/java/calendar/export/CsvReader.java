@@ -0,0 +1,182 @@
+package calendar.export;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time from a {@link Reader}, as written by {@link CsvExporter}:
+ * comma-separated fields, optionally wrapped in double quotes, with {@code ""} for a quote and
+ * commas and line breaks allowed inside quotes.
+ *
+ * <h2>Design: One Pass Over a Char Buffer</h2>
+ *
+ * <p>Input is read in large blocks into a reusable array and scanned once, character by
+ * character. A plain field that lies within one block becomes a String straight from the
+ * array; only fields that cross a block boundary or hold a doubled quote go through the
+ * reusable {@link StringBuilder}.</p>
+ *
+ * <p><b>Why not a regex or {@code String.split}?</b> Both need the whole line as a String
+ * first, neither handles quoted line breaks, and the regex costs more than the scan itself.</p>
+ *
+ * <p><b>Errors:</b> a quote left open at the end of the input ends the last record early; the
+ * record is still returned, with {@link #problem()} saying why it is suspect, so the caller can
+ * report it and go on.</p>
+ */
+final class CsvReader {
+  private static final int BLOCK = 1 << 16;
+
+  private final Reader in;
+  private final char[] buf = new char[BLOCK];
+  private final StringBuilder pending = new StringBuilder();
+  private int pos;
+  private int limit;
+  private long line = 1;
+  private long recordLine;
+  private String problem;
+
+  CsvReader(Reader in) {
+    this.in = in;
+  }
+
+  /**
+   * Reads the next record into {@code fields}, replacing its contents.
+   *
+   * @return false at the end of the input, when {@code fields} is left empty
+   * @throws IOException if the input cannot be read
+   */
+  boolean next(List<String> fields) throws IOException {
+    fields.clear();
+    problem = null;
+    if (!fill()) {
+      return false;
+    }
+    recordLine = line;
+    while (true) {
+      if (fill() && buf[pos] == '"') {
+        pos++;
+        fields.add(quoted());
+      } else {
+        fields.add(plain());
+      }
+      if (!fill()) {
+        return true;
+      }
+      char c = buf[pos++];
+      if (c == '\n') {
+        line++;
+        return true;
+      }
+      if (c == '\r') {
+        if (fill() && buf[pos] == '\n') {
+          pos++;
+        }
+        line++;
+        return true;
+      }
+      // Otherwise a comma: another field follows.
+    }
+  }
+
+  /**
+   * Returns the line the last record started on, counting from 1.
+   */
+  long recordLine() {
+    return recordLine;
+  }
+
+  /**
+   * Returns why the last record is malformed, or null if it is not.
+   */
+  String problem() {
+    return problem;
+  }
+
+  /**
+   * Reads an unquoted field, stopping before the comma or line break that ends it.
+   */
+  private String plain() throws IOException {
+    int start = pos;
+    while (true) {
+      while (pos < limit) {
+        char c = buf[pos];
+        if (c == ',' || c == '\n' || c == '\r') {
+          return take(start);
+        }
+        pos++;
+      }
+      pending.append(buf, start, pos - start);
+      if (!fill()) {
+        return take(pos);
+      }
+      start = pos;
+    }
+  }
+
+  /**
+   * Reads a quoted field after its opening quote, stopping after the closing quote and any
+   * stray text before the next comma or line break.
+   */
+  private String quoted() throws IOException {
+    int start = pos;
+    while (true) {
+      while (pos < limit) {
+        char c = buf[pos];
+        if (c == '"') {
+          pending.append(buf, start, pos - start);
+          pos++;
+          if (!fill()) {
+            return take(pos);
+          }
+          if (buf[pos] != '"') {
+            // Closing quote; text up to the delimiter is kept, as spreadsheets do.
+            return plain();
+          }
+          start = pos;
+        } else if (c == '\n') {
+          line++;
+        } else if (c == '\r' && pos + 1 < limit && buf[pos + 1] != '\n') {
+          line++;
+        }
+        pos++;
+      }
+      pending.append(buf, start, pos - start);
+      if (!fill()) {
+        problem = "unterminated quoted field";
+        return take(pos);
+      }
+      start = pos;
+    }
+  }
+
+  /**
+   * Returns the field ending at {@code pos}: the pending text plus {@code buf[start..pos)}.
+   */
+  private String take(int start) {
+    if (pending.length() == 0) {
+      return new String(buf, start, pos - start);
+    }
+    pending.append(buf, start, pos - start);
+    String s = pending.toString();
+    pending.setLength(0);
+    return s;
+  }
+
+  /**
+   * Makes sure at least one unread char is buffered.
+   *
+   * @return false at the end of the input
+   */
+  private boolean fill() throws IOException {
+    if (pos < limit) {
+      return true;
+    }
+    int n;
+    do {
+      n = in.read(buf, 0, buf.length);
+    } while (n == 0);
+    pos = 0;
+    limit = Math.max(n, 0);
+    return n > 0;
+  }
+}
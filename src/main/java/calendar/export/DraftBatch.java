@@ -0,0 +1,65 @@
+package calendar.export;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.EventDraft;
+import calendar.model.exception.BatchException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Collects an importer's drafts and creates them in the calendar a batch at a time through
+ * {@link CalendarApi#createAll}. Drafts the calendar rejects are reported with the line they
+ * came from, and the rest of their batch is created without them.
+ */
+final class DraftBatch {
+  private final CalendarApi calendar;
+  private final ImportReport.Builder report;
+  private final List<EventDraft> drafts;
+  private final long[] lines;
+
+  DraftBatch(CalendarApi calendar, ImportReport.Builder report, int size) {
+    this.calendar = calendar;
+    this.report = report;
+    this.drafts = new ArrayList<>(size);
+    this.lines = new long[size];
+  }
+
+  /**
+   * Adds a draft read from {@code line}, creating the batch once it is full.
+   */
+  void add(EventDraft draft, long line) {
+    lines[drafts.size()] = line;
+    drafts.add(draft);
+    if (drafts.size() == lines.length) {
+      flush();
+    }
+  }
+
+  /**
+   * Creates every draft added since the last flush.
+   */
+  void flush() {
+    while (!drafts.isEmpty()) {
+      try {
+        calendar.createAll(drafts);
+        report.imported(drafts.size());
+        drafts.clear();
+      } catch (BatchException e) {
+        SortedMap<Integer, RuntimeException> failures = e.failures();
+        for (Map.Entry<Integer, RuntimeException> failure : failures.entrySet()) {
+          report.reject(lines[failure.getKey()], failure.getValue().getMessage());
+        }
+        int kept = 0;
+        for (int i = 0; i < drafts.size(); i++) {
+          if (!failures.containsKey(i)) {
+            drafts.set(kept, drafts.get(i));
+            lines[kept++] = lines[i];
+          }
+        }
+        drafts.subList(kept, drafts.size()).clear();
+      }
+    }
+  }
+}
@@ -0,0 +1,615 @@
+package calendar.export;
+
+import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.api.CalendarApi;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Status;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Imports events from iCalendar (.ics/.ical) files, such as those written by
+ * {@link IcalExporter}.
+ *
+ * <h2>Design: Stream, Convert, Batch</h2>
+ *
+ * <p>Like {@link CsvImporter}, this reads the file once, front to back, through
+ * {@link IcalReader}, and holds only the VEVENT being read plus the current batch. Components
+ * nested in a VEVENT (such as VALARM) and everything outside one (such as VTIMEZONE) are
+ * skipped. Plain VEVENTs become {@link EventDraft}s and reach the calendar through
+ * {@link CalendarApi#createAll} in batches.</p>
+ *
+ * <p>Times are converted to the calendar's zone: UTC times ({@code Z}) and times with a
+ * {@code TZID} are moved to it, and floating times are taken as already in it. A
+ * {@code TZID} must be a zone name Java knows, such as {@code America/New_York}.</p>
+ *
+ * <p><b>Why only part of RRULE?</b> A series in this model repeats on a set of weekdays, for a
+ * count or until a date, with every occurrence inside one day. {@code FREQ=WEEKLY} or
+ * {@code FREQ=DAILY} with {@code BYDAY}, {@code COUNT} or {@code UNTIL}, and an
+ * {@code INTERVAL} of 1 map onto that exactly and become one series through
+ * {@link CalendarApi#createSeries}. Any other rule would need occurrences the model cannot
+ * hold, so such a VEVENT is reported rather than approximated.</p>
+ *
+ * <p><b>Why split on EXDATE?</b> The model cannot delete one occurrence of a series. A rule
+ * with excluded dates is created instead as the runs of occurrences between them, each its
+ * own series, all in one {@link CalendarApi#createSeriesAll} call.</p>
+ *
+ * <p><b>Why apply RECURRENCE-ID overrides last?</b> An override may come before the series it
+ * changes. Overrides are kept until every series exists, then applied as single-occurrence
+ * edits, found by the series' subject and the occurrence's original start.</p>
+ *
+ * <p><b>Errors:</b> a malformed VEVENT, or one the calendar rejects, is skipped and reported in
+ * the {@link ImportReport} with the line its {@code BEGIN:VEVENT} is on; the import goes on. A
+ * file that cannot be read fails the whole import.</p>
+ */
+public final class IcalImporter implements CalendarImporter {
+  private static final DateTimeFormatter DATE_TIME =
+      DateTimeFormatter.ofPattern("uuuuMMdd'T'HHmmss").withResolverStyle(ResolverStyle.STRICT);
+  private static final DateTimeFormatter DATE =
+      DateTimeFormatter.ofPattern("uuuuMMdd").withResolverStyle(ResolverStyle.STRICT);
+  private static final Map<String, Weekday> DAYS = Map.of("MO", Weekday.M, "TU", Weekday.T,
+      "WE", Weekday.W, "TH", Weekday.R, "FR", Weekday.F, "SA", Weekday.S, "SU", Weekday.U);
+  private static final Set<String> RULE_PARTS =
+      Set.of("FREQ", "INTERVAL", "COUNT", "UNTIL", "BYDAY", "WKST");
+
+  private final CalendarSettings settings;
+  private final int batchSize;
+
+  /**
+   * Creates an importer that places all-day events per the provided {@link CalendarSettings}.
+   *
+   * @param settings calendar policy giving the all-day window
+   */
+  public IcalImporter(CalendarSettings settings) {
+    this(settings, CsvImporter.DEFAULT_BATCH);
+  }
+
+  /**
+   * Creates an importer that hands single events to the calendar {@code batchSize} at a time.
+   *
+   * @param settings  calendar policy giving the all-day window
+   * @param batchSize drafts per {@link CalendarApi#createAll} call; at least 1
+   */
+  public IcalImporter(CalendarSettings settings, int batchSize) {
+    this.settings = Objects.requireNonNull(settings, "settings");
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be at least 1");
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Times are converted to the calendar's zone if it has one, otherwise to the system
+   * default zone.</p>
+   */
+  @Override
+  public ImportReport importInto(Path sourceFile, CalendarApi calendar) {
+    Objects.requireNonNull(sourceFile, "sourceFile");
+    ZoneId zone = calendar instanceof TimeZoneInMemoryCalendarInterface
+        ? ((TimeZoneInMemoryCalendarInterface) calendar).getZoneId() : ZoneId.systemDefault();
+    try (BufferedReader in = Files.newBufferedReader(sourceFile.toAbsolutePath(),
+        StandardCharsets.UTF_8)) {
+      return importInto(in, calendar, zone);
+    } catch (IOException ioe) {
+      throw new RuntimeException("Failed to import iCal: " + ioe.getMessage(), ioe);
+    }
+  }
+
+  /**
+   * Reads iCalendar text from {@code source} and creates its events in {@code calendar}.
+   *
+   * @param source   iCalendar text; not closed
+   * @param calendar calendar receiving the events
+   * @param zone     zone the calendar's local times are in
+   * @return counts of created and rejected VEVENTs, with the reasons for rejection
+   * @throws IOException if {@code source} cannot be read
+   */
+  public ImportReport importInto(Reader source, CalendarApi calendar, ZoneId zone)
+      throws IOException {
+    Objects.requireNonNull(source, "source");
+    Run run = new Run(Objects.requireNonNull(calendar, "calendar"),
+        Objects.requireNonNull(zone, "zone"));
+    BufferedReader in = source instanceof BufferedReader
+        ? (BufferedReader) source : new BufferedReader(source);
+    run.read(new IcalReader(in));
+    return run.report.build();
+  }
+
+  /**
+   * The properties of one VEVENT that the importer uses, still unconverted.
+   */
+  private static final class Vevent {
+    final long line;
+    String error;
+    String summary;
+    String description;
+    String location;
+    String classification;
+    IcalReader.ContentLine start;
+    IcalReader.ContentLine end;
+    String duration;
+    String rule;
+    IcalReader.ContentLine recurrenceId;
+    String uid;
+    final List<IcalReader.ContentLine> excluded = new ArrayList<>(0);
+
+    Vevent(long line) {
+      this.line = line;
+    }
+
+    void set(IcalReader.ContentLine p) {
+      switch (p.name) {
+        case "SUMMARY":
+          summary = text(p.value);
+          break;
+        case "DESCRIPTION":
+          description = text(p.value);
+          break;
+        case "LOCATION":
+          location = text(p.value);
+          break;
+        case "CLASS":
+          classification = p.value.trim().toUpperCase(Locale.ROOT);
+          break;
+        case "DTSTART":
+          start = p;
+          break;
+        case "DTEND":
+          end = p;
+          break;
+        case "DURATION":
+          duration = p.value.trim();
+          break;
+        case "RRULE":
+          rule = p.value.trim();
+          break;
+        case "RECURRENCE-ID":
+          recurrenceId = p;
+          break;
+        case "EXDATE":
+          excluded.add(p);
+          break;
+        case "UID":
+          uid = p.value.trim();
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * State of one import: the calendar, the batch of single events, the series created so far,
+   * and the overrides waiting for them.
+   */
+  private final class Run {
+    final CalendarApi calendar;
+    final ZoneId zone;
+    final ImportReport.Builder report = new ImportReport.Builder();
+    final DraftBatch batch;
+    final Map<String, String> seriesSubjects = new HashMap<>();
+    final List<Vevent> overrides = new ArrayList<>();
+
+    Run(CalendarApi calendar, ZoneId zone) {
+      this.calendar = calendar;
+      this.zone = zone;
+      this.batch = new DraftBatch(calendar, report, batchSize);
+    }
+
+    void read(IcalReader reader) throws IOException {
+      Vevent event = null;
+      int nested = 0;
+      while (true) {
+        IcalReader.ContentLine p;
+        try {
+          p = reader.next();
+        } catch (IllegalArgumentException e) {
+          if (event != null && nested == 0 && event.error == null) {
+            event.error = e.getMessage();
+          }
+          continue;
+        }
+        if (p == null) {
+          break;
+        }
+        if (event == null) {
+          if (p.name.equals("BEGIN") && p.value.trim().equalsIgnoreCase("VEVENT")) {
+            event = new Vevent(p.line);
+          }
+        } else if (p.name.equals("BEGIN")) {
+          nested++;
+        } else if (p.name.equals("END")) {
+          if (nested > 0) {
+            nested--;
+          } else if (p.value.trim().equalsIgnoreCase("VEVENT")) {
+            finish(event);
+            event = null;
+          } else {
+            report.reject(event.line, "VEVENT is not closed");
+            event = null;
+          }
+        } else if (nested == 0) {
+          event.set(p);
+        }
+      }
+      if (event != null) {
+        report.reject(event.line, "VEVENT is not closed");
+      }
+      batch.flush();
+      for (Vevent override : overrides) {
+        applyOverride(override);
+      }
+    }
+
+    private void finish(Vevent v) {
+      try {
+        if (v.error != null) {
+          throw new IllegalArgumentException(v.error);
+        }
+        if (v.summary == null || v.summary.isBlank()) {
+          throw new IllegalArgumentException("missing SUMMARY");
+        }
+        if (v.start == null) {
+          throw new IllegalArgumentException("missing DTSTART");
+        }
+        if (v.recurrenceId != null) {
+          overrides.add(v);
+        } else if (v.rule != null) {
+          createSeries(v);
+        } else {
+          batch.add(draft(v), v.line);
+        }
+      } catch (IllegalArgumentException e) {
+        report.reject(v.line, e.getMessage());
+      }
+    }
+
+    private EventDraft draft(Vevent v) {
+      EventDraft d = new EventDraft();
+      d.subject = v.summary;
+      Object start = when(v.start);
+      if (start instanceof LocalDate && endDate(v, (LocalDate) start)
+          .equals(((LocalDate) start).plusDays(1))) {
+        d.allDayDate = Optional.of((LocalDate) start);
+      } else {
+        LocalDateTime[] span = span(v);
+        d.start = Optional.of(span[0]);
+        d.end = Optional.of(span[1]);
+      }
+      d.description = Optional.ofNullable(v.description);
+      d.location = Optional.ofNullable(v.location);
+      if (isPrivate(v)) {
+        d.status = Optional.of(Status.PRIVATE);
+      }
+      return d;
+    }
+
+    private void createSeries(Vevent v) {
+      SeriesDraft d = new SeriesDraft();
+      d.subject = v.summary;
+      Object start = when(v.start);
+      if (start instanceof LocalDate) {
+        d.startDate = (LocalDate) start;
+        if (!endDate(v, d.startDate).equals(d.startDate.plusDays(1))) {
+          throw new IllegalArgumentException("recurring events must last one day");
+        }
+        d.allDay = true;
+      } else {
+        LocalDateTime[] span = span(v);
+        if (!span[1].toLocalDate().equals(span[0].toLocalDate())) {
+          throw new IllegalArgumentException("recurring events must start and end on one day");
+        }
+        d.startDate = span[0].toLocalDate();
+        d.startTime = Optional.of(span[0].toLocalTime());
+        d.endTime = Optional.of(span[1].toLocalTime());
+      }
+      d.rule = rule(v.rule, d.startDate);
+      d.description = Optional.ofNullable(v.description);
+      d.location = Optional.ofNullable(v.location);
+      if (isPrivate(v)) {
+        d.status = Optional.of(Status.PRIVATE);
+      }
+      try {
+        if (v.excluded.isEmpty()) {
+          calendar.createSeries(d);
+        } else {
+          calendar.createSeriesAll(runs(d, excludedDates(v)));
+        }
+      } catch (RuntimeException e) {
+        report.reject(v.line, e.getMessage());
+        return;
+      }
+      report.imported(1);
+      if (v.uid != null) {
+        seriesSubjects.put(v.uid, v.summary);
+      }
+    }
+
+    private Set<LocalDate> excludedDates(Vevent v) {
+      Set<LocalDate> dates = new HashSet<>();
+      for (IcalReader.ContentLine p : v.excluded) {
+        for (String value : p.value.split(",")) {
+          Object when = when(new IcalReader.ContentLine(p.name, p.params, value, p.line));
+          dates.add(when instanceof LocalDate
+              ? (LocalDate) when : ((LocalDateTime) when).toLocalDate());
+        }
+      }
+      return dates;
+    }
+
+    /**
+     * Splits the series {@code d} describes into the runs of occurrences between excluded
+     * dates, each counted from its own first date.
+     */
+    private List<SeriesDraft> runs(SeriesDraft d, Set<LocalDate> excluded) {
+      RecurrenceRule rule = d.rule;
+      List<SeriesDraft> runs = new ArrayList<>();
+      LocalDate runStart = null;
+      int runLength = 0;
+      int seen = 0;
+      for (LocalDate date = d.startDate;
+           rule.count.isPresent() ? seen < rule.count.get() : !date.isAfter(rule.untilDate.get());
+           date = date.plusDays(1)) {
+        if (!rule.weekdays.contains(Weekday.from(date.getDayOfWeek()))) {
+          continue;
+        }
+        seen++;
+        if (!excluded.contains(date)) {
+          if (runLength++ == 0) {
+            runStart = date;
+          }
+        } else if (runLength > 0) {
+          runs.add(run(d, runStart, runLength));
+          runLength = 0;
+        }
+      }
+      if (runLength > 0) {
+        runs.add(run(d, runStart, runLength));
+      }
+      if (runs.isEmpty()) {
+        throw new IllegalArgumentException("EXDATE excludes every occurrence");
+      }
+      return runs;
+    }
+
+    private SeriesDraft run(SeriesDraft d, LocalDate start, int count) {
+      SeriesDraft run = new SeriesDraft();
+      run.subject = d.subject;
+      run.allDay = d.allDay;
+      run.startDate = start;
+      run.startTime = d.startTime;
+      run.endTime = d.endTime;
+      run.rule = new RecurrenceRule(d.rule.weekdays, Optional.of(count), Optional.empty());
+      run.description = d.description;
+      run.location = d.location;
+      run.status = d.status;
+      return run;
+    }
+
+    private void applyOverride(Vevent v) {
+      try {
+        String subject = v.uid == null ? null : seriesSubjects.get(v.uid);
+        if (subject == null) {
+          throw new IllegalArgumentException("RECURRENCE-ID refers to no imported series");
+        }
+        Object original = when(v.recurrenceId);
+        EventSelector selector = new EventSelector();
+        selector.subject = subject;
+        selector.start = original instanceof LocalDate
+            ? ((LocalDate) original).atTime(settings.allDayStart()) : (LocalDateTime) original;
+        EventPatch patch = new EventPatch();
+        if (!v.summary.equals(subject)) {
+          patch.subject = Optional.of(v.summary);
+        }
+        LocalDateTime[] span = span(v);
+        patch.start = Optional.of(span[0]);
+        patch.end = Optional.of(span[1]);
+        patch.description = Optional.ofNullable(v.description);
+        patch.location = Optional.ofNullable(v.location);
+        patch.status = Optional.of(isPrivate(v) ? Status.PRIVATE : Status.PUBLIC);
+        calendar.updateBySelector(selector, patch, EditScope.SINGLE);
+      } catch (RuntimeException e) {
+        report.reject(v.line, e.getMessage());
+        return;
+      }
+      report.imported(1);
+    }
+
+    /**
+     * Start and end of {@code v} in the calendar's zone; DATE values cover the all-day window
+     * of each day from the start to the day before the (exclusive) end.
+     */
+    private LocalDateTime[] span(Vevent v) {
+      Object start = when(v.start);
+      if (start instanceof LocalDate) {
+        LocalDate first = (LocalDate) start;
+        LocalDate end = endDate(v, first);
+        return new LocalDateTime[] {first.atTime(settings.allDayStart()),
+            end.minusDays(1).atTime(settings.allDayEnd())};
+      }
+      LocalDateTime first = (LocalDateTime) start;
+      LocalDateTime end;
+      if (v.end != null) {
+        Object e = when(v.end);
+        if (!(e instanceof LocalDateTime)) {
+          throw new IllegalArgumentException("DTEND is a date but DTSTART is not");
+        }
+        end = (LocalDateTime) e;
+      } else if (v.duration != null) {
+        end = first.plus(duration(v.duration));
+      } else {
+        throw new IllegalArgumentException("missing DTEND");
+      }
+      return new LocalDateTime[] {first, end};
+    }
+
+    /**
+     * Exclusive end date of an all-day VEVENT starting on {@code start}.
+     */
+    private LocalDate endDate(Vevent v, LocalDate start) {
+      LocalDate end;
+      if (v.end != null) {
+        Object e = when(v.end);
+        if (!(e instanceof LocalDate)) {
+          throw new IllegalArgumentException("DTSTART is a date but DTEND is not");
+        }
+        end = (LocalDate) e;
+      } else if (v.duration != null) {
+        end = start.plusDays(duration(v.duration).toDays());
+      } else {
+        end = start.plusDays(1);
+      }
+      if (!end.isAfter(start)) {
+        throw new IllegalArgumentException("DTEND must be after DTSTART");
+      }
+      return end;
+    }
+
+    /**
+     * Parses a date or date-time property: a {@link LocalDate} for DATE values, otherwise a
+     * {@link LocalDateTime} in the calendar's zone.
+     */
+    private Object when(IcalReader.ContentLine p) {
+      String value = p.value.trim();
+      try {
+        if ("DATE".equalsIgnoreCase(p.param("VALUE")) || value.length() == 8) {
+          return LocalDate.parse(value, DATE);
+        }
+        if (value.endsWith("Z")) {
+          return LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME)
+              .atZone(ZoneOffset.UTC).withZoneSameInstant(zone).toLocalDateTime();
+        }
+        LocalDateTime local = LocalDateTime.parse(value, DATE_TIME);
+        String tzid = p.param("TZID");
+        if (tzid == null) {
+          return local;
+        }
+        ZoneId from;
+        try {
+          from = ZoneId.of(tzid.startsWith("/") ? tzid.substring(1) : tzid);
+        } catch (DateTimeException e) {
+          throw new IllegalArgumentException("unknown TZID '" + tzid + "'");
+        }
+        return local.atZone(from).withZoneSameInstant(zone).toLocalDateTime();
+      } catch (DateTimeParseException e) {
+        throw new IllegalArgumentException("bad " + p.name + ": '" + value + "'");
+      }
+    }
+
+    private RecurrenceRule rule(String text, LocalDate startDate) {
+      Map<String, String> parts = new HashMap<>();
+      for (String part : text.split(";")) {
+        int eq = part.indexOf('=');
+        String key = (eq < 0 ? part : part.substring(0, eq)).trim().toUpperCase(Locale.ROOT);
+        if (!RULE_PARTS.contains(key)) {
+          throw new IllegalArgumentException("unsupported RRULE part " + key);
+        }
+        parts.put(key, eq < 0 ? "" : part.substring(eq + 1).trim().toUpperCase(Locale.ROOT));
+      }
+      String freq = parts.getOrDefault("FREQ", "");
+      if (!freq.equals("WEEKLY") && !freq.equals("DAILY")) {
+        throw new IllegalArgumentException("unsupported RRULE FREQ=" + freq);
+      }
+      String interval = parts.get("INTERVAL");
+      if (interval != null && !interval.equals("1")) {
+        throw new IllegalArgumentException("unsupported RRULE INTERVAL=" + interval);
+      }
+      EnumSet<Weekday> days = EnumSet.noneOf(Weekday.class);
+      String byDay = parts.get("BYDAY");
+      if (byDay != null) {
+        for (String day : byDay.split(",")) {
+          Weekday weekday = DAYS.get(day.trim());
+          if (weekday == null) {
+            throw new IllegalArgumentException("unsupported RRULE BYDAY=" + day);
+          }
+          days.add(weekday);
+        }
+      } else if (freq.equals("DAILY")) {
+        days = EnumSet.allOf(Weekday.class);
+      } else {
+        days.add(Weekday.from(startDate.getDayOfWeek()));
+      }
+      String count = parts.get("COUNT");
+      String until = parts.get("UNTIL");
+      if ((count == null) == (until == null)) {
+        throw new IllegalArgumentException("RRULE needs exactly one of COUNT or UNTIL");
+      }
+      try {
+        if (count != null) {
+          return new RecurrenceRule(days, Optional.of(Integer.parseInt(count)),
+              Optional.empty());
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("bad RRULE COUNT=" + count);
+      }
+      Object last = when(new IcalReader.ContentLine("UNTIL", Map.of(), until, 0));
+      return new RecurrenceRule(days, Optional.empty(), Optional.of(last instanceof LocalDate
+          ? (LocalDate) last : ((LocalDateTime) last).toLocalDate()));
+    }
+  }
+
+  private static boolean isPrivate(Vevent v) {
+    return "PRIVATE".equals(v.classification) || "CONFIDENTIAL".equals(v.classification);
+  }
+
+  private static Duration duration(String text) {
+    try {
+      return Duration.parse(text);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("bad DURATION: '" + text + "'");
+    }
+  }
+
+  /**
+   * Undoes TEXT escaping: {@code \n} or {@code \N} is a line break, and a backslash before any
+   * other character stands for that character.
+   */
+  private static String text(String value) {
+    if (value.indexOf('\\') < 0) {
+      return value;
+    }
+    StringBuilder out = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && i + 1 < value.length()) {
+        char next = value.charAt(++i);
+        out.append(next == 'n' || next == 'N' ? '\n' : next);
+      } else {
+        out.append(c);
+      }
+    }
+    return out.toString();
+  }
+}
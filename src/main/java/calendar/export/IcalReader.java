@@ -0,0 +1,133 @@
+package calendar.export;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads iCalendar content lines one at a time, unfolding continuation lines as it goes.
+ *
+ * <p>A content line is {@code NAME;PARAM=value;...:value}. Lines longer than the format allows
+ * are folded: the rest continues on the next physical line after one space or tab. Only the
+ * line being unfolded and the one after it are held, so files of any size stream through.</p>
+ */
+final class IcalReader {
+  private final BufferedReader in;
+  private String lookahead;
+  private long lookaheadLine;
+  private long physicalLine;
+
+  IcalReader(BufferedReader in) {
+    this.in = in;
+  }
+
+  /**
+   * One unfolded content line.
+   */
+  static final class ContentLine {
+    /** Upper-cased property name, such as {@code DTSTART}. */
+    final String name;
+    /** Parameters by upper-cased name, with quotes removed from their values. */
+    final Map<String, String> params;
+    /** The raw value, still escaped. */
+    final String value;
+    /** The physical line it started on, counting from 1. */
+    final long line;
+
+    ContentLine(String name, Map<String, String> params, String value, long line) {
+      this.name = name;
+      this.params = params;
+      this.value = value;
+      this.line = line;
+    }
+
+    String param(String key) {
+      return params.get(key);
+    }
+  }
+
+  /**
+   * Returns the next content line, or null at the end of the input.
+   *
+   * @throws IOException if the input cannot be read
+   * @throws IllegalArgumentException if the line has no value; the next call goes on with the
+   *                                  line after it
+   */
+  ContentLine next() throws IOException {
+    String first = lookahead != null ? lookahead : read();
+    long line = lookahead != null ? lookaheadLine : physicalLine;
+    lookahead = null;
+    while (first != null && first.isEmpty()) {
+      first = read();
+      line = physicalLine;
+    }
+    if (first == null) {
+      return null;
+    }
+    StringBuilder unfolded = null;
+    String next = read();
+    while (next != null && !next.isEmpty()
+        && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+      if (unfolded == null) {
+        unfolded = new StringBuilder(first);
+      }
+      unfolded.append(next, 1, next.length());
+      next = read();
+    }
+    lookahead = next;
+    lookaheadLine = physicalLine;
+    return parse(unfolded == null ? first : unfolded.toString(), line);
+  }
+
+  private String read() throws IOException {
+    String s = in.readLine();
+    if (s != null) {
+      physicalLine++;
+    }
+    return s;
+  }
+
+  private static ContentLine parse(String text, long line) {
+    int i = 0;
+    int n = text.length();
+    while (i < n && text.charAt(i) != ';' && text.charAt(i) != ':') {
+      i++;
+    }
+    if (i == n) {
+      throw new IllegalArgumentException("content line has no value: '" + text + "'");
+    }
+    String name = text.substring(0, i).trim().toUpperCase(Locale.ROOT);
+    Map<String, String> params = Map.of();
+    while (text.charAt(i) == ';') {
+      int eq = text.indexOf('=', i + 1);
+      if (eq < 0) {
+        throw new IllegalArgumentException("bad parameter in '" + text + "'");
+      }
+      String key = text.substring(i + 1, eq).trim().toUpperCase(Locale.ROOT);
+      i = eq + 1;
+      StringBuilder value = new StringBuilder();
+      boolean quoted = false;
+      while (i < n) {
+        char c = text.charAt(i);
+        if (c == '"') {
+          quoted = !quoted;
+        } else if (!quoted && (c == ';' || c == ':')) {
+          break;
+        } else {
+          value.append(c);
+        }
+        i++;
+      }
+      if (i == n) {
+        throw new IllegalArgumentException("content line has no value: '" + text + "'");
+      }
+      if (params.isEmpty()) {
+        params = new HashMap<>();
+      }
+      params.put(key, value.toString());
+    }
+    return new ContentLine(name, params, text.substring(i + 1), line);
+  }
+}
@@ -0,0 +1,129 @@
+package calendar.export;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of an import: how many entries were imported, how many were rejected, and why. An
+ * entry is a CSV row or an iCalendar VEVENT; a recurring VEVENT becomes a whole series but
+ * counts as one entry.
+ *
+ * <p>Only the first {@link #MAX_PROBLEMS} problems are kept, so that a file full of bad rows
+ * does not fill memory with messages; {@link #rejected()} still counts all of them.</p>
+ */
+public final class ImportReport {
+  /** How many problems a report keeps. */
+  public static final int MAX_PROBLEMS = 100;
+
+  private final long imported;
+  private final long rejected;
+  private final List<Problem> problems;
+
+  private ImportReport(Builder b) {
+    this.imported = b.imported;
+    this.rejected = b.rejected;
+    List<Problem> sorted = new ArrayList<>(b.problems);
+    sorted.sort(Comparator.comparingLong(Problem::line));
+    this.problems = Collections.unmodifiableList(sorted);
+  }
+
+  /**
+   * Number of entries imported.
+   */
+  public long imported() {
+    return imported;
+  }
+
+  /**
+   * Number of entries skipped because they were malformed or rejected by the calendar.
+   */
+  public long rejected() {
+    return rejected;
+  }
+
+  /**
+   * The first {@link #MAX_PROBLEMS} rejections found, sorted by line.
+   */
+  public List<Problem> problems() {
+    return problems;
+  }
+
+  @Override
+  public String toString() {
+    return "Imported " + imported + " entr" + (imported == 1 ? "y" : "ies") + ", rejected "
+        + rejected;
+  }
+
+  /**
+   * One rejected entry.
+   */
+  public static final class Problem {
+    private final long line;
+    private final String message;
+
+    /**
+     * Creates a problem found at {@code line}.
+     *
+     * @param line    line the entry starts on, counting from 1
+     * @param message why it was rejected
+     */
+    public Problem(long line, String message) {
+      this.line = line;
+      this.message = Objects.requireNonNull(message, "message");
+    }
+
+    /**
+     * Line the rejected entry starts on, counting from 1.
+     */
+    public long line() {
+      return line;
+    }
+
+    /**
+     * Why it was rejected.
+     */
+    public String message() {
+      return message;
+    }
+
+    @Override
+    public String toString() {
+      return "line " + line + ": " + message;
+    }
+  }
+
+  /**
+   * Collects counts and problems while an import runs.
+   */
+  static final class Builder {
+    private long imported;
+    private long rejected;
+    private final List<Problem> problems = new ArrayList<>();
+
+    /**
+     * Counts {@code n} imported entries.
+     */
+    Builder imported(long n) {
+      imported += n;
+      return this;
+    }
+
+    /**
+     * Counts one rejected entry, keeping its problem if there is still room.
+     */
+    Builder reject(long line, String message) {
+      rejected++;
+      if (problems.size() < MAX_PROBLEMS) {
+        problems.add(new Problem(line, message));
+      }
+      return this;
+    }
+
+    ImportReport build() {
+      return new ImportReport(this);
+    }
+  }
+}
@@ -4,6 +4,8 @@ import calendar.model.exception.ConflictException;
 import calendar.model.exception.NotFoundException;
 import calendar.model.exception.ValidationException;
 import calendar.model.internal.EventCopier;
+import java.io.Closeable;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -49,7 +51,7 @@ import java.util.Set;
  *   <li>Future extensions (e.g., DatabaseCalendar) without modifying this class</li>
  * </ul>
  */
-public class CalendarManager {
+public class CalendarManager implements Closeable {
   private final Map<String, TimeZoneInMemoryCalendarInterface> calendars = new HashMap<>();
   private final CalendarFactory factory;
 
@@ -174,6 +176,31 @@ public class CalendarManager {
     return calendars.isEmpty();
   }
 
+  /**
+   * Closes every calendar, flushing any that keep their events in a file. Every calendar is
+   * closed even if one fails; the first failure is thrown with the others suppressed.
+   *
+   * @throws IOException if a calendar cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (TimeZoneInMemoryCalendarInterface calendar : calendars.values()) {
+      try {
+        calendar.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   /**
    * Copies event between calendars. Duration preserved.
    * 
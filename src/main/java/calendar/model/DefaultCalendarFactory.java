@@ -1,12 +1,181 @@
 package calendar.model;
 
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.EventStore;
+import calendar.model.exception.ConflictException;
+import calendar.model.internal.ColumnarCalendar;
+import calendar.model.internal.InMemoryCalendar;
+import calendar.model.internal.MappedCalendar;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
 /**
  * Default factory implementation for creating TimeZoneInMemoryCalendar instances.
+ *
+ * <p>The calendar each one wraps follows {@link CalendarSettings#eventStore()}: an
+ * {@link InMemoryCalendar}, a {@link ColumnarCalendar}, or a {@link MappedCalendar} opened on
+ * a file in {@code dataDir}, so a calendar created again under the same name finds its events
+ * where it left them.</p>
+ *
+ * <p><b>Why are files not named after calendars?</b> Calendars can be renamed, and names that
+ * differ only in case would share a file on a case-insensitive filesystem. Each file is named
+ * by a random ID and records its calendar's name, which a rename updates; creating a calendar
+ * reopens the file recording that name, or starts a new one. Closing the calendar flushes and
+ * releases the file.</p>
+ *
+ * <p>The names the files record are read once, when the factory is made, into a name-to-file
+ * map that creates and renames keep current; finding a calendar's file does not read every
+ * file. The factory therefore expects to be the only one adding files to {@code dataDir}.</p>
  */
 public class DefaultCalendarFactory implements CalendarFactory {
+  private static final String DATA_SUFFIX = ".cal";
+
+  private final CalendarSettings settings;
+  private final Path dataDir;
+  private final Map<String, Path> files = new HashMap<>();
+
+  /**
+   * Creates a factory whose calendars use {@link CalendarSettings#defaults()}.
+   */
+  public DefaultCalendarFactory() {
+    this(CalendarSettings.defaults());
+  }
+
+  /**
+   * Creates a factory whose calendars use the given settings.
+   *
+   * @param settings model settings applied to every created calendar
+   */
+  public DefaultCalendarFactory(CalendarSettings settings) {
+    this.settings = Objects.requireNonNull(settings, "settings");
+    this.dataDir = null;
+  }
+
+  /**
+   * Creates a factory whose calendars use the given settings and, for
+   * {@link calendar.model.config.EventStore#MAPPED}, keep their files in {@code dataDir}.
+   *
+   * @param settings model settings applied to every created calendar
+   * @param dataDir  existing directory for calendar data files
+   * @throws UncheckedIOException if the data files cannot be read
+   */
+  public DefaultCalendarFactory(CalendarSettings settings, Path dataDir) {
+    this.settings = Objects.requireNonNull(settings, "settings");
+    this.dataDir = Objects.requireNonNull(dataDir, "dataDir");
+    if (settings.eventStore() == EventStore.MAPPED) {
+      indexFiles();
+    }
+  }
+
   @Override
   public TimeZoneInMemoryCalendarInterface create(String timezone, String name) {
-    return new TimeZoneInMemoryCalendar(timezone, name);
+    switch (settings.eventStore()) {
+      case COLUMNAR:
+        return new TimeZoneInMemoryCalendar(new ColumnarCalendar(settings), timezone, name,
+            settings.timeStorage());
+      case MAPPED:
+        return openMapped(timezone, name);
+      default:
+        return new TimeZoneInMemoryCalendar(timezone, name, settings);
+    }
   }
-}
 
+  /**
+   * Opens the data file of calendar {@code name}. The name and timezone are checked first, as
+   * the calendar constructor would, so that a rejected calendar leaves no file behind.
+   */
+  private TimeZoneInMemoryCalendar openMapped(String timezone, String name) {
+    if (dataDir == null) {
+      throw new IllegalStateException("Mapped event store needs a data directory");
+    }
+    if (name == null || name.trim().isEmpty()) {
+      throw new IllegalArgumentException("name cannot be blank");
+    }
+    if (timezone == null) {
+      throw new IllegalArgumentException("timeZoneId cannot be null");
+    }
+    ZoneId zone;
+    try {
+      zone = ZoneId.of(timezone.trim());
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Unsupported timezone: " + timezone.trim(), e);
+    }
+    String trimmedName = name.trim();
+    synchronized (files) {
+      Path file = files.get(trimmedName);
+      if (file == null) {
+        file = dataDir.resolve(UUID.randomUUID() + DATA_SUFFIX);
+      }
+      try {
+        MappedZoneCalendar calendar = new MappedZoneCalendar(
+            MappedCalendar.open(file, trimmedName, zone, settings), file, timezone, trimmedName);
+        files.put(trimmedName, file);
+        return calendar;
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to open calendar file " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Maps the name every data file records to that file. If two files record the same name,
+   * the first one listed wins.
+   */
+  private void indexFiles() {
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dataDir, "*" + DATA_SUFFIX)) {
+      for (Path file : stream) {
+        files.putIfAbsent(MappedCalendar.storedName(file), file);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read calendar files in " + dataDir, e);
+    }
+  }
+
+  /**
+   * A calendar over a {@link MappedCalendar}, which records renames in the file and closes it.
+   * A rename to a name another file records is refused, so that a name finds one file.
+   */
+  private final class MappedZoneCalendar extends TimeZoneInMemoryCalendar {
+    private final MappedCalendar mapped;
+    private final Path file;
+
+    MappedZoneCalendar(MappedCalendar mapped, Path file, String timezone, String name) {
+      super(mapped, timezone, name, settings.timeStorage());
+      this.mapped = mapped;
+      this.file = file;
+    }
+
+    @Override
+    public void setName(String name) {
+      if (name == null || name.trim().isEmpty()) {
+        throw new IllegalArgumentException("name cannot be blank");
+      }
+      String trimmedName = name.trim();
+      synchronized (files) {
+        Path other = files.get(trimmedName);
+        if (other != null && !other.equals(file)) {
+          throw new ConflictException(
+              "Calendar file " + other + " already holds calendar '" + trimmedName + "'");
+        }
+        mapped.rename(trimmedName);
+        files.remove(getName(), file);
+        files.put(trimmedName, file);
+        super.setName(trimmedName);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      mapped.close();
+    }
+  }
+}
@@ -1,11 +1,14 @@
 package calendar.model;
 
 import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
 import calendar.model.api.EditScope;
 import calendar.model.api.EventDraft;
 import calendar.model.api.EventPatch;
 import calendar.model.api.EventSelector;
 import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.TimeStorage;
 import calendar.model.domain.BusyStatus;
 import calendar.model.domain.Event;
 import calendar.model.domain.EventId;
@@ -16,7 +19,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -26,10 +32,26 @@ import java.util.Optional;
  * <p>Uses composition to wrap {@link InMemoryCalendar} and adds timezone-related
  * behavior plus calendar naming. All events are stored in the delegate as
  * {@link java.time.LocalDateTime} but interpreted using this calendar's timezone.
+ *
+ * <h2>Design: Lazy Timezone Changes</h2>
+ *
+ * <p>Under {@link TimeStorage#LOCAL} a timezone change rewrites every event in the delegate.
+ * Under {@link TimeStorage#INSTANT} it only records the new zone: the delegate keeps its events
+ * in {@code storedZone}, and a {@link ZoneProjection} converts arguments into that zone and
+ * returned events out of it. Queries then cost O(k) extra for the k events they return, and a
+ * timezone change is O(1).</p>
+ *
+ * <p><b>Why convert on demand at all?</b> Some operations are defined by the shown zone's wall
+ * clock, not by instants: a new series ("Mondays at 9:00"), an all-day event, and a series-wide
+ * edit of start or end times ("each occurrence at 10:30 on its own date"). Before one of those
+ * the delegate is converted once, as under LOCAL, and the projection disappears until the next
+ * timezone change.</p>
  */
 public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterface {
   private final CalendarApi delegate;
+  private final TimeStorage timeStorage;
   private ZoneId zoneId;
+  private ZoneId storedZone;
   private String name;
 
   /**
@@ -40,14 +62,36 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
    * @throws IllegalArgumentException if the time zone is not valid.
    */
   public TimeZoneInMemoryCalendar(String timeZoneId, String name) throws IllegalArgumentException {
-    this(new InMemoryCalendar(), timeZoneId, name);
+    this(new InMemoryCalendar(), timeZoneId, name, TimeStorage.LOCAL);
+  }
+
+  /**
+   * Creates a TimeZoneInMemoryCalendar whose model uses the given settings.
+   *
+   * @param timeZoneId the timezone in IANA format (e.g., "America/New_York").
+   * @param name       the name of the calendar.
+   * @param settings   model settings (all-day window, default status, series storage, time
+   *                   storage).
+   * @throws IllegalArgumentException if the time zone is not valid.
+   */
+  public TimeZoneInMemoryCalendar(String timeZoneId, String name, CalendarSettings settings) {
+    this(new InMemoryCalendar(settings), timeZoneId, name, settings.timeStorage());
   }
 
   /**
    * Package-private constructor that enables injecting a custom delegate (useful for testing).
    */
   TimeZoneInMemoryCalendar(CalendarApi delegate, String timeZoneId, String name) {
+    this(delegate, timeZoneId, name, TimeStorage.LOCAL);
+  }
+
+  /**
+   * Package-private constructor for a custom delegate with a given time storage mode.
+   */
+  TimeZoneInMemoryCalendar(CalendarApi delegate, String timeZoneId, String name,
+                           TimeStorage timeStorage) {
     this.delegate = Objects.requireNonNull(delegate, "delegate cannot be null");
+    this.timeStorage = Objects.requireNonNull(timeStorage, "timeStorage");
     if (timeZoneId == null) {
       throw new IllegalArgumentException("timeZoneId cannot be null");
     }
@@ -59,6 +103,7 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
     this.name = trimmedName;
     try {
       this.zoneId = ZoneId.of(trimmedTimeZoneId);
+      this.storedZone = this.zoneId;
     } catch (DateTimeException e) {
       throw new IllegalArgumentException("Unsupported timezone: " + trimmedTimeZoneId, e);
     }
@@ -93,7 +138,8 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
   }
 
   /**
-   * Sets the calendar's timezone using a ZoneId.
+   * Sets the calendar's timezone using a ZoneId. Under {@link TimeStorage#INSTANT} this only
+   * records the zone; events are converted as they are read.
    *
    * @param zoneId the new timezone.
    * @throws IllegalArgumentException if zoneId is null.
@@ -102,12 +148,16 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
     if (zoneId == null) {
       throw new IllegalArgumentException("zoneId cannot be null");
     }
-    delegate.convertTimeZone(this.zoneId, zoneId);
+    if (timeStorage == TimeStorage.LOCAL) {
+      delegate.convertTimeZone(this.zoneId, zoneId);
+      this.storedZone = zoneId;
+    }
     this.zoneId = zoneId;
   }
 
   @Override
   public void convertTimeZone(ZoneId fromZone, ZoneId toZone) {
+    convertStored();
     delegate.convertTimeZone(fromZone, toZone);
   }
 
@@ -145,7 +195,12 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
    */
   @Override
   public List<Event> eventsOn(LocalDate date) {
-    return delegate.eventsOn(date);
+    ZoneProjection p = projection();
+    if (p == null) {
+      return delegate.eventsOn(date);
+    }
+    LocalDateTime[] range = p.dayToStored(date);
+    return p.toShown(delegate.eventsOverlapping(range[0], range[1]));
   }
 
   /**
@@ -153,7 +208,11 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
    */
   @Override
   public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
-    return delegate.eventsOverlapping(from, to);
+    ZoneProjection p = projection();
+    if (p == null || !to.isAfter(from)) {
+      return delegate.eventsOverlapping(from, to);
+    }
+    return p.toShown(delegate.eventsOverlapping(p.toStored(from), p.toStored(to)));
   }
 
   /**
@@ -161,27 +220,104 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
    */
   @Override
   public List<Event> allEvents() {
-    return delegate.allEvents();
+    ZoneProjection p = projection();
+    return p == null ? delegate.allEvents() : p.toShown(delegate.allEvents());
+  }
+
+  /**
+   * Delegates to the underlying in-memory calendar.
+   */
+  @Override
+  public Iterator<Event> eventsInOrder() {
+    ZoneProjection p = projection();
+    return p == null ? delegate.eventsInOrder() : p.toShown(delegate.eventsInOrder());
+  }
+
+  /**
+   * Delegates to the underlying in-memory calendar.
+   */
+  @Override
+  public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+    ZoneProjection p = projection();
+    if (p == null || start == null) {
+      return delegate.eventsBySubjectAndStart(subject, start);
+    }
+    return p.toShown(delegate.eventsBySubjectAndStart(subject, p.toStored(start)));
   }
 
   @Override
   public EventId create(EventDraft draft) {
-    return delegate.create(draft);
+    ZoneProjection p = projection();
+    if (p == null || draft == null) {
+      return delegate.create(draft);
+    }
+    if (isAllDay(draft)) {
+      convertStored();
+      return delegate.create(draft);
+    }
+    return delegate.create(p.toStored(draft));
   }
 
   @Override
   public SeriesId createSeries(SeriesDraft draft) {
+    convertStored();
     return delegate.createSeries(draft);
   }
 
+  @Override
+  public List<EventId> createAll(List<EventDraft> drafts) {
+    ZoneProjection p = projection();
+    if (p == null || drafts == null) {
+      return delegate.createAll(drafts);
+    }
+    List<EventDraft> stored = new ArrayList<>(drafts.size());
+    for (EventDraft draft : drafts) {
+      if (draft == null || isAllDay(draft)) {
+        convertStored();
+        return delegate.createAll(drafts);
+      }
+      stored.add(p.toStored(draft));
+    }
+    return delegate.createAll(stored);
+  }
+
+  @Override
+  public List<SeriesId> createSeriesAll(List<SeriesDraft> drafts) {
+    convertStored();
+    return delegate.createSeriesAll(drafts);
+  }
+
+  /**
+   * Restored events are in the shown zone, like the snapshot they came from.
+   */
+  @Override
+  public void restore(List<Event> events, Map<EventId, SeriesId> series) {
+    convertStored();
+    delegate.restore(events, series);
+  }
+
   @Override
   public void updateBySelector(EventSelector selector, EventPatch patch, EditScope scope) {
-    delegate.updateBySelector(selector, patch, scope);
+    ZoneProjection p = projection();
+    if (p == null || selector == null || patch == null) {
+      delegate.updateBySelector(selector, patch, scope);
+      return;
+    }
+    if (scope != EditScope.SINGLE && (patch.start.isPresent() || patch.end.isPresent())) {
+      convertStored();
+      delegate.updateBySelector(selector, patch, scope);
+      return;
+    }
+    delegate.updateBySelector(p.toStored(selector), p.toStored(patch), scope);
   }
 
   @Override
   public BusyStatus statusAt(LocalDateTime instant) {
-    return delegate.statusAt(instant);
+    ZoneProjection p = projection();
+    if (p == null || instant == null) {
+      return delegate.statusAt(instant);
+    }
+    return delegate.statusAt(p.toStored(instant));
   }
 
   @Override
@@ -189,4 +325,34 @@ public class TimeZoneInMemoryCalendar implements TimeZoneInMemoryCalendarInterfa
     return delegate.seriesOfEvent(eventId);
   }
 
+  /**
+   * Returns a consistent view for callers that run several queries, such as the GUI and
+   * exporters. Times are in this calendar's timezone at the moment of the call.
+   */
+  @Override
+  public CalendarSnapshot snapshot() {
+    ZoneProjection p = projection();
+    return p == null ? delegate.snapshot() : p.toShown(delegate.snapshot());
+  }
+
+  /**
+   * Returns the conversion from stored to shown times, or null while they are the same zone.
+   */
+  private ZoneProjection projection() {
+    return storedZone.equals(zoneId) ? null : new ZoneProjection(storedZone, zoneId);
+  }
+
+  /**
+   * Rewrites the delegate's events into the shown zone, ending any projection.
+   */
+  private void convertStored() {
+    if (!storedZone.equals(zoneId)) {
+      delegate.convertTimeZone(storedZone, zoneId);
+      storedZone = zoneId;
+    }
+  }
+
+  private static boolean isAllDay(EventDraft draft) {
+    return draft.allDayDate.isPresent() || draft.end.isEmpty();
+  }
 }
@@ -1,6 +1,8 @@
 package calendar.model;
 
 import calendar.model.api.CalendarApi;
+import java.io.Closeable;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -10,8 +12,9 @@ import java.time.ZonedDateTime;
  *
  * <p>Extends {@link CalendarApi} to add timezone-aware calendar functionality.
  * This interface provides methods for calendar identification and timezone conversion.
+ * A calendar backed by a file is closed to flush and release it.
  */
-public interface TimeZoneInMemoryCalendarInterface extends CalendarApi {
+public interface TimeZoneInMemoryCalendarInterface extends CalendarApi, Closeable {
   /**
    * Returns the calendar's name.
    *
@@ -42,6 +45,16 @@ public interface TimeZoneInMemoryCalendarInterface extends CalendarApi {
    */
   void setZoneId(ZoneId zoneId);
 
+  /**
+   * Flushes and releases whatever stores the calendar's events. The calendar must not be used
+   * afterwards. The default does nothing, for calendars kept on the heap.
+   *
+   * @throws IOException if the events cannot be written back.
+   */
+  @Override
+  default void close() throws IOException {
+  }
+
   /**
    * Converts a LocalDateTime in one TimeZone into a ZonedDateTime in another TimeZone.
    * (So 11:30 PM PST is converted to 2:30AM EST in the next day since EST is 3 hrs ahead of PST).
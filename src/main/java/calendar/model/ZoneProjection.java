@@ -0,0 +1,207 @@
+package calendar.model;
+
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.exception.ValidationException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Converts between the zone a calendar's events are stored in and the zone they are shown in.
+ *
+ * <p>Used by {@link TimeZoneInMemoryCalendar} under
+ * {@link calendar.model.config.TimeStorage#INSTANT}: arguments are moved into the stored zone
+ * on the way in and returned events are moved into the shown zone on the way out, keeping
+ * their IDs. The instant of every time is preserved, so overlap and busy queries give the same
+ * answers as if the events had been rewritten.</p>
+ */
+final class ZoneProjection {
+  private final ZoneId stored;
+  private final ZoneId shown;
+
+  ZoneProjection(ZoneId stored, ZoneId shown) {
+    this.stored = Objects.requireNonNull(stored, "stored");
+    this.shown = Objects.requireNonNull(shown, "shown");
+  }
+
+  /**
+   * Returns the same instant as {@code time} (shown zone) in the stored zone.
+   */
+  LocalDateTime toStored(LocalDateTime time) {
+    return time.atZone(shown).withZoneSameInstant(stored).toLocalDateTime();
+  }
+
+  /**
+   * Returns a draft with explicit times moved into the stored zone. All-day drafts are not
+   * supported: their window is defined in the shown zone's wall clock.
+   */
+  EventDraft toStored(EventDraft draft) {
+    EventDraft out = new EventDraft();
+    out.subject = draft.subject;
+    out.start = draft.start.map(this::toStored);
+    out.end = draft.end.map(this::toStored);
+    out.description = draft.description;
+    out.location = draft.location;
+    out.status = draft.status;
+    return out;
+  }
+
+  /**
+   * Returns a selector whose times are moved into the stored zone.
+   */
+  EventSelector toStored(EventSelector selector) {
+    EventSelector out = new EventSelector();
+    out.subject = selector.subject;
+    out.start = selector.start == null ? null : toStored(selector.start);
+    out.end = selector.end.map(this::toStored);
+    return out;
+  }
+
+  /**
+   * Returns a patch whose times are moved into the stored zone.
+   */
+  EventPatch toStored(EventPatch patch) {
+    EventPatch out = new EventPatch();
+    out.subject = patch.subject;
+    out.start = patch.start.map(this::toStored);
+    out.end = patch.end.map(this::toStored);
+    out.description = patch.description;
+    out.location = patch.location;
+    out.status = patch.status;
+    return out;
+  }
+
+  /**
+   * Returns {@code time} (stored zone) in the shown zone.
+   */
+  LocalDateTime toShown(LocalDateTime time) {
+    return time.atZone(stored).withZoneSameInstant(shown).toLocalDateTime();
+  }
+
+  /**
+   * Returns a copy of {@code e}, same ID, with its times in the shown zone.
+   */
+  Event toShown(Event e) {
+    return new Event.Builder()
+        .id(e.id())
+        .subject(e.subject())
+        .start(toShown(e.start()))
+        .end(toShown(e.end()))
+        .description(e.description().orElse(""))
+        .location(e.location().orElse(""))
+        .status(e.status())
+        .build();
+  }
+
+  /**
+   * Returns the events in the shown zone, in the same order.
+   */
+  List<Event> toShown(List<Event> events) {
+    List<Event> out = new ArrayList<>(events.size());
+    for (Event e : events) {
+      out.add(toShown(e));
+    }
+    return out;
+  }
+
+  /**
+   * Returns an iterator that moves each event into the shown zone as it is reached.
+   */
+  Iterator<Event> toShown(Iterator<Event> events) {
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return events.hasNext();
+      }
+
+      @Override
+      public Event next() {
+        return toShown(events.next());
+      }
+    };
+  }
+
+  /**
+   * Returns a snapshot that answers in the shown zone. Both zones are fixed at this call, so
+   * the view stays consistent whatever the calendar does next.
+   */
+  CalendarSnapshot toShown(CalendarSnapshot snapshot) {
+    return new ProjectedSnapshot(snapshot, this);
+  }
+
+  /**
+   * Stored-zone range that covers the shown-zone day {@code date}.
+   */
+  LocalDateTime[] dayToStored(LocalDate date) {
+    return new LocalDateTime[] {
+        toStored(date.atStartOfDay()), toStored(date.plusDays(1).atStartOfDay())};
+  }
+
+  private static final class ProjectedSnapshot implements CalendarSnapshot {
+    private final CalendarSnapshot source;
+    private final ZoneProjection zones;
+
+    ProjectedSnapshot(CalendarSnapshot source, ZoneProjection zones) {
+      this.source = source;
+      this.zones = zones;
+    }
+
+    @Override
+    public List<Event> allEvents() {
+      return zones.toShown(source.allEvents());
+    }
+
+    @Override
+    public Iterator<Event> eventsInOrder() {
+      return zones.toShown(source.eventsInOrder());
+    }
+
+    @Override
+    public List<Event> eventsOn(LocalDate date) {
+      LocalDateTime[] range = zones.dayToStored(date);
+      return zones.toShown(source.eventsOverlapping(range[0], range[1]));
+    }
+
+    @Override
+    public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+      if (!to.isAfter(from)) {
+        throw new ValidationException("Range end must be after start");
+      }
+      return zones.toShown(
+          source.eventsOverlapping(zones.toStored(from), zones.toStored(to)));
+    }
+
+    @Override
+    public BusyStatus statusAt(LocalDateTime instant) {
+      return source.statusAt(zones.toStored(instant));
+    }
+
+    @Override
+    public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+      return zones.toShown(source.eventsBySubjectAndStart(subject, zones.toStored(start)));
+    }
+
+    @Override
+    public Optional<SeriesId> seriesOfEvent(EventId eventId) {
+      return source.seriesOfEvent(eventId);
+    }
+
+    @Override
+    public Map<EventId, SeriesId> seriesMembership() {
+      return source.seriesMembership();
+    }
+  }
+}
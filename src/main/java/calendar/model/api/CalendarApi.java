@@ -4,13 +4,16 @@ import calendar.model.domain.BusyStatus;
 import calendar.model.domain.Event;
 import calendar.model.domain.EventId;
 import calendar.model.domain.SeriesId;
+import calendar.model.exception.BatchException;
 import calendar.model.exception.ConflictException;
 import calendar.model.exception.NotFoundException;
 import calendar.model.exception.ValidationException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -47,6 +50,26 @@ public interface CalendarApi {
    */
   SeriesId createSeries(SeriesDraft draft);
 
+  /**
+   * Creates many single events at once. Either every draft is created or none is.
+   *
+   * @param drafts event details, validated like {@link #create}
+   * @return generated event IDs, in draft order
+   * @throws BatchException if any draft is invalid or duplicates an existing event or an
+   *                        earlier draft in the batch
+   */
+  List<EventId> createAll(List<EventDraft> drafts);
+
+  /**
+   * Creates many series at once. Either every series is created or none is.
+   *
+   * @param drafts series details, validated like {@link #createSeries}
+   * @return series identifiers, in draft order
+   * @throws BatchException if any draft is invalid or any occurrence duplicates an existing
+   *                        event or an occurrence of an earlier draft in the batch
+   */
+  List<SeriesId> createSeriesAll(List<SeriesDraft> drafts);
+
   /**
    * Updates event(s) using a selector and edit scope.
    *
@@ -92,6 +115,30 @@ public interface CalendarApi {
    */
   List<Event> allEvents();
 
+  /**
+   * Returns every event in start order, one at a time, without first copying the calendar
+   * into a list. Implementations may read the calendar in pages as the iterator advances, so
+   * events created or edited during the walk may or may not be seen; take a
+   * {@link #snapshot} and iterate it when the walk must match one point in time.
+   *
+   * <p>The default iterates a fresh snapshot.</p>
+   *
+   * @return iterator over all events sorted by start time
+   */
+  default Iterator<Event> eventsInOrder() {
+    return snapshot().eventsInOrder();
+  }
+
+  /**
+   * Returns events whose subject matches ignoring case and surrounding whitespace, and whose
+   * start equals {@code start}.
+   *
+   * @param subject event subject
+   * @param start   exact start time
+   * @return matching events (usually zero or one)
+   */
+  List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start);
+
   /**
    * Returns the series identifier an event belongs to, if any.
    *
@@ -108,4 +155,26 @@ public interface CalendarApi {
    */
   void convertTimeZone(ZoneId fromZone, ZoneId toZone);
 
+  /**
+   * Returns an immutable view of the calendar as it is now. Later writes do not affect it, so
+   * several queries against one snapshot always agree.
+   *
+   * @return point-in-time view of every event
+   */
+  CalendarSnapshot snapshot();
+
+  /**
+   * Adds previously saved events unchanged, for reloading a calendar from a
+   * {@link CalendarSnapshot}: IDs, times and fields are kept as given, and each event named in
+   * {@code series} becomes a member of that series. Events are not normalized again, only
+   * checked for duplicates. Either every event is added or none is.
+   *
+   * @param events events to add, as returned by {@link CalendarSnapshot#allEvents}
+   * @param series series of the events that belong to one, as returned by
+   *               {@link CalendarSnapshot#seriesMembership}
+   * @throws ConflictException if an event duplicates an existing event or an earlier one in
+   *                           {@code events}
+   */
+  void restore(List<Event> events, Map<EventId, SeriesId> series);
+
 }
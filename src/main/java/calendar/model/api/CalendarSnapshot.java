@@ -0,0 +1,106 @@
+package calendar.model.api;
+
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.exception.ValidationException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A read-only, point-in-time view of a calendar.
+ *
+ * <p>A snapshot never changes after it is taken: later creates, edits and timezone conversions
+ * on the calendar are not visible through it. Use one when several queries must agree with
+ * each other, for example when a view renders a month or an exporter walks every event.</p>
+ *
+ * <p>Query semantics match the corresponding {@link CalendarApi} methods.</p>
+ */
+public interface CalendarSnapshot {
+
+  /**
+   * Returns all events in the snapshot.
+   *
+   * @return list of all events sorted by start time
+   */
+  List<Event> allEvents();
+
+  /**
+   * Returns the same events as {@link #allEvents}, in the same order, one at a time. Callers
+   * that only walk the events once, such as exporters, should prefer it: views that can walk
+   * their storage directly override it so no list of the whole calendar is built.
+   *
+   * @return iterator over all events sorted by start time
+   */
+  default Iterator<Event> eventsInOrder() {
+    return allEvents().iterator();
+  }
+
+  /**
+   * Returns all events overlapping a given date.
+   *
+   * @param date date in the calendar's timezone
+   * @return list of events sorted by start time
+   */
+  List<Event> eventsOn(LocalDate date);
+
+  /**
+   * Returns all events overlapping a time interval.
+   *
+   * @param from interval start (inclusive)
+   * @param to   interval end (exclusive)
+   * @return events sorted by start time
+   * @throws ValidationException if {@code to <= from}
+   */
+  List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to);
+
+  /**
+   * Returns calendar status at a given instant.
+   *
+   * @param instant timestamp in the calendar's timezone
+   * @return {@link BusyStatus#BUSY} or {@link BusyStatus#AVAILABLE}
+   */
+  BusyStatus statusAt(LocalDateTime instant);
+
+  /**
+   * Returns events whose subject matches ignoring case and surrounding whitespace, and whose
+   * start equals {@code start}.
+   *
+   * @param subject event subject
+   * @param start   exact start time
+   * @return matching events (usually zero or one)
+   */
+  List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start);
+
+  /**
+   * Returns the series identifier an event belonged to when the snapshot was taken.
+   *
+   * @param eventId event identifier
+   * @return optional series identifier
+   */
+  Optional<SeriesId> seriesOfEvent(EventId eventId);
+
+  /**
+   * Returns the series of every event that belonged to one when the snapshot was taken, for
+   * saving the whole calendar. Events missing from the map were not in a series.
+   *
+   * <p>The default asks {@link #seriesOfEvent} once per event; views that can list memberships
+   * directly override it.</p>
+   *
+   * @return series identifier by event identifier
+   */
+  default Map<EventId, SeriesId> seriesMembership() {
+    Map<EventId, SeriesId> out = new HashMap<>();
+    for (Iterator<Event> it = eventsInOrder(); it.hasNext(); ) {
+      Event e = it.next();
+      seriesOfEvent(e.id()).ifPresent(sid -> out.put(e.id(), sid));
+    }
+    return out;
+  }
+}
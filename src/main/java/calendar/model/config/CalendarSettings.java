@@ -11,6 +11,10 @@ import java.util.Objects;
  * <ul>
  *   <li>All-day window (start inclusive, end exclusive)</li>
  *   <li>Default {@link Status} when the caller omits status</li>
+ *   <li>{@link SeriesStorage} for recurring series</li>
+ *   <li>{@link LockingMode} for concurrent access</li>
+ *   <li>{@link TimeStorage} for timezone changes</li>
+ *   <li>{@link EventStore} for where events are kept</li>
  * </ul>
  *
  * <p>All dates/times are interpreted as EST, per assignment assumptions.</p>
@@ -19,6 +23,10 @@ public final class CalendarSettings {
   private final LocalTime allDayStart;
   private final LocalTime allDayEnd;
   private final Status defaultStatus;
+  private final SeriesStorage seriesStorage;
+  private final LockingMode lockingMode;
+  private final TimeStorage timeStorage;
+  private final EventStore eventStore;
 
   /**
    * Constructs a settings instance.
@@ -28,9 +36,20 @@ public final class CalendarSettings {
    * @param defaultStatus default status when a draft omits status
    */
   public CalendarSettings(LocalTime allDayStart, LocalTime allDayEnd, Status defaultStatus) {
+    this(allDayStart, allDayEnd, defaultStatus, SeriesStorage.MATERIALIZED,
+        LockingMode.MONITOR, TimeStorage.LOCAL, EventStore.OBJECTS);
+  }
+
+  private CalendarSettings(LocalTime allDayStart, LocalTime allDayEnd, Status defaultStatus,
+                           SeriesStorage seriesStorage, LockingMode lockingMode,
+                           TimeStorage timeStorage, EventStore eventStore) {
     this.allDayStart = Objects.requireNonNull(allDayStart, "allDayStart");
     this.allDayEnd = Objects.requireNonNull(allDayEnd, "allDayEnd");
     this.defaultStatus = Objects.requireNonNull(defaultStatus, "defaultStatus");
+    this.seriesStorage = Objects.requireNonNull(seriesStorage, "seriesStorage");
+    this.lockingMode = Objects.requireNonNull(lockingMode, "lockingMode");
+    this.timeStorage = Objects.requireNonNull(timeStorage, "timeStorage");
+    this.eventStore = Objects.requireNonNull(eventStore, "eventStore");
     if (!allDayEnd.isAfter(allDayStart)) {
       throw new IllegalArgumentException("All-day end must be after start");
     }
@@ -57,4 +76,68 @@ public final class CalendarSettings {
   public Status defaultStatus() {
     return defaultStatus;
   }
+
+  /** Returns how recurring series are stored. */
+  public SeriesStorage seriesStorage() {
+    return seriesStorage;
+  }
+
+  /**
+   * Returns a copy of these settings with a different series storage mode.
+   *
+   * @param storage the storage mode
+   * @return new settings instance
+   */
+  public CalendarSettings withSeriesStorage(SeriesStorage storage) {
+    return new CalendarSettings(allDayStart, allDayEnd, defaultStatus, storage, lockingMode,
+        timeStorage, eventStore);
+  }
+
+  /** Returns how the calendar guards concurrent access. */
+  public LockingMode lockingMode() {
+    return lockingMode;
+  }
+
+  /**
+   * Returns a copy of these settings with a different locking mode.
+   *
+   * @param mode the locking mode
+   * @return new settings instance
+   */
+  public CalendarSettings withLockingMode(LockingMode mode) {
+    return new CalendarSettings(allDayStart, allDayEnd, defaultStatus, seriesStorage, mode,
+        timeStorage, eventStore);
+  }
+
+  /** Returns how timezone-aware calendars keep event times across timezone changes. */
+  public TimeStorage timeStorage() {
+    return timeStorage;
+  }
+
+  /**
+   * Returns a copy of these settings with a different time storage mode.
+   *
+   * @param storage the time storage mode
+   * @return new settings instance
+   */
+  public CalendarSettings withTimeStorage(TimeStorage storage) {
+    return new CalendarSettings(allDayStart, allDayEnd, defaultStatus, seriesStorage,
+        lockingMode, storage, eventStore);
+  }
+
+  /** Returns where calendars created by the default factory keep their events. */
+  public EventStore eventStore() {
+    return eventStore;
+  }
+
+  /**
+   * Returns a copy of these settings with a different event store.
+   *
+   * @param store the event store
+   * @return new settings instance
+   */
+  public CalendarSettings withEventStore(EventStore store) {
+    return new CalendarSettings(allDayStart, allDayEnd, defaultStatus, seriesStorage,
+        lockingMode, timeStorage, store);
+  }
 }
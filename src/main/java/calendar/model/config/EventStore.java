@@ -0,0 +1,19 @@
+package calendar.model.config;
+
+/**
+ * Where a calendar created by the default factory keeps its events.
+ *
+ * <ul>
+ *   <li>{@link #OBJECTS}: one object per event in hash maps and indexes on the heap (the
+ *       default).</li>
+ *   <li>{@link #COLUMNAR}: one primitive array per field on the heap; cheaper range scans and
+ *       aggregates, O(n) single edits.</li>
+ *   <li>{@link #MAPPED}: fixed-width records in a memory-mapped file per calendar; the heap
+ *       holds only query results, and reopening a calendar does not load it.</li>
+ * </ul>
+ */
+public enum EventStore {
+  OBJECTS,
+  COLUMNAR,
+  MAPPED
+}
@@ -0,0 +1,20 @@
+package calendar.model.config;
+
+/**
+ * How a calendar guards its state against concurrent callers.
+ *
+ * <ul>
+ *   <li>{@link #MONITOR}: one exclusive lock for every call (the default).</li>
+ *   <li>{@link #READ_WRITE}: queries share a read lock; mutations take the write lock.</li>
+ *   <li>{@link #STAMPED}: like {@code READ_WRITE}, plus lock-free optimistic reads for the
+ *       cheapest queries, retried under the read lock if a writer interfered.</li>
+ *   <li>{@link #SNAPSHOT}: mutations take an exclusive lock and then publish an immutable
+ *       version of the calendar; queries read the latest version and never lock.</li>
+ * </ul>
+ */
+public enum LockingMode {
+  MONITOR,
+  READ_WRITE,
+  STAMPED,
+  SNAPSHOT
+}
@@ -0,0 +1,15 @@
+package calendar.model.config;
+
+/**
+ * How a calendar stores the occurrences of a recurring series.
+ *
+ * <ul>
+ *   <li>{@link #MATERIALIZED}: every occurrence is a stored {@code Event} (the default).</li>
+ *   <li>{@link #VIRTUAL}: the series keeps its rule and time template; occurrences are generated
+ *       on demand, and only occurrences that were edited individually are stored.</li>
+ * </ul>
+ */
+public enum SeriesStorage {
+  MATERIALIZED,
+  VIRTUAL
+}
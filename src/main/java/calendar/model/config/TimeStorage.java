@@ -0,0 +1,17 @@
+package calendar.model.config;
+
+/**
+ * How a timezone-aware calendar keeps event times when its timezone changes.
+ *
+ * <ul>
+ *   <li>{@link #LOCAL}: events are stored as wall-clock times in the calendar's timezone; a
+ *       timezone change rewrites every event (the default).</li>
+ *   <li>{@link #INSTANT}: events keep the zone they were stored in, which pins each one to an
+ *       instant; a timezone change only changes the zone they are shown in, and times are
+ *       converted as queries return them.</li>
+ * </ul>
+ */
+public enum TimeStorage {
+  LOCAL,
+  INSTANT
+}
@@ -1,6 +1,7 @@
 package calendar.model.domain;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,12 +20,26 @@ import java.util.UUID;
  * from methods without worrying about who else has a reference.</p>
  *
  * <p>The Builder pattern lets you construct events flexibly while keeping them immutable.</p>
+ *
+ * <h2>Design: Primitive Times</h2>
+ *
+ * <p>Start and end are kept as epoch seconds plus nano-of-second in the calendar's local frame
+ * (the UTC offset is only a fixed reference, not a timezone), not as two
+ * {@link LocalDateTime}s. A LocalDateTime is three objects, so this saves six objects per
+ * event; {@link #start()} and {@link #end()} build one when asked. {@code
+ * EventFootprintBenchmark} measures the retained heap per event against the old layout.</p>
+ *
+ * <p><b>Why expose the primitives?</b> The indexes compare times on every insert, lookup and
+ * query. {@link #startEpochSecond()} and friends let them compare numbers instead of
+ * materializing LocalDateTimes just to throw them away.</p>
  */
 public final class Event {
   private final EventId id;
   private final String subject;
-  private final LocalDateTime start;
-  private final LocalDateTime end;
+  private final long startSecond;
+  private final long endSecond;
+  private final int startNano;
+  private final int endNano;
   private final String description;
   private final String location;
   private final Status status;
@@ -32,8 +47,12 @@ public final class Event {
   private Event(Builder b) {
     this.id = b.id != null ? b.id : new EventId(UUID.randomUUID());
     this.subject = Objects.requireNonNull(b.subject, "subject").trim();
-    this.start = Objects.requireNonNull(b.start, "start");
-    this.end = Objects.requireNonNull(b.end, "end");
+    LocalDateTime start = Objects.requireNonNull(b.start, "start");
+    LocalDateTime end = Objects.requireNonNull(b.end, "end");
+    this.startSecond = start.toEpochSecond(ZoneOffset.UTC);
+    this.startNano = start.getNano();
+    this.endSecond = end.toEpochSecond(ZoneOffset.UTC);
+    this.endNano = end.getNano();
     this.description = b.description == null ? "" : b.description;
     this.location = b.location == null ? "" : b.location;
     this.status = (b.status == null) ? Status.PUBLIC : b.status;
@@ -41,7 +60,7 @@ public final class Event {
     if (subject.isEmpty()) {
       throw new IllegalArgumentException("subject cannot be blank");
     }
-    if (!end.isAfter(start)) {
+    if (endSecond < startSecond || endSecond == startSecond && endNano <= startNano) {
       throw new IllegalArgumentException("end must be strictly after start");
     }
   }
@@ -64,14 +83,42 @@ public final class Event {
    * Start instant (inclusive).
    */
   public LocalDateTime start() {
-    return start;
+    return LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
   }
 
   /**
    * End instant (exclusive).
    */
   public LocalDateTime end() {
-    return end;
+    return LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC);
+  }
+
+  /**
+   * Start as seconds since 1970-01-01T00:00 in the calendar's local frame.
+   */
+  public long startEpochSecond() {
+    return startSecond;
+  }
+
+  /**
+   * Nano-of-second of the start.
+   */
+  public int startNano() {
+    return startNano;
+  }
+
+  /**
+   * End as seconds since 1970-01-01T00:00 in the calendar's local frame.
+   */
+  public long endEpochSecond() {
+    return endSecond;
+  }
+
+  /**
+   * Nano-of-second of the end.
+   */
+  public int endNano() {
+    return endNano;
   }
 
   /**
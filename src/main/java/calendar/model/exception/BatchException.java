@@ -0,0 +1,58 @@
+package calendar.model.exception;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Thrown when a batch operation rejects one or more of its items. Nothing from the batch has
+ * been applied.
+ *
+ * <p>{@link #failures()} maps each rejected item's position in the input list to the
+ * exception it would have raised on its own (usually a {@link ValidationException} or
+ * {@link ConflictException}).</p>
+ */
+public final class BatchException extends RuntimeException {
+  private static final int LISTED = 3;
+
+  private final transient SortedMap<Integer, RuntimeException> failures;
+
+  /**
+   * Creates a BatchException for the given per-item failures.
+   *
+   * @param total    number of items in the batch
+   * @param failures rejected item index to its error; must not be empty
+   */
+  public BatchException(int total, Map<Integer, RuntimeException> failures) {
+    super(describe(total, failures));
+    this.failures = Collections.unmodifiableSortedMap(new TreeMap<>(failures));
+  }
+
+  /**
+   * Returns the rejected items by their index in the batch, in index order.
+   *
+   * @return index to error
+   */
+  public SortedMap<Integer, RuntimeException> failures() {
+    return failures;
+  }
+
+  private static String describe(int total, Map<Integer, RuntimeException> failures) {
+    if (failures.isEmpty()) {
+      throw new IllegalArgumentException("failures must not be empty");
+    }
+    StringBuilder sb = new StringBuilder()
+        .append(failures.size()).append(" of ").append(total)
+        .append(" items rejected, nothing was created");
+    int listed = 0;
+    for (Map.Entry<Integer, RuntimeException> e : new TreeMap<>(failures).entrySet()) {
+      if (listed++ == LISTED) {
+        sb.append("; ...");
+        break;
+      }
+      sb.append("; #").append(e.getKey()).append(": ").append(e.getValue().getMessage());
+    }
+    return sb.toString();
+  }
+}
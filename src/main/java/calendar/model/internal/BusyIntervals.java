@@ -0,0 +1,304 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorted, coalesced set of busy time ranges for one calendar.
+ *
+ * <h2>Design: Treap of Disjoint Ranges</h2>
+ *
+ * <p>Busy status only cares whether <i>some</i> event covers an instant, not which one. So
+ * overlapping or touching events are merged into maximal ranges {@code [start, end)}. The
+ * ranges are disjoint, so ordering them by start also orders them by end, and
+ * {@code contains} is a single descent: find the last range starting at or before the instant
+ * and check its end.</p>
+ *
+ * <p><b>Why a treap instead of sorted arrays?</b> Arrays made the lookup a tight binary search,
+ * but every add or remove shifted the tail, O(n) per write, so out-of-order creates were
+ * quadratic. The ranges live in a treap like {@link TimeIndex}'s instead. Adding a range splits
+ * the tree into the ranges ending before it, those it merges with, and those starting after
+ * it, then joins the first and last around the merged range: O(log n) expected, plus the
+ * ranges absorbed. The lookup still builds no objects.</p>
+ *
+ * <p><b>Removing coverage:</b> Once ranges are merged we no longer know which events formed
+ * them. When an event moves, the range that contained it is dropped and rebuilt from the
+ * events the {@link TimeIndex} still reports inside that range. Only that one range is
+ * recomputed, not the whole calendar.</p>
+ *
+ * <p>Range bounds are the primitive (epoch second, nano) pairs {@link Event} stores, so adding
+ * an event or answering {@code contains} builds no time objects. Writes run under the
+ * calendar's write lock, so the split results are kept in two fields rather than returned in a
+ * pair.</p>
+ */
+final class BusyIntervals {
+  private static final class Node {
+    final long startSecond;
+    final int startNano;
+    final long endSecond;
+    final int endNano;
+    final int priority;
+    Node left;
+    Node right;
+
+    Node(long startSecond, int startNano, long endSecond, int endNano, int priority) {
+      this.startSecond = startSecond;
+      this.startNano = startNano;
+      this.endSecond = endSecond;
+      this.endNano = endNano;
+      this.priority = priority;
+    }
+  }
+
+  private final Random random = new Random();
+  private Node root;
+  private int count;
+  private Node low;
+  private Node high;
+
+  /**
+   * Returns true if the instant lies inside a busy range (start inclusive, end exclusive).
+   */
+  boolean contains(LocalDateTime instant) {
+    long t = EpochTime.seconds(instant);
+    int tn = instant.getNano();
+    Node floor = lastStartAtOrBefore(t, tn);
+    return floor != null && EpochTime.compare(floor.endSecond, floor.endNano, t, tn) > 0;
+  }
+
+  /**
+   * Marks {@code [start, end)} busy, merging with any range it overlaps or touches.
+   */
+  void add(LocalDateTime start, LocalDateTime end) {
+    add(EpochTime.seconds(start), start.getNano(), EpochTime.seconds(end), end.getNano());
+  }
+
+  /**
+   * Marks the event's time busy.
+   */
+  void add(Event e) {
+    add(e.startEpochSecond(), e.startNano(), e.endEpochSecond(), e.endNano());
+  }
+
+  private void add(long s, int sn, long e, int en) {
+    splitEndingBefore(root, s, sn);
+    Node before = low;
+    splitStartingAtOrBefore(high, e, en);
+    Node merged = low;
+    Node after = high;
+    if (merged != null) {
+      Node first = leftmost(merged);
+      if (EpochTime.compare(first.startSecond, first.startNano, s, sn) < 0) {
+        s = first.startSecond;
+        sn = first.startNano;
+      }
+      Node last = rightmost(merged);
+      if (EpochTime.compare(last.endSecond, last.endNano, e, en) > 0) {
+        e = last.endSecond;
+        en = last.endNano;
+      }
+      count -= size(merged);
+    }
+    Node fresh = new Node(s, sn, e, en, random.nextInt());
+    count++;
+    root = join(join(before, fresh), after);
+  }
+
+  /**
+   * Drops the busy range that contained {@code [start, end)} and rebuilds it from the events
+   * {@code source} still holds inside it. Call after the event has left {@code source}.
+   */
+  void remove(LocalDateTime start, LocalDateTime end, TimeIndex source) {
+    remove(EpochTime.seconds(start), start.getNano(), EpochTime.seconds(end), end.getNano(),
+        source);
+  }
+
+  /**
+   * Same as {@link #remove(LocalDateTime, LocalDateTime, TimeIndex)} for a removed event.
+   */
+  void remove(Event e, TimeIndex source) {
+    remove(e.startEpochSecond(), e.startNano(), e.endEpochSecond(), e.endNano(), source);
+  }
+
+  private void remove(long s, int sn, long e, int en, TimeIndex source) {
+    Node range = lastStartAtOrBefore(s, sn);
+    if (range == null || EpochTime.compare(range.endSecond, range.endNano, e, en) < 0) {
+      throw new IllegalStateException("Range not tracked as busy: "
+          + LocalDateTime.ofEpochSecond(s, sn, ZoneOffset.UTC) + " to "
+          + LocalDateTime.ofEpochSecond(e, en, ZoneOffset.UTC));
+    }
+    splitEndingBefore(root, range.endSecond, range.endNano);
+    Node before = low;
+    splitStartingAtOrBefore(high, range.startSecond, range.startNano);
+    root = join(before, high);
+    count--;
+
+    for (Event r : source.overlapping(range.startSecond, range.startNano, range.endSecond,
+        range.endNano)) {
+      add(r);
+    }
+  }
+
+  /**
+   * Rebuilds all ranges from events already sorted by start.
+   */
+  void reset(List<Event> sortedByStart) {
+    List<Node> ranges = new ArrayList<>();
+    int i = 0;
+    while (i < sortedByStart.size()) {
+      Event first = sortedByStart.get(i++);
+      long e = first.endEpochSecond();
+      int en = first.endNano();
+      while (i < sortedByStart.size()) {
+        Event next = sortedByStart.get(i);
+        if (EpochTime.compare(next.startEpochSecond(), next.startNano(), e, en) > 0) {
+          break;
+        }
+        if (EpochTime.compare(next.endEpochSecond(), next.endNano(), e, en) > 0) {
+          e = next.endEpochSecond();
+          en = next.endNano();
+        }
+        i++;
+      }
+      ranges.add(new Node(first.startEpochSecond(), first.startNano(), e, en,
+          random.nextInt()));
+    }
+    root = build(ranges);
+    count = ranges.size();
+  }
+
+  /**
+   * Number of disjoint busy ranges.
+   */
+  int size() {
+    return count;
+  }
+
+  /**
+   * The last range whose start is {@code <= t}, or null.
+   *
+   * <p>A consistent tree has no path longer than its node count. An optimistic reader racing a
+   * write can see old and new links at once and walk in a cycle, so a longer descent throws
+   * and the caller retries under the lock.</p>
+   */
+  private Node lastStartAtOrBefore(long t, int tn) {
+    Node n = root;
+    Node floor = null;
+    int steps = 0;
+    while (n != null) {
+      if (++steps > count) {
+        throw new ConcurrentModificationException("Busy ranges changed during lookup");
+      }
+      if (EpochTime.compare(n.startSecond, n.startNano, t, tn) > 0) {
+        n = n.left;
+      } else {
+        floor = n;
+        n = n.right;
+      }
+    }
+    return floor;
+  }
+
+  /**
+   * Splits {@code n} into the ranges ending before {@code t} ({@link #low}) and the rest
+   * ({@link #high}).
+   */
+  private void splitEndingBefore(Node n, long t, int tn) {
+    if (n == null) {
+      low = null;
+      high = null;
+      return;
+    }
+    if (EpochTime.compare(n.endSecond, n.endNano, t, tn) < 0) {
+      splitEndingBefore(n.right, t, tn);
+      n.right = low;
+      low = n;
+    } else {
+      splitEndingBefore(n.left, t, tn);
+      n.left = high;
+      high = n;
+    }
+  }
+
+  /**
+   * Splits {@code n} into the ranges starting at or before {@code t} ({@link #low}) and the
+   * rest ({@link #high}).
+   */
+  private void splitStartingAtOrBefore(Node n, long t, int tn) {
+    if (n == null) {
+      low = null;
+      high = null;
+      return;
+    }
+    if (EpochTime.compare(n.startSecond, n.startNano, t, tn) <= 0) {
+      splitStartingAtOrBefore(n.right, t, tn);
+      n.right = low;
+      low = n;
+    } else {
+      splitStartingAtOrBefore(n.left, t, tn);
+      n.left = high;
+      high = n;
+    }
+  }
+
+  /**
+   * Joins two treaps where every range in {@code a} comes before every range in {@code b}.
+   */
+  private static Node join(Node a, Node b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    if (a.priority > b.priority) {
+      a.right = join(a.right, b);
+      return a;
+    }
+    b.left = join(a, b.left);
+    return b;
+  }
+
+  /**
+   * Builds the treap for ranges already in order with one left-to-right pass, as
+   * {@link TimeIndex} does.
+   */
+  private static Node build(List<Node> sorted) {
+    List<Node> spine = new ArrayList<>();
+    for (Node fresh : sorted) {
+      Node last = null;
+      while (!spine.isEmpty() && spine.get(spine.size() - 1).priority < fresh.priority) {
+        last = spine.remove(spine.size() - 1);
+      }
+      fresh.left = last;
+      if (!spine.isEmpty()) {
+        spine.get(spine.size() - 1).right = fresh;
+      }
+      spine.add(fresh);
+    }
+    return spine.isEmpty() ? null : spine.get(0);
+  }
+
+  private static Node leftmost(Node n) {
+    while (n.left != null) {
+      n = n.left;
+    }
+    return n;
+  }
+
+  private static Node rightmost(Node n) {
+    while (n.right != null) {
+      n = n.right;
+    }
+    return n;
+  }
+
+  private static int size(Node n) {
+    return n == null ? 0 : 1 + size(n.left) + size(n.right);
+  }
+}
@@ -0,0 +1,218 @@
+package calendar.model.internal;
+
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.exception.ValidationException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * One immutable version of an {@link InMemoryCalendar}'s contents.
+ *
+ * <h2>Design: Structural Sharing</h2>
+ *
+ * <p>Stored events live in a {@link PersistentTimeTree} (time queries) and a
+ * {@link PersistentHashMap} by ID (to find the old copy of an edited event); series membership
+ * is a second persistent map. {@link #withEvent} returns a new version that shares everything
+ * except the paths to the changed event, so publishing after a write costs O(log n) per event
+ * touched, not a copy of the calendar.</p>
+ *
+ * <p>Virtual series runs are already immutable. A version keeps its own list of them, copied
+ * only when the run set changes ({@link SeriesIndex#runVersion}), which is rare next to event
+ * edits.</p>
+ *
+ * <p>Every field is final and nothing reachable from a version is ever modified, so once a
+ * writer publishes it through a volatile field any number of threads can query it without
+ * locks.</p>
+ */
+final class CalendarVersion implements CalendarSnapshot {
+  static final CalendarVersion EMPTY = new CalendarVersion(PersistentTimeTree.EMPTY,
+      PersistentHashMap.empty(), PersistentHashMap.empty(), List.of(), Map.of(), 0L);
+
+  private final PersistentTimeTree events;
+  private final PersistentHashMap<EventId, Event> byId;
+  private final PersistentHashMap<EventId, UUID> members;
+  private final List<VirtualSeries> runs;
+  private final Map<UUID, List<VirtualSeries>> runsByBase;
+  private final long runVersion;
+
+  private CalendarVersion(PersistentTimeTree events, PersistentHashMap<EventId, Event> byId,
+                          PersistentHashMap<EventId, UUID> members, List<VirtualSeries> runs,
+                          Map<UUID, List<VirtualSeries>> runsByBase, long runVersion) {
+    this.events = events;
+    this.byId = byId;
+    this.members = members;
+    this.runs = runs;
+    this.runsByBase = runsByBase;
+    this.runVersion = runVersion;
+  }
+
+  /**
+   * Builds a version from scratch.
+   */
+  static CalendarVersion of(Collection<Event> stored, SeriesIndex seriesIndex) {
+    CalendarVersion v = EMPTY;
+    for (Event e : stored) {
+      v = v.withEvent(e, seriesIndex.memberOf(e.id()));
+    }
+    return v.withRuns(seriesIndex);
+  }
+
+  /**
+   * Returns a version where the stored event with this ID is {@code event}, belonging to
+   * series {@code sid} (null if none).
+   */
+  CalendarVersion withEvent(Event event, UUID sid) {
+    Objects.requireNonNull(event, "event");
+    Event old = byId.get(event.id());
+    PersistentTimeTree tree = events;
+    if (old == null) {
+      tree = tree.plus(event);
+    } else if (old != event) {
+      tree = tree.replace(old, event);
+    }
+    PersistentHashMap<EventId, UUID> m = sid == null
+        ? members.minus(event.id())
+        : members.plus(event.id(), sid);
+    return new CalendarVersion(tree, byId.plus(event.id(), event), m, runs, runsByBase,
+        runVersion);
+  }
+
+  /**
+   * Returns a version with the index's current runs; this version if they have not changed.
+   */
+  CalendarVersion withRuns(SeriesIndex seriesIndex) {
+    if (seriesIndex.runVersion() == runVersion) {
+      return this;
+    }
+    List<VirtualSeries> copy = List.copyOf(seriesIndex.allRuns());
+    Map<UUID, List<VirtualSeries>> bases = new HashMap<>();
+    for (VirtualSeries run : copy) {
+      bases.computeIfAbsent(run.idBase(), k -> new ArrayList<>(1)).add(run);
+    }
+    return new CalendarVersion(events, byId, members, copy, bases, seriesIndex.runVersion());
+  }
+
+  /**
+   * Number of stored (non-virtual) events.
+   */
+  int storedEvents() {
+    return events.size();
+  }
+
+  @Override
+  public List<Event> allEvents() {
+    List<Event> out = events.all();
+    if (!runs.isEmpty()) {
+      for (VirtualSeries run : runs) {
+        run.collectAll(out);
+      }
+      out.sort(TimeIndex::compare);
+    }
+    return out;
+  }
+
+  /**
+   * Pages through the tree and runs; the version never changes, so no lock is needed.
+   */
+  @Override
+  public Iterator<Event> eventsInOrder() {
+    return new EventPages() {
+      @Override
+      void fill(Event after, int limit, List<Event> out) {
+        events.collectAfter(after, limit, out);
+        for (VirtualSeries run : runs) {
+          run.collectAfter(after, limit, out);
+        }
+      }
+    };
+  }
+
+  @Override
+  public List<Event> eventsOn(LocalDate date) {
+    return overlapping(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+  }
+
+  @Override
+  public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+    if (!to.isAfter(from)) {
+      throw new ValidationException("Range end must be after start");
+    }
+    return overlapping(from, to);
+  }
+
+  @Override
+  public BusyStatus statusAt(LocalDateTime instant) {
+    if (events.covers(instant)) {
+      return BusyStatus.BUSY;
+    }
+    for (VirtualSeries run : runs) {
+      if (run.covers(instant)) {
+        return BusyStatus.BUSY;
+      }
+    }
+    return BusyStatus.AVAILABLE;
+  }
+
+  @Override
+  public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+    Objects.requireNonNull(subject, "subject");
+    Objects.requireNonNull(start, "start");
+    String key = SubjectStartIndex.normalize(subject);
+    List<Event> sameStart = new ArrayList<>(1);
+    events.collectStartingAt(start, sameStart);
+    List<Event> out = new ArrayList<>(1);
+    for (Event e : sameStart) {
+      if (SubjectStartIndex.normalize(e.subject()).equals(key)) {
+        out.add(e);
+      }
+    }
+    for (VirtualSeries run : runs) {
+      if (run.normalizedSubject().equals(key) && run.occursAt(start)) {
+        out.add(run.occurrence(start.toLocalDate()));
+      }
+    }
+    return out;
+  }
+
+  @Override
+  public Optional<SeriesId> seriesOfEvent(EventId eventId) {
+    Objects.requireNonNull(eventId, "eventId");
+    UUID sid = members.get(eventId);
+    if (sid == null && !runsByBase.isEmpty()) {
+      LocalDate date = VirtualSeries.dateOf(eventId);
+      for (VirtualSeries run :
+          runsByBase.getOrDefault(VirtualSeries.baseOf(eventId), List.of())) {
+        if (run.occursOn(date)) {
+          sid = run.seriesId();
+          break;
+        }
+      }
+    }
+    return sid == null ? Optional.empty() : Optional.of(new SeriesId(sid));
+  }
+
+  private List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+    List<Event> out = new ArrayList<>();
+    events.collectOverlapping(from, to, out);
+    if (!runs.isEmpty()) {
+      for (VirtualSeries run : runs) {
+        run.collectOverlapping(from, to, out);
+      }
+      out.sort(TimeIndex::compare);
+    }
+    return out;
+  }
+}
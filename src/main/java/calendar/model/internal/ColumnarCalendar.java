@@ -0,0 +1,547 @@
+package calendar.model.internal;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.domain.Status;
+import calendar.model.exception.BatchException;
+import calendar.model.exception.ConflictException;
+import calendar.model.exception.NotFoundException;
+import calendar.model.exception.ValidationException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Column-oriented implementation of {@link CalendarApi}, for read-heavy analytic use such as
+ * exports and busy statistics over years of events.
+ *
+ * <h2>Design: Columns Instead of Objects</h2>
+ *
+ * <p>{@link InMemoryCalendar} keeps one {@link Event} per event in a HashMap plus several
+ * indexes. Here all events live in an {@link EventTable}: by default an {@link EventColumns}
+ * table with one primitive array per field, rows sorted by start ({@link MappedCalendar} uses a
+ * file instead). Range queries, {@code statusAt}, {@link #countOverlapping} and
+ * {@link #busyTime} are binary searches followed by tight loops over {@code long[]} columns, and
+ * Event objects are built only for the rows a query returns.</p>
+ *
+ * <p><b>Same semantics:</b> drafts are validated by the same {@link Normalizer}, duplicates are
+ * the same (subject ignoring case, start, end) keys, and series edits use the same per-member
+ * patch rules as InMemoryCalendar, including detaching on SINGLE start changes and splitting on
+ * FOLLOWING start changes. Series membership is a per-row series field.</p>
+ *
+ * <p><b>Trade-offs:</b></p>
+ * <ul>
+ *   <li>A single create or edit shifts the tail of every column, O(n). Batches
+ *       ({@code createSeries}, {@code createAll}, {@code createSeriesAll}) append and merge
+ *       once instead.</li>
+ *   <li>{@code seriesOfEvent} scans the ID columns, O(n), since rows are ordered by time.</li>
+ *   <li>Series are always stored as rows; {@link calendar.model.config.SeriesStorage#VIRTUAL}
+ *       is not used here.</li>
+ *   <li>Locking follows {@link calendar.model.config.LockingMode} through the same
+ *       {@link LockStrategy}, without optimistic reads. SNAPSHOT mode behaves like MONITOR;
+ *       {@link #snapshot} always copies the table onto the heap.</li>
+ * </ul>
+ */
+public class ColumnarCalendar implements CalendarApi {
+  private static final String DUPLICATE = "Duplicate event (subject/start/end) exists";
+
+  private final EventTable table;
+  private final Normalizer normalizer;
+  private final RecurrenceExpander expander;
+  private final LockStrategy lock;
+
+  /**
+   * Creates a calendar with settings (all-day window, default status, locking mode).
+   *
+   * @param settings configuration for service policy
+   */
+  public ColumnarCalendar(CalendarSettings settings) {
+    this(settings, new EventColumns());
+  }
+
+  /**
+   * Convenience constructor with sensible defaults.
+   */
+  public ColumnarCalendar() {
+    this(CalendarSettings.defaults());
+  }
+
+  /**
+   * Creates a calendar over {@code table}, which may already hold events.
+   */
+  ColumnarCalendar(CalendarSettings settings, EventTable table) {
+    Objects.requireNonNull(settings, "settings");
+    this.table = Objects.requireNonNull(table, "table");
+    this.normalizer = new Normalizer(settings);
+    this.expander = new RecurrenceExpander();
+    this.lock = LockStrategy.of(settings.lockingMode());
+  }
+
+  @Override
+  public EventId create(EventDraft draft) {
+    long stamp = lock.writeLock();
+    try {
+      Event e = normalizer.prepare(draft, null);
+      if (table.containsKey(e, -1)) {
+        throw new ConflictException(DUPLICATE);
+      }
+      table.insert(e, null);
+      return e.id();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public SeriesId createSeries(SeriesDraft draft) {
+    long stamp = lock.writeLock();
+    try {
+      List<Event> occurrences = expand(draft);
+      for (Event e : occurrences) {
+        if (table.containsKey(e, -1)) {
+          throw new ConflictException(DUPLICATE);
+        }
+      }
+      UUID sid = UUID.randomUUID();
+      appendSorted(occurrences, sid);
+      return new SeriesId(sid);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public List<EventId> createAll(List<EventDraft> drafts) {
+    Objects.requireNonNull(drafts, "drafts");
+    long stamp = lock.writeLock();
+    try {
+      InMemoryCalendar.IdSequence ids = new InMemoryCalendar.IdSequence();
+      Set<Key> batch = new HashSet<>();
+      Map<Integer, RuntimeException> failures = new HashMap<>();
+      List<Event> events = new ArrayList<>(drafts.size());
+      for (int i = 0; i < drafts.size(); i++) {
+        try {
+          Event e = normalizer.prepare(drafts.get(i), ids.next());
+          reserve(e, batch);
+          events.add(e);
+        } catch (RuntimeException ex) {
+          failures.put(i, ex);
+        }
+      }
+      if (!failures.isEmpty()) {
+        throw new BatchException(drafts.size(), failures);
+      }
+      appendSorted(events, null);
+      List<EventId> out = new ArrayList<>(events.size());
+      for (Event e : events) {
+        out.add(e.id());
+      }
+      return out;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public List<SeriesId> createSeriesAll(List<SeriesDraft> drafts) {
+    Objects.requireNonNull(drafts, "drafts");
+    long stamp = lock.writeLock();
+    try {
+      Set<Key> batch = new HashSet<>();
+      Map<Integer, RuntimeException> failures = new HashMap<>();
+      List<List<Event>> accepted = new ArrayList<>(drafts.size());
+      for (int i = 0; i < drafts.size(); i++) {
+        Set<Key> reserved = new HashSet<>();
+        try {
+          List<Event> occurrences = expand(drafts.get(i));
+          for (Event e : occurrences) {
+            reserved.add(reserve(e, batch));
+          }
+          accepted.add(occurrences);
+        } catch (RuntimeException ex) {
+          batch.removeAll(reserved);
+          failures.put(i, ex);
+        }
+      }
+      if (!failures.isEmpty()) {
+        throw new BatchException(drafts.size(), failures);
+      }
+      int mark = table.size();
+      List<SeriesId> out = new ArrayList<>(accepted.size());
+      for (List<Event> occurrences : accepted) {
+        UUID sid = UUID.randomUUID();
+        for (Event e : occurrences) {
+          table.append(e, sid);
+        }
+        out.add(new SeriesId(sid));
+      }
+      table.sort(mark);
+      return out;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Checks every key like {@link #createAll}, then appends all rows and sorts once.
+   */
+  @Override
+  public void restore(List<Event> events, Map<EventId, SeriesId> series) {
+    Objects.requireNonNull(events, "events");
+    Objects.requireNonNull(series, "series");
+    long stamp = lock.writeLock();
+    try {
+      Set<Key> batch = new HashSet<>();
+      for (Event e : events) {
+        reserve(Objects.requireNonNull(e, "event"), batch);
+      }
+      int mark = table.size();
+      for (Event e : events) {
+        SeriesId sid = series.get(e.id());
+        table.append(e, sid == null ? null : sid.value());
+      }
+      table.sort(mark);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void updateBySelector(EventSelector selector, EventPatch patch, EditScope scope) {
+    long stamp = lock.writeLock();
+    try {
+      Objects.requireNonNull(selector, "selector");
+      Objects.requireNonNull(patch, "patch");
+      Objects.requireNonNull(scope, "scope");
+
+      int row = resolve(selector);
+      Event anchor = table.event(row);
+      UUID series = table.seriesAt(row);
+      EditScope effective = series == null ? EditScope.SINGLE : scope;
+      boolean changesStart = patch.start
+          .map(newStart -> !newStart.equals(anchor.start()))
+          .orElse(false);
+
+      switch (effective) {
+        case SINGLE:
+          if (changesStart) {
+            table.setSeries(row, null);
+          }
+          apply(row, anchor, InMemoryCalendar.preserveDurationForSingle(anchor, patch));
+          break;
+
+        case FOLLOWING:
+          if (changesStart) {
+            UUID split = UUID.randomUUID();
+            table.moveMembers(series, anchor.startEpochSecond(), split);
+            applyToSeries(table.members(split, Long.MIN_VALUE), patch);
+          } else {
+            applyToSeries(table.members(series, anchor.startEpochSecond()), patch);
+          }
+          break;
+
+        case ENTIRE_SERIES:
+          applyToSeries(table.members(series, Long.MIN_VALUE), patch);
+          break;
+
+        default:
+          throw new IllegalArgumentException("Unknown scope: " + effective);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public List<Event> eventsOn(LocalDate date) {
+    long stamp = lock.readLock();
+    try {
+      return table.eventsOn(date);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+    long stamp = lock.readLock();
+    try {
+      return table.eventsOverlapping(from, to);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public BusyStatus statusAt(LocalDateTime instant) {
+    long stamp = lock.readLock();
+    try {
+      return table.statusAt(instant);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public List<Event> allEvents() {
+    long stamp = lock.readLock();
+    try {
+      return table.allEvents();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+    Objects.requireNonNull(subject, "subject");
+    Objects.requireNonNull(start, "start");
+    long stamp = lock.readLock();
+    try {
+      return table.eventsBySubjectAndStart(subject, start);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public Optional<SeriesId> seriesOfEvent(EventId eventId) {
+    Objects.requireNonNull(eventId, "eventId");
+    long stamp = lock.readLock();
+    try {
+      return table.seriesOfEvent(eventId);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public CalendarSnapshot snapshot() {
+    long stamp = lock.readLock();
+    try {
+      return table.copy();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Converts every row in place, then restores start order with one sort.
+   */
+  @Override
+  public void convertTimeZone(ZoneId fromZone, ZoneId toZone) {
+    long stamp = lock.writeLock();
+    try {
+      Objects.requireNonNull(fromZone, "fromZone cannot be null");
+      Objects.requireNonNull(toZone, "toZone cannot be null");
+      if (fromZone.equals(toZone)) {
+        return;
+      }
+      for (int row = 0; row < table.size(); row++) {
+        Event e = table.event(row);
+        table.setTimes(row,
+            e.start().atZone(fromZone).withZoneSameInstant(toZone).toLocalDateTime(),
+            e.end().atZone(fromZone).withZoneSameInstant(toZone).toLocalDateTime());
+      }
+      table.sort(0);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns how many events overlap {@code [from, to)}, without building any of them.
+   *
+   * @param from interval start (inclusive)
+   * @param to   interval end (exclusive)
+   * @return number of overlapping events
+   * @throws ValidationException if {@code to <= from}
+   */
+  public int countOverlapping(LocalDateTime from, LocalDateTime to) {
+    long stamp = lock.readLock();
+    try {
+      return table.countOverlapping(from, to);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Returns how much of {@code [from, to)} is busy, counting time covered by several events
+   * once.
+   *
+   * @param from interval start (inclusive)
+   * @param to   interval end (exclusive)
+   * @return busy time inside the interval
+   * @throws ValidationException if {@code to <= from}
+   */
+  public Duration busyTime(LocalDateTime from, LocalDateTime to) {
+    long stamp = lock.readLock();
+    try {
+      return table.busyTime(from, to);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Returns the lock guarding the table, for subclasses that add operations on it.
+   */
+  LockStrategy lock() {
+    return lock;
+  }
+
+  /**
+   * Finds the row a selector names, with the same errors as {@link SelectorResolver}.
+   */
+  private int resolve(EventSelector selector) {
+    List<Integer> rows = table.rowsAt(selector.subject, selector.start);
+    if (selector.end.isPresent()) {
+      LocalDateTime end = selector.end.get();
+      for (int row : rows) {
+        if (table.event(row).end().equals(end)) {
+          return row;
+        }
+      }
+      throw new NotFoundException("No event found for subject/start/end");
+    }
+    if (rows.isEmpty()) {
+      throw new NotFoundException("No event found for subject/start");
+    }
+    if (rows.size() > 1) {
+      throw new ValidationException(
+          "Ambiguous selector: multiple events share subject/start; specify end");
+    }
+    return rows.get(0);
+  }
+
+  /**
+   * Patches members one by one, in start order. As in InMemoryCalendar, members patched before
+   * a failing one stay patched.
+   */
+  private void applyToSeries(List<Event> members, EventPatch patch) {
+    for (Event member : members) {
+      int row = table.rowOf(member.id(), member.startEpochSecond(), member.startNano());
+      apply(row, member, InMemoryCalendar.adjustPatchForEvent(member, patch));
+    }
+  }
+
+  /**
+   * Replaces the event at {@code row}, which is {@code current}, by its patched copy.
+   */
+  private void apply(int row, Event current, EventPatch patch) {
+    Event updated = new Event.Builder()
+        .id(current.id())
+        .subject(patch.subject.orElse(current.subject()))
+        .start(patch.start.orElse(current.start()))
+        .end(patch.end.orElse(current.end()))
+        .description(patch.description.orElse(current.description().orElse("")))
+        .location(patch.location.orElse(current.location().orElse("")))
+        .status(patch.status.orElse(current.status()))
+        .build();
+    if (table.containsKey(updated, row)) {
+      throw new ConflictException("Update would duplicate an existing event");
+    }
+    UUID series = table.seriesAt(row);
+    table.remove(row);
+    table.insert(updated, series);
+  }
+
+  private List<Event> expand(SeriesDraft draft) {
+    Objects.requireNonNull(draft, "draft");
+    draft.precheck();
+    Status status = normalizer.resolveStatus(draft.status);
+    LocalTime[] times = normalizer.seriesTimes(draft);
+    List<Event> out = new ArrayList<>();
+    Iterator<LocalDate> dates = expander.iterator(draft.startDate, draft.rule);
+    while (dates.hasNext()) {
+      out.add(Normalizer.seriesEvent(draft, dates.next(), times, status, null));
+    }
+    return out;
+  }
+
+  /**
+   * Throws if {@code e} duplicates a stored event or an earlier item of the batch; otherwise
+   * adds its key to the batch and returns it.
+   */
+  private Key reserve(Event e, Set<Key> batch) {
+    Key key = new Key(SubjectStartIndex.normalize(e.subject()), e);
+    if (table.containsKey(e, -1) || !batch.add(key)) {
+      throw new ConflictException(DUPLICATE);
+    }
+    return key;
+  }
+
+  /**
+   * Adds validated events; one merge for a batch, an in-place insert for a single event.
+   */
+  private void appendSorted(List<Event> events, UUID series) {
+    if (events.size() == 1) {
+      table.insert(events.get(0), series);
+      return;
+    }
+    int mark = table.size();
+    for (Event e : events) {
+      table.append(e, series);
+    }
+    table.sort(mark);
+  }
+
+  /**
+   * Uniqueness key of an event that is not stored yet.
+   */
+  private static final class Key {
+    private final String subject;
+    private final long start;
+    private final long end;
+    private final int startNano;
+    private final int endNano;
+
+    Key(String subject, Event e) {
+      this.subject = subject;
+      this.start = e.startEpochSecond();
+      this.end = e.endEpochSecond();
+      this.startNano = e.startNano();
+      this.endNano = e.endNano();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key k = (Key) o;
+      return subject.equals(k.subject) && start == k.start && end == k.end
+          && startNano == k.startNano && endNano == k.endNano;
+    }
+
+    @Override
+    public int hashCode() {
+      long h = start * 31 + end;
+      h = h * 31 + startNano * 31 + endNano;
+      return Long.hashCode(h) * 31 + subject.hashCode();
+    }
+  }
+}
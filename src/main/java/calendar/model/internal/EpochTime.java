@@ -0,0 +1,46 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Comparisons on the primitive (epoch second, nano) times that {@link Event} stores, so the
+ * indexes never build a {@link LocalDateTime} just to compare it. Query bounds are converted
+ * once per query with {@link #seconds}.
+ */
+final class EpochTime {
+  private EpochTime() {
+  }
+
+  static long seconds(LocalDateTime t) {
+    return t.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  static int compare(long aSecond, int aNano, long bSecond, int bNano) {
+    int c = Long.compare(aSecond, bSecond);
+    return c != 0 ? c : Integer.compare(aNano, bNano);
+  }
+
+  static int compareStarts(Event a, Event b) {
+    return compare(a.startEpochSecond(), a.startNano(), b.startEpochSecond(), b.startNano());
+  }
+
+  static int compareEnds(Event a, Event b) {
+    return compare(a.endEpochSecond(), a.endNano(), b.endEpochSecond(), b.endNano());
+  }
+
+  /**
+   * True if {@code e} starts strictly before the given time.
+   */
+  static boolean startsBefore(Event e, long second, int nano) {
+    return compare(e.startEpochSecond(), e.startNano(), second, nano) < 0;
+  }
+
+  /**
+   * True if {@code e} ends strictly after the given time.
+   */
+  static boolean endsAfter(Event e, long second, int nano) {
+    return compare(e.endEpochSecond(), e.endNano(), second, nano) > 0;
+  }
+}
@@ -23,7 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Copies events between calendars with timezone conversion.
@@ -53,10 +52,13 @@ public final class EventCopier {
     Objects.requireNonNull(eventName, "eventName cannot be null");
     Objects.requireNonNull(eventStart, "eventStart cannot be null");
 
-    List<Event> candidates = sourceCalendar.allEvents().stream()
-        .filter(e -> e.subject().equals(eventName.trim())
-            && e.start().equals(eventStart))
-        .collect(Collectors.toList());
+    String exactName = eventName.trim();
+    List<Event> candidates = new ArrayList<>();
+    for (Event e : sourceCalendar.eventsBySubjectAndStart(eventName, eventStart)) {
+      if (e.subject().equals(exactName)) {
+        candidates.add(e);
+      }
+    }
 
     if (candidates.isEmpty()) {
       throw new NotFoundException("Event '" + eventName + "' not found at " + eventStart);
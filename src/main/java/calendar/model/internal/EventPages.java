@@ -0,0 +1,67 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates events in index order ({@link TimeIndex#compare}) one page at a time.
+ *
+ * <h2>Design: Keyset Paging</h2>
+ *
+ * <p>Each page is asked for with the last event already returned as the cursor: the source
+ * adds the events that sort after it, up to a page's worth from each part of its storage, and
+ * the pager keeps the first page's worth of those in order. Memory is one page however large
+ * the calendar is, and the first events are available after O(log n + page) work instead of
+ * after copying and sorting everything.</p>
+ *
+ * <p><b>Why a cursor instead of an offset?</b> The index order is total over (start, end, id),
+ * so "after this event" stays meaningful when the calendar changes between pages: a mutable
+ * source can take its lock for one page at a time, and an event inserted or removed elsewhere
+ * never shifts the walk or makes it repeat an event.</p>
+ */
+abstract class EventPages implements Iterator<Event> {
+  static final int PAGE_SIZE = 1024;
+
+  private final List<Event> page = new ArrayList<>();
+  private int next;
+  private Event last;
+  private boolean exhausted;
+
+  /**
+   * Adds events sorting after {@code after} (every event if null) to {@code out}: at most
+   * {@code limit} from each ordered part of the source, each part in index order.
+   */
+  abstract void fill(Event after, int limit, List<Event> out);
+
+  @Override
+  public boolean hasNext() {
+    if (next < page.size()) {
+      return true;
+    }
+    if (exhausted) {
+      return false;
+    }
+    page.clear();
+    next = 0;
+    fill(last, PAGE_SIZE, page);
+    page.sort(TimeIndex::compare);
+    if (page.size() > PAGE_SIZE) {
+      page.subList(PAGE_SIZE, page.size()).clear();
+    } else if (page.size() < PAGE_SIZE) {
+      exhausted = true;
+    }
+    return !page.isEmpty();
+  }
+
+  @Override
+  public Event next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    last = page.get(next++);
+    return last;
+  }
+}
@@ -0,0 +1,421 @@
+package calendar.model.internal;
+
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.exception.ValidationException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A table of events in index order (start, end, id; the order of {@link TimeIndex#compare}),
+ * read one primitive field at a time. Storage backs {@link ColumnarCalendar}.
+ *
+ * <h2>Design: Algorithms Over Accessors</h2>
+ *
+ * <p>Subclasses decide where rows live ({@link EventColumns}: heap arrays;
+ * {@link MappedEventTable}: a memory-mapped file) and implement the per-row accessors and the
+ * row moves. Every query is written once here, in terms of those accessors, as a binary search
+ * on start followed by a linear scan, so both layouts answer exactly alike.</p>
+ *
+ * <p><b>Why no interval tree?</b> Subclasses track {@link #maxSpan}, the longest duration
+ * stored since the last {@link #sort}. An event overlapping {@code [from, to)} starts after
+ * {@code from - maxSpan}, so a range query scans only rows starting in
+ * {@code (from - maxSpan, to)}. One very long event widens every scan; that is the price of
+ * having no per-row tree nodes.</p>
+ *
+ * <p>{@link #insert} and {@link #remove} keep index order; {@link #append} and
+ * {@link #setTimes} do not, and must be followed by {@link #sort} before the next query. Tables
+ * are not thread-safe.</p>
+ */
+abstract class EventTable implements CalendarSnapshot {
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  abstract int size();
+
+  abstract long startSecond(int row);
+
+  abstract int startNano(int row);
+
+  abstract long endSecond(int row);
+
+  abstract int endNano(int row);
+
+  abstract long idHigh(int row);
+
+  abstract long idLow(int row);
+
+  /**
+   * True if the subject of {@code row}, normalized, equals {@code normalized}.
+   */
+  abstract boolean subjectMatches(int row, String normalized);
+
+  /**
+   * An upper bound, in seconds, on the duration of every row.
+   */
+  abstract long maxSpan();
+
+  /**
+   * Builds the event stored at {@code row}.
+   */
+  abstract Event event(int row);
+
+  /**
+   * Returns the series of {@code row}, or null.
+   */
+  abstract UUID seriesAt(int row);
+
+  abstract void setSeries(int row, UUID series);
+
+  /**
+   * Inserts {@code e} at its place in index order and returns its row.
+   */
+  abstract int insert(Event e, UUID series);
+
+  /**
+   * Removes the event at {@code row}; later rows move up by one.
+   */
+  abstract void remove(int row);
+
+  /**
+   * Adds {@code e} after the last row without keeping index order.
+   */
+  abstract void append(Event e, UUID series);
+
+  /**
+   * Replaces the times of {@code row} without keeping index order.
+   */
+  abstract void setTimes(int row, LocalDateTime start, LocalDateTime end);
+
+  /**
+   * Restores index order, given that rows before {@code sortedPrefix} are already in order.
+   */
+  abstract void sort(int sortedPrefix);
+
+  /**
+   * Returns an independent, unchanging copy of the table.
+   */
+  abstract CalendarSnapshot copy();
+
+  /**
+   * True if {@code row} belongs to series {@code series}. Subclasses may compare without
+   * building the UUID.
+   */
+  boolean inSeries(int row, UUID series) {
+    return series.equals(seriesAt(row));
+  }
+
+  /**
+   * Returns the row holding the event with this ID and start, or -1.
+   */
+  final int rowOf(EventId id, long second, int nano) {
+    long high = id.value().getMostSignificantBits();
+    long low = id.value().getLeastSignificantBits();
+    for (int row = lowerBound(second, nano); startsAt(row, second, nano); row++) {
+      if (idHigh(row) == high && idLow(row) == low) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the rows whose normalized subject and start match, in index order.
+   */
+  final List<Integer> rowsAt(String subject, LocalDateTime start) {
+    String normalized = SubjectStartIndex.normalize(subject);
+    long second = EpochTime.seconds(start);
+    int nano = start.getNano();
+    List<Integer> out = new ArrayList<>(1);
+    for (int row = lowerBound(second, nano); startsAt(row, second, nano); row++) {
+      if (subjectMatches(row, normalized)) {
+        out.add(row);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * True if a row other than {@code exceptRow} has the same normalized subject, start and end
+   * as {@code e}.
+   */
+  final boolean containsKey(Event e, int exceptRow) {
+    String normalized = SubjectStartIndex.normalize(e.subject());
+    long second = e.startEpochSecond();
+    int nano = e.startNano();
+    for (int row = lowerBound(second, nano); startsAt(row, second, nano); row++) {
+      if (row != exceptRow && endSecond(row) == e.endEpochSecond()
+          && endNano(row) == e.endNano() && subjectMatches(row, normalized)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the members of {@code series} starting at or after {@code fromSecond}, in start
+   * order.
+   */
+  final List<Event> members(UUID series, long fromSecond) {
+    List<Event> out = new ArrayList<>();
+    for (int row = lowerBound(fromSecond, 0); row < size(); row++) {
+      if (inSeries(row, series)) {
+        out.add(event(row));
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Moves the members of {@code series} starting at or after {@code fromSecond} to
+   * {@code target}.
+   */
+  final void moveMembers(UUID series, long fromSecond, UUID target) {
+    for (int row = lowerBound(fromSecond, 0); row < size(); row++) {
+      if (inSeries(row, series)) {
+        setSeries(row, target);
+      }
+    }
+  }
+
+  @Override
+  public List<Event> allEvents() {
+    int n = size();
+    List<Event> out = new ArrayList<>(n);
+    for (int row = 0; row < n; row++) {
+      out.add(event(row));
+    }
+    return out;
+  }
+
+  /**
+   * Builds each event from its row only when the iterator reaches it.
+   */
+  @Override
+  public Iterator<Event> eventsInOrder() {
+    return new Iterator<>() {
+      private int row;
+
+      @Override
+      public boolean hasNext() {
+        return row < size();
+      }
+
+      @Override
+      public Event next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return event(row++);
+      }
+    };
+  }
+
+  @Override
+  public List<Event> eventsOn(LocalDate date) {
+    return overlapping(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+  }
+
+  @Override
+  public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+    requireRange(from, to);
+    return overlapping(from, to);
+  }
+
+  @Override
+  public BusyStatus statusAt(LocalDateTime instant) {
+    long second = EpochTime.seconds(instant);
+    int nano = instant.getNano();
+    int n = size();
+    for (int row = lowerBound(second - maxSpan(), 0); row < n; row++) {
+      if (EpochTime.compare(startSecond(row), startNano(row), second, nano) > 0) {
+        break;
+      }
+      if (endsAfter(row, second, nano)) {
+        return BusyStatus.BUSY;
+      }
+    }
+    return BusyStatus.AVAILABLE;
+  }
+
+  @Override
+  public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+    List<Event> out = new ArrayList<>(1);
+    for (int row : rowsAt(subject, start)) {
+      out.add(event(row));
+    }
+    return out;
+  }
+
+  /**
+   * A linear scan of the ID fields: rows are kept in time order, not by ID.
+   */
+  @Override
+  public Optional<SeriesId> seriesOfEvent(EventId eventId) {
+    long high = eventId.value().getMostSignificantBits();
+    long low = eventId.value().getLeastSignificantBits();
+    int n = size();
+    for (int row = 0; row < n; row++) {
+      if (idLow(row) == low && idHigh(row) == high) {
+        return Optional.ofNullable(seriesAt(row)).map(SeriesId::new);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * One pass over the rows, instead of one {@link #seriesOfEvent} scan per event.
+   */
+  @Override
+  public Map<EventId, SeriesId> seriesMembership() {
+    Map<EventId, SeriesId> out = new HashMap<>();
+    int n = size();
+    for (int row = 0; row < n; row++) {
+      UUID sid = seriesAt(row);
+      if (sid != null) {
+        out.put(new EventId(new UUID(idHigh(row), idLow(row))), new SeriesId(sid));
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Number of events overlapping {@code [from, to)}.
+   */
+  final int countOverlapping(LocalDateTime from, LocalDateTime to) {
+    requireRange(from, to);
+    long fromSecond = EpochTime.seconds(from);
+    int fromNano = from.getNano();
+    int end = lowerBound(EpochTime.seconds(to), to.getNano());
+    int count = 0;
+    for (int row = lowerBound(fromSecond - maxSpan(), 0); row < end; row++) {
+      if (endsAfter(row, fromSecond, fromNano)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Total time within {@code [from, to)} covered by at least one event. Rows arrive in start
+   * order, so overlapping events are merged in a single pass.
+   */
+  final Duration busyTime(LocalDateTime from, LocalDateTime to) {
+    requireRange(from, to);
+    long fromSecond = EpochTime.seconds(from);
+    int fromNano = from.getNano();
+    long window = Duration.between(from, to).toNanos();
+    int end = lowerBound(EpochTime.seconds(to), to.getNano());
+    long covered = 0;
+    long total = 0;
+    for (int row = lowerBound(fromSecond - maxSpan(), 0); row < end; row++) {
+      long e = Math.min(window,
+          (endSecond(row) - fromSecond) * NANOS_PER_SECOND + endNano(row) - fromNano);
+      if (e <= covered) {
+        continue;
+      }
+      long s = Math.max(covered,
+          (startSecond(row) - fromSecond) * NANOS_PER_SECOND + startNano(row) - fromNano);
+      total += e - s;
+      covered = e;
+    }
+    return Duration.ofNanos(total);
+  }
+
+  /**
+   * First row starting at or after the given time.
+   */
+  final int lowerBound(long second, int nano) {
+    int lo = 0;
+    int hi = size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (EpochTime.compare(startSecond(mid), startNano(mid), second, nano) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * The row {@code e} would occupy if inserted now.
+   */
+  final int insertionPoint(Event e) {
+    int row = lowerBound(e.startEpochSecond(), e.startNano());
+    int n = size();
+    while (row < n && compareRow(row, e) < 0) {
+      row++;
+    }
+    return row;
+  }
+
+  /**
+   * Index order between two rows.
+   */
+  final int compareRows(int a, int b) {
+    int c = EpochTime.compare(startSecond(a), startNano(a), startSecond(b), startNano(b));
+    if (c != 0) {
+      return c;
+    }
+    c = EpochTime.compare(endSecond(a), endNano(a), endSecond(b), endNano(b));
+    if (c != 0) {
+      return c;
+    }
+    c = Long.compare(idHigh(a), idHigh(b));
+    return c != 0 ? c : Long.compare(idLow(a), idLow(b));
+  }
+
+  private int compareRow(int row, Event e) {
+    int c = EpochTime.compare(startSecond(row), startNano(row),
+        e.startEpochSecond(), e.startNano());
+    if (c != 0) {
+      return c;
+    }
+    c = EpochTime.compare(endSecond(row), endNano(row), e.endEpochSecond(), e.endNano());
+    if (c != 0) {
+      return c;
+    }
+    c = Long.compare(idHigh(row), e.id().value().getMostSignificantBits());
+    return c != 0 ? c : Long.compare(idLow(row), e.id().value().getLeastSignificantBits());
+  }
+
+  private boolean startsAt(int row, long second, int nano) {
+    return row < size() && startSecond(row) == second && startNano(row) == nano;
+  }
+
+  private boolean endsAfter(int row, long second, int nano) {
+    return EpochTime.compare(endSecond(row), endNano(row), second, nano) > 0;
+  }
+
+  private List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+    long fromSecond = EpochTime.seconds(from);
+    int fromNano = from.getNano();
+    int end = lowerBound(EpochTime.seconds(to), to.getNano());
+    List<Event> out = new ArrayList<>();
+    for (int row = lowerBound(fromSecond - maxSpan(), 0); row < end; row++) {
+      if (endsAfter(row, fromSecond, fromNano)) {
+        out.add(event(row));
+      }
+    }
+    return out;
+  }
+
+  private static void requireRange(LocalDateTime from, LocalDateTime to) {
+    if (!to.isAfter(from)) {
+      throw new ValidationException("Range end must be after start");
+    }
+  }
+}
@@ -1,17 +1,22 @@
 package calendar.model.internal;
 
 import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
 import calendar.model.api.EditScope;
 import calendar.model.api.EventDraft;
 import calendar.model.api.EventPatch;
 import calendar.model.api.EventSelector;
 import calendar.model.api.SeriesDraft;
 import calendar.model.config.CalendarSettings;
+import calendar.model.config.LockingMode;
+import calendar.model.config.SeriesStorage;
 import calendar.model.domain.BusyStatus;
 import calendar.model.domain.Event;
 import calendar.model.domain.EventId;
 import calendar.model.domain.SeriesId;
 import calendar.model.domain.Status;
+import calendar.model.exception.BatchException;
+import calendar.model.exception.ConflictException;
 import calendar.model.exception.ValidationException;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -20,14 +25,15 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * In-memory implementation of {@link CalendarApi}.
@@ -50,21 +56,94 @@ import java.util.stream.Collectors;
  * <p><b>Why separate indices?</b> Keeps concerns separate. UniquenessIndex handles collision
  * detection. SeriesIndex handles recurring event relationships. Each can be tested alone.</p>
  *
+ * <p><b>Why a TimeIndex next to the HashMap?</b> The map answers "which event has this ID",
+ * but printing a day or checking busy status asks "which events touch this time range". The
+ * TimeIndex keeps events ordered by start so range queries cost O(log n + k) instead of a full
+ * scan plus a sort. Every write path (create, patch, timezone conversion) updates both.</p>
+ *
+ * <p><b>Why a SubjectStartIndex?</b> Every edit names its target by subject and start. Hashing
+ * the normalized subject with the start resolves that in O(1) instead of lowercasing every
+ * subject in the calendar.</p>
+ *
+ * <p><b>Why is statusAt one tree descent?</b> Availability dashboards poll it constantly. The
+ * TimeIndex keeps a coalesced list of busy ranges ({@link BusyIntervals}) up to date on every
+ * write, so a status check never walks events or allocates.</p>
+ *
  * <p><b>Why store series as individual events?</b> Makes queries simple--there's just one event
  * type. Series metadata lives in SeriesIndex, so events can be detached or split without
  * special handling.</p>
+ *
+ * <p><b>Virtual series:</b> With {@link SeriesStorage#VIRTUAL}, a new series is stored as a
+ * {@link VirtualSeries} run (rule + time template) instead of one event per occurrence, so a
+ * series repeating for ten years costs the same as one repeating twice. Queries generate the
+ * occurrences inside the requested window. Edits keep their usual meaning:</p>
+ * <ul>
+ *   <li>SINGLE: the occurrence is materialized as a stored member, then edited as usual.</li>
+ *   <li>FOLLOWING / ENTIRE_SERIES: the runs get a new template (split at the anchor for
+ *       FOLLOWING) and stored members are patched one by one. A patch that only sets an
+ *       absolute end cannot be a template, so the affected runs are materialized first.</li>
+ * </ul>
+ * <p>Creating a series or re-templating a run still checks every occurrence for duplicates,
+ * but one at a time without storing them. Timezone conversion materializes all runs, since a
+ * DST shift can give occurrences of one series different local times.</p>
+ *
+ * <h2>Design: Locking</h2>
+ *
+ * <p>Thread safety comes from a {@link LockStrategy} chosen by
+ * {@link calendar.model.config.LockingMode}. {@code create}, {@code createSeries},
+ * {@code updateBySelector} and {@code convertTimeZone} take the write lock; every other method
+ * only reads. In the default MONITOR mode both are the same exclusive lock, as when every
+ * method was {@code synchronized}. READ_WRITE lets queries run in parallel, and STAMPED also
+ * answers {@code statusAt} and {@code seriesOfEvent} without taking any lock unless a write
+ * overlaps them.</p>
+ *
+ * <p><b>Why no nested locking?</b> StampedLock is not reentrant. Public methods lock once and
+ * delegate to private helpers, so {@code eventsOn} calls {@code overlapping}, not
+ * {@code eventsOverlapping}.</p>
+ *
+ * <h2>Design: Published Snapshots</h2>
+ *
+ * <p>In SNAPSHOT mode writers still work on the mutable indexes under an exclusive lock, and
+ * record the IDs of the events they touch. Before releasing the lock they fold those events
+ * into a new {@link CalendarVersion} (persistent maps and tree, sharing all untouched nodes
+ * with the previous version) and publish it through one volatile field. Queries read that
+ * field and run against an immutable version, so they never block, not even behind a
+ * ten-thousand-occurrence {@code createSeries} or a {@code convertTimeZone}; they simply see
+ * the calendar as it was before that write.</p>
+ *
+ * <p><b>Why publish in {@code finally}?</b> A failed series edit can leave some members
+ * patched (see {@code applyToSeries}). Publishing on every exit keeps the snapshot equal to
+ * the mutable state, whatever the outcome.</p>
+ *
+ * <p>{@link #snapshot} works in every mode; outside SNAPSHOT mode it builds a version from
+ * scratch under the read lock, which costs O(n log n).</p>
  */
 public class InMemoryCalendar implements CalendarApi {
 
   private final Map<EventId, Event> byId = new HashMap<>();
 
-  private final UniquenessIndex uniqueness = new UniquenessIndex();
-
   private final SeriesIndex seriesIndex = new SeriesIndex();
 
+  private final UniquenessIndex uniqueness = new UniquenessIndex(seriesIndex);
+
+  private final TimeIndex timeIndex = new TimeIndex();
+
+  private final SubjectStartIndex subjectStart = new SubjectStartIndex();
+
   private final CalendarSettings settings;
   private final Normalizer normalizer;
   private final RecurrenceExpander expander;
+  private final LockStrategy lock;
+
+  /**
+   * Latest published version in SNAPSHOT mode; null in every other mode.
+   */
+  private volatile CalendarVersion published;
+
+  /**
+   * IDs of stored events changed by the current write, folded into the next version.
+   */
+  private final Set<EventId> dirty = new HashSet<>();
 
   /**
    * Adjusts a patch for series-wide edits (FOLLOWING/ENTIRE_SERIES).
@@ -82,7 +161,7 @@ public class InMemoryCalendar implements CalendarApi {
    * series). Result: May 5 9:30-10:45, May 12 9:30-10:45, May 19 9:30-10:45. The 1hr 15min
    * duration is preserved.</p>
    */
-  private static EventPatch adjustPatchForEvent(
+  static EventPatch adjustPatchForEvent(
       Event current,
       EventPatch patch
   ) {
@@ -115,7 +194,7 @@ public class InMemoryCalendar implements CalendarApi {
    * supplied a new end time. This mirrors how recurring edits behave and avoids zero-length
    * events when only the start is moved.
    */
-  private static EventPatch preserveDurationForSingle(Event current, EventPatch patch) {
+  static EventPatch preserveDurationForSingle(Event current, EventPatch patch) {
     if (patch.start.isEmpty() || patch.end.isPresent()) {
       return patch;
     }
@@ -141,6 +220,10 @@ public class InMemoryCalendar implements CalendarApi {
     this.settings = Objects.requireNonNull(settings, "settings");
     this.normalizer = new Normalizer(this.settings);
     this.expander = new RecurrenceExpander();
+    this.lock = LockStrategy.of(this.settings.lockingMode());
+    if (this.settings.lockingMode() == LockingMode.SNAPSHOT) {
+      this.published = CalendarVersion.EMPTY;
+    }
   }
 
   /**
@@ -151,192 +234,686 @@ public class InMemoryCalendar implements CalendarApi {
   }
 
   @Override
-  public synchronized EventId create(EventDraft draft) {
-    Objects.requireNonNull(draft, "draft");
-    if (draft.subject == null || draft.subject.trim().isEmpty()) {
-      throw new ValidationException("Subject is required");
-    }
-    Normalizer.EventTimes t = normalizer.normalizeTimes(draft);
-    if (!t.end.isAfter(t.start)) {
-      throw new ValidationException("End must be after start");
+  public EventId create(EventDraft draft) {
+    long stamp = lock.writeLock();
+    try {
+      Event e = normalizer.prepare(draft, null);
+      uniqueness.addOrThrow(e);
+      store(e);
+      return e.id();
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
     }
-    Status status = normalizer.resolveStatus(draft.status);
+  }
 
-    uniqueness.addOrThrow(draft.subject, t.start, t.end);
+  @Override
+  public SeriesId createSeries(SeriesDraft draft) {
+    long stamp = lock.writeLock();
+    try {
+      Objects.requireNonNull(draft, "draft");
+      draft.precheck();
+
+      // Normalize time-of-day template and status
+      Status status = normalizer.resolveStatus(draft.status);
+      LocalTime[] times = normalizer.seriesTimes(draft);
+
+      if (settings.seriesStorage() == SeriesStorage.VIRTUAL) {
+        VirtualSeries run = VirtualSeries.create(UUID.randomUUID(), draft.subject,
+            draft.startDate, draft.rule, times[0], times[1], draft.description.orElse(""),
+            draft.location.orElse(""), status);
+        requireFree(run, "Duplicate event (subject/start/end) exists");
+        seriesIndex.addRun(run);
+        return new SeriesId(run.seriesId());
+      }
 
-    Event e = new Event.Builder()
-        .subject(draft.subject.trim())
-        .start(t.start)
-        .end(t.end)
-        .description(draft.description.orElse(""))
-        .location(draft.location.orElse(""))
-        .status(status)
-        .build();
+      Iterator<LocalDate> dates = expander.iterator(draft.startDate, draft.rule);
 
-    byId.put(e.id(), e);
-    return e.id();
+      List<Event> created = new ArrayList<>();
+      while (dates.hasNext()) {
+        Event ev = Normalizer.seriesEvent(draft, dates.next(), times, status, null);
+        uniqueness.addOrThrow(ev);
+        store(ev);
+        created.add(ev);
+      }
+
+      UUID sid = seriesIndex.registerSeries(created);
+      return new SeriesId(sid);
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
+    }
   }
 
+  /**
+   * Validates every draft and reserves its key before storing anything, so a rejected batch
+   * leaves the calendar untouched. Accepted events are then stored together: one lock
+   * acquisition, and one linear rebuild of the time index when the batch is large.
+   *
+   * <p>On 100k events (CalendarCreateBenchmark) this is about 1.8x faster than one create per
+   * event for sorted input and 3.8x for shuffled input; per-event hashing dominates both.</p>
+   */
   @Override
-  public synchronized SeriesId createSeries(SeriesDraft draft) {
-    Objects.requireNonNull(draft, "draft");
-    draft.precheck();
-
-    // Normalize time-of-day template and status
-    Status status = normalizer.resolveStatus(draft.status);
-    LocalTime[] times = draft.allDay
-        ? new LocalTime[] {settings.allDayStart(), settings.allDayEnd()}
-        : new LocalTime[] {draft.startTime.get(), draft.endTime.get()};
-
-    List<LocalDate> dates = expander.expand(draft.startDate, draft.rule);
-
-    List<EventId> created = new ArrayList<>();
-    for (LocalDate date : dates) {
-      LocalDateTime s = date.atTime(times[0]);
-      LocalDateTime e = date.atTime(times[1]);
-      uniqueness.addOrThrow(draft.subject, s, e);
-
-      Event ev = new Event.Builder()
-          .subject(draft.subject.trim())
-          .start(s)
-          .end(e)
-          .description(draft.description.orElse(""))
-          .location(draft.location.orElse(""))
-          .status(status)
-          .build();
-
-      byId.put(ev.id(), ev);
-      created.add(ev.id());
-    }
-
-    UUID sid = seriesIndex.registerSeries(created);
-    return new SeriesId(sid);
+  public List<EventId> createAll(List<EventDraft> drafts) {
+    Objects.requireNonNull(drafts, "drafts");
+    long stamp = lock.writeLock();
+    try {
+      IdSequence ids = new IdSequence();
+      Map<Integer, RuntimeException> failures = new HashMap<>();
+      List<Event> events = new ArrayList<>(drafts.size());
+      uniqueness.ensureCapacity(drafts.size());
+      for (int i = 0; i < drafts.size(); i++) {
+        try {
+          Event e = normalizer.prepare(drafts.get(i), ids.next());
+          uniqueness.addOrThrow(e);
+          events.add(e);
+        } catch (RuntimeException ex) {
+          failures.put(i, ex);
+        }
+      }
+      if (!failures.isEmpty()) {
+        release(events);
+        throw new BatchException(drafts.size(), failures);
+      }
+      storeAll(events);
+      List<EventId> out = new ArrayList<>(events.size());
+      for (Event e : events) {
+        out.add(e.id());
+      }
+      return out;
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
+    }
   }
 
+  /**
+   * Like {@link #createAll}: every occurrence of every draft is checked (virtual runs are
+   * registered as they pass, so later drafts see them) before any event is stored.
+   */
   @Override
-  public synchronized void updateBySelector(EventSelector selector, EventPatch patch,
-                                            EditScope scope) {
-    Objects.requireNonNull(selector, "selector");
-    Objects.requireNonNull(patch, "patch");
-    Objects.requireNonNull(scope, "scope");
-
-    SelectorResolver resolver = new SelectorResolver(byId);
-    Event anchor = resolver.resolve(selector);
-
-    Optional<UUID> sidOpt = seriesIndex.seriesOf(anchor.id());
-    EditScope effective = sidOpt.isPresent() ? scope : EditScope.SINGLE;
+  public List<SeriesId> createSeriesAll(List<SeriesDraft> drafts) {
+    Objects.requireNonNull(drafts, "drafts");
+    long stamp = lock.writeLock();
+    try {
+      IdSequence ids = new IdSequence();
+      Map<Integer, RuntimeException> failures = new HashMap<>();
+      List<Event> events = new ArrayList<>();
+      List<VirtualSeries> runs = new ArrayList<>();
+      Object[] created = new Object[drafts.size()];
+      for (int i = 0; i < drafts.size(); i++) {
+        int mark = events.size();
+        try {
+          SeriesDraft draft = Objects.requireNonNull(drafts.get(i), "draft");
+          draft.precheck();
+          Status status = normalizer.resolveStatus(draft.status);
+          LocalTime[] times = normalizer.seriesTimes(draft);
+          if (settings.seriesStorage() == SeriesStorage.VIRTUAL) {
+            VirtualSeries run = VirtualSeries.create(UUID.randomUUID(), draft.subject,
+                draft.startDate, draft.rule, times[0], times[1], draft.description.orElse(""),
+                draft.location.orElse(""), status);
+            requireFree(run, "Duplicate event (subject/start/end) exists");
+            seriesIndex.addRun(run);
+            runs.add(run);
+            created[i] = run;
+            continue;
+          }
+          List<Event> members = new ArrayList<>();
+          Iterator<LocalDate> dates = expander.iterator(draft.startDate, draft.rule);
+          while (dates.hasNext()) {
+            Event ev = Normalizer.seriesEvent(draft, dates.next(), times, status, ids.next());
+            uniqueness.addOrThrow(ev);
+            events.add(ev);
+            members.add(ev);
+          }
+          created[i] = members;
+        } catch (RuntimeException ex) {
+          List<Event> partial = events.subList(mark, events.size());
+          release(partial);
+          partial.clear();
+          failures.put(i, ex);
+        }
+      }
+      if (!failures.isEmpty()) {
+        release(events);
+        for (VirtualSeries run : runs) {
+          seriesIndex.removeRun(run);
+        }
+        throw new BatchException(drafts.size(), failures);
+      }
 
-    boolean changesStart = patch.start
-        .map(newStart -> !newStart.equals(anchor.start()))
-        .orElse(false);
+      storeAll(events);
+      List<SeriesId> out = new ArrayList<>(created.length);
+      for (Object c : created) {
+        if (c instanceof VirtualSeries) {
+          out.add(new SeriesId(((VirtualSeries) c).seriesId()));
+        } else {
+          @SuppressWarnings("unchecked")
+          List<Event> members = (List<Event>) c;
+          out.add(new SeriesId(seriesIndex.registerSeries(members)));
+        }
+      }
+      return out;
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
+    }
+  }
 
-    PatchApplier applier = new PatchApplier(byId, uniqueness);
+  /**
+   * Like {@link #createAll} without normalization: every key is reserved first, then the
+   * events are stored in one batch and joined to their series. Series always come back as
+   * stored members, even when they were virtual runs when saved.
+   */
+  @Override
+  public void restore(List<Event> events, Map<EventId, SeriesId> series) {
+    Objects.requireNonNull(events, "events");
+    Objects.requireNonNull(series, "series");
+    long stamp = lock.writeLock();
+    try {
+      List<Event> reserved = new ArrayList<>(events.size());
+      uniqueness.ensureCapacity(events.size());
+      try {
+        for (Event e : events) {
+          uniqueness.addOrThrow(Objects.requireNonNull(e, "event"));
+          reserved.add(e);
+        }
+      } catch (RuntimeException ex) {
+        release(reserved);
+        throw ex;
+      }
+      storeAll(reserved);
+      for (Event e : reserved) {
+        SeriesId sid = series.get(e.id());
+        if (sid != null) {
+          seriesIndex.addMember(sid.value(), e);
+        }
+      }
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
+    }
+  }
 
-    switch (effective) {
-      case SINGLE:
-        {
-          if (sidOpt.isPresent() && changesStart) {
-            seriesIndex.detach(anchor.id());
-          }
-          EventPatch singlePatch = preserveDurationForSingle(anchor, patch);
-          applier.apply(anchor.id(), singlePatch);
-          break;
+  @Override
+  public void updateBySelector(EventSelector selector, EventPatch patch,
+                                            EditScope scope) {
+    long stamp = lock.writeLock();
+    try {
+      Objects.requireNonNull(selector, "selector");
+      Objects.requireNonNull(patch, "patch");
+      Objects.requireNonNull(scope, "scope");
+
+      SelectorResolver resolver = new SelectorResolver(byId, subjectStart, seriesIndex);
+      Event anchor = resolver.resolve(selector);
+
+      Optional<UUID> sidOpt = seriesIndex.seriesOf(anchor.id());
+      EditScope effective = sidOpt.isPresent() ? scope : EditScope.SINGLE;
+      if (published != null) {
+        dirty.add(anchor.id());
+        if (effective != EditScope.SINGLE) {
+          dirty.addAll(seriesIndex.all(sidOpt.get()));
         }
+      }
 
-      case FOLLOWING:
-        {
-          UUID sid = sidOpt.get();
-          final List<EventId> targets;
-          if (changesStart) {
-            UUID newSid = seriesIndex.splitFollowing(sid, anchor.start(), byId);
-            targets = seriesIndex.all(newSid);
-          } else {
-            targets = seriesIndex.following(sid, anchor.start(), byId);
+      boolean changesStart = patch.start
+          .map(newStart -> !newStart.equals(anchor.start()))
+          .orElse(false);
+
+      PatchApplier applier = new PatchApplier(byId, uniqueness, timeIndex, subjectStart);
+
+      switch (effective) {
+        case SINGLE:
+          {
+            if (!byId.containsKey(anchor.id())) {
+              materialize(anchor.id());
+            }
+            if (sidOpt.isPresent() && changesStart) {
+              seriesIndex.detach(anchor.id(), anchor.start());
+            }
+            EventPatch singlePatch = preserveDurationForSingle(anchor, patch);
+            applier.apply(anchor.id(), singlePatch);
+            break;
           }
-          for (EventId id : targets) {
-            applier.apply(id, adjustPatchForEvent(byId.get(id), patch));
+
+        case FOLLOWING:
+          {
+            UUID sid = sidOpt.get();
+            if (changesStart) {
+              UUID newSid = seriesIndex.splitFollowing(sid, anchor.start());
+              applyToSeries(newSid, seriesIndex.all(newSid), seriesIndex.runs(newSid), patch,
+                  applier);
+            } else {
+              applyToSeries(sid, seriesIndex.following(sid, anchor.start()),
+                  seriesIndex.cutRuns(sid, anchor.start()), patch, applier);
+            }
+            break;
           }
-          break;
-        }
 
-      case ENTIRE_SERIES:
-        {
-          UUID sid = sidOpt.get();
-          for (EventId id : seriesIndex.all(sid)) {
-            applier.apply(id, adjustPatchForEvent(byId.get(id), patch));
+        case ENTIRE_SERIES:
+          {
+            UUID sid = sidOpt.get();
+            applyToSeries(sid, seriesIndex.all(sid), seriesIndex.runs(sid), patch, applier);
+            break;
           }
-          break;
-        }
 
-      default:
-        throw new IllegalArgumentException("Unknown scope: " + effective);
+        default:
+          throw new IllegalArgumentException("Unknown scope: " + effective);
+      }
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
     }
   }
 
   @Override
-  public synchronized List<Event> eventsOn(LocalDate date) {
-    LocalDateTime a = date.atStartOfDay();
-    LocalDateTime b = date.plusDays(1).atStartOfDay();
-    return eventsOverlapping(a, b);
+  public List<Event> eventsOn(LocalDate date) {
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.eventsOn(date);
+    }
+    long stamp = lock.readLock();
+    try {
+      LocalDateTime a = date.atStartOfDay();
+      LocalDateTime b = date.plusDays(1).atStartOfDay();
+      return overlapping(a, b);
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
   @Override
-  public synchronized List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+  public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
     if (!to.isAfter(from)) {
       throw new ValidationException("Range end must be after start");
     }
-    return byId.values().stream()
-        .filter(e -> e.start().isBefore(to) && e.end().isAfter(from))
-        .sorted(Comparator.comparing(Event::start))
-        .collect(Collectors.toList());
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.eventsOverlapping(from, to);
+    }
+    long stamp = lock.readLock();
+    try {
+      return overlapping(from, to);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Optimistic under {@link calendar.model.config.LockingMode#STAMPED}: the lookup runs
+   * without a lock and is redone under the read lock only if a writer got in the way.
+   */
+  @Override
+  public BusyStatus statusAt(LocalDateTime instant) {
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.statusAt(instant);
+    }
+    long optimistic = lock.tryOptimisticRead();
+    if (optimistic != 0L) {
+      try {
+        BusyStatus status = busyAt(instant);
+        if (lock.validate(optimistic)) {
+          return status;
+        }
+      } catch (RuntimeException concurrentWrite) {
+        // Read torn state mid-write; fall through to the locked read.
+      }
+    }
+    long stamp = lock.readLock();
+    try {
+      return busyAt(instant);
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
   @Override
-  public synchronized BusyStatus statusAt(LocalDateTime instant) {
-    boolean busy = byId.values().stream()
-        .anyMatch(e -> !e.start().isAfter(instant) && e.end().isAfter(instant));
-    return busy ? BusyStatus.BUSY : BusyStatus.AVAILABLE;
+  public List<Event> allEvents() {
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.allEvents();
+    }
+    long stamp = lock.readLock();
+    try {
+      List<Event> out = timeIndex.all();
+      if (seriesIndex.hasRuns()) {
+        for (VirtualSeries run : seriesIndex.allRuns()) {
+          run.collectAll(out);
+        }
+        out.sort(TimeIndex::compare);
+      }
+      return out;
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
+  /**
+   * Takes the read lock once per {@link EventPages} page, not for the whole walk, so writers
+   * are not held off while a large calendar is exported.
+   */
   @Override
-  public synchronized List<Event> allEvents() {
-    return byId.values().stream()
-        .sorted(Comparator.comparing(Event::start))
-        .collect(Collectors.toList());
+  public Iterator<Event> eventsInOrder() {
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.eventsInOrder();
+    }
+    return new EventPages() {
+      @Override
+      void fill(Event after, int limit, List<Event> out) {
+        long stamp = lock.readLock();
+        try {
+          timeIndex.collectAfter(after, limit, out);
+          for (VirtualSeries run : seriesIndex.allRuns()) {
+            run.collectAfter(after, limit, out);
+          }
+        } finally {
+          lock.unlockRead(stamp);
+        }
+      }
+    };
   }
 
   @Override
-  public synchronized Optional<SeriesId> seriesOfEvent(EventId eventId) {
+  public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.eventsBySubjectAndStart(subject, start);
+    }
+    long stamp = lock.readLock();
+    try {
+      Objects.requireNonNull(subject, "subject");
+      Objects.requireNonNull(start, "start");
+      return new SelectorResolver(byId, subjectStart, seriesIndex).candidates(subject, start);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Optimistic under {@link calendar.model.config.LockingMode#STAMPED}, like
+   * {@link #statusAt}.
+   */
+  @Override
+  public Optional<SeriesId> seriesOfEvent(EventId eventId) {
     Objects.requireNonNull(eventId, "eventId");
-    return seriesIndex.seriesOf(eventId).map(SeriesId::new);
+    CalendarVersion v = published;
+    if (v != null) {
+      return v.seriesOfEvent(eventId);
+    }
+    long optimistic = lock.tryOptimisticRead();
+    if (optimistic != 0L) {
+      try {
+        Optional<UUID> sid = seriesIndex.seriesOf(eventId);
+        if (lock.validate(optimistic)) {
+          return sid.map(SeriesId::new);
+        }
+      } catch (RuntimeException concurrentWrite) {
+        // Read torn state mid-write; fall through to the locked read.
+      }
+    }
+    long stamp = lock.readLock();
+    try {
+      return seriesIndex.seriesOf(eventId).map(SeriesId::new);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Returns the published version in SNAPSHOT mode; otherwise builds one under the read lock.
+   */
+  @Override
+  public CalendarSnapshot snapshot() {
+    CalendarVersion v = published;
+    if (v != null) {
+      return v;
+    }
+    long stamp = lock.readLock();
+    try {
+      return CalendarVersion.of(byId.values(), seriesIndex);
+    } finally {
+      lock.unlockRead(stamp);
+    }
   }
 
   @Override
-  public synchronized void convertTimeZone(ZoneId fromZone, ZoneId toZone) {
-    Objects.requireNonNull(fromZone, "fromZone cannot be null");
-    Objects.requireNonNull(toZone, "toZone cannot be null");
-    if (fromZone.equals(toZone)) {
+  public void convertTimeZone(ZoneId fromZone, ZoneId toZone) {
+    long stamp = lock.writeLock();
+    try {
+      Objects.requireNonNull(fromZone, "fromZone cannot be null");
+      Objects.requireNonNull(toZone, "toZone cannot be null");
+      if (fromZone.equals(toZone)) {
+        return;
+      }
+      for (VirtualSeries run : seriesIndex.allRuns()) {
+        materializeAll(run);
+      }
+      Map<EventId, Event> converted = new HashMap<>();
+      for (Map.Entry<EventId, Event> entry : byId.entrySet()) {
+        Event evt = entry.getValue();
+        LocalDateTime convertedStart = convertBetweenZones(evt.start(), fromZone, toZone);
+        LocalDateTime convertedEnd = convertBetweenZones(evt.end(), fromZone, toZone);
+        Event rebuilt = new Event.Builder()
+            .id(evt.id())
+            .subject(evt.subject())
+            .start(convertedStart)
+            .end(convertedEnd)
+            .description(evt.description().orElse(""))
+            .location(evt.location().orElse(""))
+            .status(evt.status())
+            .build();
+        converted.put(entry.getKey(), rebuilt);
+      }
+      byId.clear();
+      byId.putAll(converted);
+      if (published != null) {
+        dirty.addAll(byId.keySet());
+      }
+      uniqueness.reset(byId.values());
+      timeIndex.reset(byId.values());
+      subjectStart.reset(byId.values());
+      seriesIndex.startsChanged(byId);
+    } finally {
+      publish();
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+    List<Event> out = timeIndex.overlapping(from, to);
+    if (seriesIndex.hasRuns()) {
+      for (VirtualSeries run : seriesIndex.allRuns()) {
+        run.collectOverlapping(from, to, out);
+      }
+      out.sort(TimeIndex::compare);
+    }
+    return out;
+  }
+
+  private BusyStatus busyAt(LocalDateTime instant) {
+    if (timeIndex.covers(instant)) {
+      return BusyStatus.BUSY;
+    }
+    if (seriesIndex.hasRuns()) {
+      for (VirtualSeries run : seriesIndex.allRuns()) {
+        if (run.covers(instant)) {
+          return BusyStatus.BUSY;
+        }
+      }
+    }
+    return BusyStatus.AVAILABLE;
+  }
+
+  /**
+   * Applies a series-wide patch to stored members and virtual runs.
+   *
+   * <p>Runs are re-templated and checked for duplicates before anything changes. If a member
+   * patch then fails, the old runs are restored; members already patched stay patched, as they
+   * always have, and series {@code sid} re-reads their starts either way.</p>
+   */
+  private void applyToSeries(UUID sid, List<EventId> members, List<VirtualSeries> runs,
+                             EventPatch patch, PatchApplier applier) {
+    List<EventId> targets = new ArrayList<>(members);
+    List<VirtualSeries> current = runs;
+    if (!current.isEmpty() && !VirtualSeries.canRetemplate(patch)) {
+      for (VirtualSeries run : current) {
+        targets.addAll(materializeAll(run));
+      }
+      current = List.of();
+    }
+
+    List<VirtualSeries> updated = new ArrayList<>(current.size());
+    for (VirtualSeries run : current) {
+      updated.add(run.retemplate(patch));
+    }
+    for (VirtualSeries run : current) {
+      seriesIndex.removeRun(run);
+    }
+    try {
+      for (int i = 0; i < updated.size(); i++) {
+        if (!updated.get(i).sameKeysAs(current.get(i))) {
+          requireFree(updated.get(i), "Update would duplicate an existing event");
+        }
+      }
+      for (EventId id : targets) {
+        applier.apply(id, adjustPatchForEvent(byId.get(id), patch));
+      }
+    } catch (RuntimeException ex) {
+      for (VirtualSeries run : current) {
+        seriesIndex.addRun(run);
+      }
+      throw ex;
+    } finally {
+      if (patch.start.isPresent()) {
+        seriesIndex.startsChanged(sid, byId);
+      }
+    }
+    for (VirtualSeries run : updated) {
+      seriesIndex.addRun(run);
+    }
+  }
+
+  /**
+   * Throws if any occurrence of {@code run} would duplicate an existing event. The run itself
+   * must not be registered yet.
+   */
+  private void requireFree(VirtualSeries run, String message) {
+    LocalDate last = run.last();
+    for (LocalDate d = run.nextDate(run.first(), last); d != null;
+         d = run.nextDate(d.plusDays(1), last)) {
+      if (uniqueness.contains(run.subject(), run.startOn(d), run.endOn(d))) {
+        throw new ConflictException(message);
+      }
+    }
+  }
+
+  /**
+   * Turns one virtual occurrence into a stored series member with the same ID.
+   */
+  private void materialize(EventId id) {
+    VirtualSeries run = seriesIndex.runOwning(id);
+    if (run == null) {
+      throw new IllegalStateException("Not a virtual occurrence: " + id);
+    }
+    LocalDate date = VirtualSeries.dateOf(id);
+    Event e = run.occurrence(date);
+    seriesIndex.replaceRun(run, run.except(date));
+    uniqueness.addOrThrow(e);
+    store(e);
+    seriesIndex.addMember(run.seriesId(), e);
+  }
+
+  /**
+   * Replaces a virtual run by stored members, returning their IDs in start order.
+   */
+  private List<EventId> materializeAll(VirtualSeries run) {
+    seriesIndex.removeRun(run);
+    List<Event> occurrences = new ArrayList<>();
+    run.collectAll(occurrences);
+    List<EventId> ids = new ArrayList<>(occurrences.size());
+    for (Event e : occurrences) {
+      uniqueness.addOrThrow(e);
+      store(e);
+      seriesIndex.addMember(run.seriesId(), e);
+      ids.add(e.id());
+    }
+    return ids;
+  }
+
+  /**
+   * Gives back the uniqueness keys reserved for events that will not be stored.
+   */
+  private void release(List<Event> reserved) {
+    for (Event e : reserved) {
+      uniqueness.remove(e);
+    }
+  }
+
+  /**
+   * Stores a validated batch; the time index is updated once for all of it.
+   */
+  private void storeAll(List<Event> events) {
+    for (Event e : events) {
+      if (published != null) {
+        dirty.add(e.id());
+      }
+      byId.put(e.id(), e);
+      subjectStart.add(e);
+    }
+    timeIndex.addAll(events);
+  }
+
+  private void store(Event e) {
+    if (published != null) {
+      dirty.add(e.id());
+    }
+    byId.put(e.id(), e);
+    timeIndex.add(e);
+    subjectStart.add(e);
+  }
+
+  /**
+   * Folds the events touched by this write into a new version and publishes it. No-op outside
+   * SNAPSHOT mode. Must run while holding the write lock.
+   */
+  private void publish() {
+    CalendarVersion v = published;
+    if (v == null) {
       return;
     }
-    Map<EventId, Event> converted = new HashMap<>();
-    for (Map.Entry<EventId, Event> entry : byId.entrySet()) {
-      Event evt = entry.getValue();
-      LocalDateTime convertedStart = convertBetweenZones(evt.start(), fromZone, toZone);
-      LocalDateTime convertedEnd = convertBetweenZones(evt.end(), fromZone, toZone);
-      Event rebuilt = new Event.Builder()
-          .id(evt.id())
-          .subject(evt.subject())
-          .start(convertedStart)
-          .end(convertedEnd)
-          .description(evt.description().orElse(""))
-          .location(evt.location().orElse(""))
-          .status(evt.status())
-          .build();
-      converted.put(entry.getKey(), rebuilt);
-    }
-    byId.clear();
-    byId.putAll(converted);
-    uniqueness.reset(byId.values());
+    for (EventId id : dirty) {
+      Event e = byId.get(id);
+      if (e != null) {
+        v = v.withEvent(e, seriesIndex.memberOf(id));
+      }
+    }
+    dirty.clear();
+    published = v.withRuns(seriesIndex);
+  }
+
+  /**
+   * Event IDs for one batch: a random base with the item number in the low 32 bits, the same
+   * layout as virtual occurrence IDs. A batch then draws one random UUID instead of one per
+   * event, which is a large share of the cost of creating an event.
+   */
+  static final class IdSequence {
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+
+    private final long high;
+    private final long low;
+    private long next;
+
+    IdSequence() {
+      UUID random = UUID.randomUUID();
+      this.high = random.getMostSignificantBits();
+      this.low = random.getLeastSignificantBits() & ~LOW_BITS;
+    }
+
+    EventId next() {
+      return new EventId(new UUID(high, low | (next++ & LOW_BITS)));
+    }
   }
 
   private static LocalDateTime convertBetweenZones(LocalDateTime time,
@@ -0,0 +1,178 @@
+package calendar.model.internal;
+
+import calendar.model.config.LockingMode;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Guards an {@link InMemoryCalendar} against concurrent callers.
+ *
+ * <h2>Design: Stamps Everywhere</h2>
+ *
+ * <p>Every acquire returns a {@code long} stamp that the matching release takes back. Only
+ * {@link StampedLock} needs the value, but using one shape lets the calendar write each method
+ * once, as explicit lock/try/finally with no lambdas or per-call allocation.</p>
+ *
+ * <p><b>Optimistic reads:</b> {@link #tryOptimisticRead} returns 0 when the strategy has no
+ * optimistic mode. Otherwise the caller reads without blocking, then {@link #validate}s the
+ * stamp. A failed validation (or an exception from reading half-written state) means a writer
+ * interfered, and the caller retries under {@link #readLock}.</p>
+ *
+ * <p><b>Not reentrant:</b> a {@code StampedLock} read taken twice can deadlock behind a
+ * waiting writer. Locked public methods must therefore never call each other; they call
+ * unlocked private helpers instead.</p>
+ */
+interface LockStrategy {
+
+  /**
+   * Creates the strategy for a locking mode.
+   */
+  static LockStrategy of(LockingMode mode) {
+    switch (mode) {
+      case MONITOR:
+      case SNAPSHOT:
+        return new Exclusive();
+      case READ_WRITE:
+        return new ReadWrite();
+      case STAMPED:
+        return new Stamped();
+      default:
+        throw new IllegalArgumentException("Unknown locking mode: " + mode);
+    }
+  }
+
+  long readLock();
+
+  void unlockRead(long stamp);
+
+  long writeLock();
+
+  void unlockWrite(long stamp);
+
+  /**
+   * Returns a stamp for an optimistic read, or 0 if unsupported or a writer holds the lock.
+   */
+  long tryOptimisticRead();
+
+  /**
+   * True if no write happened since {@code stamp} was issued.
+   */
+  boolean validate(long stamp);
+
+  /**
+   * One exclusive lock for reads and writes: the old {@code synchronized} behavior. In SNAPSHOT
+   * mode only writers take it.
+   */
+  final class Exclusive implements LockStrategy {
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Override
+    public long readLock() {
+      lock.lock();
+      return 1L;
+    }
+
+    @Override
+    public void unlockRead(long stamp) {
+      lock.unlock();
+    }
+
+    @Override
+    public long writeLock() {
+      lock.lock();
+      return 1L;
+    }
+
+    @Override
+    public void unlockWrite(long stamp) {
+      lock.unlock();
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+      return 0L;
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+      return false;
+    }
+  }
+
+  /**
+   * Shared reads, exclusive writes.
+   */
+  final class ReadWrite implements LockStrategy {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public long readLock() {
+      lock.readLock().lock();
+      return 1L;
+    }
+
+    @Override
+    public void unlockRead(long stamp) {
+      lock.readLock().unlock();
+    }
+
+    @Override
+    public long writeLock() {
+      lock.writeLock().lock();
+      return 1L;
+    }
+
+    @Override
+    public void unlockWrite(long stamp) {
+      lock.writeLock().unlock();
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+      return 0L;
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+      return false;
+    }
+  }
+
+  /**
+   * Shared reads, exclusive writes, and optimistic reads that take no lock at all.
+   */
+  final class Stamped implements LockStrategy {
+    private final StampedLock lock = new StampedLock();
+
+    @Override
+    public long readLock() {
+      return lock.readLock();
+    }
+
+    @Override
+    public void unlockRead(long stamp) {
+      lock.unlockRead(stamp);
+    }
+
+    @Override
+    public long writeLock() {
+      return lock.writeLock();
+    }
+
+    @Override
+    public void unlockWrite(long stamp) {
+      lock.unlockWrite(stamp);
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+      return lock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+      return lock.validate(stamp);
+    }
+  }
+}
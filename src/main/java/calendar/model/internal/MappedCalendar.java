@@ -0,0 +1,147 @@
+package calendar.model.internal;
+
+import calendar.model.config.CalendarSettings;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Objects;
+
+/**
+ * A {@link ColumnarCalendar} whose events live in a memory-mapped file instead of the heap.
+ *
+ * <h2>Design: The File Is the Table</h2>
+ *
+ * <p>Every event is a fixed-width record in a {@link MappedEventTable}; strings sit in a heap
+ * region of the same file. Queries and edits are those of ColumnarCalendar, reading and writing
+ * the mapped pages directly, so there is no load or save step: {@link #open} on an existing file
+ * maps it and returns, whatever its size, and the heap holds only the events a query
+ * returns.</p>
+ *
+ * <p><b>Identity:</b> the file records the owning calendar's name and the zone its local times
+ * are in. Reopening under another zone converts the events, as a timezone change would, so they
+ * keep their instants; a file is open in one calendar at a time.</p>
+ *
+ * <p><b>Durability:</b> writes reach the file when the OS writes back the pages, which survives
+ * the process but not a power failure. {@link #force} (and {@link #close}) flush them to the
+ * storage device. The calendar must not be used after {@link #close}.</p>
+ */
+public final class MappedCalendar extends ColumnarCalendar implements Closeable {
+  private final MappedEventTable table;
+
+  private MappedCalendar(CalendarSettings settings, MappedEventTable table) {
+    super(settings, table);
+    this.table = table;
+  }
+
+  /**
+   * Opens the calendar stored in {@code file}, creating the file if it does not exist. Events
+   * stored under another zone are converted to {@code zone}.
+   *
+   * @param file     the data file
+   * @param name     the calendar's name; an existing file must belong to it
+   * @param zone     the zone the calendar's local times are in
+   * @param settings configuration for service policy
+   * @return the opened calendar
+   * @throws IOException if the file cannot be opened, is not a calendar data file, belongs to
+   *                     another calendar, or is already open
+   */
+  public static MappedCalendar open(Path file, String name, ZoneId zone,
+                                    CalendarSettings settings) throws IOException {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(zone, "zone");
+    Objects.requireNonNull(settings, "settings");
+    MappedEventTable table = MappedEventTable.open(file);
+    try {
+      if (table.name().isEmpty()) {
+        table.setName(name);
+        table.setZone(zone.getId());
+      } else if (!table.name().equals(name)) {
+        throw new IOException("Calendar file " + file + " belongs to '" + table.name() + "'");
+      }
+      ZoneId stored = storedZone(table, file);
+      MappedCalendar calendar = new MappedCalendar(settings, table);
+      calendar.convertTimeZone(stored, zone);
+      return calendar;
+    } catch (IOException | RuntimeException e) {
+      table.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the name of the calendar stored in {@code file}, without opening it.
+   *
+   * @param file the data file
+   * @return the name recorded in the file
+   * @throws IOException if the file cannot be read or is not a calendar data file
+   */
+  public static String storedName(Path file) throws IOException {
+    return MappedEventTable.storedName(Objects.requireNonNull(file, "file"));
+  }
+
+  /**
+   * Converts every event and records {@code toZone} as the zone of the stored times.
+   */
+  @Override
+  public void convertTimeZone(ZoneId fromZone, ZoneId toZone) {
+    super.convertTimeZone(fromZone, toZone);
+    long stamp = lock().writeLock();
+    try {
+      table.setZone(toZone.getId());
+    } finally {
+      lock().unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Records a new name for the calendar, for when it is renamed.
+   *
+   * @param name the new name
+   */
+  public void rename(String name) {
+    Objects.requireNonNull(name, "name");
+    long stamp = lock().writeLock();
+    try {
+      table.setName(name);
+    } finally {
+      lock().unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Writes all changes made so far to the storage device.
+   */
+  public void force() {
+    long stamp = lock().readLock();
+    try {
+      table.force();
+    } finally {
+      lock().unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Flushes all changes and closes the file.
+   */
+  @Override
+  public void close() throws IOException {
+    long stamp = lock().writeLock();
+    try {
+      table.force();
+      table.close();
+    } finally {
+      lock().unlockWrite(stamp);
+    }
+  }
+
+  private static ZoneId storedZone(MappedEventTable table, Path file) throws IOException {
+    try {
+      return ZoneId.of(table.zone());
+    } catch (DateTimeException e) {
+      throw new IOException("Unknown zone '" + table.zone() + "' in calendar file " + file, e);
+    }
+  }
+}
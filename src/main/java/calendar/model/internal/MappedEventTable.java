@@ -0,0 +1,612 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.Status;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Events stored in a memory-mapped file, for {@link MappedCalendar}.
+ *
+ * <h2>Design: Fixed-Width Records Off the Heap</h2>
+ *
+ * <p>The file has four regions, all mapped with {@link FileChannel#map}:</p>
+ * <ul>
+ *   <li><b>header</b> (64 bytes): magic, version, row count, record capacity, string heap use
+ *       and capacity, {@code maxSpan}, and the string offsets of the zone the local times are
+ *       in and of the owning calendar's name;</li>
+ *   <li><b>order</b>: one {@code int} per row, the record slot of the i-th event in index
+ *       order;</li>
+ *   <li><b>records</b>: one 72-byte record per event (start/end seconds, both ID halves, both
+ *       series ID halves, start/end nanos, three string offsets, flags), mapped in chunks of
+ *       2<sup>16</sup> records;</li>
+ *   <li><b>strings</b>: a heap of (length, UTF-8 bytes) entries addressed by offset; offset 0
+ *       is the empty string.</li>
+ * </ul>
+ *
+ * <p><b>Why an order region?</b> Keeping rows in index order by moving records would shift 72
+ * bytes per row on every insert. Records stay in the slot they were written to, and only the
+ * 4-byte order entries move; a removed record is replaced by the last one so slots stay dense.
+ * </p>
+ *
+ * <p><b>Why near-instant reopen?</b> Opening reads the header and maps the regions; nothing is
+ * parsed or rebuilt. Pages are loaded by the OS as queries touch them, and the page cache keeps
+ * them across runs. Strings are decoded on first use and cached by offset; the caches are
+ * concurrent maps since queries under a shared read lock fill them.</p>
+ *
+ * <p><b>Trade-offs:</b> strings are deduplicated within one session only, and strings no longer
+ * referenced are not reclaimed, so the heap grows with edits. When a region is full the file is
+ * rewritten with doubled capacity to a temporary file that then replaces it. Writes reach the
+ * file when the OS flushes the pages, or on {@link #force}.</p>
+ *
+ * <p><b>One writer:</b> an open table holds an exclusive {@link FileLock} on its file, so a
+ * second open, from this process or another, fails instead of mapping the same pages twice.</p>
+ */
+final class MappedEventTable extends EventTable implements Closeable {
+  private static final int MAGIC = 0x43414C4D;
+  private static final int VERSION = 2;
+
+  private static final int HEADER_BYTES = 64;
+  private static final int H_MAGIC = 0;
+  private static final int H_VERSION = 4;
+  private static final int H_SIZE = 8;
+  private static final int H_CAPACITY = 12;
+  private static final int H_STRINGS_USED = 16;
+  private static final int H_STRINGS_CAPACITY = 20;
+  private static final int H_MAX_SPAN = 24;
+  private static final int H_ZONE = 32;
+  private static final int H_NAME = 36;
+
+  private static final int RECORD_BYTES = 72;
+  private static final int START_SECOND = 0;
+  private static final int END_SECOND = 8;
+  private static final int ID_HIGH = 16;
+  private static final int ID_LOW = 24;
+  private static final int SERIES_HIGH = 32;
+  private static final int SERIES_LOW = 40;
+  private static final int START_NANO = 48;
+  private static final int END_NANO = 52;
+  private static final int SUBJECT = 56;
+  private static final int DESCRIPTION = 60;
+  private static final int LOCATION = 64;
+  private static final int FLAGS = 68;
+  private static final int PRIVATE_FLAG = 1;
+  private static final int SERIES_FLAG = 2;
+
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int INITIAL_STRINGS = 64 * 1024;
+  private static final int MAX_CAPACITY = 1 << 28;
+
+  private final Path path;
+  private final Map<String, Integer> stringOffsets = new HashMap<>();
+  private final Map<Integer, String> stringValues = new ConcurrentHashMap<>();
+  private final Map<Integer, String> normalizedValues = new ConcurrentHashMap<>();
+  private FileChannel channel;
+  private MappedByteBuffer header;
+  private MappedByteBuffer orderBytes;
+  private IntBuffer order;
+  private MappedByteBuffer[] records;
+  private MappedByteBuffer strings;
+  private int size;
+  private int capacity;
+  private int stringsUsed;
+  private int stringsCapacity;
+  private long maxSpan;
+  private int zone;
+  private int name;
+
+  private MappedEventTable(Path path, FileChannel channel) throws IOException {
+    this.path = path;
+    this.channel = channel;
+    lock(channel, path);
+    if (channel.size() == 0) {
+      capacity = INITIAL_CAPACITY;
+      stringsCapacity = INITIAL_STRINGS;
+      stringsUsed = Integer.BYTES;
+      map();
+      writeHeader(header);
+      return;
+    }
+    ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+    channel.read(h, 0);
+    if (h.getInt(H_MAGIC) != MAGIC || h.getInt(H_VERSION) != VERSION) {
+      throw new IOException("Not a calendar data file: " + path);
+    }
+    size = h.getInt(H_SIZE);
+    capacity = h.getInt(H_CAPACITY);
+    stringsUsed = h.getInt(H_STRINGS_USED);
+    stringsCapacity = h.getInt(H_STRINGS_CAPACITY);
+    maxSpan = h.getLong(H_MAX_SPAN);
+    zone = h.getInt(H_ZONE);
+    name = h.getInt(H_NAME);
+    map();
+  }
+
+  /**
+   * Opens the table stored in {@code path}, creating an empty one if the file does not exist.
+   *
+   * @throws IOException if the file cannot be opened, is not a calendar data file, or is
+   *                     already open
+   */
+  static MappedEventTable open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      return new MappedEventTable(path, channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the name of the calendar stored in {@code path}, reading only the header and the
+   * name itself.
+   *
+   * @throws IOException if the file cannot be read or is not a calendar data file
+   */
+  static String storedName(Path path) throws IOException {
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+      in.read(h, 0);
+      if (h.getInt(H_MAGIC) != MAGIC || h.getInt(H_VERSION) != VERSION) {
+        throw new IOException("Not a calendar data file: " + path);
+      }
+      int offset = h.getInt(H_NAME);
+      if (offset == 0) {
+        return "";
+      }
+      long at = stringsOffset(h.getInt(H_CAPACITY)) + offset;
+      ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+      in.read(length, at);
+      ByteBuffer bytes = ByteBuffer.allocate(length.getInt(0));
+      in.read(bytes, at + Integer.BYTES);
+      return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Returns the ID of the zone the stored local times are in, or "" if none was set.
+   */
+  String zone() {
+    return string(zone);
+  }
+
+  void setZone(String zoneId) {
+    zone = intern(zoneId);
+    header.putInt(H_ZONE, zone);
+  }
+
+  /**
+   * Returns the name of the owning calendar, or "" if none was set.
+   */
+  String name() {
+    return string(name);
+  }
+
+  void setName(String calendarName) {
+    name = intern(calendarName);
+    header.putInt(H_NAME, name);
+  }
+
+  /**
+   * Writes every changed page of the file to the storage device.
+   */
+  void force() {
+    header.force();
+    orderBytes.force();
+    for (MappedByteBuffer chunk : records) {
+      chunk.force();
+    }
+    strings.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Returns a heap copy of the table; the file cannot serve as a snapshot since it keeps
+   * changing. Rows are appended in index order, so no sort is needed.
+   */
+  @Override
+  EventColumns copy() {
+    EventColumns out = new EventColumns();
+    for (int row = 0; row < size; row++) {
+      out.append(event(row), seriesAt(row));
+    }
+    return out;
+  }
+
+  @Override
+  int size() {
+    return size;
+  }
+
+  @Override
+  long startSecond(int row) {
+    return getLong(order.get(row), START_SECOND);
+  }
+
+  @Override
+  int startNano(int row) {
+    return getInt(order.get(row), START_NANO);
+  }
+
+  @Override
+  long endSecond(int row) {
+    return getLong(order.get(row), END_SECOND);
+  }
+
+  @Override
+  int endNano(int row) {
+    return getInt(order.get(row), END_NANO);
+  }
+
+  @Override
+  long idHigh(int row) {
+    return getLong(order.get(row), ID_HIGH);
+  }
+
+  @Override
+  long idLow(int row) {
+    return getLong(order.get(row), ID_LOW);
+  }
+
+  @Override
+  boolean subjectMatches(int row, String normalized) {
+    int offset = getInt(order.get(row), SUBJECT);
+    String key = normalizedValues.get(offset);
+    if (key == null) {
+      key = SubjectStartIndex.normalize(string(offset));
+      normalizedValues.put(offset, key);
+    }
+    return key.equals(normalized);
+  }
+
+  @Override
+  long maxSpan() {
+    return maxSpan;
+  }
+
+  @Override
+  UUID seriesAt(int row) {
+    int slot = order.get(row);
+    if ((getInt(slot, FLAGS) & SERIES_FLAG) == 0) {
+      return null;
+    }
+    return new UUID(getLong(slot, SERIES_HIGH), getLong(slot, SERIES_LOW));
+  }
+
+  @Override
+  boolean inSeries(int row, UUID series) {
+    int slot = order.get(row);
+    return (getInt(slot, FLAGS) & SERIES_FLAG) != 0
+        && getLong(slot, SERIES_LOW) == series.getLeastSignificantBits()
+        && getLong(slot, SERIES_HIGH) == series.getMostSignificantBits();
+  }
+
+  @Override
+  void setSeries(int row, UUID series) {
+    int slot = order.get(row);
+    putSeries(slot, series, getInt(slot, FLAGS) & PRIVATE_FLAG);
+  }
+
+  @Override
+  Event event(int row) {
+    int slot = order.get(row);
+    return new Event.Builder()
+        .id(new EventId(new UUID(getLong(slot, ID_HIGH), getLong(slot, ID_LOW))))
+        .subject(string(getInt(slot, SUBJECT)))
+        .start(LocalDateTime.ofEpochSecond(getLong(slot, START_SECOND),
+            getInt(slot, START_NANO), ZoneOffset.UTC))
+        .end(LocalDateTime.ofEpochSecond(getLong(slot, END_SECOND),
+            getInt(slot, END_NANO), ZoneOffset.UTC))
+        .description(string(getInt(slot, DESCRIPTION)))
+        .location(string(getInt(slot, LOCATION)))
+        .status((getInt(slot, FLAGS) & PRIVATE_FLAG) != 0 ? Status.PRIVATE : Status.PUBLIC)
+        .build();
+  }
+
+  @Override
+  int insert(Event e, UUID series) {
+    int row = insertionPoint(e);
+    ensureCapacity(size + 1);
+    write(size, e, series);
+    order.put(row + 1, order, row, size - row);
+    order.put(row, size);
+    setSize(size + 1);
+    return row;
+  }
+
+  /**
+   * Removes the event at {@code row}. Its slot is refilled with the last record, whose order
+   * entry is found by a scan; the order shift is O(n) anyway.
+   */
+  @Override
+  void remove(int row) {
+    int slot = order.get(row);
+    int last = size - 1;
+    order.put(row, order, row + 1, last - row);
+    if (slot != last) {
+      records[slot >>> CHUNK_SHIFT].put(at(slot), records[last >>> CHUNK_SHIFT], at(last),
+          RECORD_BYTES);
+      for (int i = 0; i < last; i++) {
+        if (order.get(i) == last) {
+          order.put(i, slot);
+          break;
+        }
+      }
+    }
+    setSize(last);
+  }
+
+  @Override
+  void append(Event e, UUID series) {
+    ensureCapacity(size + 1);
+    write(size, e, series);
+    order.put(size, size);
+    setSize(size + 1);
+  }
+
+  @Override
+  void setTimes(int row, LocalDateTime start, LocalDateTime end) {
+    int slot = order.get(row);
+    ByteBuffer chunk = records[slot >>> CHUNK_SHIFT];
+    int at = at(slot);
+    chunk.putLong(at + START_SECOND, EpochTime.seconds(start));
+    chunk.putInt(at + START_NANO, start.getNano());
+    chunk.putLong(at + END_SECOND, EpochTime.seconds(end));
+    chunk.putInt(at + END_NANO, end.getNano());
+  }
+
+  /**
+   * Sorts the rows after {@code sortedPrefix} and merges them in. Only the order region is
+   * rewritten; records stay in their slots.
+   */
+  @Override
+  void sort(int sortedPrefix) {
+    Integer[] tail = new Integer[size - sortedPrefix];
+    for (int i = 0; i < tail.length; i++) {
+      tail[i] = sortedPrefix + i;
+    }
+    Arrays.sort(tail, this::compareRows);
+
+    int[] slots = new int[size];
+    int a = 0;
+    int b = 0;
+    for (int i = 0; i < size; i++) {
+      int row = b == tail.length || a < sortedPrefix && compareRows(a, tail[b]) <= 0
+          ? a++ : tail[b++];
+      slots[i] = order.get(row);
+    }
+    order.put(0, slots);
+    maxSpan = 0;
+    for (int slot = 0; slot < size; slot++) {
+      maxSpan = Math.max(maxSpan,
+          getLong(slot, END_SECOND) - getLong(slot, START_SECOND) + 1);
+    }
+    header.putLong(H_MAX_SPAN, maxSpan);
+  }
+
+  private void write(int slot, Event e, UUID series) {
+    int subject = intern(e.subject());
+    int description = intern(e.description().orElse(""));
+    int location = intern(e.location().orElse(""));
+    ByteBuffer chunk = records[slot >>> CHUNK_SHIFT];
+    int at = at(slot);
+    chunk.putLong(at + START_SECOND, e.startEpochSecond());
+    chunk.putLong(at + END_SECOND, e.endEpochSecond());
+    chunk.putLong(at + ID_HIGH, e.id().value().getMostSignificantBits());
+    chunk.putLong(at + ID_LOW, e.id().value().getLeastSignificantBits());
+    chunk.putInt(at + START_NANO, e.startNano());
+    chunk.putInt(at + END_NANO, e.endNano());
+    chunk.putInt(at + SUBJECT, subject);
+    chunk.putInt(at + DESCRIPTION, description);
+    chunk.putInt(at + LOCATION, location);
+    putSeries(slot, series, e.status() == Status.PRIVATE ? PRIVATE_FLAG : 0);
+    long span = e.endEpochSecond() - e.startEpochSecond() + 1;
+    if (span > maxSpan) {
+      maxSpan = span;
+      header.putLong(H_MAX_SPAN, maxSpan);
+    }
+  }
+
+  private void putSeries(int slot, UUID series, int flags) {
+    ByteBuffer chunk = records[slot >>> CHUNK_SHIFT];
+    int at = at(slot);
+    chunk.putLong(at + SERIES_HIGH, series == null ? 0 : series.getMostSignificantBits());
+    chunk.putLong(at + SERIES_LOW, series == null ? 0 : series.getLeastSignificantBits());
+    chunk.putInt(at + FLAGS, series == null ? flags : flags | SERIES_FLAG);
+  }
+
+  private long getLong(int slot, int field) {
+    return records[slot >>> CHUNK_SHIFT].getLong(at(slot) + field);
+  }
+
+  private int getInt(int slot, int field) {
+    return records[slot >>> CHUNK_SHIFT].getInt(at(slot) + field);
+  }
+
+  private static int at(int slot) {
+    return (slot & CHUNK_MASK) * RECORD_BYTES;
+  }
+
+  private String string(int offset) {
+    String value = stringValues.get(offset);
+    if (value == null) {
+      byte[] bytes = new byte[strings.getInt(offset)];
+      strings.get(offset + Integer.BYTES, bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+      stringValues.put(offset, value);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the heap offset of {@code s}, appending it unless this session wrote it already.
+   */
+  private int intern(String s) {
+    if (s.isEmpty()) {
+      return 0;
+    }
+    Integer known = stringOffsets.get(s);
+    if (known != null) {
+      return known;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    int needed = Integer.BYTES + bytes.length;
+    if (stringsUsed > Integer.MAX_VALUE - needed) {
+      throw new IllegalStateException("Calendar file string heap is full: " + path);
+    }
+    if (stringsUsed + needed > stringsCapacity) {
+      long grown = Math.max((long) stringsCapacity * 2, (long) stringsUsed + needed);
+      grow(capacity, (int) Math.min(grown, Integer.MAX_VALUE));
+    }
+    int offset = stringsUsed;
+    strings.putInt(offset, bytes.length);
+    strings.put(offset + Integer.BYTES, bytes);
+    stringsUsed += needed;
+    header.putInt(H_STRINGS_USED, stringsUsed);
+    stringOffsets.put(s, offset);
+    stringValues.put(offset, s);
+    return offset;
+  }
+
+  private void setSize(int newSize) {
+    size = newSize;
+    header.putInt(H_SIZE, size);
+  }
+
+  private void ensureCapacity(int needed) {
+    if (needed <= capacity) {
+      return;
+    }
+    if (capacity >= MAX_CAPACITY) {
+      throw new IllegalStateException("Calendar file is full: " + path);
+    }
+    grow(capacity * 2, stringsCapacity);
+  }
+
+  private static long recordsOffset(int capacity) {
+    return HEADER_BYTES + (long) Integer.BYTES * capacity;
+  }
+
+  private static long stringsOffset(int capacity) {
+    return recordsOffset(capacity) + (long) RECORD_BYTES * capacity;
+  }
+
+  /**
+   * Maps every region for the current capacities, extending the file if needed.
+   */
+  private void map() throws IOException {
+    header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+    orderBytes = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES,
+        (long) Integer.BYTES * capacity);
+    order = orderBytes.asIntBuffer();
+    int chunks = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+    records = new MappedByteBuffer[chunks];
+    for (int i = 0; i < chunks; i++) {
+      int slots = Math.min(1 << CHUNK_SHIFT, capacity - (i << CHUNK_SHIFT));
+      records[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+          recordsOffset(capacity) + (long) RECORD_BYTES * (i << CHUNK_SHIFT),
+          (long) RECORD_BYTES * slots);
+    }
+    strings = channel.map(FileChannel.MapMode.READ_WRITE, stringsOffset(capacity),
+        stringsCapacity);
+  }
+
+  private void writeHeader(ByteBuffer h) {
+    h.putInt(H_MAGIC, MAGIC);
+    h.putInt(H_VERSION, VERSION);
+    h.putInt(H_SIZE, size);
+    h.putInt(H_CAPACITY, capacity);
+    h.putInt(H_STRINGS_USED, stringsUsed);
+    h.putInt(H_STRINGS_CAPACITY, stringsCapacity);
+    h.putLong(H_MAX_SPAN, maxSpan);
+    h.putInt(H_ZONE, zone);
+    h.putInt(H_NAME, name);
+  }
+
+  /**
+   * Takes the exclusive lock on an open file; closing the channel releases it.
+   */
+  private static void lock(FileChannel channel, Path path) throws IOException {
+    FileLock taken;
+    try {
+      taken = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      taken = null;
+    }
+    if (taken == null) {
+      throw new IOException("Calendar file is already open: " + path);
+    }
+  }
+
+  /**
+   * Copies the used part of every region into a larger file, then swaps it in and remaps.
+   */
+  private void grow(int newCapacity, int newStringsCapacity) {
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        transfer(HEADER_BYTES, (long) Integer.BYTES * size, out, HEADER_BYTES);
+        transfer(recordsOffset(capacity), (long) RECORD_BYTES * size, out,
+            recordsOffset(newCapacity));
+        transfer(stringsOffset(capacity), stringsUsed, out, stringsOffset(newCapacity));
+        int oldCapacity = capacity;
+        int oldStrings = stringsCapacity;
+        capacity = newCapacity;
+        stringsCapacity = newStringsCapacity;
+        ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+        writeHeader(h);
+        capacity = oldCapacity;
+        stringsCapacity = oldStrings;
+        out.write(h, 0);
+        out.force(true);
+      }
+      channel.close();
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      lock(channel, path);
+      capacity = newCapacity;
+      stringsCapacity = newStringsCapacity;
+      map();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to grow calendar file " + path, e);
+    }
+  }
+
+  private void transfer(long from, long count, FileChannel out, long to) throws IOException {
+    out.position(to);
+    long done = 0;
+    while (done < count) {
+      done += channel.transferTo(from + done, count - done, out);
+    }
+  }
+}
@@ -1,11 +1,15 @@
 package calendar.model.internal;
 
 import calendar.model.api.EventDraft;
+import calendar.model.api.SeriesDraft;
 import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
 import calendar.model.domain.Status;
 import calendar.model.exception.ValidationException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -16,6 +20,9 @@ import java.util.Optional;
  * Converts allDayDate into the configured window. Provides default status when absent.</p>
  *
  * <p>Settings-driven so all-day hours can be changed (e.g., 9am-6pm) without code changes.</p>
+ *
+ * <p>Also turns drafts into validated events, so every calendar implementation applies the
+ * same rules.</p>
  */
 final class Normalizer {
   static final class EventTimes {
@@ -50,4 +57,49 @@ final class Normalizer {
   Status resolveStatus(Optional<Status> maybeStatus) {
     return maybeStatus.orElse(settings.defaultStatus());
   }
+
+  /**
+   * Validates a single-event draft and builds its event; a null {@code id} means a random one.
+   */
+  Event prepare(EventDraft draft, EventId id) {
+    Objects.requireNonNull(draft, "draft");
+    if (draft.subject == null || draft.subject.trim().isEmpty()) {
+      throw new ValidationException("Subject is required");
+    }
+    EventTimes t = normalizeTimes(draft);
+    if (!t.end.isAfter(t.start)) {
+      throw new ValidationException("End must be after start");
+    }
+    return new Event.Builder()
+        .id(id)
+        .subject(draft.subject.trim())
+        .start(t.start)
+        .end(t.end)
+        .description(draft.description.orElse(""))
+        .location(draft.location.orElse(""))
+        .status(resolveStatus(draft.status))
+        .build();
+  }
+
+  /**
+   * Time-of-day template of a series: its own times, or the all-day window.
+   */
+  LocalTime[] seriesTimes(SeriesDraft draft) {
+    return draft.allDay
+        ? new LocalTime[] {settings.allDayStart(), settings.allDayEnd()}
+        : new LocalTime[] {draft.startTime.get(), draft.endTime.get()};
+  }
+
+  static Event seriesEvent(SeriesDraft draft, LocalDate date, LocalTime[] times,
+                           Status status, EventId id) {
+    return new Event.Builder()
+        .id(id)
+        .subject(draft.subject.trim())
+        .start(date.atTime(times[0]))
+        .end(date.atTime(times[1]))
+        .description(draft.description.orElse(""))
+        .location(draft.location.orElse(""))
+        .status(status)
+        .build();
+  }
 }
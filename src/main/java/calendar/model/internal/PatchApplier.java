@@ -13,16 +13,21 @@ import java.util.Objects;
  * Applies partial updates to events.
  *
  * <p>Merges patch values with existing event fields, creates new immutable Event instances,
- * validates constraints, and updates the uniqueness index. Extracted from InMemoryCalendar
- * to keep that class focused on orchestration.</p>
+ * validates constraints, and updates the uniqueness, time and subject/start indexes. Extracted
+ * from InMemoryCalendar to keep that class focused on orchestration.</p>
  */
 final class PatchApplier {
   private final Map<EventId, Event> byId;
   private final UniquenessIndex index;
+  private final TimeIndex timeIndex;
+  private final SubjectStartIndex subjectStart;
 
-  PatchApplier(Map<EventId, Event> byId, UniquenessIndex index) {
+  PatchApplier(Map<EventId, Event> byId, UniquenessIndex index, TimeIndex timeIndex,
+               SubjectStartIndex subjectStart) {
     this.byId = Objects.requireNonNull(byId, "byId");
     this.index = Objects.requireNonNull(index, "index");
+    this.timeIndex = Objects.requireNonNull(timeIndex, "timeIndex");
+    this.subjectStart = Objects.requireNonNull(subjectStart, "subjectStart");
   }
 
   void apply(EventId id, EventPatch patch) {
@@ -48,9 +53,9 @@ final class PatchApplier {
         .status(status)
         .build();
 
-    String oldKey = UniquenessIndex.key(cur.subject(), cur.start(), cur.end());
-    String newKey = UniquenessIndex.key(updated.subject(), updated.start(), updated.end());
-    index.replaceOrThrow(oldKey, newKey);
+    index.replaceOrThrow(cur, updated);
     byId.put(id, updated);
+    timeIndex.replace(cur, updated);
+    subjectStart.replace(cur, updated);
   }
 }
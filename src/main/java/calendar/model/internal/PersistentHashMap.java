@@ -0,0 +1,287 @@
+package calendar.model.internal;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable hash map whose updates return a new map sharing most of the old one.
+ *
+ * <h2>Design: Hash Array Mapped Trie</h2>
+ *
+ * <p>Keys are placed by their hash, five bits per level, in nodes of up to 32 slots. Each node
+ * stores only its occupied slots plus a 32-bit bitmap saying which ones exist, so a sparse node
+ * costs a few words rather than a 32-element array. A slot holds an entry, a child node, or a
+ * collision bucket for keys whose full hashes are equal.</p>
+ *
+ * <p><b>Why not copy a HashMap?</b> A snapshot calendar publishes a new version after every
+ * write. Copying the whole map would make each create O(n). Here {@link #plus} and
+ * {@link #minus} copy only the nodes on the path to the key: at most seven small arrays, and
+ * about three for a calendar of ten thousand events. Older versions stay valid and unchanged,
+ * so readers holding them need no lock.</p>
+ *
+ * <p>Removal collapses a child that is left with a single entry back into its parent, so a map
+ * has the same shape however it was built.</p>
+ */
+final class PersistentHashMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentHashMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty map.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value for {@code key}, or null.
+   */
+  @SuppressWarnings("unchecked")
+  V get(K key) {
+    Objects.requireNonNull(key, "key");
+    int hash = key.hashCode();
+    Node node = root;
+    int shift = 0;
+    while (node != null) {
+      int bit = bit(hash, shift);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = node.slots[node.index(bit)];
+      if (slot instanceof Entry) {
+        Entry e = (Entry) slot;
+        return e.key.equals(key) ? (V) e.value : null;
+      }
+      if (slot instanceof Collision) {
+        Entry e = ((Collision) slot).find(key);
+        return e == null ? null : (V) e.value;
+      }
+      node = (Node) slot;
+      shift += BITS;
+    }
+    return null;
+  }
+
+  /**
+   * Returns a map with {@code key} bound to {@code value}.
+   */
+  PersistentHashMap<K, V> plus(K key, V value) {
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(value, "value");
+    int hash = key.hashCode();
+    boolean present = get(key) != null;
+    Node base = root == null ? Node.EMPTY : root;
+    Node updated = put(base, new Entry(hash, key, value), 0);
+    if (updated == base) {
+      return this;
+    }
+    return new PersistentHashMap<>(updated, present ? size : size + 1);
+  }
+
+  /**
+   * Returns a map without {@code key}; this map if the key is absent.
+   */
+  PersistentHashMap<K, V> minus(K key) {
+    Objects.requireNonNull(key, "key");
+    if (root == null || get(key) == null) {
+      return this;
+    }
+    Node updated = (Node) remove(root, key.hashCode(), key, 0);
+    return new PersistentHashMap<>(updated, size - 1);
+  }
+
+  private static Node put(Node node, Entry entry, int shift) {
+    int bit = bit(entry.hash, shift);
+    int idx = node.index(bit);
+    if ((node.bitmap & bit) == 0) {
+      return node.inserted(bit, idx, entry);
+    }
+    Object slot = node.slots[idx];
+    Object replacement;
+    if (slot instanceof Entry) {
+      Entry e = (Entry) slot;
+      if (e.key.equals(entry.key)) {
+        if (e.value == entry.value) {
+          return node;
+        }
+        replacement = entry;
+      } else if (e.hash == entry.hash) {
+        replacement = new Collision(e.hash, new Entry[] {e, entry});
+      } else {
+        replacement = pair(e, e.hash, entry, shift + BITS);
+      }
+    } else if (slot instanceof Collision) {
+      Collision c = (Collision) slot;
+      replacement = c.hash == entry.hash ? c.with(entry) : pair(c, c.hash, entry, shift + BITS);
+    } else {
+      Node child = (Node) slot;
+      Node updated = put(child, entry, shift + BITS);
+      if (updated == child) {
+        return node;
+      }
+      replacement = updated;
+    }
+    return node.replaced(idx, replacement);
+  }
+
+  /**
+   * Builds the node holding an existing slot and a new entry whose hashes differ. Both agree
+   * on every bit below {@code shift}, so they separate by the last level at the latest.
+   */
+  private static Node pair(Object existing, int existingHash, Entry entry, int shift) {
+    Node node = new Node(bit(existingHash, shift), new Object[] {existing});
+    return put(node, entry, shift);
+  }
+
+  /**
+   * Removes a key known to be present. Returns the new node, a lone entry or collision for the
+   * parent to inline, or null if nothing is left. The root always stays a node.
+   */
+  private static Object remove(Node node, int hash, Object key, int shift) {
+    int bit = bit(hash, shift);
+    int idx = node.index(bit);
+    Object slot = node.slots[idx];
+    Object replacement;
+    if (slot instanceof Entry) {
+      replacement = null;
+    } else if (slot instanceof Collision) {
+      replacement = ((Collision) slot).without(key);
+    } else {
+      replacement = remove((Node) slot, hash, key, shift + BITS);
+    }
+
+    if (replacement == null) {
+      if (node.slots.length == 1) {
+        return null;
+      }
+      if (node.slots.length == 2 && shift > 0) {
+        Object other = node.slots[1 - idx];
+        if (!(other instanceof Node)) {
+          return other;
+        }
+      }
+      return node.removed(bit, idx);
+    }
+    if (node.slots.length == 1 && shift > 0 && !(replacement instanceof Node)) {
+      return replacement;
+    }
+    return node.replaced(idx, replacement);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static final class Node {
+    static final Node EMPTY = new Node(0, new Object[0]);
+
+    final int bitmap;
+    final Object[] slots;
+
+    Node(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    Node inserted(int bit, int idx, Object slot) {
+      Object[] out = new Object[slots.length + 1];
+      System.arraycopy(slots, 0, out, 0, idx);
+      out[idx] = slot;
+      System.arraycopy(slots, idx, out, idx + 1, slots.length - idx);
+      return new Node(bitmap | bit, out);
+    }
+
+    Node replaced(int idx, Object slot) {
+      Object[] out = slots.clone();
+      out[idx] = slot;
+      return new Node(bitmap, out);
+    }
+
+    Node removed(int bit, int idx) {
+      Object[] out = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, out, 0, idx);
+      System.arraycopy(slots, idx + 1, out, idx, slots.length - idx - 1);
+      return new Node(bitmap & ~bit, out);
+    }
+  }
+
+  private static final class Entry {
+    final int hash;
+    final Object key;
+    final Object value;
+
+    Entry(int hash, Object key, Object value) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Keys whose full 32-bit hashes are equal.
+   */
+  private static final class Collision {
+    final int hash;
+    final Entry[] entries;
+
+    Collision(int hash, Entry[] entries) {
+      this.hash = hash;
+      this.entries = entries;
+    }
+
+    Entry find(Object key) {
+      for (Entry e : entries) {
+        if (e.key.equals(key)) {
+          return e;
+        }
+      }
+      return null;
+    }
+
+    Collision with(Entry entry) {
+      for (int i = 0; i < entries.length; i++) {
+        if (entries[i].key.equals(entry.key)) {
+          Entry[] out = entries.clone();
+          out[i] = entry;
+          return new Collision(hash, out);
+        }
+      }
+      Entry[] out = Arrays.copyOf(entries, entries.length + 1);
+      out[entries.length] = entry;
+      return new Collision(hash, out);
+    }
+
+    /**
+     * Returns the bucket without {@code key}: a lone entry once one key is left.
+     */
+    Object without(Object key) {
+      Entry[] out = new Entry[entries.length - 1];
+      int j = 0;
+      for (Entry e : entries) {
+        if (!e.key.equals(key)) {
+          out[j++] = e;
+        }
+      }
+      return out.length == 1 ? out[0] : new Collision(hash, out);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An immutable version of {@link TimeIndex}: events ordered by start with the same
+ * {@code maxEnd} augmentation, where every update returns a new tree.
+ *
+ * <h2>Design: Path-Copying Treap</h2>
+ *
+ * <p>Nodes are never modified. {@link #plus} and {@link #minus} rebuild only the nodes from the
+ * root down to the change (rotations included) and point at the untouched subtrees of the old
+ * tree, so an update allocates O(log n) nodes and the previous tree is still a complete,
+ * valid index.</p>
+ *
+ * <p><b>Why priorities from the event ID?</b> The mutable TimeIndex draws priorities from a
+ * Random. Here the priority must survive an edit that rebuilds the event with the same ID, and
+ * must not depend on which thread built the node, so it is a hash of the ID. IDs are random
+ * UUIDs, which keeps the expected depth logarithmic.</p>
+ *
+ * <p><b>Why no BusyIntervals?</b> Keeping the coalesced list persistent would cost more than it
+ * saves. {@link #covers} walks the tree with the same maxEnd pruning as range queries and
+ * stops at the first covering event, which is O(log n) for typical calendars.</p>
+ */
+final class PersistentTimeTree {
+  static final PersistentTimeTree EMPTY = new PersistentTimeTree(null);
+
+  private final Node root;
+
+  private PersistentTimeTree(Node root) {
+    this.root = root;
+  }
+
+  private static final class Node {
+    final Event event;
+    final int priority;
+    final Node left;
+    final Node right;
+    final Event maxEnd;
+    final int size;
+
+    Node(Event event, int priority, Node left, Node right) {
+      this.event = event;
+      this.priority = priority;
+      this.left = left;
+      this.right = right;
+      Event max = event;
+      int n = 1;
+      if (left != null) {
+        n += left.size;
+        if (EpochTime.compareEnds(left.maxEnd, max) > 0) {
+          max = left.maxEnd;
+        }
+      }
+      if (right != null) {
+        n += right.size;
+        if (EpochTime.compareEnds(right.maxEnd, max) > 0) {
+          max = right.maxEnd;
+        }
+      }
+      this.maxEnd = max;
+      this.size = n;
+    }
+
+    Node with(Node newLeft, Node newRight) {
+      return new Node(event, priority, newLeft, newRight);
+    }
+  }
+
+  int size() {
+    return root == null ? 0 : root.size;
+  }
+
+  /**
+   * Returns a tree that also contains {@code event}.
+   */
+  PersistentTimeTree plus(Event event) {
+    Objects.requireNonNull(event, "event");
+    return new PersistentTimeTree(insert(root, new Node(event, priority(event), null, null)));
+  }
+
+  /**
+   * Returns a tree without {@code event}, which must be present with the same start, end and
+   * id.
+   */
+  PersistentTimeTree minus(Event event) {
+    Objects.requireNonNull(event, "event");
+    Node updated = delete(root, event);
+    if (sizeOf(updated) == size()) {
+      throw new IllegalStateException("Event not present in time tree: " + event.id());
+    }
+    return new PersistentTimeTree(updated);
+  }
+
+  /**
+   * Returns a tree where {@code current} is swapped for {@code updated}.
+   */
+  PersistentTimeTree replace(Event current, Event updated) {
+    return minus(current).plus(updated);
+  }
+
+  /**
+   * Adds events overlapping {@code [from, to)} to {@code out} in start order.
+   */
+  void collectOverlapping(LocalDateTime from, LocalDateTime to, List<Event> out) {
+    overlapIn(root, EpochTime.seconds(from), from.getNano(), EpochTime.seconds(to), to.getNano(),
+        out);
+  }
+
+  /**
+   * Adds events starting exactly at {@code start} to {@code out}.
+   */
+  void collectStartingAt(LocalDateTime start, List<Event> out) {
+    startingIn(root, EpochTime.seconds(start), start.getNano(), out);
+  }
+
+  /**
+   * Returns true if some event satisfies {@code start <= instant < end}.
+   */
+  boolean covers(LocalDateTime instant) {
+    return coversIn(root, EpochTime.seconds(instant), instant.getNano());
+  }
+
+  /**
+   * Returns every event in start order.
+   */
+  List<Event> all() {
+    List<Event> out = new ArrayList<>(size());
+    collectIn(root, out);
+    return out;
+  }
+
+  /**
+   * Adds up to {@code limit} events sorting after {@code after} (from the first if null) to
+   * {@code out}, in start order.
+   */
+  void collectAfter(Event after, int limit, List<Event> out) {
+    afterIn(root, after, out.size() + limit, out);
+  }
+
+  private static int sizeOf(Node n) {
+    return n == null ? 0 : n.size;
+  }
+
+  private static int priority(Event event) {
+    UUID id = event.id().value();
+    long h = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private static Node insert(Node n, Node fresh) {
+    if (n == null) {
+      return fresh;
+    }
+    if (TimeIndex.compare(fresh.event, n.event) < 0) {
+      Node l = insert(n.left, fresh);
+      if (l.priority > n.priority) {
+        return l.with(l.left, n.with(l.right, n.right));
+      }
+      return n.with(l, n.right);
+    }
+    Node r = insert(n.right, fresh);
+    if (r.priority > n.priority) {
+      return r.with(n.with(n.left, r.left), r.right);
+    }
+    return n.with(n.left, r);
+  }
+
+  private static Node delete(Node n, Event target) {
+    if (n == null) {
+      return null;
+    }
+    int c = TimeIndex.compare(target, n.event);
+    if (c < 0) {
+      Node l = delete(n.left, target);
+      return l == n.left ? n : n.with(l, n.right);
+    }
+    if (c > 0) {
+      Node r = delete(n.right, target);
+      return r == n.right ? n : n.with(n.left, r);
+    }
+    return merge(n.left, n.right);
+  }
+
+  private static Node merge(Node a, Node b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    if (a.priority > b.priority) {
+      return a.with(a.left, merge(a.right, b));
+    }
+    return b.with(merge(a, b.left), b.right);
+  }
+
+  private static void overlapIn(Node n, long fromSecond, int fromNano, long toSecond,
+                                int toNano, List<Event> out) {
+    if (n == null || !EpochTime.endsAfter(n.maxEnd, fromSecond, fromNano)) {
+      return;
+    }
+    overlapIn(n.left, fromSecond, fromNano, toSecond, toNano, out);
+    Event e = n.event;
+    if (!EpochTime.startsBefore(e, toSecond, toNano)) {
+      return;
+    }
+    if (EpochTime.endsAfter(e, fromSecond, fromNano)) {
+      out.add(e);
+    }
+    overlapIn(n.right, fromSecond, fromNano, toSecond, toNano, out);
+  }
+
+  private static void startingIn(Node n, long second, int nano, List<Event> out) {
+    if (n == null) {
+      return;
+    }
+    int c = EpochTime.compare(n.event.startEpochSecond(), n.event.startNano(), second, nano);
+    if (c >= 0) {
+      startingIn(n.left, second, nano, out);
+    }
+    if (c == 0) {
+      out.add(n.event);
+    }
+    if (c <= 0) {
+      startingIn(n.right, second, nano, out);
+    }
+  }
+
+  private static boolean coversIn(Node n, long second, int nano) {
+    if (n == null || !EpochTime.endsAfter(n.maxEnd, second, nano)) {
+      return false;
+    }
+    if (coversIn(n.left, second, nano)) {
+      return true;
+    }
+    Event e = n.event;
+    if (EpochTime.compare(e.startEpochSecond(), e.startNano(), second, nano) > 0) {
+      return false;
+    }
+    return EpochTime.endsAfter(e, second, nano) || coversIn(n.right, second, nano);
+  }
+
+  private static void afterIn(Node n, Event after, int stop, List<Event> out) {
+    if (n == null || out.size() >= stop) {
+      return;
+    }
+    if (after == null || TimeIndex.compare(n.event, after) > 0) {
+      afterIn(n.left, after, stop, out);
+      if (out.size() >= stop) {
+        return;
+      }
+      out.add(n.event);
+    }
+    afterIn(n.right, after, stop, out);
+  }
+
+  private static void collectIn(Node n, List<Event> out) {
+    if (n == null) {
+      return;
+    }
+    collectIn(n.left, out);
+    out.add(n.event);
+    collectIn(n.right, out);
+  }
+}
@@ -4,63 +4,162 @@ import calendar.model.recurrence.RecurrenceRule;
 import calendar.model.recurrence.Weekday;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Expands a {@link RecurrenceRule} into concrete calendar dates.
  *
  * <p>Implements the assignment semantics:
  * repeat on given weekdays either for N occurrences or until a date (inclusive).</p>
+ *
+ * <h2>Design: Weekday Mask + Closed Forms</h2>
+ *
+ * <p>The rule's weekdays become a 7-bit mask (bit 0 = Monday). From any date, the next wanted
+ * date is found by checking at most seven bits, never by stepping through the days in between.
+ * Because the pattern repeats every week, positions and counts have closed forms:</p>
+ * <ul>
+ *   <li>{@link #nthOccurrence}: the first week fixes the order of weekdays; occurrence
+ *       {@code n} is a whole number of weeks after one of them.</li>
+ *   <li>{@link #countThrough}: full weeks contribute {@code bitCount(mask)} each; only the
+ *       partial week is inspected.</li>
+ *   <li>{@link #firstOnOrAfter}: one bit scan.</li>
+ * </ul>
+ *
+ * <p><b>Why an iterator?</b> Callers that store each occurrence immediately (series creation)
+ * or only need a window have no use for a full {@code List}. {@link #iterator} and
+ * {@link #stream} produce dates lazily; the count rule is turned into its last date up front
+ * so both rule kinds are a plain date range. {@link #expand} remains for callers that want
+ * the list.</p>
  */
 final class RecurrenceExpander {
 
   List<LocalDate> expand(LocalDate startDate, RecurrenceRule rule) {
-    EnumSet<Weekday> weekdays = rule.weekdays;
-    Set<DayOfWeek> wanted = weekdays.stream()
-        .map(RecurrenceExpander::map)
-        .collect(Collectors.toSet());
-    if (wanted.isEmpty() || wanted.contains(null)) {
-      throw new IllegalStateException("Invalid weekday mapping for recurrence expansion");
-    }
+    Iterator<LocalDate> it = iterator(startDate, rule);
     List<LocalDate> out = new ArrayList<>();
-    LocalDate d = startDate;
+    while (it.hasNext()) {
+      out.add(it.next());
+    }
+    return out;
+  }
+
+  /**
+   * Returns the rule's dates in order, computed one at a time.
+   */
+  Iterator<LocalDate> iterator(LocalDate startDate, RecurrenceRule rule) {
+    int mask = mask(rule.weekdays);
+    return new DateIterator(mask, firstOnOrAfter(mask, startDate), lastDate(startDate, rule));
+  }
+
+  /**
+   * Returns the rule's dates as an ordered, sized stream.
+   */
+  Stream<LocalDate> stream(LocalDate startDate, RecurrenceRule rule) {
+    int mask = mask(rule.weekdays);
+    LocalDate last = lastDate(startDate, rule);
+    long size = last.isBefore(startDate) ? 0 : countThrough(mask, startDate, last);
+    Spliterator<LocalDate> split = Spliterators.spliterator(
+        new DateIterator(mask, firstOnOrAfter(mask, startDate), last), size,
+        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+            | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    return StreamSupport.stream(split, false);
+  }
 
+  /**
+   * Returns the inclusive last date of the rule: the until date, or the date of the
+   * {@code count}th occurrence.
+   */
+  static LocalDate lastDate(LocalDate startDate, RecurrenceRule rule) {
     if (rule.count.isPresent()) {
-      int n = rule.count.get();
-      PriorityQueue<LocalDate> pq = new PriorityQueue<>();
-      int startDow = startDate.getDayOfWeek().getValue(); // 1=Mon..7=Sun
-      for (DayOfWeek dow : wanted) {
-        int target = dow.getValue();
-        int delta = (target - startDow + 7) % 7; // days to next target, 0..6
-        pq.add(startDate.plusDays(delta));
+      return nthOccurrence(mask(rule.weekdays), startDate, rule.count.get());
+    }
+    return rule.untilDate.get();
+  }
+
+  /**
+   * Converts weekdays to a bit mask, bit 0 being Monday.
+   *
+   * @throws IllegalStateException if the set is empty
+   */
+  static int mask(Set<Weekday> weekdays) {
+    int mask = 0;
+    for (Weekday w : weekdays) {
+      mask |= bit(map(w));
+    }
+    if (mask == 0) {
+      throw new IllegalStateException("Invalid weekday mapping for recurrence expansion");
+    }
+    return mask;
+  }
+
+  /**
+   * True if {@code date} falls on a weekday in the mask.
+   */
+  static boolean matches(int mask, LocalDate date) {
+    return (mask & bit(date.getDayOfWeek())) != 0;
+  }
+
+  /**
+   * Returns the first date on or after {@code date} whose weekday is in the mask.
+   */
+  static LocalDate firstOnOrAfter(int mask, LocalDate date) {
+    int dow = date.getDayOfWeek().getValue() - 1;
+    for (int k = 0; k < 7; k++) {
+      if ((mask & (1 << ((dow + k) % 7))) != 0) {
+        return k == 0 ? date : date.plusDays(k);
       }
+    }
+    throw new IllegalStateException("Empty weekday mask");
+  }
 
-      for (int i = 0; i < n; i++) {
-        LocalDate next = pq.poll();
-        if (next == null) {
-          throw new IllegalStateException("Recurrence expansion queue unexpectedly empty");
-        }
-        out.add(next);
-        pq.add(next.plusDays(7));
+  /**
+   * Returns the date of the {@code n}th (1-based) occurrence on or after {@code start}.
+   */
+  static LocalDate nthOccurrence(int mask, LocalDate start, long n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("n must be positive");
+    }
+    int[] offsets = new int[7];
+    int perWeek = 0;
+    int dow = start.getDayOfWeek().getValue() - 1;
+    for (int k = 0; k < 7; k++) {
+      if ((mask & (1 << ((dow + k) % 7))) != 0) {
+        offsets[perWeek++] = k;
       }
-    } else {
-      LocalDate until = rule.untilDate.get();
-      while (!d.isAfter(until)) {
-        if (wanted.contains(d.getDayOfWeek())) {
-          out.add(d);
-        }
-        d = d.plusDays(1);
+    }
+    long index = n - 1;
+    return start.plusDays(7 * (index / perWeek) + offsets[(int) (index % perWeek)]);
+  }
+
+  /**
+   * Returns how many dates in {@code [start, date]} fall on a weekday in the mask; zero if
+   * {@code date} is before {@code start}.
+   */
+  static long countThrough(int mask, LocalDate start, LocalDate date) {
+    long days = ChronoUnit.DAYS.between(start, date) + 1;
+    if (days <= 0) {
+      return 0;
+    }
+    long count = (days / 7) * Integer.bitCount(mask);
+    int dow = start.getDayOfWeek().getValue() - 1;
+    int rest = (int) (days % 7);
+    for (int k = 0; k < rest; k++) {
+      if ((mask & (1 << ((dow + k) % 7))) != 0) {
+        count++;
       }
     }
-    return out;
+    return count;
   }
 
-  private static DayOfWeek map(Weekday w) {
+  static DayOfWeek map(Weekday w) {
     switch (w) {
       case M: return DayOfWeek.MONDAY;
       case T: return DayOfWeek.TUESDAY;
@@ -72,4 +171,50 @@ final class RecurrenceExpander {
       default: throw new IllegalArgumentException("Unknown weekday: " + w);
     }
   }
+
+  private static int bit(DayOfWeek dow) {
+    return 1 << (dow.getValue() - 1);
+  }
+
+  /**
+   * Walks wanted dates in {@code [next, last]}. A per-weekday gap table gives the distance to
+   * the next wanted weekday, so each step is one {@code plusDays}.
+   */
+  private static final class DateIterator implements Iterator<LocalDate> {
+    private final int[] gaps = new int[7];
+    private final LocalDate last;
+    private LocalDate next;
+    private int dow;
+
+    DateIterator(int mask, LocalDate first, LocalDate last) {
+      for (int d = 0; d < 7; d++) {
+        int k = 1;
+        while ((mask & (1 << ((d + k) % 7))) == 0) {
+          k++;
+        }
+        gaps[d] = k;
+      }
+      this.last = last;
+      this.next = first.isAfter(last) ? null : first;
+      this.dow = first.getDayOfWeek().getValue() - 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public LocalDate next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      LocalDate current = next;
+      int gap = gaps[dow];
+      dow = (dow + gap) % 7;
+      LocalDate following = current.plusDays(gap);
+      next = following.isAfter(last) ? null : following;
+      return current;
+    }
+  }
 }
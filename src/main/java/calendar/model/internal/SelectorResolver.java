@@ -6,44 +6,46 @@ import calendar.model.domain.EventId;
 import calendar.model.exception.NotFoundException;
 import calendar.model.exception.ValidationException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Finds the event matching a selector.
  *
  * <p>If selector includes end time, matches exactly on (subject, start, end).
  * Otherwise matches on (subject, start) and throws if zero or multiple events found.</p>
+ *
+ * <p>Candidates come from the {@link SubjectStartIndex} bucket for the selector's subject and
+ * start, so resolution never scans the calendar. Occurrences of virtual series are not in that
+ * bucket; {@link SeriesIndex#virtualAt} supplies them.</p>
  */
 final class SelectorResolver {
   private final Map<EventId, Event> byId;
+  private final SubjectStartIndex subjectStart;
+  private final SeriesIndex seriesIndex;
 
-  SelectorResolver(Map<EventId, Event> byId) {
+  SelectorResolver(Map<EventId, Event> byId, SubjectStartIndex subjectStart,
+                   SeriesIndex seriesIndex) {
     this.byId = Objects.requireNonNull(byId, "byId");
+    this.subjectStart = Objects.requireNonNull(subjectStart, "subjectStart");
+    this.seriesIndex = Objects.requireNonNull(seriesIndex, "seriesIndex");
   }
 
   Event resolve(EventSelector selector) {
-    String subj = selector.subject.trim().toLowerCase(Locale.ROOT);
-    LocalDateTime s = selector.start;
+    List<Event> candidates = candidates(selector.subject, selector.start);
 
     if (selector.end.isPresent()) {
-      var e = selector.end.get();
-      return byId.values().stream()
-          .filter(ev -> ev.subject().trim().toLowerCase(Locale.ROOT).equals(subj)
-              && ev.start().equals(s)
-              && ev.end().equals(e))
-          .findFirst()
-          .orElseThrow(() -> new NotFoundException("No event found for subject/start/end"));
+      LocalDateTime e = selector.end.get();
+      for (Event ev : candidates) {
+        if (ev.end().equals(e)) {
+          return ev;
+        }
+      }
+      throw new NotFoundException("No event found for subject/start/end");
     }
 
-    List<Event> candidates = byId.values().stream()
-        .filter(ev -> ev.subject().trim().toLowerCase(Locale.ROOT).equals(subj)
-            && ev.start().equals(s))
-        .collect(Collectors.toList());
-
     if (candidates.isEmpty()) {
       throw new NotFoundException("No event found for subject/start");
     }
@@ -53,4 +55,18 @@ final class SelectorResolver {
     }
     return candidates.get(0);
   }
+
+  /**
+   * Returns stored and virtual events matching (subject, start).
+   */
+  List<Event> candidates(String subject, LocalDateTime start) {
+    List<EventId> bucket = subjectStart.lookup(subject, start);
+    List<Event> virtual = seriesIndex.virtualAt(subject, start);
+    List<Event> out = new ArrayList<>(bucket.size() + virtual.size());
+    for (EventId id : bucket) {
+      out.add(byId.get(id));
+    }
+    out.addAll(virtual);
+    return out;
+  }
 }
@@ -2,15 +2,15 @@ package calendar.model.internal;
 
 import calendar.model.domain.Event;
 import calendar.model.domain.EventId;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Tracks which events belong to which series.
@@ -33,65 +33,128 @@ import java.util.stream.Collectors;
  * <p><b>Why not store series ID in Event?</b> Events are immutable, so adding/removing
  * series membership would require recreating the event. Also, finding all events in a
  * series would still need scanning. Keeping series data separate is cleaner.</p>
+ *
+ * <h2>Design: Members in Start Order</h2>
+ *
+ * <p>Each series keeps its stored members in {@link Members}: parallel arrays of start
+ * (epoch seconds) and event ID, sorted by start. A FOLLOWING edit finds its cutoff by binary
+ * search, so listing or splitting off the tail costs O(log n) plus the members moved, not a
+ * scan and sort of the whole series through {@code byId}.</p>
+ *
+ * <p><b>Why tombstones on detach?</b> Detaching one occurrence of a multi-year daily series
+ * should not shift thousands of array slots. The slot is found by binary search and cleared;
+ * cleared slots are compacted away once they outnumber the live ones.</p>
+ *
+ * <p><b>Why must callers report start changes?</b> The arrays copy each member's start, so
+ * an edit that moves members must call {@link #startsChanged} afterwards. Edits that move a
+ * single occurrence detach it first, so only series-wide edits and timezone conversion need
+ * to.</p>
+ *
+ * <h2>Design: Virtual Runs</h2>
+ *
+ * <p>In {@code SeriesStorage.VIRTUAL} mode a series is mostly {@link VirtualSeries} runs: a
+ * rule plus a time template, with no stored events. Only occurrences edited on their own are
+ * materialized, and those are tracked as ordinary members above. A series is therefore
+ * "members + runs", and memory grows with edits, not with the number of occurrences.</p>
+ *
+ * <p>Runs are indexed three ways: by series (edits), by ID base (mapping a derived
+ * {@link EventId} back to its run) and by normalized subject (uniqueness probes and selector
+ * lookups, which always know the subject).</p>
+ *
+ * <p><b>Why implement ExternalKeys?</b> A virtual occurrence owns its (subject, start, end)
+ * key just like a stored event. Letting {@link UniquenessIndex} consult the runs means every
+ * existing create/patch path rejects duplicates of virtual occurrences without knowing they
+ * exist.</p>
  */
-final class SeriesIndex {
+final class SeriesIndex implements UniquenessIndex.ExternalKeys {
   private final Map<EventId, UUID> eventToSeries = new HashMap<>();
 
-  private final Map<UUID, List<EventId>> seriesToEvents = new HashMap<>();
+  private final Map<UUID, Members> seriesToEvents = new HashMap<>();
+
+  private final Map<UUID, List<VirtualSeries>> runsBySeries = new HashMap<>();
+
+  private final Map<UUID, List<VirtualSeries>> runsByBase = new HashMap<>();
+
+  private final Map<String, List<VirtualSeries>> runsBySubject = new HashMap<>();
+
+  private long runVersion;
 
   /**
-   * Registers a new series with its ordered event IDs.
+   * Registers a new series with the given stored events as members.
    */
-  UUID registerSeries(List<EventId> ids) {
+  UUID registerSeries(List<Event> events) {
     UUID sid = UUID.randomUUID();
-    seriesToEvents.put(sid, new ArrayList<>(ids));
-    for (EventId id : ids) {
-      eventToSeries.put(id, sid);
+    Members members = new Members(events.size());
+    for (Event e : events) {
+      members.add(e.id(), e.startEpochSecond());
+      eventToSeries.put(e.id(), sid);
     }
+    seriesToEvents.put(sid, members);
     return sid;
   }
 
   /**
-   * Returns the series UUID an event belongs to, if any.
+   * Returns the series UUID an event belongs to, if any. Covers both stored members and
+   * virtual occurrences.
    */
   Optional<UUID> seriesOf(EventId id) {
-    return Optional.ofNullable(eventToSeries.get(id));
+    UUID sid = eventToSeries.get(id);
+    if (sid != null) {
+      return Optional.of(sid);
+    }
+    VirtualSeries run = runOwning(id);
+    return run == null ? Optional.empty() : Optional.of(run.seriesId());
+  }
+
+  /**
+   * Returns the series a stored event is a member of, or null. Ignores virtual runs.
+   */
+  UUID memberOf(EventId id) {
+    return eventToSeries.get(id);
   }
 
   /**
-   * Returns all event IDs in this series that start at or after the cutoff.
+   * Adds a stored event to an existing series (used when a virtual occurrence is
+   * materialized).
    */
-  List<EventId> following(UUID sid, LocalDateTime cutoff, Map<EventId, Event> byId) {
-    return seriesToEvents.getOrDefault(sid, List.of()).stream()
-        .filter(id -> {
-          Event e = byId.get(id);
-          return e.start().isEqual(cutoff) || e.start().isAfter(cutoff);
-        })
-        .sorted(Comparator.comparing(id -> byId.get(id).start()))
-        .collect(Collectors.toList());
+  void addMember(UUID sid, Event event) {
+    seriesToEvents.computeIfAbsent(sid, k -> new Members(4))
+        .add(event.id(), event.startEpochSecond());
+    eventToSeries.put(event.id(), sid);
   }
 
   /**
-   * Returns all event IDs in the series.
+   * Returns the stored members of this series that start at or after the cutoff, in start
+   * order.
+   */
+  List<EventId> following(UUID sid, LocalDateTime cutoff) {
+    Members members = seriesToEvents.get(sid);
+    if (members == null) {
+      return new ArrayList<>();
+    }
+    return members.idsFrom(members.lowerBound(EpochTime.seconds(cutoff)));
+  }
+
+  /**
+   * Returns the stored members of the series in start order.
    */
   List<EventId> all(UUID sid) {
-    return seriesToEvents.getOrDefault(sid, List.of());
+    Members members = seriesToEvents.get(sid);
+    return members == null ? new ArrayList<>() : members.idsFrom(0);
   }
 
   /**
-   * Detaches a single event from its series, removing empty series if needed.
+   * Detaches a single event, which starts at {@code start}, from its series, removing empty
+   * series if needed.
    */
-  void detach(EventId id) {
+  void detach(EventId id, LocalDateTime start) {
     UUID sid = eventToSeries.remove(id);
     if (sid == null) {
       return;
     }
-    List<EventId> list = seriesToEvents.get(sid);
-    if (list != null) {
-      list.remove(id);
-      if (list.isEmpty()) {
-        seriesToEvents.remove(sid);
-      }
+    Members members = seriesToEvents.get(sid);
+    if (members != null && members.remove(id, EpochTime.seconds(start)) && members.live == 0) {
+      seriesToEvents.remove(sid);
     }
   }
 
@@ -100,36 +163,338 @@ final class SeriesIndex {
    * Returns the new series ID holding all events at or after the cutoff.
    * If nothing to move, returns the original ID.
    */
-  UUID splitFollowing(UUID sid, LocalDateTime cutoff, Map<EventId, Event> byId) {
-    List<EventId> existing = seriesToEvents.getOrDefault(sid, List.of());
-    List<EventId> keep = new ArrayList<>();
-    List<EventId> move = new ArrayList<>();
+  UUID splitFollowing(UUID sid, LocalDateTime cutoff) {
+    Members existing = seriesToEvents.get(sid);
+    Members move = existing == null
+        ? new Members(0) : existing.cut(existing.lowerBound(EpochTime.seconds(cutoff)));
 
-    for (EventId eid : existing) {
-      Event e = byId.get(eid);
-      if (e != null && (e.start().isEqual(cutoff) || e.start().isAfter(cutoff))) {
-        move.add(eid);
-      } else {
-        keep.add(eid);
+    List<VirtualSeries> moveRuns = cutRuns(sid, cutoff);
+    if (move.live == 0 && moveRuns.isEmpty()) {
+      return sid;
+    }
+
+    UUID newSid = UUID.randomUUID();
+    if (move.live > 0) {
+      seriesToEvents.put(newSid, move);
+      for (EventId eid : move.idsFrom(0)) {
+        eventToSeries.put(eid, newSid);
       }
     }
+    if (existing != null && existing.live == 0) {
+      seriesToEvents.remove(sid);
+    }
 
-    if (move.isEmpty()) {
-      return sid;
+    for (VirtualSeries run : moveRuns) {
+      removeRun(run);
+      addRun(run.inSeries(newSid));
     }
 
-    UUID newSid = UUID.randomUUID();
-    seriesToEvents.put(sid, keep);
-    seriesToEvents.put(newSid, move);
+    return newSid;
+  }
 
-    for (EventId eid : move) {
-      eventToSeries.put(eid, newSid);
+  /**
+   * Re-reads the start of every member of this series from {@code byId}. Must be called after
+   * an edit that moved members without detaching them.
+   */
+  void startsChanged(UUID sid, Map<EventId, Event> byId) {
+    Members members = seriesToEvents.get(sid);
+    if (members != null) {
+      members.restart(byId);
     }
+  }
 
-    if (keep.isEmpty()) {
-      seriesToEvents.remove(sid);
+  /**
+   * Re-reads the start of every member of every series, as after a timezone conversion.
+   */
+  void startsChanged(Map<EventId, Event> byId) {
+    for (Members members : seriesToEvents.values()) {
+      members.restart(byId);
     }
+  }
 
-    return newSid;
+  /**
+   * Registers a virtual run.
+   */
+  void addRun(VirtualSeries run) {
+    runsBySeries.computeIfAbsent(run.seriesId(), k -> new ArrayList<>(1)).add(run);
+    runsByBase.computeIfAbsent(run.idBase(), k -> new ArrayList<>(1)).add(run);
+    runsBySubject.computeIfAbsent(run.normalizedSubject(), k -> new ArrayList<>(1)).add(run);
+    runVersion++;
+  }
+
+  /**
+   * Unregisters a virtual run previously passed to {@link #addRun}.
+   */
+  void removeRun(VirtualSeries run) {
+    removeFrom(runsBySeries, run.seriesId(), run);
+    removeFrom(runsByBase, run.idBase(), run);
+    removeFrom(runsBySubject, run.normalizedSubject(), run);
+    runVersion++;
+  }
+
+  /**
+   * Swaps a run for a modified copy of itself.
+   */
+  void replaceRun(VirtualSeries current, VirtualSeries updated) {
+    removeRun(current);
+    addRun(updated);
+  }
+
+  /**
+   * Returns the virtual runs of a series.
+   */
+  List<VirtualSeries> runs(UUID sid) {
+    return new ArrayList<>(runsBySeries.getOrDefault(sid, List.of()));
+  }
+
+  /**
+   * Returns every virtual run in the calendar.
+   */
+  List<VirtualSeries> allRuns() {
+    List<VirtualSeries> out = new ArrayList<>();
+    for (List<VirtualSeries> runs : runsBySeries.values()) {
+      out.addAll(runs);
+    }
+    return out;
+  }
+
+  /**
+   * Counter bumped by every run added or removed, so callers can tell whether the run set
+   * changed without comparing it.
+   */
+  long runVersion() {
+    return runVersion;
+  }
+
+  /**
+   * True if any series is stored virtually.
+   */
+  boolean hasRuns() {
+    return !runsBySeries.isEmpty();
+  }
+
+  /**
+   * Returns the run that currently produces the occurrence with this derived ID, or null.
+   */
+  VirtualSeries runOwning(EventId id) {
+    if (runsByBase.isEmpty()) {
+      return null;
+    }
+    List<VirtualSeries> runs = runsByBase.get(VirtualSeries.baseOf(id));
+    if (runs == null) {
+      return null;
+    }
+    LocalDate date = VirtualSeries.dateOf(id);
+    for (VirtualSeries run : runs) {
+      if (run.occursOn(date)) {
+        return run;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns virtual occurrences with this subject (normalized) starting exactly at
+   * {@code start}.
+   */
+  List<Event> virtualAt(String subject, LocalDateTime start) {
+    if (runsBySubject.isEmpty()) {
+      return List.of();
+    }
+    List<Event> out = new ArrayList<>(1);
+    for (VirtualSeries run :
+        runsBySubject.getOrDefault(SubjectStartIndex.normalize(subject), List.of())) {
+      if (run.occursAt(start)) {
+        out.add(run.occurrence(start.toLocalDate()));
+      }
+    }
+    return out;
+  }
+
+  @Override
+  public boolean hasKeys() {
+    return !runsBySubject.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(String subject, LocalDateTime start, LocalDateTime end) {
+    if (runsBySubject.isEmpty()) {
+      return false;
+    }
+    for (VirtualSeries run :
+        runsBySubject.getOrDefault(SubjectStartIndex.normalize(subject), List.of())) {
+      if (run.hasKey(start, end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Splits the runs of a series so that none straddles {@code cutoff}, and returns the runs
+   * whose occurrences all start at or after it.
+   */
+  List<VirtualSeries> cutRuns(UUID sid, LocalDateTime cutoff) {
+    List<VirtualSeries> after = new ArrayList<>();
+    for (VirtualSeries run : runs(sid)) {
+      LocalDate cut = run.cutoffDate(cutoff);
+      if (run.last().isBefore(cut)) {
+        continue;
+      }
+      if (!run.first().isBefore(cut)) {
+        after.add(run);
+        continue;
+      }
+      VirtualSeries tail = run.from(cut);
+      removeRun(run);
+      addRun(run.before(cut));
+      addRun(tail);
+      after.add(tail);
+    }
+    return after;
+  }
+
+  private static <K> void removeFrom(Map<K, List<VirtualSeries>> map, K key,
+                                     VirtualSeries run) {
+    List<VirtualSeries> runs = map.get(key);
+    if (runs == null) {
+      return;
+    }
+    runs.remove(run);
+    if (runs.isEmpty()) {
+      map.remove(key);
+    }
+  }
+
+  /**
+   * Stored members of one series: parallel arrays of start and ID in start order. A null ID
+   * is a detached member's tombstone.
+   */
+  private static final class Members {
+    private long[] starts;
+    private EventId[] ids;
+    private int size;
+    private int live;
+
+    Members(int capacity) {
+      this.starts = new long[Math.max(capacity, 1)];
+      this.ids = new EventId[starts.length];
+    }
+
+    /**
+     * First slot whose start is at or after {@code start}.
+     */
+    int lowerBound(long start) {
+      int lo = 0;
+      int hi = size;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (starts[mid] < start) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+
+    void add(EventId id, long start) {
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      int at = size;
+      if (size > 0 && starts[size - 1] > start) {
+        at = lowerBound(start + 1);
+        System.arraycopy(starts, at, starts, at + 1, size - at);
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+      }
+      starts[at] = start;
+      ids[at] = id;
+      size++;
+      live++;
+    }
+
+    /**
+     * Clears the slot of {@code id}; returns false if it is not a member at that start.
+     */
+    boolean remove(EventId id, long start) {
+      for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+        if (id.equals(ids[i])) {
+          ids[i] = null;
+          live--;
+          if (live * 2 < size) {
+            compact();
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+
+    List<EventId> idsFrom(int from) {
+      List<EventId> out = new ArrayList<>(Math.min(live, size - from));
+      for (int i = from; i < size; i++) {
+        if (ids[i] != null) {
+          out.add(ids[i]);
+        }
+      }
+      return out;
+    }
+
+    /**
+     * Moves slots {@code [from, size)} into a new Members and returns it.
+     */
+    Members cut(int from) {
+      Members tail = new Members(size - from);
+      for (int i = from; i < size; i++) {
+        if (ids[i] != null) {
+          tail.starts[tail.size] = starts[i];
+          tail.ids[tail.size++] = ids[i];
+          tail.live++;
+          live--;
+        }
+        ids[i] = null;
+      }
+      size = from;
+      return tail;
+    }
+
+    void restart(Map<EventId, Event> byId) {
+      compact();
+      boolean sorted = true;
+      for (int i = 0; i < size; i++) {
+        starts[i] = byId.get(ids[i]).startEpochSecond();
+        sorted &= i == 0 || starts[i - 1] <= starts[i];
+      }
+      if (sorted) {
+        return;
+      }
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (x, y) -> Long.compare(starts[x], starts[y]));
+      long[] sortedStarts = new long[starts.length];
+      EventId[] sortedIds = new EventId[ids.length];
+      for (int i = 0; i < size; i++) {
+        sortedStarts[i] = starts[order[i]];
+        sortedIds[i] = ids[order[i]];
+      }
+      starts = sortedStarts;
+      ids = sortedIds;
+    }
+
+    private void compact() {
+      int w = 0;
+      for (int i = 0; i < size; i++) {
+        if (ids[i] != null) {
+          starts[w] = starts[i];
+          ids[w++] = ids[i];
+        }
+      }
+      Arrays.fill(ids, w, size, null);
+      size = w;
+    }
   }
 }
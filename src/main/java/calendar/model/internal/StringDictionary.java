@@ -0,0 +1,74 @@
+package calendar.model.internal;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns strings to dense int codes, so a column of repeated text (subjects, locations) is an
+ * {@code int[]} and two values compare by code.
+ *
+ * <p>Codes are handed out in first-seen order starting at 0 and never reused. Nothing is ever
+ * removed: a calendar repeats the same few subjects and locations, so the dictionary stays small
+ * even when the column it encodes is huge.</p>
+ */
+final class StringDictionary {
+  /**
+   * Returned by {@link #find} for a string that has no code.
+   */
+  static final int ABSENT = -1;
+
+  private final Map<String, Integer> codes;
+  private String[] values;
+  private int size;
+
+  StringDictionary() {
+    this.codes = new HashMap<>();
+    this.values = new String[16];
+  }
+
+  private StringDictionary(StringDictionary other) {
+    this.codes = new HashMap<>(other.codes);
+    this.values = Arrays.copyOf(other.values, Math.max(other.size, 1));
+    this.size = other.size;
+  }
+
+  /**
+   * Returns the code of {@code value}, assigning the next one if it has none.
+   */
+  int code(String value) {
+    Integer code = codes.get(value);
+    if (code != null) {
+      return code;
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size] = value;
+    codes.put(value, size);
+    return size++;
+  }
+
+  /**
+   * Returns the code of {@code value}, or {@link #ABSENT}.
+   */
+  int find(String value) {
+    Integer code = codes.get(value);
+    return code == null ? ABSENT : code;
+  }
+
+  String value(int code) {
+    return values[code];
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns an independent copy; later codes added to either do not show in the other.
+   */
+  StringDictionary copy() {
+    return new StringDictionary(this);
+  }
+}
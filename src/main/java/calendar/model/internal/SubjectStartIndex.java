@@ -0,0 +1,113 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Looks up events by (subject, start), ignoring subject case and surrounding whitespace.
+ *
+ * <h2>Design: Hash Buckets</h2>
+ *
+ * <p>Every edit command names its target by subject and start time. Scanning all events and
+ * lowercasing each subject made that O(n) with n string copies. This index hashes the
+ * normalized subject together with the start, so resolving a selector is O(1).</p>
+ *
+ * <p><b>Why a bucket instead of a single ID?</b> Uniqueness is on (subject, start, end), so two
+ * events may share subject and start with different ends. The selector resolver needs to see
+ * all of them to report ambiguity. Buckets are almost always a single entry.</p>
+ */
+final class SubjectStartIndex {
+  private static final class Key {
+    final String subject;
+    final long startSecond;
+    final int startNano;
+
+    Key(String subject, long startSecond, int startNano) {
+      this.subject = subject;
+      this.startSecond = startSecond;
+      this.startNano = startNano;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return startSecond == other.startSecond && startNano == other.startNano
+          && subject.equals(other.subject);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * subject.hashCode() + Long.hashCode(startSecond)) + startNano;
+    }
+  }
+
+  private final Map<Key, List<EventId>> buckets = new HashMap<>();
+
+  static String normalize(String subject) {
+    Objects.requireNonNull(subject, "subject");
+    return subject.trim().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns IDs of events whose normalized subject and start match; empty if none.
+   */
+  List<EventId> lookup(String subject, LocalDateTime start) {
+    List<EventId> bucket =
+        buckets.get(new Key(normalize(subject), EpochTime.seconds(start), start.getNano()));
+    return bucket == null ? List.of() : bucket;
+  }
+
+  void add(Event event) {
+    buckets.computeIfAbsent(keyOf(event), k -> new ArrayList<>(1)).add(event.id());
+  }
+
+  void remove(Event event) {
+    Key key = keyOf(event);
+    List<EventId> bucket = buckets.get(key);
+    if (bucket == null) {
+      return;
+    }
+    bucket.remove(event.id());
+    if (bucket.isEmpty()) {
+      buckets.remove(key);
+    }
+  }
+
+  /**
+   * Re-files an event whose subject or start may have changed.
+   */
+  void replace(Event current, Event updated) {
+    if (current.startEpochSecond() == updated.startEpochSecond()
+        && current.startNano() == updated.startNano()
+        && current.subject().equals(updated.subject())) {
+      return;
+    }
+    remove(current);
+    add(updated);
+  }
+
+  void reset(Collection<Event> events) {
+    buckets.clear();
+    for (Event event : events) {
+      add(event);
+    }
+  }
+
+  private static Key keyOf(Event event) {
+    return new Key(normalize(event.subject()), event.startEpochSecond(), event.startNano());
+  }
+}
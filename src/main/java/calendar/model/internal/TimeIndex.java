@@ -0,0 +1,399 @@
+package calendar.model.internal;
+
+import calendar.model.domain.Event;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Orders events by start time and answers overlap queries without scanning.
+ *
+ * <h2>Design: Augmented Treap</h2>
+ *
+ * <p>Events live in a randomized binary search tree (a treap) ordered by start, then end, then
+ * id. Every node also remembers the event with the latest end time in its subtree
+ * ({@code maxEnd}).</p>
+ *
+ * <p><b>Why maxEnd?</b> An event overlaps {@code [from, to)} when it starts before {@code to}
+ * and ends after {@code from}. The start ordering lets us stop as soon as starts reach
+ * {@code to}; maxEnd lets us skip whole subtrees whose events all end at or before
+ * {@code from}. A one-day query touches O(log n + k) nodes instead of every event.</p>
+ *
+ * <p><b>Why a treap instead of a sorted array?</b> Edits move events around in time. A sorted
+ * array needs O(n) shifting per insert/remove; a treap stays balanced in expectation with
+ * O(log n) updates and far less code than a red-black tree.</p>
+ *
+ * <p>An in-order walk yields events already sorted by start, so {@code allEvents()} no longer
+ * needs to sort.</p>
+ *
+ * <p>The index also maintains the calendar's {@link BusyIntervals} so that every add/remove
+ * keeps busy status in step with the events, and {@link #covers} is one tree descent.</p>
+ *
+ * <p>Every comparison runs on the primitive times {@link Event} stores (see
+ * {@link EpochTime}); query bounds are converted once per query.</p>
+ */
+final class TimeIndex {
+  private static final class Node {
+    final Event event;
+    final int priority;
+    Node left;
+    Node right;
+    Event maxEnd;
+
+    Node(Event event, int priority) {
+      this.event = event;
+      this.priority = priority;
+      this.maxEnd = event;
+    }
+  }
+
+  private static final int POSITION_BITS = 24;
+  private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+
+  private final Random random = new Random();
+  private final BusyIntervals busy = new BusyIntervals();
+  private Node root;
+  private int size;
+
+  /**
+   * Adds an event to the index.
+   */
+  void add(Event event) {
+    Objects.requireNonNull(event, "event");
+    root = insert(root, new Node(event, random.nextInt()));
+    size++;
+    busy.add(event);
+  }
+
+  /**
+   * Adds many events. A batch that is large next to the index is sorted, merged with the
+   * current contents and rebuilt in linear time, busy ranges included; a small one is added
+   * event by event.
+   */
+  void addAll(List<Event> events) {
+    if (events.size() * 16L < size) {
+      for (Event event : events) {
+        add(event);
+      }
+      return;
+    }
+    List<Event> merged = mergeSorted(all(), sortedCopy(events));
+    root = build(merged);
+    size = merged.size();
+    busy.reset(merged);
+  }
+
+  /**
+   * Removes an event previously added with the same start, end and id.
+   */
+  void remove(Event event) {
+    Objects.requireNonNull(event, "event");
+    int before = size;
+    root = delete(root, event);
+    if (size == before) {
+      throw new IllegalStateException("Event not present in time index: " + event.id());
+    }
+    busy.remove(event, this);
+  }
+
+  /**
+   * Swaps an event for its updated version (same id, possibly new times).
+   */
+  void replace(Event current, Event updated) {
+    remove(current);
+    add(updated);
+  }
+
+  /**
+   * Rebuilds the index from scratch.
+   */
+  void reset(Collection<Event> events) {
+    root = null;
+    size = 0;
+    for (Event event : events) {
+      root = insert(root, new Node(event, random.nextInt()));
+      size++;
+    }
+    busy.reset(all());
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns events overlapping {@code [from, to)} in start order.
+   */
+  List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+    return overlapping(EpochTime.seconds(from), from.getNano(), EpochTime.seconds(to),
+        to.getNano());
+  }
+
+  /**
+   * Same as {@link #overlapping(LocalDateTime, LocalDateTime)} with primitive bounds.
+   */
+  List<Event> overlapping(long fromSecond, int fromNano, long toSecond, int toNano) {
+    List<Event> out = new ArrayList<>();
+    collectOverlapping(root, fromSecond, fromNano, toSecond, toNano, out);
+    return out;
+  }
+
+  /**
+   * Returns true if some event satisfies {@code start <= instant < end}.
+   */
+  boolean covers(LocalDateTime instant) {
+    return busy.contains(instant);
+  }
+
+  /**
+   * Returns every event in start order.
+   */
+  List<Event> all() {
+    List<Event> out = new ArrayList<>(size);
+    collectAll(root, out);
+    return out;
+  }
+
+  /**
+   * Adds up to {@code limit} events sorting after {@code after} (from the first if null) to
+   * {@code out}, in index order, for {@link EventPages}.
+   */
+  void collectAfter(Event after, int limit, List<Event> out) {
+    collectAfter(root, after, out.size() + limit, out);
+  }
+
+  private static void collectAfter(Node n, Event after, int stop, List<Event> out) {
+    if (n == null || out.size() >= stop) {
+      return;
+    }
+    if (after == null || compare(n.event, after) > 0) {
+      collectAfter(n.left, after, stop, out);
+      if (out.size() >= stop) {
+        return;
+      }
+      out.add(n.event);
+    }
+    collectAfter(n.right, after, stop, out);
+  }
+
+  private static void collectOverlapping(Node n, long fromSecond, int fromNano, long toSecond,
+                                         int toNano, List<Event> out) {
+    if (n == null || !EpochTime.endsAfter(n.maxEnd, fromSecond, fromNano)) {
+      return;
+    }
+    collectOverlapping(n.left, fromSecond, fromNano, toSecond, toNano, out);
+    Event e = n.event;
+    if (!EpochTime.startsBefore(e, toSecond, toNano)) {
+      return;
+    }
+    if (EpochTime.endsAfter(e, fromSecond, fromNano)) {
+      out.add(e);
+    }
+    collectOverlapping(n.right, fromSecond, fromNano, toSecond, toNano, out);
+  }
+
+  private static void collectAll(Node n, List<Event> out) {
+    if (n == null) {
+      return;
+    }
+    collectAll(n.left, out);
+    out.add(n.event);
+    collectAll(n.right, out);
+  }
+
+  /**
+   * The index order: start, then end, then id. Callers merging other events into query
+   * results sort with this so the order matches.
+   */
+  static int compare(Event a, Event b) {
+    int c = EpochTime.compareStarts(a, b);
+    if (c != 0) {
+      return c;
+    }
+    c = EpochTime.compareEnds(a, b);
+    if (c != 0) {
+      return c;
+    }
+    return a.id().value().compareTo(b.id().value());
+  }
+
+  /**
+   * Sorts a batch into index order. The sort runs on packed primitive keys: the start second,
+   * relative to the earliest start, shifted above the event's position. Events sharing a start
+   * second are then put in order with the full comparison; such runs are short in real
+   * calendars.
+   */
+  private static List<Event> sortedCopy(List<Event> events) {
+    int n = events.size();
+    List<Event> out = new ArrayList<>(events);
+    if (n < 2 || n > POSITION_MASK) {
+      out.sort(TimeIndex::compare);
+      return out;
+    }
+    long[] seconds = new long[n];
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      seconds[i] = events.get(i).startEpochSecond();
+      min = Math.min(min, seconds[i]);
+      max = Math.max(max, seconds[i]);
+    }
+    if (max - min >= 1L << (63 - POSITION_BITS)) {
+      out.sort(TimeIndex::compare);
+      return out;
+    }
+    long[] keys = new long[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = (seconds[i] - min) << POSITION_BITS | i;
+    }
+    Arrays.sort(keys);
+    for (int i = 0; i < n; i++) {
+      out.set(i, events.get((int) (keys[i] & POSITION_MASK)));
+    }
+    int runStart = 0;
+    for (int i = 1; i <= n; i++) {
+      if (i == n || keys[i] >>> POSITION_BITS != keys[runStart] >>> POSITION_BITS) {
+        if (i - runStart > 1) {
+          out.subList(runStart, i).sort(TimeIndex::compare);
+        }
+        runStart = i;
+      }
+    }
+    return out;
+  }
+
+  private static List<Event> mergeSorted(List<Event> a, List<Event> b) {
+    List<Event> out = new ArrayList<>(a.size() + b.size());
+    int i = 0;
+    int j = 0;
+    while (i < a.size() && j < b.size()) {
+      out.add(compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+    }
+    out.addAll(a.subList(i, a.size()));
+    out.addAll(b.subList(j, b.size()));
+    return out;
+  }
+
+  /**
+   * Builds the treap for events already in index order with one left-to-right pass: the
+   * stack holds the right spine, and each new node adopts the spine nodes of lower priority
+   * as its left subtree.
+   */
+  private Node build(List<Event> sorted) {
+    Node[] spine = new Node[32];
+    int top = 0;
+    for (Event event : sorted) {
+      Node fresh = new Node(event, random.nextInt());
+      Node last = null;
+      while (top > 0 && spine[top - 1].priority < fresh.priority) {
+        last = spine[--top];
+      }
+      fresh.left = last;
+      if (top > 0) {
+        spine[top - 1].right = fresh;
+      }
+      if (top == spine.length) {
+        spine = Arrays.copyOf(spine, top * 2);
+      }
+      spine[top++] = fresh;
+    }
+    Node built = top == 0 ? null : spine[0];
+    updateAll(built);
+    return built;
+  }
+
+  private static void updateAll(Node n) {
+    if (n == null) {
+      return;
+    }
+    updateAll(n.left);
+    updateAll(n.right);
+    update(n);
+  }
+
+  private static Node insert(Node n, Node fresh) {
+    if (n == null) {
+      return fresh;
+    }
+    if (compare(fresh.event, n.event) < 0) {
+      n.left = insert(n.left, fresh);
+      if (n.left.priority > n.priority) {
+        n = rotateRight(n);
+      }
+    } else {
+      n.right = insert(n.right, fresh);
+      if (n.right.priority > n.priority) {
+        n = rotateLeft(n);
+      }
+    }
+    update(n);
+    return n;
+  }
+
+  private Node delete(Node n, Event target) {
+    if (n == null) {
+      return null;
+    }
+    int c = compare(target, n.event);
+    if (c < 0) {
+      n.left = delete(n.left, target);
+    } else if (c > 0) {
+      n.right = delete(n.right, target);
+    } else {
+      size--;
+      return merge(n.left, n.right);
+    }
+    update(n);
+    return n;
+  }
+
+  private static Node merge(Node a, Node b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    if (a.priority > b.priority) {
+      a.right = merge(a.right, b);
+      update(a);
+      return a;
+    }
+    b.left = merge(a, b.left);
+    update(b);
+    return b;
+  }
+
+  private static Node rotateRight(Node n) {
+    Node l = n.left;
+    n.left = l.right;
+    l.right = n;
+    update(n);
+    update(l);
+    return l;
+  }
+
+  private static Node rotateLeft(Node n) {
+    Node r = n.right;
+    n.right = r.left;
+    r.left = n;
+    update(n);
+    update(r);
+    return r;
+  }
+
+  private static void update(Node n) {
+    Event max = n.event;
+    if (n.left != null && EpochTime.compareEnds(n.left.maxEnd, max) > 0) {
+      max = n.left.maxEnd;
+    }
+    if (n.right != null && EpochTime.compareEnds(n.right.maxEnd, max) > 0) {
+      max = n.right.maxEnd;
+    }
+    n.maxEnd = max;
+  }
+}
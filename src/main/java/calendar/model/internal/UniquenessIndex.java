@@ -3,54 +3,425 @@ package calendar.model.internal;
 import calendar.model.domain.Event;
 import calendar.model.exception.ConflictException;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 
 /**
  * Enforces uniqueness of (subject, start, end) triples.
  *
  * <p>Collisions are case-insensitive on subject, exact on times.</p>
  *
- * <h2>Design: String Keys</h2>
+ * <h2>Design: Primitive Keys</h2>
  *
- * <p><b>Why concatenate strings instead of a Triple class?</b> Simpler. String already
- * has equals() and hashCode(). HashSet gives O(1) lookups. Creating a custom class just
- * for this index would add code with no benefit.</p>
+ * <p><b>Why not {@code "subject|start|end"} strings?</b> Building that string costs a lowercase
+ * copy, two {@code LocalDateTime.toString()} calls and a concatenation on every create and
+ * every patch, and series edits patch every occurrence. Here a key is three numbers:</p>
+ * <ul>
+ *   <li><b>subject id:</b> the normalized subject (trimmed, lowercased) interned to an int.
+ *       Raw subject strings are cached too, so the repeated subject of a series is normalized
+ *       once, not per occurrence.</li>
+ *   <li><b>start/end:</b> epoch seconds in the calendar's local frame (UTC offset is only a
+ *       fixed reference, not a timezone). Nano-of-second is kept in side columns so keys stay
+ *       exact for sub-second times.</li>
+ * </ul>
  *
- * <p><b>Key format:</b> {@code "subject|start|end"} where subject is lowercased and
- * times use ISO-8601 format. Pipe delimiter is unlikely in subjects (unlike quotes/commas).</p>
+ * <p>Keys live in parallel arrays forming an open-addressing hash table with linear probing.
+ * Removal uses backward-shift deletion, so there are no tombstones to clean up. Adding or
+ * replacing a key for a subject some key already uses allocates nothing.</p>
+ *
+ * <p><b>Why count keys per subject?</b> Renames and rejected batches leave subjects no key
+ * uses. Each interned subject counts the keys that use it and is dropped when the last one
+ * goes, and its id is reused, so the interned subjects never outnumber the keys. The raw-string
+ * cache is cleared when it reaches {@value #RAW_CACHE_LIMIT} entries, as the CSV importer's
+ * caches are; an entry whose subject was dropped counts as a miss.</p>
+ *
+ * <p><b>External keys:</b> keys that exist without a stored event (virtual series
+ * occurrences) are reported by an {@link ExternalKeys} source, which every check consults
+ * after the table. The source is asked whether it holds any keys first, so event-based checks
+ * build no LocalDateTimes unless virtual series exist.</p>
  */
 final class UniquenessIndex {
-  private final Set<String> triples = new HashSet<>();
+  /**
+   * Source of keys owned by events that are not stored in this index.
+   */
+  interface ExternalKeys {
+    /**
+     * True if an event with this subject (normalized), start and end exists.
+     */
+    boolean containsKey(String subject, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * False if {@link #containsKey} is false for every key.
+     */
+    boolean hasKeys();
+  }
+
+  private static final int EMPTY = 0;
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int RAW_CACHE_LIMIT = 1 << 14;
+  private static final ExternalKeys NONE = new ExternalKeys() {
+    @Override
+    public boolean containsKey(String subject, LocalDateTime start, LocalDateTime end) {
+      return false;
+    }
 
-  static String key(String subject, LocalDateTime start, LocalDateTime end) {
-    Objects.requireNonNull(subject, "subject");
-    return subject.trim().toLowerCase(Locale.ROOT) + "|" + start + "|" + end;
+    @Override
+    public boolean hasKeys() {
+      return false;
+    }
+  };
+
+  /**
+   * An interned subject and the number of keys using it. Dropped when that reaches zero.
+   */
+  private static final class Subject {
+    final String normalized;
+    final int id;
+    int keys;
+
+    Subject(String normalized, int id) {
+      this.normalized = normalized;
+      this.id = id;
+    }
+  }
+
+  private final ExternalKeys external;
+
+  private final Map<String, Subject> rawSubjects = new HashMap<>();
+  private final Map<String, Subject> normalizedSubjects = new HashMap<>();
+  private Subject[] subjectsById = new Subject[INITIAL_CAPACITY];
+  private int[] freeIds = new int[INITIAL_CAPACITY];
+  private int freeCount;
+  private int nextId = 1;
+
+  private int[] subjects = new int[INITIAL_CAPACITY];
+  private long[] starts = new long[INITIAL_CAPACITY];
+  private long[] ends = new long[INITIAL_CAPACITY];
+  private int[] startNanos = new int[INITIAL_CAPACITY];
+  private int[] endNanos = new int[INITIAL_CAPACITY];
+  private int size;
+
+  UniquenessIndex() {
+    this(NONE);
+  }
+
+  UniquenessIndex(ExternalKeys external) {
+    this.external = Objects.requireNonNull(external, "external");
   }
 
   void addOrThrow(String subject, LocalDateTime start, LocalDateTime end) {
-    String k = key(subject, start, end);
-    if (triples.contains(k)) {
+    Subject known = subject(subject);
+    if (known != null && find(known.id, start, end) >= 0
+        || external.containsKey(subject, start, end)) {
       throw new ConflictException("Duplicate event (subject/start/end) exists");
     }
-    triples.add(k);
+    insert(retain(subject, known), start, end);
   }
 
-  void replaceOrThrow(String oldKey, String newKey) {
-    if (!oldKey.equals(newKey) && triples.contains(newKey)) {
+  /**
+   * Adds the key of {@code event}; same as {@link #addOrThrow(String, LocalDateTime,
+   * LocalDateTime)} on its primitive times.
+   */
+  void addOrThrow(Event event) {
+    Subject known = subject(event.subject());
+    if (known != null && find(known.id, event) >= 0 || ownedExternally(event)) {
+      throw new ConflictException("Duplicate event (subject/start/end) exists");
+    }
+    insert(retain(event.subject(), known), event);
+  }
+
+  /**
+   * Moves the key of {@code current} to that of {@code updated}, unless another event already
+   * owns the new key.
+   */
+  void replaceOrThrow(Event current, Event updated) {
+    Subject known = subject(updated.subject());
+    int oldSid = subjectId(current.subject());
+    int newSid = known == null ? EMPTY : known.id;
+    boolean same = oldSid == newSid
+        && current.startEpochSecond() == updated.startEpochSecond()
+        && current.startNano() == updated.startNano()
+        && current.endEpochSecond() == updated.endEpochSecond()
+        && current.endNano() == updated.endNano();
+    if (same) {
+      return;
+    }
+    if (find(newSid, updated) >= 0 || ownedExternally(updated)) {
       throw new ConflictException("Update would duplicate an existing event");
     }
-    triples.remove(oldKey);
-    triples.add(newKey);
+    int sid = retain(updated.subject(), known);
+    int slot = find(oldSid, current);
+    if (slot >= 0) {
+      deleteSlot(slot);
+    }
+    insert(sid, updated);
+  }
+
+  /**
+   * Grows the table once so that {@code additional} more keys fit without rehashing.
+   */
+  void ensureCapacity(int additional) {
+    int capacity = subjects.length;
+    while ((long) (size + additional) * 2 > capacity) {
+      capacity <<= 1;
+    }
+    if (capacity == subjects.length) {
+      return;
+    }
+    while (subjects.length < capacity) {
+      grow();
+    }
+  }
+
+  /**
+   * Removes a key added with {@link #addOrThrow}; no-op if absent. Rolls back keys reserved
+   * by a rejected batch.
+   */
+  void remove(String subject, LocalDateTime start, LocalDateTime end) {
+    int slot = find(subjectId(subject), start, end);
+    if (slot >= 0) {
+      deleteSlot(slot);
+    }
+  }
+
+  /**
+   * Removes the key of {@code event}; no-op if absent.
+   */
+  void remove(Event event) {
+    int slot = find(subjectId(event.subject()), event);
+    if (slot >= 0) {
+      deleteSlot(slot);
+    }
+  }
+
+  boolean contains(String subject, LocalDateTime start, LocalDateTime end) {
+    return find(subjectId(subject), start, end) >= 0
+        || external.containsKey(subject, start, end);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Number of distinct normalized subjects the keys use.
+   */
+  int subjects() {
+    return normalizedSubjects.size();
   }
 
   void reset(Collection<Event> events) {
-    triples.clear();
+    rawSubjects.clear();
+    normalizedSubjects.clear();
+    subjectsById = new Subject[INITIAL_CAPACITY];
+    freeCount = 0;
+    nextId = 1;
+    int capacity = INITIAL_CAPACITY;
+    while (capacity < events.size() * 2) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
     for (Event event : events) {
-      addOrThrow(event.subject(), event.start(), event.end());
+      addOrThrow(event);
+    }
+  }
+
+  /**
+   * Id of the subject if some key uses it, otherwise {@link #EMPTY}, which no key matches.
+   */
+  private int subjectId(String subject) {
+    Subject known = subject(subject);
+    return known == null ? EMPTY : known.id;
+  }
+
+  /**
+   * The interned subject some key uses, or null.
+   */
+  private Subject subject(String raw) {
+    Objects.requireNonNull(raw, "subject");
+    Subject cached = rawSubjects.get(raw);
+    if (cached != null && cached.keys > 0) {
+      return cached;
+    }
+    Subject known = normalizedSubjects.get(normalize(raw));
+    if (known != null) {
+      remember(raw, known);
+    }
+    return known;
+  }
+
+  /**
+   * Counts one more key for the subject, interning it first if {@code known} is null, and
+   * returns its id.
+   */
+  private int retain(String raw, Subject known) {
+    if (known == null) {
+      String normalized = normalize(raw);
+      known = new Subject(normalized, allocateId());
+      normalizedSubjects.put(normalized, known);
+      subjectsById[known.id] = known;
+      remember(raw, known);
+    }
+    known.keys++;
+    return known.id;
+  }
+
+  /**
+   * Counts one key less for subject {@code sid}, dropping the subject with its last key.
+   */
+  private void release(int sid) {
+    Subject known = subjectsById[sid];
+    if (--known.keys == 0) {
+      normalizedSubjects.remove(known.normalized);
+      subjectsById[sid] = null;
+      if (freeCount == freeIds.length) {
+        freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+      }
+      freeIds[freeCount++] = sid;
+    }
+  }
+
+  private int allocateId() {
+    if (freeCount > 0) {
+      return freeIds[--freeCount];
+    }
+    if (nextId == subjectsById.length) {
+      subjectsById = Arrays.copyOf(subjectsById, nextId * 2);
     }
+    return nextId++;
+  }
+
+  private void remember(String raw, Subject known) {
+    if (rawSubjects.size() >= RAW_CACHE_LIMIT) {
+      rawSubjects.clear();
+    }
+    rawSubjects.put(raw, known);
+  }
+
+  private static String normalize(String subject) {
+    return subject.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private int find(int sid, LocalDateTime start, LocalDateTime end) {
+    return find(sid, EpochTime.seconds(start), EpochTime.seconds(end), start.getNano(),
+        end.getNano());
+  }
+
+  private int find(int sid, Event event) {
+    return find(sid, event.startEpochSecond(), event.endEpochSecond(), event.startNano(),
+        event.endNano());
+  }
+
+  private int find(int sid, long s, long e, int sn, int en) {
+    int mask = subjects.length - 1;
+    for (int i = hash(sid, s, e) & mask; subjects[i] != EMPTY; i = (i + 1) & mask) {
+      if (subjects[i] == sid && starts[i] == s && ends[i] == e
+          && startNanos[i] == sn && endNanos[i] == en) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void insert(int sid, LocalDateTime start, LocalDateTime end) {
+    if ((size + 1) * 2 > subjects.length) {
+      grow();
+    }
+    place(sid, EpochTime.seconds(start), EpochTime.seconds(end), start.getNano(),
+        end.getNano());
+    size++;
+  }
+
+  private void insert(int sid, Event event) {
+    if ((size + 1) * 2 > subjects.length) {
+      grow();
+    }
+    place(sid, event.startEpochSecond(), event.endEpochSecond(), event.startNano(),
+        event.endNano());
+    size++;
+  }
+
+  private boolean ownedExternally(Event event) {
+    return external.hasKeys()
+        && external.containsKey(event.subject(), event.start(), event.end());
+  }
+
+  private void place(int sid, long s, long e, int sn, int en) {
+    int mask = subjects.length - 1;
+    int i = hash(sid, s, e) & mask;
+    while (subjects[i] != EMPTY) {
+      i = (i + 1) & mask;
+    }
+    subjects[i] = sid;
+    starts[i] = s;
+    ends[i] = e;
+    startNanos[i] = sn;
+    endNanos[i] = en;
+  }
+
+  /**
+   * Knuth's backward-shift deletion for linear probing: pull later entries of the same probe
+   * run into the hole so lookups never stop early.
+   */
+  private void deleteSlot(int hole) {
+    release(subjects[hole]);
+    int mask = subjects.length - 1;
+    int i = hole;
+    while (true) {
+      i = (i + 1) & mask;
+      if (subjects[i] == EMPTY) {
+        break;
+      }
+      int home = hash(subjects[i], starts[i], ends[i]) & mask;
+      boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+      if (movable) {
+        subjects[hole] = subjects[i];
+        starts[hole] = starts[i];
+        ends[hole] = ends[i];
+        startNanos[hole] = startNanos[i];
+        endNanos[hole] = endNanos[i];
+        hole = i;
+      }
+    }
+    subjects[hole] = EMPTY;
+    size--;
+  }
+
+  private void grow() {
+    int[] oldSubjects = subjects;
+    long[] oldStarts = starts;
+    long[] oldEnds = ends;
+    int[] oldStartNanos = startNanos;
+    int[] oldEndNanos = endNanos;
+    int count = size;
+    allocate(oldSubjects.length * 2);
+    size = count;
+    for (int i = 0; i < oldSubjects.length; i++) {
+      if (oldSubjects[i] != EMPTY) {
+        place(oldSubjects[i], oldStarts[i], oldEnds[i], oldStartNanos[i], oldEndNanos[i]);
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    subjects = new int[capacity];
+    starts = new long[capacity];
+    ends = new long[capacity];
+    startNanos = new int[capacity];
+    endNanos = new int[capacity];
+    size = 0;
+  }
+
+  private static int hash(int sid, long start, long end) {
+    long h = sid * 0x9E3779B97F4A7C15L;
+    h ^= start * 0xC2B2AE3D27D4EB4FL;
+    h ^= end * 0x165667B19E3779F9L;
+    h ^= h >>> 29;
+    h *= 0xBF58476D1CE4E5B9L;
+    return (int) (h ^ (h >>> 32));
   }
 }
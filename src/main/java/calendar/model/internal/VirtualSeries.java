@@ -0,0 +1,366 @@
+package calendar.model.internal;
+
+import calendar.model.api.EventPatch;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.Status;
+import calendar.model.recurrence.RecurrenceRule;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A run of series occurrences described by a rule and a time template instead of stored events.
+ *
+ * <h2>Design: Template + Exceptions</h2>
+ *
+ * <p>An occurrence exists on every date in {@code [first, last]} whose weekday is in the rule,
+ * unless the date is listed in {@code exceptions}. Every occurrence starts at
+ * {@code startTime} on its date and lasts {@code duration}. Subject, description, location and
+ * status are shared. Memory is O(exceptions), however many years the series spans.</p>
+ *
+ * <p><b>What is an exception?</b> A date whose occurrence no longer follows the template: it
+ * was edited on its own (and now lives in the calendar as a normal event) or detached from the
+ * series. Either way the template must stop producing it.</p>
+ *
+ * <p><b>Why derived IDs?</b> Callers hold {@link EventId}s between calls (GUI selection,
+ * {@code seriesOfEvent}). An occurrence's ID is the series' {@code idBase} with the epoch day
+ * in the low 32 bits, so the same occurrence always gets the same ID and the owning run can be
+ * found from the ID alone. When an occurrence is materialized it keeps that ID.</p>
+ *
+ * <p><b>Why immutable?</b> Edits build a replacement, validate it, and only then swap it into
+ * {@link SeriesIndex}. A failed validation leaves the old run untouched.</p>
+ *
+ * <p>A series may consist of several runs (after a "following" edit only the later part gets
+ * a new template). Runs of one series share {@code idBase} and never overlap in dates.</p>
+ */
+final class VirtualSeries {
+  private static final long DAY_BITS = 0xFFFFFFFFL;
+  private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+  private final UUID seriesId;
+  private final UUID idBase;
+  private final int weekdays;
+  private final LocalDate first;
+  private final LocalDate last;
+  private final Set<LocalDate> exceptions;
+  private final String subject;
+  private final String normalizedSubject;
+  private final LocalTime startTime;
+  private final Duration duration;
+  private final String description;
+  private final String location;
+  private final Status status;
+
+  private VirtualSeries(UUID seriesId, UUID idBase, int weekdays, LocalDate first,
+                        LocalDate last, Set<LocalDate> exceptions, String subject,
+                        LocalTime startTime, Duration duration, String description,
+                        String location, Status status) {
+    this.seriesId = Objects.requireNonNull(seriesId, "seriesId");
+    this.idBase = Objects.requireNonNull(idBase, "idBase");
+    this.weekdays = weekdays;
+    this.first = Objects.requireNonNull(first, "first");
+    this.last = Objects.requireNonNull(last, "last");
+    this.exceptions = exceptions;
+    this.subject = subject.trim();
+    this.normalizedSubject = SubjectStartIndex.normalize(subject);
+    this.startTime = Objects.requireNonNull(startTime, "startTime");
+    this.duration = Objects.requireNonNull(duration, "duration");
+    this.description = description;
+    this.location = location;
+    this.status = Objects.requireNonNull(status, "status");
+    if (this.subject.isEmpty()) {
+      throw new IllegalArgumentException("subject cannot be blank");
+    }
+    if (duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException("end must be strictly after start");
+    }
+  }
+
+  /**
+   * Describes a new series from its creation parameters. A count rule is resolved to the date
+   * of its last occurrence so both rule kinds become a simple date range.
+   */
+  static VirtualSeries create(UUID seriesId, String subject, LocalDate startDate,
+                              RecurrenceRule rule, LocalTime start, LocalTime end,
+                              String description, String location, Status status) {
+    int mask = RecurrenceExpander.mask(rule.weekdays);
+    LocalDate last = RecurrenceExpander.lastDate(startDate, rule);
+    UUID random = UUID.randomUUID();
+    UUID base = new UUID(random.getMostSignificantBits(),
+        random.getLeastSignificantBits() & ~DAY_BITS);
+    return new VirtualSeries(seriesId, base, mask, startDate, last, Set.of(), subject, start,
+        Duration.between(start, end), description, location, status);
+  }
+
+  /**
+   * Returns the ID base shared by all runs of the series that produced {@code id}.
+   */
+  static UUID baseOf(EventId id) {
+    UUID v = id.value();
+    return new UUID(v.getMostSignificantBits(), v.getLeastSignificantBits() & ~DAY_BITS);
+  }
+
+  /**
+   * Returns the occurrence date encoded in a derived ID.
+   */
+  static LocalDate dateOf(EventId id) {
+    return LocalDate.ofEpochDay((int) id.value().getLeastSignificantBits());
+  }
+
+  /**
+   * Only patches whose result depends on the occurrence's own date can become a template.
+   * An end without a start is an absolute datetime applied to every occurrence.
+   */
+  static boolean canRetemplate(EventPatch patch) {
+    return patch.start.isPresent() || patch.end.isEmpty();
+  }
+
+  UUID seriesId() {
+    return seriesId;
+  }
+
+  UUID idBase() {
+    return idBase;
+  }
+
+  LocalDate first() {
+    return first;
+  }
+
+  LocalDate last() {
+    return last;
+  }
+
+  String subject() {
+    return subject;
+  }
+
+  String normalizedSubject() {
+    return normalizedSubject;
+  }
+
+  /**
+   * True if the template produces an occurrence on {@code date}.
+   */
+  boolean occursOn(LocalDate date) {
+    return !date.isBefore(first) && !date.isAfter(last)
+        && RecurrenceExpander.matches(weekdays, date)
+        && !exceptions.contains(date);
+  }
+
+  /**
+   * True if some occurrence starts exactly at {@code start}.
+   */
+  boolean occursAt(LocalDateTime start) {
+    return startTime.equals(start.toLocalTime()) && occursOn(start.toLocalDate());
+  }
+
+  /**
+   * True if the occurrence starting at {@code start} ends at {@code end}.
+   */
+  boolean hasKey(LocalDateTime start, LocalDateTime end) {
+    return occursAt(start) && start.plus(duration).equals(end);
+  }
+
+  /**
+   * Returns the first occurrence date in {@code [from, limit]}, or null if there is none.
+   * Jumps straight to wanted weekdays; only exception dates are stepped over.
+   */
+  LocalDate nextDate(LocalDate from, LocalDate limit) {
+    LocalDate d = from.isBefore(first) ? first : from;
+    LocalDate stop = limit.isBefore(last) ? limit : last;
+    while (!d.isAfter(stop)) {
+      d = RecurrenceExpander.firstOnOrAfter(weekdays, d);
+      if (d.isAfter(stop)) {
+        return null;
+      }
+      if (!exceptions.contains(d)) {
+        return d;
+      }
+      d = d.plusDays(1);
+    }
+    return null;
+  }
+
+  /**
+   * Builds the occurrence on {@code date}; the caller ensures {@link #occursOn}.
+   */
+  Event occurrence(LocalDate date) {
+    LocalDateTime s = date.atTime(startTime);
+    return new Event.Builder()
+        .id(idFor(date))
+        .subject(subject)
+        .start(s)
+        .end(s.plus(duration))
+        .description(description)
+        .location(location)
+        .status(status)
+        .build();
+  }
+
+  LocalDateTime startOn(LocalDate date) {
+    return date.atTime(startTime);
+  }
+
+  LocalDateTime endOn(LocalDate date) {
+    return date.atTime(startTime).plus(duration);
+  }
+
+  /**
+   * Appends occurrences overlapping {@code [from, to)}, in start order.
+   */
+  void collectOverlapping(LocalDateTime from, LocalDateTime to, List<Event> out) {
+    LocalDate stop = to.toLocalDate();
+    LocalDate d = nextDate(from.minus(duration).toLocalDate(), stop);
+    while (d != null) {
+      LocalDateTime s = d.atTime(startTime);
+      if (s.isBefore(to) && s.plus(duration).isAfter(from)) {
+        out.add(occurrence(d));
+      }
+      d = nextDate(d.plusDays(1), stop);
+    }
+  }
+
+  /**
+   * Appends every occurrence, in start order.
+   */
+  void collectAll(List<Event> out) {
+    for (LocalDate d = nextDate(first, last); d != null; d = nextDate(d.plusDays(1), last)) {
+      out.add(occurrence(d));
+    }
+  }
+
+  /**
+   * Appends up to {@code limit} occurrences sorting after {@code after} (from the first if
+   * null), in start order.
+   */
+  void collectAfter(Event after, int limit, List<Event> out) {
+    LocalDate from = after == null ? first : after.start().toLocalDate();
+    int added = 0;
+    for (LocalDate d = nextDate(from, last); d != null && added < limit;
+         d = nextDate(d.plusDays(1), last)) {
+      Event e = occurrence(d);
+      if (after == null || TimeIndex.compare(e, after) > 0) {
+        out.add(e);
+        added++;
+      }
+    }
+  }
+
+  /**
+   * True if some occurrence satisfies {@code start <= instant < end}.
+   */
+  boolean covers(LocalDateTime instant) {
+    LocalDate stop = instant.toLocalDate();
+    LocalDate d = nextDate(instant.minus(duration).toLocalDate(), stop);
+    while (d != null) {
+      LocalDateTime s = d.atTime(startTime);
+      if (!s.isAfter(instant) && s.plus(duration).isAfter(instant)) {
+        return true;
+      }
+      d = nextDate(d.plusDays(1), stop);
+    }
+    return false;
+  }
+
+  /**
+   * First date whose occurrence starts at or after {@code cutoff}.
+   */
+  LocalDate cutoffDate(LocalDateTime cutoff) {
+    LocalDate d = cutoff.toLocalDate();
+    return startTime.isBefore(cutoff.toLocalTime()) ? d.plusDays(1) : d;
+  }
+
+  /**
+   * True if this run's occurrences have the same (subject, start, end) keys as {@code other}'s
+   * on the same dates.
+   */
+  boolean sameKeysAs(VirtualSeries other) {
+    return normalizedSubject.equals(other.normalizedSubject)
+        && startTime.equals(other.startTime)
+        && duration.equals(other.duration);
+  }
+
+  /**
+   * Returns a copy that no longer produces the occurrence on {@code date}.
+   */
+  VirtualSeries except(LocalDate date) {
+    Set<LocalDate> more = new HashSet<>(exceptions);
+    more.add(date);
+    return new VirtualSeries(seriesId, idBase, weekdays, first, last, Set.copyOf(more), subject,
+        startTime, duration, description, location, status);
+  }
+
+  /**
+   * Returns the part of this run before {@code cutoffDate}.
+   */
+  VirtualSeries before(LocalDate cutoffDate) {
+    return range(first, cutoffDate.minusDays(1));
+  }
+
+  /**
+   * Returns the part of this run on or after {@code cutoffDate}.
+   */
+  VirtualSeries from(LocalDate cutoffDate) {
+    return range(cutoffDate, last);
+  }
+
+  /**
+   * Returns a copy assigned to another series.
+   */
+  VirtualSeries inSeries(UUID otherSeries) {
+    return new VirtualSeries(otherSeries, idBase, weekdays, first, last, exceptions, subject,
+        startTime, duration, description, location, status);
+  }
+
+  /**
+   * Applies a series-wide patch the way it would apply to each stored occurrence: a new start
+   * or end keeps its time of day and lands on the occurrence's own date, and a start without
+   * an end keeps the duration.
+   *
+   * @throws IllegalStateException    if {@link #canRetemplate} is false for the patch
+   * @throws IllegalArgumentException if the result would be blank or non-positive in length
+   */
+  VirtualSeries retemplate(EventPatch patch) {
+    if (!canRetemplate(patch)) {
+      throw new IllegalStateException("Patch cannot be expressed as a template");
+    }
+    LocalTime newStart = startTime;
+    Duration newDuration = duration;
+    if (patch.start.isPresent()) {
+      newStart = patch.start.get().toLocalTime();
+      if (patch.end.isPresent()) {
+        long endDay = Math.floorDiv(startTime.toNanoOfDay() + duration.toNanos(), NANOS_PER_DAY);
+        newDuration = Duration.ofDays(endDay)
+            .plusNanos(patch.end.get().toLocalTime().toNanoOfDay() - newStart.toNanoOfDay());
+      }
+    }
+    return new VirtualSeries(seriesId, idBase, weekdays, first, last, exceptions,
+        patch.subject.orElse(subject), newStart, newDuration,
+        patch.description.orElse(description), patch.location.orElse(location),
+        patch.status.orElse(status));
+  }
+
+  private VirtualSeries range(LocalDate from, LocalDate to) {
+    Set<LocalDate> kept = new HashSet<>();
+    for (LocalDate d : exceptions) {
+      if (!d.isBefore(from) && !d.isAfter(to)) {
+        kept.add(d);
+      }
+    }
+    return new VirtualSeries(seriesId, idBase, weekdays, from, to, Set.copyOf(kept), subject,
+        startTime, duration, description, location, status);
+  }
+
+  private EventId idFor(LocalDate date) {
+    return new EventId(new UUID(idBase.getMostSignificantBits(),
+        idBase.getLeastSignificantBits() | (date.toEpochDay() & DAY_BITS)));
+  }
+}
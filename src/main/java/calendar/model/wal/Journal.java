@@ -0,0 +1,482 @@
+package calendar.model.wal;
+
+import calendar.model.CalendarFactory;
+import calendar.model.CalendarManager;
+import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.api.CalendarSnapshot;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * A {@link CalendarManager} whose calendars survive restarts, by logging every mutation to a
+ * {@link WriteAheadLog} and replaying the log on open.
+ *
+ * <h2>Design: Logging at the Calendar Boundary</h2>
+ *
+ * <p>The manager creates calendars through a factory that wraps each one in a
+ * {@link LoggedCalendar} and logs its creation. A logged calendar writes a record for every
+ * event mutation, rename and timezone change before applying it, so the manager itself needs
+ * no changes: its rename and timezone edits reach the log through {@code setName} and
+ * {@code setZoneId}.</p>
+ *
+ * <p><b>Why number calendars?</b> Records name their calendar by creation order, which never
+ * changes, so a rename in the log does not invalidate the records after it.</p>
+ *
+ * <p><b>Replay:</b> {@link #open} feeds each record back through the manager (calendars) or
+ * straight to the calendar under its logging wrapper (events), with logging switched off.
+ * Records are written before the call runs, so some record calls that failed; replaying them
+ * fails the same way, and the exception is dropped.</p>
+ *
+ * <h2>Design: Snapshots and Log Segments</h2>
+ *
+ * <p>The log is a series of numbered segments. The live one is the log file itself and starts
+ * with a {@link Mutations#SEGMENT} record giving its number (a log without one is segment 0).
+ * {@link #snapshot} briefly stops all mutations, takes a {@link CalendarSnapshot} of every
+ * calendar, renames the live segment to {@code <log>.<number>} and starts the next one. Writing
+ * the snapshot to {@code <log>.snapshot} then happens with mutations running again, and only
+ * once it is durable are the segments it covers deleted.</p>
+ *
+ * <p>Opening restores the snapshot, if any, and replays every segment from the one it names
+ * onward, older renamed segments first. A crash while a snapshot is written leaves its
+ * segments in place, so they are replayed; a crash after it leaves segments the snapshot
+ * already covers, so they are deleted unread. Calendars are indexed in parallel as the
+ * snapshot is decoded, since each one is independent of the others.</p>
+ *
+ * <p><b>Why a lock around mutations?</b> A snapshot must sit exactly between two records.
+ * Mutations hold the read side of a {@link ReentrantReadWriteLock} while they log and apply,
+ * so calendars still change in parallel; the snapshot takes the write side only for the
+ * capture and the rename. Under {@code LockingMode.SNAPSHOT} the capture is O(1) per
+ * calendar; other modes copy each calendar's index.</p>
+ */
+public final class Journal implements Closeable {
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+  private final Path file;
+  private final WalOptions options;
+  private final CalendarFactory factory;
+  private final CalendarManager manager;
+  private final List<LoggedCalendar> calendars = new ArrayList<>();
+  private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+  private final Object snapshotLock = new Object();
+  private final AtomicLong sinceSnapshot = new AtomicLong();
+  private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+  private volatile WriteAheadLog log;
+  private ExecutorService snapshotter;
+  private volatile Exception snapshotFailure;
+  private int segment;
+  private long recovered;
+  private boolean replaying;
+
+  private Journal(Path file, WalOptions options, CalendarFactory factory) {
+    this.file = file;
+    this.options = options;
+    this.factory = factory;
+    this.manager = new CalendarManager(this::createCalendar);
+  }
+
+  /**
+   * Opens the log in {@code file}, creating it if needed, and rebuilds the calendars it
+   * records from the latest snapshot and the log after it.
+   *
+   * @param file    the log file; snapshots and older segments are kept beside it
+   * @param options when to fsync appended records and when to take snapshots
+   * @param factory creates the calendars being logged
+   * @return the journal, whose {@link #manager} holds the recovered calendars
+   * @throws IOException if the files cannot be read or are not log or snapshot files
+   */
+  public static Journal open(Path file, WalOptions options, CalendarFactory factory)
+      throws IOException {
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(options, "options");
+    Journal journal = new Journal(file, options, Objects.requireNonNull(factory, "factory"));
+    journal.replaying = true;
+    try {
+      journal.recover();
+    } finally {
+      journal.replaying = false;
+    }
+    return journal;
+  }
+
+  /**
+   * Returns the manager holding every calendar in the log; its changes are logged.
+   */
+  public CalendarManager manager() {
+    return manager;
+  }
+
+  /**
+   * Returns how many logged mutations were replayed on open, after the snapshot.
+   */
+  public long recovered() {
+    return recovered;
+  }
+
+  /**
+   * Forces every logged mutation to the storage device.
+   */
+  public void sync() {
+    log.sync();
+  }
+
+  /**
+   * Writes a snapshot of every calendar and deletes the log segments it replaces. Mutations
+   * wait only while the calendars are captured; the file is written after they resume.
+   *
+   * @throws IOException if the snapshot cannot be written, or an earlier background snapshot
+   *                     failed; the log still holds every mutation
+   */
+  public void snapshot() throws IOException {
+    throwSnapshotFailure();
+    takeSnapshot();
+  }
+
+  /**
+   * Waits for a background snapshot in progress, then closes the log and the calendars.
+   *
+   * @throws IOException if the log or a calendar cannot be closed, or a background snapshot
+   *                     failed
+   */
+  @Override
+  public void close() throws IOException {
+    ExecutorService executor;
+    synchronized (this) {
+      executor = snapshotter;
+    }
+    if (executor != null) {
+      executor.shutdown();
+      try {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    log.close();
+    manager.close();
+    throwSnapshotFailure();
+  }
+
+  /**
+   * Enters a mutation; a snapshot waits for the mutation to {@link #exit}.
+   */
+  void enter() {
+    gate.readLock().lock();
+  }
+
+  /**
+   * Leaves a mutation, starting a background snapshot if enough records were logged.
+   */
+  void exit() {
+    gate.readLock().unlock();
+    long every = options.snapshotEvery();
+    if (every > 0 && sinceSnapshot.get() >= every && snapshotQueued.compareAndSet(false, true)) {
+      try {
+        snapshotter().execute(this::backgroundSnapshot);
+      } catch (RejectedExecutionException closed) {
+        snapshotQueued.set(false);
+      }
+    }
+  }
+
+  /**
+   * Appends a mutation record, unless the mutation is itself being replayed.
+   */
+  void record(RecordWriter record) {
+    if (!replaying) {
+      log.append(record.bytes(), record.length());
+      sinceSnapshot.incrementAndGet();
+    }
+  }
+
+  private TimeZoneInMemoryCalendarInterface createCalendar(String timezone, String name) {
+    enter();
+    try {
+      synchronized (this) {
+        TimeZoneInMemoryCalendarInterface calendar = factory.create(timezone, name);
+        int number = calendars.size();
+        record(Mutations.createCalendar(number, timezone, name));
+        LoggedCalendar logged = new LoggedCalendar(this, number, calendar);
+        calendars.add(logged);
+        return logged;
+      }
+    } finally {
+      exit();
+    }
+  }
+
+  /**
+   * Restores the snapshot, replays the segments after it and opens the live segment.
+   */
+  private void recover() throws IOException {
+    int first = 0;
+    Path snapshotFile = sibling(SNAPSHOT_SUFFIX);
+    if (Files.exists(snapshotFile)) {
+      first = restore(snapshotFile);
+    }
+    int next = first;
+    for (Map.Entry<Integer, Path> entry : oldSegments().entrySet()) {
+      if (entry.getKey() < first) {
+        Files.delete(entry.getValue());
+        continue;
+      }
+      Replay replay = new Replay(first);
+      WriteAheadLog.open(entry.getValue(), WalOptions.defaults(), replay).close();
+      next = Math.max(next, entry.getKey() + 1);
+    }
+    Replay replay = new Replay(first);
+    log = WriteAheadLog.open(file, options, replay);
+    if (replay.records > 0 && replay.skip) {
+      // Left over from before the snapshot; everything in it is already restored.
+      log.close();
+      Files.delete(file);
+      log = WriteAheadLog.open(file, options, p -> { });
+    }
+    if (replay.records > 0 && !replay.skip) {
+      segment = replay.segment;
+    } else {
+      segment = next;
+      if (segment > 0) {
+        appendSegmentStart();
+      }
+    }
+    sinceSnapshot.set(recovered);
+  }
+
+  /**
+   * Restores every calendar in a snapshot file and returns the first segment it does not
+   * cover. Calendars are created in order as they are decoded, and their events are indexed
+   * on a pool while the next calendar is read.
+   */
+  private int restore(Path snapshotFile) throws IOException {
+    int threads = Runtime.getRuntime().availableProcessors();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "wal-restore");
+      t.setDaemon(true);
+      return t;
+    });
+    List<Future<?>> restores = new ArrayList<>();
+    try {
+      int first = SnapshotFile.read(snapshotFile, c -> {
+        manager.createCalendar(c.name, c.zone.getId());
+        LoggedCalendar calendar = calendars.get(calendars.size() - 1);
+        restores.add(pool.submit(() -> calendar.delegate().restore(c.events, c.series)));
+      });
+      for (Future<?> restore : restores) {
+        restore.get();
+      }
+      return first;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while restoring " + snapshotFile);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (RuntimeException) cause;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Applies one record of a segment being replayed.
+   */
+  private void apply(int op, int number, RecordReader r) {
+    if (op == Mutations.CREATE_CALENDAR) {
+      String timezone = r.readString();
+      manager.createCalendar(r.readString(), timezone);
+      if (calendars.size() != number + 1) {
+        throw new IllegalStateException("Log creates calendar " + number + " out of order");
+      }
+      return;
+    }
+    boolean known = op >= Mutations.RENAME_CALENDAR && op <= Mutations.CONVERT_TIME_ZONE
+        || op == Mutations.RESTORE;
+    if (!known) {
+      throw new IllegalStateException("Unknown log record type: " + op);
+    }
+    if (number < 0 || number >= calendars.size()) {
+      throw new IllegalStateException("Log names unknown calendar " + number);
+    }
+    LoggedCalendar calendar = calendars.get(number);
+    try {
+      if (op == Mutations.RENAME_CALENDAR) {
+        manager.editCalendarName(calendar.getName(), r.readString());
+      } else if (op == Mutations.SET_TIMEZONE) {
+        manager.editCalendarTimezone(calendar.getName(), r.readNullable(Mutations::readZone));
+      } else {
+        Mutations.apply(op, r, calendar.delegate());
+      }
+    } catch (RuntimeException e) {
+      // The original call failed the same way; its record was written before it ran.
+    }
+  }
+
+  /**
+   * Replays one segment file, skipping it whole if it starts before {@code first}.
+   */
+  private final class Replay implements Consumer<ByteBuffer> {
+    private final int first;
+    private int segment;
+    private boolean skip;
+    private long records;
+
+    Replay(int first) {
+      this.first = first;
+    }
+
+    @Override
+    public void accept(ByteBuffer payload) {
+      RecordReader r = new RecordReader(payload);
+      int op = r.readByte();
+      int number = r.readInt();
+      if (records++ == 0) {
+        segment = op == Mutations.SEGMENT ? number : 0;
+        skip = segment < first;
+        if (op == Mutations.SEGMENT) {
+          return;
+        }
+      }
+      if (!skip) {
+        apply(op, number, r);
+        recovered++;
+      }
+    }
+  }
+
+  private void takeSnapshot() throws IOException {
+    synchronized (snapshotLock) {
+      List<String> names = new ArrayList<>();
+      List<ZoneId> zones = new ArrayList<>();
+      List<CalendarSnapshot> views = new ArrayList<>();
+      int covered;
+      gate.writeLock().lock();
+      try {
+        for (LoggedCalendar c : calendars) {
+          names.add(c.getName());
+          zones.add(c.getZoneId());
+          views.add(c.delegate().snapshot());
+        }
+        covered = segment;
+        rotate();
+      } finally {
+        gate.writeLock().unlock();
+      }
+      List<SnapshotFile.Calendar> images = new ArrayList<>(views.size());
+      for (int i = 0; i < views.size(); i++) {
+        CalendarSnapshot view = views.get(i);
+        images.add(new SnapshotFile.Calendar(names.get(i), zones.get(i), view.allEvents(),
+            view.seriesMembership()));
+      }
+      SnapshotFile.write(sibling(SNAPSHOT_SUFFIX), covered + 1, images);
+      for (Path old : oldSegments().headMap(covered + 1).values()) {
+        Files.deleteIfExists(old);
+      }
+    }
+  }
+
+  /**
+   * Renames the live segment to its numbered name and starts the next one. Runs with
+   * mutations stopped.
+   */
+  private void rotate() throws IOException {
+    boolean moved = false;
+    try {
+      log.close();
+      Files.move(file, sibling("." + segment), StandardCopyOption.ATOMIC_MOVE);
+      moved = true;
+    } finally {
+      log = WriteAheadLog.open(file, options, p -> { });
+      if (moved) {
+        segment++;
+        sinceSnapshot.set(0);
+        appendSegmentStart();
+      }
+    }
+  }
+
+  private void appendSegmentStart() {
+    RecordWriter start = Mutations.segment(segment);
+    log.append(start.bytes(), start.length());
+  }
+
+  private void backgroundSnapshot() {
+    try {
+      takeSnapshot();
+    } catch (IOException | RuntimeException e) {
+      snapshotFailure = e;
+    } finally {
+      snapshotQueued.set(false);
+    }
+  }
+
+  private synchronized ExecutorService snapshotter() {
+    if (snapshotter == null) {
+      snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wal-snapshot");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    return snapshotter;
+  }
+
+  private void throwSnapshotFailure() throws IOException {
+    Exception e = snapshotFailure;
+    if (e == null) {
+      return;
+    }
+    snapshotFailure = null;
+    if (e instanceof IOException) {
+      throw (IOException) e;
+    }
+    throw new IOException("Background snapshot failed", e);
+  }
+
+  /**
+   * Renamed segments beside the log, by number.
+   */
+  private TreeMap<Integer, Path> oldSegments() throws IOException {
+    TreeMap<Integer, Path> out = new TreeMap<>();
+    String prefix = file.getFileName() + ".";
+    Path dir = file.toAbsolutePath().getParent();
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(dir,
+        p -> p.getFileName().toString().startsWith(prefix))) {
+      for (Path p : paths) {
+        String suffix = p.getFileName().toString().substring(prefix.length());
+        if (!suffix.isEmpty() && suffix.length() < 10
+            && suffix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+          out.put(Integer.parseInt(suffix), p);
+        }
+      }
+    }
+    return out;
+  }
+
+  private Path sibling(String suffix) {
+    return file.resolveSibling(file.getFileName() + suffix);
+  }
+}
@@ -0,0 +1,197 @@
+package calendar.model.wal;
+
+import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A calendar that writes every mutation to its {@link Journal} before passing it on.
+ *
+ * <p>The record is written first, whatever the outcome: some mutations change the calendar and
+ * then fail (a series that conflicts part way, a series edit that conflicts on a later member),
+ * and replaying the same call against the same state repeats exactly that partial effect.
+ * Mutations hold this calendar's monitor so that log order is the order they were applied, and
+ * run inside the journal's mutation section so that a snapshot falls between two of them;
+ * queries pass straight through.</p>
+ */
+final class LoggedCalendar implements TimeZoneInMemoryCalendarInterface {
+  private final Journal journal;
+  private final int number;
+  private final TimeZoneInMemoryCalendarInterface delegate;
+
+  LoggedCalendar(Journal journal, int number, TimeZoneInMemoryCalendarInterface delegate) {
+    this.journal = journal;
+    this.number = number;
+    this.delegate = delegate;
+  }
+
+  /**
+   * Returns the calendar that mutations are applied to, for replay.
+   */
+  TimeZoneInMemoryCalendarInterface delegate() {
+    return delegate;
+  }
+
+  /**
+   * Writes {@code record} and runs {@code call} inside the journal's mutation section, so that
+   * a snapshot never sees the record without its effect.
+   */
+  private <T> T logged(RecordWriter record, Supplier<T> call) {
+    journal.enter();
+    try {
+      synchronized (this) {
+        journal.record(record);
+        return call.get();
+      }
+    } finally {
+      journal.exit();
+    }
+  }
+
+  @Override
+  public EventId create(EventDraft draft) {
+    return logged(Mutations.create(number, draft), () -> delegate.create(draft));
+  }
+
+  @Override
+  public SeriesId createSeries(SeriesDraft draft) {
+    return logged(Mutations.createSeries(number, draft), () -> delegate.createSeries(draft));
+  }
+
+  @Override
+  public List<EventId> createAll(List<EventDraft> drafts) {
+    return logged(Mutations.createAll(number, drafts), () -> delegate.createAll(drafts));
+  }
+
+  @Override
+  public List<SeriesId> createSeriesAll(List<SeriesDraft> drafts) {
+    return logged(Mutations.createSeriesAll(number, drafts),
+        () -> delegate.createSeriesAll(drafts));
+  }
+
+  @Override
+  public void updateBySelector(EventSelector selector, EventPatch patch, EditScope scope) {
+    logged(Mutations.update(number, selector, patch, scope), () -> {
+      delegate.updateBySelector(selector, patch, scope);
+      return null;
+    });
+  }
+
+  @Override
+  public void convertTimeZone(ZoneId fromZone, ZoneId toZone) {
+    logged(Mutations.convertTimeZone(number, fromZone, toZone), () -> {
+      delegate.convertTimeZone(fromZone, toZone);
+      return null;
+    });
+  }
+
+  @Override
+  public void restore(List<Event> events, Map<EventId, SeriesId> series) {
+    logged(Mutations.restore(number, events, series), () -> {
+      delegate.restore(events, series);
+      return null;
+    });
+  }
+
+  @Override
+  public void setName(String name) {
+    logged(Mutations.renameCalendar(number, name), () -> {
+      delegate.setName(name);
+      return null;
+    });
+  }
+
+  @Override
+  public void setZoneId(ZoneId zoneId) {
+    logged(Mutations.setTimezone(number, zoneId), () -> {
+      delegate.setZoneId(zoneId);
+      return null;
+    });
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  @Override
+  public String getName() {
+    return delegate.getName();
+  }
+
+  @Override
+  public ZoneId getZoneId() {
+    return delegate.getZoneId();
+  }
+
+  @Override
+  public ZonedDateTime convertTimeFromOneTimeZoneToAnother(LocalDateTime time,
+                                                           ZoneId currentZoneId,
+                                                           ZoneId newZoneId) {
+    return delegate.convertTimeFromOneTimeZoneToAnother(time, currentZoneId, newZoneId);
+  }
+
+  @Override
+  public LocalDateTime convertToLocalDateTime(LocalDateTime time, ZoneId currentZoneId,
+                                              ZoneId newZoneId) {
+    return delegate.convertToLocalDateTime(time, currentZoneId, newZoneId);
+  }
+
+  @Override
+  public List<Event> eventsOn(LocalDate date) {
+    return delegate.eventsOn(date);
+  }
+
+  @Override
+  public List<Event> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+    return delegate.eventsOverlapping(from, to);
+  }
+
+  @Override
+  public BusyStatus statusAt(LocalDateTime instant) {
+    return delegate.statusAt(instant);
+  }
+
+  @Override
+  public List<Event> allEvents() {
+    return delegate.allEvents();
+  }
+
+  @Override
+  public Iterator<Event> eventsInOrder() {
+    return delegate.eventsInOrder();
+  }
+
+  @Override
+  public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+    return delegate.eventsBySubjectAndStart(subject, start);
+  }
+
+  @Override
+  public Optional<SeriesId> seriesOfEvent(EventId eventId) {
+    return delegate.seriesOfEvent(eventId);
+  }
+
+  @Override
+  public CalendarSnapshot snapshot() {
+    return delegate.snapshot();
+  }
+}
@@ -0,0 +1,350 @@
+package calendar.model.wal;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.domain.Status;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Record layouts of every logged mutation: one opcode byte, the calendar number, then the
+ * call's arguments.
+ *
+ * <p>Calendars are named by the number {@link Journal} gave them when they were created, not
+ * by name, so a record stays valid after the calendar is renamed. The one record that is not
+ * a mutation, {@link #SEGMENT}, opens each log file and carries the file's segment number in
+ * the calendar number's place.</p>
+ */
+final class Mutations {
+  static final int CREATE_CALENDAR = 1;
+  static final int RENAME_CALENDAR = 2;
+  static final int SET_TIMEZONE = 3;
+  static final int CREATE = 4;
+  static final int CREATE_SERIES = 5;
+  static final int CREATE_ALL = 6;
+  static final int CREATE_SERIES_ALL = 7;
+  static final int UPDATE = 8;
+  static final int CONVERT_TIME_ZONE = 9;
+  static final int SEGMENT = 10;
+  static final int RESTORE = 11;
+
+  private static final Status[] STATUSES = Status.values();
+  private static final Weekday[] WEEKDAYS = Weekday.values();
+  private static final EditScope[] SCOPES = EditScope.values();
+
+  private Mutations() {
+  }
+
+  static RecordWriter createCalendar(int calendar, String timezone, String name) {
+    return start(CREATE_CALENDAR, calendar).writeString(timezone).writeString(name);
+  }
+
+  static RecordWriter renameCalendar(int calendar, String name) {
+    return start(RENAME_CALENDAR, calendar).writeString(name);
+  }
+
+  static RecordWriter setTimezone(int calendar, ZoneId zone) {
+    return start(SET_TIMEZONE, calendar).writeNullable(zone, Mutations::writeZone);
+  }
+
+  static RecordWriter create(int calendar, EventDraft draft) {
+    return start(CREATE, calendar).writeNullable(draft, Mutations::writeDraft);
+  }
+
+  static RecordWriter createSeries(int calendar, SeriesDraft draft) {
+    return start(CREATE_SERIES, calendar).writeNullable(draft, Mutations::writeSeries);
+  }
+
+  static RecordWriter createAll(int calendar, List<EventDraft> drafts) {
+    RecordWriter w = start(CREATE_ALL, calendar);
+    return writeList(w, drafts, Mutations::writeDraft);
+  }
+
+  static RecordWriter createSeriesAll(int calendar, List<SeriesDraft> drafts) {
+    RecordWriter w = start(CREATE_SERIES_ALL, calendar);
+    return writeList(w, drafts, Mutations::writeSeries);
+  }
+
+  static RecordWriter update(int calendar, EventSelector selector, EventPatch patch,
+                             EditScope scope) {
+    return start(UPDATE, calendar)
+        .writeNullable(selector, Mutations::writeSelector)
+        .writeNullable(patch, Mutations::writePatch)
+        .writeNullable(scope, (w, s) -> w.writeByte(s.ordinal()));
+  }
+
+  static RecordWriter convertTimeZone(int calendar, ZoneId from, ZoneId to) {
+    return start(CONVERT_TIME_ZONE, calendar)
+        .writeNullable(from, Mutations::writeZone)
+        .writeNullable(to, Mutations::writeZone);
+  }
+
+  static RecordWriter restore(int calendar, List<Event> events, Map<EventId, SeriesId> series) {
+    RecordWriter w = start(RESTORE, calendar).writeBoolean(events != null);
+    if (events != null) {
+      w.writeInt(events.size());
+      for (Event e : events) {
+        w.writeNullable(e, Mutations::writeEvent);
+        SeriesId sid = e == null || series == null ? null : series.get(e.id());
+        w.writeNullable(sid, (x, id) -> writeUuid(x, id.value()));
+      }
+    }
+    return w.writeBoolean(series != null);
+  }
+
+  static RecordWriter segment(int number) {
+    return start(SEGMENT, number);
+  }
+
+  /**
+   * Replays a calendar-level record (opcodes {@link #CREATE} to {@link #CONVERT_TIME_ZONE},
+   * and {@link #RESTORE}) whose opcode and calendar number were already read.
+   *
+   * @throws RuntimeException whatever the calendar throws, as the original call did
+   */
+  static void apply(int op, RecordReader r, CalendarApi target) {
+    switch (op) {
+      case CREATE:
+        target.create(r.readNullable(Mutations::readDraft));
+        break;
+      case CREATE_SERIES:
+        target.createSeries(r.readNullable(Mutations::readSeries));
+        break;
+      case CREATE_ALL:
+        target.createAll(readList(r, Mutations::readDraft));
+        break;
+      case CREATE_SERIES_ALL:
+        target.createSeriesAll(readList(r, Mutations::readSeries));
+        break;
+      case UPDATE:
+        target.updateBySelector(r.readNullable(Mutations::readSelector),
+            r.readNullable(Mutations::readPatch), r.readNullable(x -> SCOPES[x.readByte()]));
+        break;
+      case CONVERT_TIME_ZONE:
+        target.convertTimeZone(r.readNullable(Mutations::readZone),
+            r.readNullable(Mutations::readZone));
+        break;
+      case RESTORE:
+        applyRestore(r, target);
+        break;
+      default:
+        throw new IllegalStateException("Unknown log record type: " + op);
+    }
+  }
+
+  static ZoneId readZone(RecordReader r) {
+    return ZoneId.of(r.readString());
+  }
+
+  private static RecordWriter start(int op, int calendar) {
+    return new RecordWriter().writeByte(op).writeInt(calendar);
+  }
+
+  private static <T> RecordWriter writeList(RecordWriter w, List<T> items,
+                                            BiConsumer<RecordWriter, T> write) {
+    w.writeBoolean(items != null);
+    if (items != null) {
+      w.writeInt(items.size());
+      for (T item : items) {
+        w.writeNullable(item, write);
+      }
+    }
+    return w;
+  }
+
+  private static <T> List<T> readList(RecordReader r, Function<RecordReader, T> read) {
+    if (!r.readBoolean()) {
+      return null;
+    }
+    int n = r.readInt();
+    List<T> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      out.add(r.readNullable(read));
+    }
+    return out;
+  }
+
+  private static void applyRestore(RecordReader r, CalendarApi target) {
+    List<Event> events = null;
+    Map<EventId, SeriesId> series = new HashMap<>();
+    if (r.readBoolean()) {
+      int n = r.readInt();
+      events = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        Event e = r.readNullable(Mutations::readEvent);
+        SeriesId sid = r.readNullable(x -> new SeriesId(readUuid(x)));
+        events.add(e);
+        if (sid != null) {
+          series.put(e.id(), sid);
+        }
+      }
+    }
+    target.restore(events, r.readBoolean() ? series : null);
+  }
+
+  private static void writeUuid(RecordWriter w, UUID id) {
+    w.writeLong(id.getMostSignificantBits()).writeLong(id.getLeastSignificantBits());
+  }
+
+  private static UUID readUuid(RecordReader r) {
+    return new UUID(r.readLong(), r.readLong());
+  }
+
+  private static void writeEvent(RecordWriter w, Event e) {
+    writeUuid(w, e.id().value());
+    w.writeString(e.subject())
+        .writeDateTime(e.start())
+        .writeDateTime(e.end())
+        .writeString(e.description().orElse(""))
+        .writeString(e.location().orElse(""));
+    writeStatus(w, e.status());
+  }
+
+  private static Event readEvent(RecordReader r) {
+    return new Event.Builder()
+        .id(new EventId(readUuid(r)))
+        .subject(r.readString())
+        .start(r.readDateTime())
+        .end(r.readDateTime())
+        .description(r.readString())
+        .location(r.readString())
+        .status(readStatus(r))
+        .build();
+  }
+
+  private static void writeZone(RecordWriter w, ZoneId zone) {
+    w.writeString(zone.getId());
+  }
+
+  private static void writeStatus(RecordWriter w, Status s) {
+    w.writeByte(s.ordinal());
+  }
+
+  private static Status readStatus(RecordReader r) {
+    return STATUSES[r.readByte()];
+  }
+
+  private static void writeDraft(RecordWriter w, EventDraft d) {
+    w.writeString(d.subject)
+        .writeOptional(d.allDayDate, RecordWriter::writeDate)
+        .writeOptional(d.start, RecordWriter::writeDateTime)
+        .writeOptional(d.end, RecordWriter::writeDateTime)
+        .writeOptional(d.description, RecordWriter::writeString)
+        .writeOptional(d.location, RecordWriter::writeString)
+        .writeOptional(d.status, Mutations::writeStatus);
+  }
+
+  private static EventDraft readDraft(RecordReader r) {
+    EventDraft d = new EventDraft();
+    d.subject = r.readString();
+    d.allDayDate = r.readOptional(RecordReader::readDate);
+    d.start = r.readOptional(RecordReader::readDateTime);
+    d.end = r.readOptional(RecordReader::readDateTime);
+    d.description = r.readOptional(RecordReader::readString);
+    d.location = r.readOptional(RecordReader::readString);
+    d.status = r.readOptional(Mutations::readStatus);
+    return d;
+  }
+
+  private static void writeSeries(RecordWriter w, SeriesDraft d) {
+    w.writeString(d.subject)
+        .writeBoolean(d.allDay)
+        .writeNullable(d.startDate, RecordWriter::writeDate)
+        .writeOptional(d.startTime, RecordWriter::writeTime)
+        .writeOptional(d.endTime, RecordWriter::writeTime)
+        .writeNullable(d.rule, Mutations::writeRule)
+        .writeOptional(d.description, RecordWriter::writeString)
+        .writeOptional(d.location, RecordWriter::writeString)
+        .writeOptional(d.status, Mutations::writeStatus);
+  }
+
+  private static SeriesDraft readSeries(RecordReader r) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = r.readString();
+    d.allDay = r.readBoolean();
+    d.startDate = r.readNullable(RecordReader::readDate);
+    d.startTime = r.readOptional(RecordReader::readTime);
+    d.endTime = r.readOptional(RecordReader::readTime);
+    d.rule = r.readNullable(Mutations::readRule);
+    d.description = r.readOptional(RecordReader::readString);
+    d.location = r.readOptional(RecordReader::readString);
+    d.status = r.readOptional(Mutations::readStatus);
+    return d;
+  }
+
+  /**
+   * A rule as its weekday bits, count and until date. Rules are validated on construction, so
+   * only valid ones reach the log.
+   */
+  private static void writeRule(RecordWriter w, RecurrenceRule rule) {
+    int bits = 0;
+    for (Weekday day : rule.weekdays) {
+      bits |= 1 << day.ordinal();
+    }
+    w.writeByte(bits)
+        .writeOptional(rule.count, RecordWriter::writeInt)
+        .writeOptional(rule.untilDate, RecordWriter::writeDate);
+  }
+
+  private static RecurrenceRule readRule(RecordReader r) {
+    int bits = r.readByte();
+    EnumSet<Weekday> days = EnumSet.noneOf(Weekday.class);
+    for (Weekday day : WEEKDAYS) {
+      if ((bits & 1 << day.ordinal()) != 0) {
+        days.add(day);
+      }
+    }
+    return new RecurrenceRule(days, r.readOptional(RecordReader::readInt),
+        r.readOptional(RecordReader::readDate));
+  }
+
+  private static void writeSelector(RecordWriter w, EventSelector s) {
+    w.writeString(s.subject)
+        .writeNullable(s.start, RecordWriter::writeDateTime)
+        .writeOptional(s.end, RecordWriter::writeDateTime);
+  }
+
+  private static EventSelector readSelector(RecordReader r) {
+    EventSelector s = new EventSelector();
+    s.subject = r.readString();
+    s.start = r.readNullable(RecordReader::readDateTime);
+    s.end = r.readOptional(RecordReader::readDateTime);
+    return s;
+  }
+
+  private static void writePatch(RecordWriter w, EventPatch p) {
+    w.writeOptional(p.subject, RecordWriter::writeString)
+        .writeOptional(p.start, RecordWriter::writeDateTime)
+        .writeOptional(p.end, RecordWriter::writeDateTime)
+        .writeOptional(p.description, RecordWriter::writeString)
+        .writeOptional(p.location, RecordWriter::writeString)
+        .writeOptional(p.status, Mutations::writeStatus);
+  }
+
+  private static EventPatch readPatch(RecordReader r) {
+    EventPatch p = new EventPatch();
+    p.subject = r.readOptional(RecordReader::readString);
+    p.start = r.readOptional(RecordReader::readDateTime);
+    p.end = r.readOptional(RecordReader::readDateTime);
+    p.description = r.readOptional(RecordReader::readString);
+    p.location = r.readOptional(RecordReader::readString);
+    p.status = r.readOptional(Mutations::readStatus);
+    return p;
+  }
+}
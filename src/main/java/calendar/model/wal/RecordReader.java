@@ -0,0 +1,72 @@
+package calendar.model.wal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Reads a record payload written by {@link RecordWriter}, in the same order.
+ */
+final class RecordReader {
+  private final ByteBuffer in;
+
+  RecordReader(ByteBuffer in) {
+    this.in = in;
+  }
+
+  int readByte() {
+    return in.get();
+  }
+
+  boolean readBoolean() {
+    return in.get() != 0;
+  }
+
+  int readInt() {
+    return in.getInt();
+  }
+
+  long readLong() {
+    return in.getLong();
+  }
+
+  String readString() {
+    int n = in.getInt();
+    if (n < 0) {
+      return null;
+    }
+    byte[] utf8 = new byte[n];
+    in.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  <T> T readNullable(Function<RecordReader, T> read) {
+    return readBoolean() ? read.apply(this) : null;
+  }
+
+  <T> Optional<T> readOptional(Function<RecordReader, T> read) {
+    int tag = in.get();
+    if (tag == RecordWriter.NULL) {
+      return null;
+    }
+    return tag == RecordWriter.EMPTY ? Optional.empty() : Optional.of(read.apply(this));
+  }
+
+  LocalDateTime readDateTime() {
+    long second = in.getLong();
+    return LocalDateTime.ofEpochSecond(second, in.getInt(), ZoneOffset.UTC);
+  }
+
+  LocalDate readDate() {
+    return LocalDate.ofEpochDay(in.getLong());
+  }
+
+  LocalTime readTime() {
+    return LocalTime.ofNanoOfDay(in.getLong());
+  }
+}
@@ -0,0 +1,119 @@
+package calendar.model.wal;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Builds the payload of one log record: fixed-width big-endian numbers and length-prefixed
+ * UTF-8 strings in a growable byte array. {@link RecordReader} reads the same layout.
+ *
+ * <p>Every reference is written with its nullness, and every {@link Optional} with one of
+ * three tags (null, empty, present), so a logged call replays with exactly the arguments it
+ * was made with, including the ones it failed on.</p>
+ */
+final class RecordWriter {
+  static final int NULL = 0;
+  static final int EMPTY = 1;
+  static final int PRESENT = 2;
+
+  private byte[] bytes = new byte[128];
+  private int length;
+
+  byte[] bytes() {
+    return bytes;
+  }
+
+  int length() {
+    return length;
+  }
+
+  RecordWriter writeByte(int v) {
+    ensure(1);
+    bytes[length++] = (byte) v;
+    return this;
+  }
+
+  RecordWriter writeBoolean(boolean v) {
+    return writeByte(v ? 1 : 0);
+  }
+
+  RecordWriter writeInt(int v) {
+    ensure(Integer.BYTES);
+    bytes[length++] = (byte) (v >>> 24);
+    bytes[length++] = (byte) (v >>> 16);
+    bytes[length++] = (byte) (v >>> 8);
+    bytes[length++] = (byte) v;
+    return this;
+  }
+
+  RecordWriter writeLong(long v) {
+    writeInt((int) (v >>> 32));
+    return writeInt((int) v);
+  }
+
+  /**
+   * Writes a string as its UTF-8 length and bytes; null is length -1.
+   */
+  RecordWriter writeString(String s) {
+    if (s == null) {
+      return writeInt(-1);
+    }
+    byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+    writeInt(utf8.length);
+    ensure(utf8.length);
+    System.arraycopy(utf8, 0, bytes, length, utf8.length);
+    length += utf8.length;
+    return this;
+  }
+
+  /**
+   * Writes a presence flag, and the value if present, with {@code write}.
+   */
+  <T> RecordWriter writeNullable(T value, BiConsumer<RecordWriter, T> write) {
+    writeBoolean(value != null);
+    if (value != null) {
+      write.accept(this, value);
+    }
+    return this;
+  }
+
+  /**
+   * Writes a null, empty or present tag, and the value if present, with {@code write}.
+   */
+  <T> RecordWriter writeOptional(Optional<T> value, BiConsumer<RecordWriter, T> write) {
+    if (value == null) {
+      return writeByte(NULL);
+    }
+    if (value.isEmpty()) {
+      return writeByte(EMPTY);
+    }
+    writeByte(PRESENT);
+    write.accept(this, value.get());
+    return this;
+  }
+
+  RecordWriter writeDateTime(LocalDateTime t) {
+    writeLong(t.toEpochSecond(ZoneOffset.UTC));
+    return writeInt(t.getNano());
+  }
+
+  RecordWriter writeDate(LocalDate d) {
+    return writeLong(d.toEpochDay());
+  }
+
+  RecordWriter writeTime(LocalTime t) {
+    return writeLong(t.toNanoOfDay());
+  }
+
+  private void ensure(int extra) {
+    if (length + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+  }
+}
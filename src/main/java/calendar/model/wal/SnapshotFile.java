@@ -0,0 +1,357 @@
+package calendar.model.wal;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.domain.Status;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * The file a {@link Journal} snapshot is kept in: every calendar's name, zone, events and
+ * series membership, as they were when one log segment began.
+ *
+ * <h2>Design: Tables, Rows, One Checksum</h2>
+ *
+ * <p>After a header (magic, version, segment number, calendar count) comes a table of every
+ * distinct string, then each calendar: name and zone as string numbers, its series IDs, and one
+ * fixed-size row per event (ID, subject number, start and end as epoch second plus nano,
+ * description and location numbers, status, series number or -1). The file ends with the
+ * CRC-32C of everything before it.</p>
+ *
+ * <p><b>Why a string table?</b> Descriptions, locations and the subjects of series repeat
+ * across thousands of events. Each distinct string is stored and decoded once, and the
+ * restored events share one instance of it.</p>
+ *
+ * <p><b>Why check the whole file before reading it?</b> A snapshot is written to a temporary
+ * file, synced and renamed over the previous one, so a crash leaves either the old snapshot or
+ * the new one. A checksum failure therefore means damage, and {@link #read} refuses the file
+ * instead of restoring part of it.</p>
+ */
+final class SnapshotFile {
+  private static final int MAGIC = 0x43534E31;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 20;
+  private static final int ROW_BYTES = 57;
+  private static final int BUFFER = 1 << 20;
+  private static final Status[] STATUSES = Status.values();
+
+  /**
+   * One calendar's contents, with event times in its zone.
+   */
+  static final class Calendar {
+    final String name;
+    final ZoneId zone;
+    final List<Event> events;
+    final Map<EventId, SeriesId> series;
+
+    Calendar(String name, ZoneId zone, List<Event> events, Map<EventId, SeriesId> series) {
+      this.name = name;
+      this.zone = zone;
+      this.events = events;
+      this.series = series;
+    }
+  }
+
+  private SnapshotFile() {
+  }
+
+  /**
+   * Writes a snapshot to a temporary file beside {@code file}, syncs it and renames it over
+   * {@code file}.
+   *
+   * @param file      the snapshot file
+   * @param segment   the first log segment the snapshot does not include
+   * @param calendars every calendar, in creation order
+   * @throws IOException if the file cannot be written; {@code file} is then unchanged
+   */
+  static void write(Path file, int segment, List<Calendar> calendars) throws IOException {
+    Map<String, Integer> numbers = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    for (Calendar c : calendars) {
+      intern(c.name, numbers, strings);
+      intern(c.zone.getId(), numbers, strings);
+      for (Event e : c.events) {
+        intern(e.subject(), numbers, strings);
+        intern(e.description().orElse(""), numbers, strings);
+        intern(e.location().orElse(""), numbers, strings);
+      }
+    }
+
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      Output out = new Output(channel);
+      out.need(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(segment)
+          .putInt(calendars.size()).putInt(strings.size());
+      for (String s : strings) {
+        out.putString(s);
+      }
+      for (Calendar c : calendars) {
+        writeCalendar(out, c, numbers);
+      }
+      out.finish();
+      channel.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads a snapshot written by {@link #write}, handing over each calendar as soon as it is
+   * decoded so the caller can index one while the next is read.
+   *
+   * @param file the snapshot file
+   * @param each receives every calendar, in creation order
+   * @return the first log segment the snapshot does not include
+   * @throws IOException if the file cannot be read, is not a snapshot or fails its checksum;
+   *                     the checksum is checked before any calendar is handed over
+   */
+  static int read(Path file, Consumer<Calendar> each) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long end = channel.size() - Integer.BYTES;
+      Input in = new Input(channel, end);
+      if (end < HEADER_BYTES || in.need(HEADER_BYTES).getInt() != MAGIC
+          || in.buf.getInt() != VERSION) {
+        throw new IOException("Not a calendar snapshot: " + file);
+      }
+      if (checksum(channel, end) != in.trailer()) {
+        throw new IOException("Calendar snapshot is damaged: " + file);
+      }
+      int segment = in.buf.getInt();
+      int count = in.buf.getInt();
+      String[] strings = new String[in.buf.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = in.getString();
+      }
+      for (int i = 0; i < count; i++) {
+        each.accept(readCalendar(in, strings));
+      }
+      return segment;
+    }
+  }
+
+  private static void intern(String s, Map<String, Integer> numbers, List<String> strings) {
+    if (numbers.putIfAbsent(s, strings.size()) == null) {
+      strings.add(s);
+    }
+  }
+
+  private static void writeCalendar(Output out, Calendar c, Map<String, Integer> numbers)
+      throws IOException {
+    Map<SeriesId, Integer> seriesNumbers = new HashMap<>();
+    List<SeriesId> series = new ArrayList<>();
+    for (Event e : c.events) {
+      SeriesId sid = c.series.get(e.id());
+      if (sid != null && seriesNumbers.putIfAbsent(sid, series.size()) == null) {
+        series.add(sid);
+      }
+    }
+    out.need(3 * Integer.BYTES).putInt(numbers.get(c.name)).putInt(numbers.get(c.zone.getId()))
+        .putInt(series.size());
+    for (SeriesId sid : series) {
+      UUID id = sid.value();
+      out.need(2 * Long.BYTES).putLong(id.getMostSignificantBits())
+          .putLong(id.getLeastSignificantBits());
+    }
+    out.need(Integer.BYTES).putInt(c.events.size());
+    for (Event e : c.events) {
+      UUID id = e.id().value();
+      SeriesId sid = c.series.get(e.id());
+      out.need(ROW_BYTES)
+          .putLong(id.getMostSignificantBits())
+          .putLong(id.getLeastSignificantBits())
+          .putInt(numbers.get(e.subject()))
+          .putLong(e.startEpochSecond())
+          .putInt(e.startNano())
+          .putLong(e.endEpochSecond())
+          .putInt(e.endNano())
+          .putInt(numbers.get(e.description().orElse("")))
+          .putInt(numbers.get(e.location().orElse("")))
+          .put((byte) e.status().ordinal())
+          .putInt(sid == null ? -1 : seriesNumbers.get(sid));
+    }
+  }
+
+  private static Calendar readCalendar(Input in, String[] strings) throws IOException {
+    ByteBuffer b = in.need(3 * Integer.BYTES);
+    String name = strings[b.getInt()];
+    ZoneId zone = ZoneId.of(strings[b.getInt()]);
+    SeriesId[] series = new SeriesId[b.getInt()];
+    for (int i = 0; i < series.length; i++) {
+      b = in.need(2 * Long.BYTES);
+      series[i] = new SeriesId(new UUID(b.getLong(), b.getLong()));
+    }
+    int n = in.need(Integer.BYTES).getInt();
+    List<Event> events = new ArrayList<>(n);
+    Map<EventId, SeriesId> members = series.length == 0 ? Map.of() : new HashMap<>(n * 2);
+    for (int i = 0; i < n; i++) {
+      b = in.need(ROW_BYTES);
+      EventId id = new EventId(new UUID(b.getLong(), b.getLong()));
+      String subject = strings[b.getInt()];
+      LocalDateTime start = LocalDateTime.ofEpochSecond(b.getLong(), b.getInt(), ZoneOffset.UTC);
+      LocalDateTime end = LocalDateTime.ofEpochSecond(b.getLong(), b.getInt(), ZoneOffset.UTC);
+      events.add(new Event.Builder()
+          .id(id)
+          .subject(subject)
+          .start(start)
+          .end(end)
+          .description(strings[b.getInt()])
+          .location(strings[b.getInt()])
+          .status(STATUSES[b.get()])
+          .build());
+      int s = b.getInt();
+      if (s >= 0) {
+        members.put(id, series[s]);
+      }
+    }
+    return new Calendar(name, zone, events, members);
+  }
+
+  private static int checksum(FileChannel channel, long end) throws IOException {
+    CRC32C crc = new CRC32C();
+    ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+    long position = 0;
+    while (position < end) {
+      buf.clear().limit((int) Math.min(BUFFER, end - position));
+      int n = channel.read(buf, position);
+      if (n < 0) {
+        throw new IOException("Calendar snapshot ended early");
+      }
+      position += n;
+      crc.update(buf.flip());
+    }
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Buffered appends to a channel; the checksum covers every byte written before
+   * {@link #finish}.
+   */
+  private static final class Output {
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+
+    Output(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * Returns the buffer with room for {@code n} more bytes.
+     */
+    ByteBuffer need(int n) throws IOException {
+      if (buf.remaining() < n) {
+        flush();
+        if (buf.capacity() < n) {
+          buf = ByteBuffer.allocate(n);
+        }
+      }
+      return buf;
+    }
+
+    void putString(String s) throws IOException {
+      byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+      need(Integer.BYTES + utf8.length).putInt(utf8.length).put(utf8);
+    }
+
+    void finish() throws IOException {
+      flush();
+      buf.putInt((int) crc.getValue());
+      buf.flip();
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+    }
+
+    private void flush() throws IOException {
+      buf.flip();
+      crc.update(buf.duplicate());
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+      buf.clear();
+    }
+  }
+
+  /**
+   * Buffered reads of the bytes before the trailing checksum.
+   */
+  private static final class Input {
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER).limit(0);
+
+    Input(FileChannel channel, long end) {
+      this.channel = channel;
+      this.end = end;
+    }
+
+    /**
+     * Returns the buffer with at least {@code n} unread bytes.
+     */
+    ByteBuffer need(int n) throws IOException {
+      if (buf.remaining() >= n) {
+        return buf;
+      }
+      if (buf.capacity() < n) {
+        buf = ByteBuffer.allocate(n).put(buf).flip();
+      }
+      buf.compact();
+      while (buf.position() < n) {
+        int want = (int) Math.min(buf.remaining(), end - position);
+        if (want <= 0) {
+          throw new IOException("Calendar snapshot ended early");
+        }
+        int read = channel.read(buf.limit(buf.position() + want), position);
+        if (read < 0) {
+          throw new IOException("Calendar snapshot ended early");
+        }
+        position += read;
+        buf.limit(buf.capacity());
+      }
+      return buf.flip();
+    }
+
+    String getString() throws IOException {
+      int n = need(Integer.BYTES).getInt();
+      if (n < 0) {
+        throw new IOException("Calendar snapshot is damaged");
+      }
+      ByteBuffer b = need(n);
+      String s = new String(b.array(), b.arrayOffset() + b.position(), n,
+          StandardCharsets.UTF_8);
+      b.position(b.position() + n);
+      return s;
+    }
+
+    int trailer() throws IOException {
+      ByteBuffer b = ByteBuffer.allocate(Integer.BYTES);
+      while (b.hasRemaining()) {
+        if (channel.read(b, end + b.position()) < 0) {
+          throw new IOException("Calendar snapshot ended early");
+        }
+      }
+      return b.getInt(0);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package calendar.model.wal;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * When a {@link WriteAheadLog} forces appended records to the storage device, and when a
+ * {@link Journal} replaces its log with a snapshot.
+ *
+ * <p>Every record reaches the operating system as it is appended, so it survives a crash of
+ * the process. Surviving a power failure takes an fsync, which costs far more than the write;
+ * group commit lets one fsync cover several records:</p>
+ * <ul>
+ *   <li><b>syncEvery</b>: fsync once this many records are pending; 1 (the default) syncs
+ *       every record, 0 leaves it to the interval, {@link WriteAheadLog#sync} and close.</li>
+ *   <li><b>syncInterval</b>: if positive, a background thread also syncs pending records this
+ *       often, which bounds how long a record can stay unsynced.</li>
+ *   <li><b>snapshotEvery</b>: if positive, a journal writes a snapshot in the background once
+ *       this many records were logged since the last one, so that a restart replays at most
+ *       about that many records.</li>
+ * </ul>
+ */
+public final class WalOptions {
+  private final int syncEvery;
+  private final Duration syncInterval;
+  private final long snapshotEvery;
+
+  private WalOptions(int syncEvery, Duration syncInterval, long snapshotEvery) {
+    if (syncEvery < 0) {
+      throw new IllegalArgumentException("syncEvery must not be negative");
+    }
+    if (snapshotEvery < 0) {
+      throw new IllegalArgumentException("snapshotEvery must not be negative");
+    }
+    this.snapshotEvery = snapshotEvery;
+    this.syncEvery = syncEvery;
+    this.syncInterval = Objects.requireNonNull(syncInterval, "syncInterval");
+    if (syncInterval.isNegative()) {
+      throw new IllegalArgumentException("syncInterval must not be negative");
+    }
+  }
+
+  /**
+   * Syncs every record, with no background thread and no automatic snapshots.
+   */
+  public static WalOptions defaults() {
+    return new WalOptions(1, Duration.ZERO, 0);
+  }
+
+  /** Returns how many pending records trigger an fsync; 0 means never on append. */
+  public int syncEvery() {
+    return syncEvery;
+  }
+
+  /**
+   * Returns a copy of these options with a different group size.
+   *
+   * @param records pending records per fsync; 0 disables count-based syncing
+   * @return new options instance
+   */
+  public WalOptions withSyncEvery(int records) {
+    return new WalOptions(records, syncInterval, snapshotEvery);
+  }
+
+  /** Returns how often pending records are synced in the background; zero means never. */
+  public Duration syncInterval() {
+    return syncInterval;
+  }
+
+  /**
+   * Returns a copy of these options with a different background sync interval.
+   *
+   * @param interval time between background syncs; zero disables them
+   * @return new options instance
+   */
+  public WalOptions withSyncInterval(Duration interval) {
+    return new WalOptions(syncEvery, interval, snapshotEvery);
+  }
+
+  /** Returns how many logged records trigger a background snapshot; 0 means never. */
+  public long snapshotEvery() {
+    return snapshotEvery;
+  }
+
+  /**
+   * Returns a copy of these options with a different snapshot period.
+   *
+   * @param records records logged between snapshots; 0 disables automatic snapshots
+   * @return new options instance
+   */
+  public WalOptions withSnapshotEvery(long records) {
+    return new WalOptions(syncEvery, syncInterval, records);
+  }
+}
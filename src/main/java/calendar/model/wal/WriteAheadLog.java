@@ -0,0 +1,294 @@
+package calendar.model.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only file of checksummed records.
+ *
+ * <h2>Design: Length, Checksum, Payload</h2>
+ *
+ * <p>After an 8-byte file header (magic, version) each record is a 4-byte payload length, the
+ * 4-byte CRC-32C of the payload, and the payload. {@link #open} reads the records in order and
+ * stops at the first one that is cut short or fails its checksum: that is where a crash
+ * interrupted an append, and nothing after it was ever acknowledged. The file is truncated
+ * there so new records follow the last good one.</p>
+ *
+ * <p><b>Why write every record immediately?</b> A record handed to the OS survives a crash of
+ * the process at the cost of one {@code write} call. Only the fsync, which makes it survive a
+ * power failure, is grouped, as {@link WalOptions} configures.</p>
+ *
+ * <p>Appends are serialized by the log's monitor.</p>
+ */
+public final class WriteAheadLog implements Closeable {
+  private static final int MAGIC = 0x43574131;
+  private static final int VERSION = 1;
+  private static final int FILE_HEADER_BYTES = 8;
+  private static final int RECORD_HEADER_BYTES = 8;
+  private static final int MAX_PAYLOAD = 64 << 20;
+  private static final int READ_BUFFER = 1 << 20;
+
+  private final Path file;
+  private final FileChannel channel;
+  private final WalOptions options;
+  private final CRC32C crc = new CRC32C();
+  private final long recovered;
+  private ByteBuffer out = ByteBuffer.allocate(4096);
+  private ScheduledExecutorService flusher;
+  private IOException failure;
+  private int pending;
+
+  private WriteAheadLog(Path file, FileChannel channel, WalOptions options,
+                        Consumer<ByteBuffer> replay) throws IOException {
+    this.file = file;
+    this.channel = channel;
+    this.options = options;
+    if (channel.size() == 0) {
+      ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+      channel.write(header.flip(), 0);
+      channel.force(false);
+      recovered = 0;
+    } else {
+      recovered = replay(replay);
+    }
+    channel.position(channel.size());
+  }
+
+  /**
+   * Opens the log in {@code file}, creating it if needed, and passes every intact record's
+   * payload to {@code replay} in append order before returning. A torn tail is cut off.
+   *
+   * @param file    the log file
+   * @param options when to fsync appended records
+   * @param replay  receives each recovered payload, positioned at its first byte
+   * @return the log, ready for appends after the last recovered record
+   * @throws IOException if the file cannot be read or is not a log file
+   */
+  public static WriteAheadLog open(Path file, WalOptions options, Consumer<ByteBuffer> replay)
+      throws IOException {
+    return open(file, FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE), options, replay);
+  }
+
+  /**
+   * Same as {@link #open(Path, WalOptions, Consumer)} on an already open channel, which the log
+   * takes over and closes.
+   */
+  static WriteAheadLog open(Path file, FileChannel channel, WalOptions options,
+                            Consumer<ByteBuffer> replay) throws IOException {
+    try {
+      WriteAheadLog log = new WriteAheadLog(file, channel, options, replay);
+      log.startFlusher();
+      return log;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns how many records {@link #open} replayed.
+   */
+  public long recovered() {
+    return recovered;
+  }
+
+  /**
+   * Appends one record and, if the options say so, syncs it.
+   *
+   * @param payload the record bytes, from index 0
+   * @param length  number of payload bytes
+   * @throws UncheckedIOException if the record cannot be written, or an earlier background
+   *                              sync failed
+   */
+  public synchronized void append(byte[] payload, int length) {
+    try {
+      throwFailure();
+      if (length > MAX_PAYLOAD) {
+        throw new IllegalArgumentException("Log record too large: " + length + " bytes");
+      }
+      if (out.capacity() < RECORD_HEADER_BYTES + length) {
+        out = ByteBuffer.allocate(RECORD_HEADER_BYTES + length);
+      }
+      crc.reset();
+      crc.update(payload, 0, length);
+      out.clear();
+      out.putInt(length).putInt((int) crc.getValue()).put(payload, 0, length).flip();
+      write(out);
+      pending++;
+      if (options.syncEvery() > 0 && pending >= options.syncEvery()) {
+        force();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to append to log " + file, e);
+    }
+  }
+
+  /**
+   * Forces every appended record to the storage device.
+   *
+   * @throws UncheckedIOException if the sync fails
+   */
+  public synchronized void sync() {
+    try {
+      throwFailure();
+      force();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to sync log " + file, e);
+    }
+  }
+
+  /**
+   * Syncs pending records, stops the background flusher and closes the file.
+   */
+  @Override
+  public void close() throws IOException {
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    synchronized (this) {
+      try {
+        throwFailure();
+        force();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Writes one whole record at the end of the file. If the write fails part way, the bytes
+   * already written are cut off again so the next record does not follow a torn one. If even
+   * that fails, the failure is kept and every later append throws it: a record written after
+   * the torn bytes would be acknowledged but lost on the next {@link #open}.
+   */
+  private void write(ByteBuffer record) throws IOException {
+    long start = channel.position();
+    try {
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+    } catch (IOException e) {
+      try {
+        channel.truncate(start);
+        channel.position(start);
+      } catch (IOException truncateFailure) {
+        e.addSuppressed(truncateFailure);
+        failure = e;
+      }
+      throw e;
+    }
+  }
+
+  private void force() throws IOException {
+    if (pending > 0) {
+      channel.force(false);
+      pending = 0;
+    }
+  }
+
+  private void throwFailure() throws IOException {
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void startFlusher() {
+    if (options.syncInterval().isZero()) {
+      return;
+    }
+    flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "wal-flusher");
+      t.setDaemon(true);
+      return t;
+    });
+    long nanos = options.syncInterval().toNanos();
+    flusher.scheduleWithFixedDelay(this::backgroundSync, nanos, nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Syncs from the flusher thread. A failure is kept and thrown to the next caller, since
+   * nobody waits on this thread.
+   */
+  private synchronized void backgroundSync() {
+    if (failure != null || !channel.isOpen()) {
+      return;
+    }
+    try {
+      force();
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  /**
+   * Reads records from the start of the file, handing each intact payload to {@code replay},
+   * and truncates the file after the last one.
+   */
+  private long replay(Consumer<ByteBuffer> replay) throws IOException {
+    ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+    in.limit(0);
+    channel.position(0);
+    if (!fill(in, FILE_HEADER_BYTES) || in.getInt() != MAGIC || in.getInt() != VERSION) {
+      throw new IOException("Not a calendar log file: " + file);
+    }
+    long end = FILE_HEADER_BYTES;
+    long count = 0;
+    while (true) {
+      if (!fill(in, RECORD_HEADER_BYTES)) {
+        break;
+      }
+      int length = in.getInt(in.position());
+      if (length < 0 || length > MAX_PAYLOAD) {
+        break;
+      }
+      if (in.capacity() < RECORD_HEADER_BYTES + length) {
+        in = ByteBuffer.allocate(RECORD_HEADER_BYTES + length).put(in).flip();
+      }
+      if (!fill(in, RECORD_HEADER_BYTES + length)) {
+        break;
+      }
+      int checksum = in.getInt(in.position() + Integer.BYTES);
+      ByteBuffer payload = in.slice(in.position() + RECORD_HEADER_BYTES, length);
+      crc.reset();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      replay.accept(payload.asReadOnlyBuffer());
+      in.position(in.position() + RECORD_HEADER_BYTES + length);
+      end += RECORD_HEADER_BYTES + length;
+      count++;
+    }
+    if (end < channel.size()) {
+      channel.truncate(end);
+      channel.force(false);
+    }
+    return count;
+  }
+
+  /**
+   * Reads until {@code in} has at least {@code needed} unread bytes; false at end of file.
+   */
+  private boolean fill(ByteBuffer in, int needed) throws IOException {
+    while (in.remaining() < needed) {
+      in.compact();
+      int n = channel.read(in);
+      in.flip();
+      if (n < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,253 @@
+package calendar.view;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An {@link Appendable} that collects output in memory and writes it to a sink in large
+ * blocks, at command boundaries.
+ *
+ * <h2>Design: Block Buffer with Optional Writer Thread</h2>
+ *
+ * <p>Appends only copy into the current block. {@link #endCommand} writes the block once it
+ * holds at least a block's worth of characters, so a script of short commands reaches the sink
+ * in a few large writes instead of one per line; a single command that prints more than four
+ * blocks is written as it goes, which keeps memory bounded. {@link #flush} writes everything
+ * and flushes the sink.</p>
+ *
+ * <p>{@link #async} hands full blocks to a writer thread instead of writing them itself. The
+ * command loop then only waits for the sink when every spare block is still queued, so a slow
+ * terminal costs throughput only once it is slower than the commands for a sustained stretch.
+ * Blocks are reused, and are written in the order they were filled.</p>
+ *
+ * <p><b>Where should it not be used?</b> Interactive sessions: a prompt written before the
+ * loop waits for input would stay in the buffer. The controller and the view must share one
+ * instance so that prompts and command output keep their order.</p>
+ *
+ * <p>Not thread-safe for appending; one command loop appends. {@link #close} flushes and stops
+ * the writer thread but does not close the sink. A write failure is reported by the next call
+ * that hands over a block, and by {@code flush} and {@code close}.</p>
+ */
+public final class BatchedOutput implements Appendable, Flushable, Closeable {
+  /** Default block size in characters. */
+  public static final int DEFAULT_BLOCK_CHARS = 1 << 16;
+  private static final int ASYNC_BLOCKS = 4;
+
+  private final Appendable sink;
+  private final int blockChars;
+  private StringBuilder block;
+  private final BlockWriter writer;
+
+  private BatchedOutput(Appendable sink, int blockChars, boolean async) {
+    this.sink = Objects.requireNonNull(sink, "sink");
+    if (blockChars < 1) {
+      throw new IllegalArgumentException("blockChars must be positive");
+    }
+    this.blockChars = blockChars;
+    this.block = new StringBuilder(blockChars + blockChars / 4);
+    this.writer = async ? new BlockWriter() : null;
+  }
+
+  /**
+   * Batches output for {@code sink}, writing on the calling thread.
+   *
+   * @param sink where blocks are written
+   * @param blockChars characters collected before a command boundary writes them
+   * @return the batched output
+   */
+  public static BatchedOutput of(Appendable sink, int blockChars) {
+    return new BatchedOutput(sink, blockChars, false);
+  }
+
+  /**
+   * Batches output for {@code sink}, writing blocks on a writer thread.
+   *
+   * @param sink where blocks are written; only the writer thread appends to it
+   * @param blockChars characters collected before a command boundary hands them over
+   * @return the batched output; close it to stop the writer thread
+   */
+  public static BatchedOutput async(Appendable sink, int blockChars) {
+    return new BatchedOutput(sink, blockChars, true);
+  }
+
+  @Override
+  public BatchedOutput append(CharSequence csq) throws IOException {
+    block.append(csq);
+    return capped();
+  }
+
+  @Override
+  public BatchedOutput append(CharSequence csq, int start, int end) throws IOException {
+    block.append(csq, start, end);
+    return capped();
+  }
+
+  @Override
+  public BatchedOutput append(char c) throws IOException {
+    block.append(c);
+    return capped();
+  }
+
+  /**
+   * Marks the end of a command: writes the collected output if it fills a block.
+   *
+   * @throws IOException if an earlier write failed
+   */
+  public void endCommand() throws IOException {
+    if (block.length() >= blockChars) {
+      handOver();
+    }
+  }
+
+  /**
+   * Writes everything collected so far, waits until it is written, and flushes the sink.
+   *
+   * @throws IOException if a write or the flush fails
+   */
+  @Override
+  public void flush() throws IOException {
+    if (block.length() > 0) {
+      handOver();
+    }
+    if (writer != null) {
+      writer.awaitWritten();
+    }
+    if (sink instanceof Flushable) {
+      ((Flushable) sink).flush();
+    }
+  }
+
+  /**
+   * Flushes, then stops the writer thread. The sink stays open.
+   *
+   * @throws IOException if a write or the flush fails
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      if (writer != null) {
+        writer.stop();
+      }
+    }
+  }
+
+  private BatchedOutput capped() throws IOException {
+    if (block.length() >= blockChars * 4) {
+      handOver();
+    }
+    return this;
+  }
+
+  private void handOver() throws IOException {
+    if (writer == null) {
+      try {
+        sink.append(block);
+      } finally {
+        block.setLength(0);
+      }
+    } else {
+      block = writer.swap(block);
+    }
+  }
+
+  /**
+   * Appends queued blocks to the sink in order and returns them for reuse.
+   */
+  private final class BlockWriter implements Runnable {
+    private final BlockingQueue<StringBuilder> full = new ArrayBlockingQueue<>(ASYNC_BLOCKS);
+    private final BlockingQueue<StringBuilder> spare = new ArrayBlockingQueue<>(ASYNC_BLOCKS);
+    private final StringBuilder stop = new StringBuilder(0);
+    private final Thread thread;
+    private long handed;
+    private long written;
+    private volatile IOException failure;
+
+    BlockWriter() {
+      for (int i = 1; i < ASYNC_BLOCKS; i++) {
+        spare.add(new StringBuilder(blockChars + blockChars / 4));
+      }
+      thread = new Thread(this, "calendar-output");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /**
+     * Queues {@code filled} and returns an empty block to fill next.
+     */
+    StringBuilder swap(StringBuilder filled) throws IOException {
+      rethrow();
+      try {
+        StringBuilder next = spare.take();
+        synchronized (this) {
+          handed++;
+        }
+        full.put(filled);
+        return next;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while writing output", e);
+      }
+    }
+
+    synchronized void awaitWritten() throws IOException {
+      try {
+        while (written < handed) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while writing output", e);
+      }
+      rethrow();
+    }
+
+    void stop() {
+      try {
+        full.put(stop);
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          StringBuilder next = full.take();
+          if (next == stop) {
+            return;
+          }
+          if (failure == null) {
+            try {
+              sink.append(next);
+            } catch (IOException e) {
+              failure = e;
+            }
+          }
+          next.setLength(0);
+          synchronized (this) {
+            written++;
+            notifyAll();
+          }
+          spare.put(next);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void rethrow() throws IOException {
+      IOException e = failure;
+      if (e != null) {
+        throw e;
+      }
+    }
+  }
+}
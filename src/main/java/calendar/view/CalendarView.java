@@ -41,4 +41,13 @@ public interface CalendarView {
    * @param status of the user, BUSY or AVAILABLE.
    */
   void printStatus(BusyStatus status);
+
+  /**
+   * Marks the end of a command's output. Views that batch output may write it out here; the
+   * default does nothing.
+   *
+   * @throws IOException if writing batched output fails.
+   */
+  default void endCommand() throws IOException {
+  }
 }
@@ -10,11 +10,19 @@ import java.util.List;
 
 /**
  * Implements Calendar View and prints out responses to users.
+ *
+ * <p>Each print call formats its lines into one reusable buffer, writing dates and times digit
+ * by digit, and hands the buffer to the output in one {@code append} (or one per 64K chars for
+ * a very long listing). Around a {@link java.io.PrintStream} that is one synchronized write per
+ * command instead of one per event. Wrap the output in a {@link BatchedOutput} to also write
+ * several commands' output at once.</p>
  */
 public class CalendarViewImpl implements CalendarView {
   private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-  private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+  private static final String NEWLINE = System.lineSeparator();
+  private static final int DRAIN_CHARS = 1 << 16;
   private final Appendable output;
+  private final StringBuilder pending = new StringBuilder();
 
   /**
    * Creates a view for printing out output.
@@ -31,21 +39,14 @@ public class CalendarViewImpl implements CalendarView {
    * @param message to output.
    */
   public void printMessage(String message) throws IOException {
+    pending.append(message).append(NEWLINE);
     try {
-      output.append(message).append(System.lineSeparator());
+      drain();
     } catch (IOException e) {
       throw new IOException("Error with outputting: ", e);
     }
   }
 
-  private void appendLine(String text) {
-    try {
-      output.append(text).append(System.lineSeparator());
-    } catch (IOException e) {
-      throw new RuntimeException("Failed to append output", e);
-    }
-  }
-
   /**
    * Gets all the events on the current date and prints them. (Or none message if none).
    *
@@ -54,41 +55,124 @@ public class CalendarViewImpl implements CalendarView {
    */
   @Override
   public void printEventsOn(LocalDate date, List<Event> events) {
-    appendLine("Events on " + date.format(DATE_FORMAT) + ":");
+    pending.append("Events on ");
+    appendDate(date);
+    pending.append(':').append(NEWLINE);
     for (Event e : events) {
-      String startTime = e.start().format(TIME_FORMAT);
-      String endTime = e.end().format(TIME_FORMAT);
-      String location = e.location().isPresent() ? " at " + e.location().get() : "";
-
-      appendLine("- " + e.subject() + " from " + startTime + " to " + endTime + location);
+      pending.append("- ").append(e.subject()).append(" from ");
+      appendTime(e.start());
+      pending.append(" to ");
+      appendTime(e.end());
+      appendLocation(e);
+      pending.append(NEWLINE);
+      drainIfLarge();
     }
 
-    appendLine("");
+    pending.append(NEWLINE);
+    drainUnchecked();
   }
 
   @Override
   public void printEventsFromTo(LocalDateTime from, LocalDateTime to, List<Event> events) {
-    appendLine("Events from " + from.format(DATE_FORMAT) + " " + from.format(TIME_FORMAT)
-        + " to " + to.format(DATE_FORMAT) + " " + to.format(TIME_FORMAT) + ":");
+    pending.append("Events from ");
+    appendDate(from.toLocalDate());
+    pending.append(' ');
+    appendTime(from);
+    pending.append(" to ");
+    appendDate(to.toLocalDate());
+    pending.append(' ');
+    appendTime(to);
+    pending.append(':').append(NEWLINE);
 
     for (Event e : events) {
-      String startDate = e.start().format(DATE_FORMAT);
-      String startTime = e.start().format(TIME_FORMAT);
-      String endDate = e.end().format(DATE_FORMAT);
-      String endTime = e.end().format(TIME_FORMAT);
-      String location = e.location().isPresent() ? " at " + e.location().get() : "";
-
-      appendLine("- " + e.subject()
-          + " starting on " + startDate + " at " + startTime
-          + ", ending on " + endDate + " at " + endTime
-          + location);
+      pending.append("- ").append(e.subject()).append(" starting on ");
+      appendDate(e.start().toLocalDate());
+      pending.append(" at ");
+      appendTime(e.start());
+      pending.append(", ending on ");
+      appendDate(e.end().toLocalDate());
+      pending.append(" at ");
+      appendTime(e.end());
+      appendLocation(e);
+      pending.append(NEWLINE);
+      drainIfLarge();
     }
 
-    appendLine("");
+    pending.append(NEWLINE);
+    drainUnchecked();
   }
 
   @Override
   public void printStatus(BusyStatus status) {
-    appendLine(status == BusyStatus.BUSY ? "User is BUSY" : "User is not BUSY");
+    pending.append(status == BusyStatus.BUSY ? "User is BUSY" : "User is not BUSY")
+        .append(NEWLINE);
+    drainUnchecked();
+  }
+
+  @Override
+  public void endCommand() throws IOException {
+    if (output instanceof BatchedOutput) {
+      ((BatchedOutput) output).endCommand();
+    }
+  }
+
+  private void appendLocation(Event e) {
+    if (e.location().isPresent()) {
+      pending.append(" at ").append(e.location().get());
+    }
+  }
+
+  /**
+   * Appends {@code yyyy-MM-dd}; years the pattern would sign or give as year-of-era go
+   * through the formatter.
+   */
+  private void appendDate(LocalDate date) {
+    int year = date.getYear();
+    if (year < 1 || year > 9999) {
+      pending.append(DATE_FORMAT.format(date));
+      return;
+    }
+    appendDigits(year, 1000);
+    pending.append('-');
+    appendDigits(date.getMonthValue(), 10);
+    pending.append('-');
+    appendDigits(date.getDayOfMonth(), 10);
+  }
+
+  /**
+   * Appends {@code HH:mm}.
+   */
+  private void appendTime(LocalDateTime time) {
+    appendDigits(time.getHour(), 10);
+    pending.append(':');
+    appendDigits(time.getMinute(), 10);
+  }
+
+  private void appendDigits(int value, int highest) {
+    for (int div = highest; div > 0; div /= 10) {
+      pending.append((char) ('0' + value / div % 10));
+    }
+  }
+
+  private void drainIfLarge() {
+    if (pending.length() >= DRAIN_CHARS) {
+      drainUnchecked();
+    }
+  }
+
+  private void drainUnchecked() {
+    try {
+      drain();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to append output", e);
+    }
+  }
+
+  private void drain() throws IOException {
+    try {
+      output.append(pending);
+    } finally {
+      pending.setLength(0);
+    }
   }
 }
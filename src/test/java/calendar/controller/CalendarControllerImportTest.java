@@ -0,0 +1,84 @@
+package calendar.controller;
+
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.config.CalendarSettings;
+import calendar.view.CalendarView;
+import calendar.view.CalendarViewImpl;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+/**
+ * Verifies the import command for CSV and iCalendar files.
+ */
+public class CalendarControllerImportTest {
+
+  private static String run(String... commands) throws Exception {
+    StringBuilder out = new StringBuilder();
+    CalendarController controller = new CalendarControllerImpl(
+        new StringReader(String.join("\n", commands) + "\nexit"), out,
+        CalendarSettings.defaults());
+    CalendarView view = new CalendarViewImpl(out);
+    controller.go(view);
+    return out.toString();
+  }
+
+  @Test
+  public void importReadsBackAnExportedCsv() throws Exception {
+    Path path = Path.of("sample_import.csv");
+    try {
+      run("create calendar --name a --timezone America/New_York",
+          "use calendar --name a",
+          "create event \"csv meeting\" from 2025-11-03T09:00 to 2025-11-03T10:30",
+          "export cal sample_import.csv");
+      String out = run("create calendar --name b --timezone America/New_York",
+          "use calendar --name b",
+          "import cal sample_import.csv",
+          "print events on 2025-11-03");
+
+      assertTrue(out, out.contains("(1 imported, 0 rejected)"));
+      assertTrue(out, out.contains("csv meeting"));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void importConvertsIcalTimesAndListsProblems() throws Exception {
+    Path path = Path.of("sample_import.ics");
+    Files.writeString(path, String.join("\r\n",
+        "BEGIN:VCALENDAR",
+        "BEGIN:VEVENT", "SUMMARY:Call", "DTSTART:20251103T150000Z", "DTEND:20251103T153000Z",
+        "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Monthly", "DTSTART:20251103T150000Z",
+        "DTEND:20251103T153000Z", "RRULE:FREQ=MONTHLY;COUNT=2", "END:VEVENT",
+        "END:VCALENDAR", ""));
+    try {
+      String out = run("create calendar --name c --timezone America/New_York",
+          "use calendar --name c",
+          "import cal sample_import.ics",
+          "show status on 2025-11-03T10:15");
+
+      assertTrue(out, out.contains("(1 imported, 1 rejected)"));
+      assertTrue(out, out.contains("line 7: unsupported RRULE FREQ=MONTHLY"));
+      assertTrue(out, out.contains("BUSY"));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void importReportsUnreadableFilesAndFormats() throws Exception {
+    String out = run("import cal nowhere.csv",
+        "create calendar --name d --timezone America/New_York",
+        "use calendar --name d",
+        "import cal nowhere.csv",
+        "import cal notes.txt");
+
+    assertTrue(out, out.contains("Error: No calendar selected."));
+    assertTrue(out, out.contains("Error: Failed to import calendar: Failed to import CSV"));
+    assertTrue(out, out.contains("Unsupported import format"));
+  }
+}
@@ -0,0 +1,103 @@
+package calendar.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.CalendarManager;
+import calendar.model.config.CalendarSettings;
+import calendar.view.CalendarViewImpl;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.format.DateTimeParseException;
+import org.junit.Test;
+
+/**
+ * Tests that the pipelined headless mode writes exactly what the serial loop writes.
+ */
+public class HeadlessPipelineTest {
+  private static final String SCRIPT = String.join("\n",
+      "create event early from 2025-11-01T09:00 to 2025-11-01T10:00",
+      "create calendar --name school --timezone America/New_York",
+      "use calendar --name school",
+      "create event \"Team sync\" from 2025-11-01T09:00 to 2025-11-01T10:00",
+      "create event clash from 2025-11-01T09:00 to 2025-11-01T08:00",
+      "create event bad from 2025-11-01 09:00",
+      "",
+      "edit event location \"Team sync\" from 2025-11-01T09:00 to 2025-11-01T10:00 with Lab",
+      "bogus\r\nprint events on 2025-11-01",
+      "show status on 2025-11-01T09:30",
+      "  exit  ",
+      "create event latecomer from 2025-11-02T09:00 to 2025-11-02T10:00");
+
+  private static String serial(String script) throws IOException {
+    StringBuilder out = new StringBuilder();
+    new CalendarControllerImpl(new StringReader(script), out, CalendarSettings.defaults(),
+        new CalendarManager()).go(new CalendarViewImpl(out));
+    return out.toString();
+  }
+
+  @Test
+  public void run_matchesSerialOutputAndStopsAtExit() throws Exception {
+    StringBuilder out = new StringBuilder();
+    boolean endsWithExit = new HeadlessPipeline(CalendarSettings.defaults(),
+        new CalendarManager()).run(new StringReader(SCRIPT), out);
+
+    assertEquals(serial(SCRIPT), out.toString());
+    assertTrue(out.toString().contains("- Team sync from 09:00 to 10:00 at Lab"));
+    assertFalse(out.toString().contains("latecomer"));
+    assertFalse(endsWithExit);
+  }
+
+  @Test
+  public void run_reportsFinalExitFromTheSamePass() throws Exception {
+    CalendarManager manager = new CalendarManager();
+    HeadlessPipeline pipeline = new HeadlessPipeline(CalendarSettings.defaults(), manager);
+
+    assertTrue(pipeline.run(new StringReader("print events on 2025-11-01\n\nEXIT\n\n"),
+        new StringBuilder()));
+    assertFalse(pipeline.run(new StringReader("exit\nprint events on 2025-11-01"),
+        new StringBuilder()));
+    assertFalse(pipeline.run(new StringReader(""), new StringBuilder()));
+  }
+
+  @Test
+  public void run_writesOutputBeforeAnUncaughtFailure() throws Exception {
+    String script = String.join("\n",
+        "create calendar --name school --timezone America/New_York",
+        "use calendar --name school",
+        "create event m from 2025-13-01T10:00 to 2025-11-01T11:00",
+        "exit");
+    StringBuilder serialOut = new StringBuilder();
+    assertThrows(DateTimeParseException.class, () -> new CalendarControllerImpl(
+        new StringReader(script), serialOut, CalendarSettings.defaults(),
+        new CalendarManager()).go(new CalendarViewImpl(serialOut)));
+
+    StringBuilder out = new StringBuilder();
+    assertThrows(DateTimeParseException.class, () -> new HeadlessPipeline(
+        CalendarSettings.defaults(), new CalendarManager()).run(new StringReader(script), out));
+    assertEquals(serialOut.toString(), out.toString());
+  }
+
+  @Test(timeout = 10_000)
+  public void run_rethrowsAnUncheckedReadFailure() {
+    Reader failing = new StringReader("print events on 2025-11-01\n") {
+      private boolean served;
+
+      @Override
+      public int read(char[] buf, int off, int len) throws IOException {
+        if (served) {
+          throw new IllegalStateException("Simulated read failure");
+        }
+        served = true;
+        return super.read(buf, off, len);
+      }
+    };
+    StringBuilder out = new StringBuilder();
+
+    assertThrows(IllegalStateException.class, () -> new HeadlessPipeline(
+        CalendarSettings.defaults(), new CalendarManager()).run(failing, out));
+  }
+}
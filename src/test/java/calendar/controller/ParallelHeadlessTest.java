@@ -0,0 +1,98 @@
+package calendar.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.CalendarManager;
+import calendar.model.config.CalendarSettings;
+import calendar.view.CalendarViewImpl;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import org.junit.Test;
+
+/**
+ * Tests that running calendars' commands concurrently gives the serial loop's output and
+ * calendars.
+ */
+public class ParallelHeadlessTest {
+  private static String serial(String script, CalendarManager manager) throws IOException {
+    StringBuilder out = new StringBuilder();
+    new CalendarControllerImpl(new StringReader(script), out, CalendarSettings.defaults(),
+        manager).go(new CalendarViewImpl(out));
+    return out.toString();
+  }
+
+  private static String events(CalendarManager manager, String calendar) {
+    StringBuilder sb = new StringBuilder();
+    manager.getCalendar(calendar).eventsOn(LocalDate.of(2025, 11, 1)).forEach(e ->
+        sb.append(e.subject()).append(' ').append(e.start()).append(' ')
+            .append(e.location().orElse("")).append('\n'));
+    return sb.toString();
+  }
+
+  @Test
+  public void run_interleavedCalendarsMatchSerial() throws Exception {
+    StringBuilder script = new StringBuilder(String.join("\n",
+        "create event early from 2025-11-01T09:00 to 2025-11-01T10:00",
+        "create calendar --name work --timezone America/New_York",
+        "create calendar --name home --timezone Europe/Paris",
+        ""));
+    for (int i = 0; i < 40; i++) {
+      script.append("use calendar --name ").append(i % 2 == 0 ? "work" : "home").append('\n');
+      LocalDateTime start = LocalDateTime.of(2025, 11, 1, 8, 0).plusMinutes(15L * i);
+      LocalDateTime end = start.plusMinutes(10);
+      script.append("create event E").append(i).append(" from ").append(start).append(" to ")
+          .append(end).append('\n');
+      script.append("edit event location E").append(i).append(" from ").append(start)
+          .append(" to ").append(end).append(" with Room").append(i).append('\n');
+      script.append("show status on ").append(start.plusMinutes(5)).append('\n');
+      if (i % 10 == 9) {
+        script.append("print events on 2025-11-01\n");
+        script.append("copy event E").append(i).append(" on ").append(start)
+            .append(" --target work to 2025-11-01T").append(14 + i / 10).append(":55\n");
+      }
+    }
+    script.append("bogus\nuse calendar --name nowhere\nexit\n");
+
+    CalendarManager serialManager = new CalendarManager();
+    CalendarManager parallelManager = new CalendarManager();
+    String expected = serial(script.toString(), serialManager);
+    StringBuilder out = new StringBuilder();
+    boolean endsWithExit = new ParallelHeadless(CalendarSettings.defaults(), parallelManager, 4)
+        .run(new StringReader(script.toString()), out);
+
+    assertEquals(expected, out.toString());
+    assertTrue(endsWithExit);
+    assertEquals(events(serialManager, "work"), events(parallelManager, "work"));
+    assertEquals(events(serialManager, "home"), events(parallelManager, "home"));
+  }
+
+  @Test
+  public void run_stopsAtAnUncaughtFailureLikeSerial() throws Exception {
+    String script = String.join("\n",
+        "create calendar --name work --timezone America/New_York",
+        "create calendar --name home --timezone America/New_York",
+        "use calendar --name work",
+        "create event a from 2025-11-01T09:00 to 2025-11-01T10:00",
+        "use calendar --name home",
+        "create event m from 2025-13-01T10:00 to 2025-11-01T11:00",
+        "create event b from 2025-11-01T09:00 to 2025-11-01T10:00",
+        "exit");
+    StringBuilder serialOut = new StringBuilder();
+    CalendarManager serialManager = new CalendarManager();
+    assertThrows(DateTimeParseException.class, () -> new CalendarControllerImpl(
+        new StringReader(script), serialOut, CalendarSettings.defaults(), serialManager)
+        .go(new CalendarViewImpl(serialOut)));
+
+    StringBuilder out = new StringBuilder();
+    CalendarManager parallelManager = new CalendarManager();
+    assertThrows(DateTimeParseException.class, () -> new ParallelHeadless(
+        CalendarSettings.defaults(), parallelManager, 2).run(new StringReader(script), out));
+    assertEquals(serialOut.toString(), out.toString());
+    assertEquals(events(serialManager, "home"), events(parallelManager, "home"));
+  }
+}
@@ -0,0 +1,50 @@
+package calendar.controller.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+/**
+ * Tests for CommandTrie: longest keyword prefix wins, as with the startsWith loop it replaced.
+ */
+public final class CommandTrieTest {
+
+  @Test
+  public void lookup_picksLongestRegisteredPrefix() {
+    CommandTrie trie = new CommandTrie();
+    CommandHandler edit = (line, view) -> { };
+    CommandHandler editEvent = (line, view) -> { };
+    CommandHandler print = (line, view) -> { };
+    trie.put("edit", edit);
+    trie.put("edit event", editEvent);
+    trie.put("print", print);
+
+    assertSame(editEvent, trie.lookup("edit event subject A from x"));
+    assertSame(editEvent, trie.lookup("edit events subject A from x"));
+    assertSame(edit, trie.lookup("edit series subject A from x"));
+    assertSame(edit, trie.lookup("edit even"));
+    assertSame(print, trie.lookup("printx"));
+    assertNull(trie.lookup("pri"));
+    assertNull(trie.lookup(""));
+    assertNull(trie.lookup("delete event"));
+
+    assertEquals("edit event", trie.keywordOf("edit events subject A from x"));
+    assertEquals("edit", trie.keywordOf("edit series subject A from x"));
+    assertNull(trie.keywordOf("pri"));
+  }
+
+  @Test
+  public void put_replacesHandlerAndRejectsEmptyKeyword() {
+    CommandTrie trie = new CommandTrie();
+    CommandHandler first = (line, view) -> { };
+    CommandHandler second = (line, view) -> { };
+    trie.put("use calendar", first);
+    trie.put("use calendar", second);
+
+    assertSame(second, trie.lookup("use calendar --name Work"));
+    assertThrows(IllegalArgumentException.class, () -> trie.put("", first));
+  }
+}
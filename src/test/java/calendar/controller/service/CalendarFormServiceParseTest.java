@@ -0,0 +1,80 @@
+package calendar.controller.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import calendar.controller.EditProperty;
+import calendar.model.api.EditScope;
+import calendar.model.recurrence.Weekday;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.Optional;
+import org.junit.Test;
+
+/**
+ * Tests for the lexer-based create/edit parsing in CalendarFormService: same shapes, values and
+ * errors as the regex patterns it replaced.
+ */
+public final class CalendarFormServiceParseTest {
+  private final CalendarFormService service = new CalendarFormService();
+
+  @Test
+  public void create_readsEveryShape() {
+    EventCreationRequest single = service.parseCreateEventCommand(
+        "  create event \"Team sync\" from 2025-03-01T09:00 to 2025-03-01T10:30 ");
+    assertEquals(EventCreationRequest.Pattern.SINGLE_TIMED, single.pattern());
+    assertEquals("Team sync", single.subject());
+    assertEquals(Optional.of(LocalDateTime.of(2025, 3, 1, 9, 0)), single.startDateTime());
+    assertEquals(Optional.of(LocalDateTime.of(2025, 3, 1, 10, 30)), single.endDateTime());
+
+    EventCreationRequest count = service.parseCreateEventCommand(
+        "create event gym from 2025-03-03T07:00 to 2025-03-03T08:00 repeats MWF for 12 times");
+    assertEquals(EventCreationRequest.Pattern.RECURRING_TIMED_COUNT, count.pattern());
+    assertEquals(EnumSet.of(Weekday.M, Weekday.W, Weekday.F), count.weekdays());
+    assertEquals(Optional.of(12), count.occurrences());
+
+    EventCreationRequest until = service.parseCreateEventCommand(
+        "create event Holiday on 2024-02-29 repeats SU until 2024-03-31");
+    assertEquals(EventCreationRequest.Pattern.RECURRING_ALL_DAY_UNTIL, until.pattern());
+    assertEquals(Optional.of(LocalDate.of(2024, 2, 29)), until.allDayDate());
+    assertEquals(Optional.of(LocalDate.of(2024, 3, 31)), until.untilDate());
+  }
+
+  @Test
+  public void create_keepsOldErrors() {
+    IllegalArgumentException format = assertThrows(IllegalArgumentException.class,
+        () -> service.parseCreateEventCommand("create event x from 2025-03-01 to 2025-03-02"));
+    assertEquals("Error: Invalid create event command format.", format.getMessage());
+
+    assertThrows(DateTimeParseException.class, () -> service.parseCreateEventCommand(
+        "create event x from 2025-02-30T09:00 to 2025-03-01T10:00"));
+    assertThrows(IllegalArgumentException.class, () -> service.parseCreateEventCommand(
+        "create event x on 2025-03-10 repeats M until 2025-03-01"));
+    assertThrows(NumberFormatException.class, () -> service.parseCreateEventCommand(
+        "create event x on 2025-03-10 repeats M for 99999999999 times"));
+  }
+
+  @Test
+  public void edit_triesQuotedThenBareForSubjectAndValueIndependently() {
+    EventEditRequest single = service.parseEditEventCommand(
+        "edit event location task from 2025-10-27T13:30 to 2025-10-27T14:30 with \"Room 101\"");
+    assertEquals(EditProperty.LOCATION, single.property());
+    assertEquals("task", single.subject());
+    assertEquals(Optional.of(LocalDateTime.of(2025, 10, 27, 14, 30)), single.end());
+    assertEquals("Room 101", single.newValue());
+    assertEquals(EditScope.SINGLE, single.scope());
+
+    EventEditRequest series = service.parseEditEventCommand(
+        "edit series subject \"Old name\" from 2025-10-27T13:30 with New");
+    assertEquals("Old name", series.subject());
+    assertEquals("New", series.newValue());
+    assertEquals(EditScope.ENTIRE_SERIES, series.scope());
+
+    IllegalArgumentException format = assertThrows(IllegalArgumentException.class,
+        () -> service.parseEditEventCommand(
+            "edit events subject a from 2025-10-27T13:30 with two words"));
+    assertEquals("Error: Invalid edit command format.", format.getMessage());
+  }
+}
@@ -0,0 +1,197 @@
+package calendar.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.EventDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.internal.InMemoryCalendar;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests for CsvImporter: exported files read back unchanged, quoting is honoured, and bad rows
+ * are reported without stopping the import.
+ */
+public final class CsvImporterTest {
+  private static final String HEADER = "Subject,Start Date,Start Time,End Date,End Time,"
+      + "All Day Event,Description,Location,Private\n";
+
+  private static Event ev(String subject, LocalDateTime s, LocalDateTime e) {
+    return new Event.Builder().subject(subject).start(s).end(e).build();
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status() + "|"
+          + e.description().orElse("") + "|" + e.location().orElse(""));
+    }
+    return out;
+  }
+
+  @Test
+  public void import_readsBackWhatCsvExporterWrote() throws IOException {
+    CalendarSettings settings = CalendarSettings.defaults();
+    LocalDate d = LocalDate.of(2025, 5, 5);
+    List<Event> events = List.of(
+        ev("All, Day", d.atTime(settings.allDayStart()), d.atTime(settings.allDayEnd())),
+        ev("Long all day", d.atTime(settings.allDayStart()),
+            d.plusDays(2).atTime(settings.allDayEnd())),
+        new Event.Builder().subject("Quote\"Test").start(d.atTime(9, 0)).end(d.atTime(10, 0))
+            .description("Line one\nline two").location("Room 1").status(Status.PRIVATE)
+            .build(),
+        ev("Cross", d.atTime(23, 30), d.plusDays(1).atTime(0, 10)));
+    Path tmp = Files.createTempFile("calendar", ".csv");
+    try {
+      new CsvExporter(settings).export(tmp, events);
+      CalendarApi cal = new InMemoryCalendar(settings);
+      ImportReport report = new CsvImporter(settings).importInto(tmp, cal);
+
+      assertEquals(4, report.imported());
+      assertEquals(0, report.rejected());
+      assertEquals(describe(events), describe(cal.allEvents()));
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  @Test
+  public void import_reportsBadRowsAndKeepsTheRest() throws IOException {
+    String csv = HEADER
+        + "Good,05/05/2025,9:00 AM,05/05/2025,10:00 AM,False,,,False\n"
+        + ",05/05/2025,9:00 AM,05/05/2025,10:00 AM,False,,,False\n"
+        + "Bad date,13/45/2025,9:00 AM,,10:00 AM,False,,,False\n"
+        + "Bad time,05/05/2025,nine,,10:00 AM,False,,,False\n"
+        + "\n"
+        + "Backwards,05/05/2025,11:00 AM,05/05/2025,10:00 AM,False,,,False\n"
+        + "good,05/05/2025,9:00 AM,05/05/2025,10:00 AM,False,,,False\n"
+        + "\"Multi\nline\",05/06/2025,9:00 am,,10:00 am,,\"a, b\",,true\n"
+        + "No end,05/06/2025,9:00 AM,,,False,,,False\n";
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = new CsvImporter(CalendarSettings.defaults(), 2)
+        .importInto(new StringReader(csv), cal);
+
+    assertEquals(2, report.imported());
+    assertEquals(6, report.rejected());
+    List<Long> lines = new ArrayList<>();
+    for (ImportReport.Problem p : report.problems()) {
+      lines.add(p.line());
+    }
+    assertEquals(List.of(3L, 4L, 5L, 7L, 8L, 11L), lines);
+    assertTrue(report.problems().get(1).message().contains("Start Date"));
+
+    Event multi = cal.allEvents().get(1);
+    assertEquals("Multi\nline", multi.subject());
+    assertEquals("a, b", multi.description().orElse(""));
+    assertEquals(Status.PRIVATE, multi.status());
+    assertEquals(LocalDateTime.of(2025, 5, 6, 10, 0), multi.end());
+  }
+
+  @Test
+  public void parse_findsColumnsByHeaderName() throws IOException {
+    String csv = "\uFEFFlocation,subject,start date\r\nHome,Holiday,2025-12-25\r\n"
+        + "\"Quoted \"\"home\"\"\",Other,12/26/2025";
+    List<EventDraft> drafts = new ArrayList<>();
+    ImportReport report = new CsvImporter(CalendarSettings.defaults())
+        .parse(new StringReader(csv), drafts::add);
+
+    assertEquals(2, report.imported());
+    assertEquals("Holiday", drafts.get(0).subject);
+    assertEquals(LocalDate.of(2025, 12, 25), drafts.get(0).allDayDate.orElse(null));
+    assertEquals("Home", drafts.get(0).location.orElse(null));
+    assertEquals("Quoted \"home\"", drafts.get(1).location.orElse(null));
+  }
+
+  /**
+   * Reads of one char at a time put a buffer boundary at every position in a record, quoted
+   * fields and line breaks included.
+   */
+  @Test
+  public void parse_isTheSameWhateverTheReadSizes() throws IOException {
+    String csv = HEADER
+        + "\"A, \"\"b\"\"\",05/05/2025,9:00 AM,,10:00 AM,False,\"x\"\"\",\"\",True\r\n"
+        + "\"Two\r\nlines\",05/06/2025,,,,True,\"\"\"\"\"\",plain,\r\n"
+        + "Last,05/07/2025,1:00 PM,05/07/2025,2:00 PM,,,,\"False\"";
+    CsvImporter importer = new CsvImporter(CalendarSettings.defaults());
+    List<String> whole = new ArrayList<>();
+    importer.parse(new StringReader(csv), d -> whole.add(describe(d)));
+    List<String> trickled = new ArrayList<>();
+    ImportReport report = importer.parse(new FilterReader(new StringReader(csv)) {
+      @Override
+      public int read(char[] cbuf, int off, int len) throws IOException {
+        return super.read(cbuf, off, Math.min(len, 1));
+      }
+    }, d -> trickled.add(describe(d)));
+
+    assertEquals(3, report.imported());
+    assertEquals(whole, trickled);
+    assertEquals("A, \"b\"|2025-05-05T09:00|2025-05-05T10:00|x\"||PRIVATE", whole.get(0));
+    assertEquals("Two\r\nlines|2025-05-06||\"\"|plain|", whole.get(1));
+  }
+
+  private static String describe(EventDraft d) {
+    return d.subject + "|" + d.start.map(Object::toString).orElse(d.allDayDate.map(
+        Object::toString).orElse("")) + "|" + d.end.map(Object::toString).orElse("") + "|"
+        + d.description.orElse("") + "|" + d.location.orElse("") + "|"
+        + d.status.map(Object::toString).orElse("");
+  }
+
+  @Test
+  public void parse_reportsUnterminatedQuote() throws IOException {
+    String csv = HEADER + "Ok,05/05/2025,,,,True,,,\n\"Open,05/06/2025,,,,True,,,\n";
+    List<EventDraft> drafts = new ArrayList<>();
+    ImportReport report = new CsvImporter(CalendarSettings.defaults())
+        .parse(new StringReader(csv), drafts::add);
+
+    assertEquals(1, drafts.size());
+    assertEquals(1, report.rejected());
+    assertEquals(3, report.problems().get(0).line());
+  }
+
+  @Test
+  public void parse_rejectsHeaderWithoutRequiredColumns() {
+    CsvImporter importer = new CsvImporter(CalendarSettings.defaults());
+    assertThrows(IllegalArgumentException.class,
+        () -> importer.parse(new StringReader("Title,Start Date\nx,05/05/2025\n"), d -> { }));
+    assertThrows(IllegalArgumentException.class,
+        () -> importer.parse(new StringReader(""), d -> { }));
+  }
+
+  @Test
+  public void import_largeFileCrossesBufferAndBatchBoundaries() throws IOException {
+    StringBuilder csv = new StringBuilder(HEADER);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    String padding = "x".repeat(300);
+    for (int i = 0; i < 5000; i++) {
+      LocalDateTime s = base.plusHours(i);
+      csv.append("\"Event ").append(i).append(", \"\"quoted\"\"\",")
+          .append(String.format("%02d/%02d/%d", s.getMonthValue(), s.getDayOfMonth(),
+              s.getYear()))
+          .append(',').append(s.getHour()).append(":00,,").append(s.getHour()).append(":30,,")
+          .append(padding).append(",,\n");
+    }
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = new CsvImporter(CalendarSettings.defaults(), 1000)
+        .importInto(new StringReader(csv.toString()), cal);
+
+    assertEquals(5000, report.imported());
+    assertEquals(0, report.rejected());
+    List<Event> all = cal.allEvents();
+    assertEquals("Event 4999, \"quoted\"", all.get(4999).subject());
+    assertEquals(base.plusHours(4999).plusMinutes(30), all.get(4999).end());
+    assertEquals(padding, all.get(1234).description().orElse(""));
+  }
+}
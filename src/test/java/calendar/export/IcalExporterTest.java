@@ -1,17 +1,38 @@
 package calendar.export;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
 import calendar.model.config.CalendarSettings;
 import calendar.model.domain.Event;
 import calendar.model.domain.EventId;
 import calendar.model.domain.Status;
+import calendar.model.internal.InMemoryCalendar;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.Test;
 
 /**
@@ -178,6 +199,131 @@ public final class IcalExporterTest {
     }
   }
 
+  private static void edit(CalendarApi cal, String subject, LocalDateTime start,
+                           EventPatch patch) {
+    EventSelector selector = new EventSelector();
+    selector.subject = subject;
+    selector.start = start;
+    cal.updateBySelector(selector, patch, EditScope.SINGLE);
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status() + "|"
+          + e.description().orElse("") + "|" + e.location().orElse(""));
+    }
+    out.sort(null);
+    return out;
+  }
+
+  /**
+   * A daily series with one occurrence renamed and one moved out of the series: one master
+   * VEVENT, one override and one EXDATE, and importing the file rebuilds the same events.
+   */
+  @Test
+  public void seriesAreWrittenOnceWithOverridesAndExdates() throws IOException {
+    CalendarSettings settings = CalendarSettings.defaults();
+    CalendarApi cal = new InMemoryCalendar(settings);
+    SeriesDraft draft = new SeriesDraft();
+    draft.subject = "Daily";
+    draft.startDate = LocalDate.of(2025, 3, 3);
+    draft.startTime = Optional.of(LocalTime.of(9, 0));
+    draft.endTime = Optional.of(LocalTime.of(9, 15));
+    draft.location = Optional.of("Room, 2");
+    draft.rule = new RecurrenceRule(EnumSet.allOf(Weekday.class), Optional.of(400),
+        Optional.empty());
+    cal.createSeries(draft);
+    EventPatch rename = new EventPatch();
+    rename.subject = Optional.of("Daily; special");
+    rename.status = Optional.of(Status.PRIVATE);
+    edit(cal, "Daily", LocalDateTime.of(2025, 3, 10, 9, 0), rename);
+    EventPatch move = new EventPatch();
+    move.start = Optional.of(LocalDateTime.of(2025, 3, 12, 14, 0));
+    move.end = Optional.of(LocalDateTime.of(2025, 3, 12, 15, 0));
+    edit(cal, "Daily", LocalDateTime.of(2025, 3, 12, 9, 0), move);
+
+    Path tmp = Files.createTempFile("calendar-series", ".ics");
+    try {
+      CalendarSnapshot snapshot = cal.snapshot();
+      new IcalExporter(settings).export(tmp, snapshot.allEvents(),
+          snapshot.seriesMembership());
+      List<String> lines = Files.readAllLines(tmp);
+      assertEquals(3, lines.stream().filter("BEGIN:VEVENT"::equals).count());
+      assertEquals(1, lines.stream().filter(l -> l.startsWith("RRULE:")).count());
+      assertTrue(lines.contains("RRULE:FREQ=DAILY;COUNT=400"));
+      assertEquals(1, lines.stream().filter(l -> l.startsWith("EXDATE;")).count());
+      assertTrue(lines.stream().anyMatch(l -> l.startsWith("EXDATE;TZID=")
+          && l.endsWith(":20250312T090000")));
+      assertTrue(lines.stream().anyMatch(l -> l.startsWith("RECURRENCE-ID;TZID=")
+          && l.endsWith(":20250310T090000")));
+      assertEquals(1, lines.stream().filter(l -> l.startsWith("DTSTAMP:")).distinct().count());
+      assertEquals(List.of(ZoneId.systemDefault().getId()), checkedTimeZones(lines));
+
+      CalendarApi back = new InMemoryCalendar(settings);
+      ImportReport report = new IcalImporter(settings).importInto(tmp, back);
+      assertEquals(0, report.rejected());
+      assertEquals(describe(cal.allEvents()), describe(back.allEvents()));
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  @Test
+  public void allDayWeeklySeriesUsesDatesAndByday() throws IOException {
+    CalendarSettings settings = CalendarSettings.defaults();
+    CalendarApi cal = new InMemoryCalendar(settings);
+    SeriesDraft draft = new SeriesDraft();
+    draft.subject = "Cleanup";
+    draft.allDay = true;
+    draft.startDate = LocalDate.of(2025, 5, 3);
+    draft.rule = new RecurrenceRule(EnumSet.of(Weekday.S, Weekday.U), Optional.empty(),
+        Optional.of(LocalDate.of(2025, 5, 25)));
+    cal.createSeries(draft);
+
+    Path tmp = Files.createTempFile("calendar-all-day-series", ".ics");
+    try {
+      CalendarSnapshot snapshot = cal.snapshot();
+      new IcalExporter(settings).export(tmp, snapshot.allEvents(),
+          snapshot.seriesMembership());
+      List<String> lines = Files.readAllLines(tmp);
+      assertEquals(1, lines.stream().filter("BEGIN:VEVENT"::equals).count());
+      assertTrue(lines.contains("DTSTART;VALUE=DATE:20250503"));
+      assertTrue(lines.contains("DTEND;VALUE=DATE:20250504"));
+      assertTrue(lines.contains("RRULE:FREQ=WEEKLY;BYDAY=SA,SU;COUNT=8"));
+      assertFalse(lines.contains("BEGIN:VTIMEZONE"));
+
+      CalendarApi back = new InMemoryCalendar(settings);
+      new IcalImporter(settings).importInto(tmp, back);
+      assertEquals(describe(cal.allEvents()), describe(back.allEvents()));
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Returns every TZID the file uses, after checking that each has exactly one VTIMEZONE with
+   * at least one observance.
+   */
+  private static List<String> checkedTimeZones(List<String> lines) {
+    Set<String> used = new TreeSet<>();
+    Pattern tzid = Pattern.compile(";TZID=([^;:]+)[;:]");
+    for (String line : lines) {
+      Matcher m = tzid.matcher(line);
+      if (m.find()) {
+        used.add(m.group(1));
+      }
+    }
+    for (String zone : used) {
+      int at = lines.indexOf("TZID:" + zone);
+      assertTrue(zone, at > 0 && lines.get(at - 1).equals("BEGIN:VTIMEZONE"));
+      assertEquals(at, lines.lastIndexOf("TZID:" + zone));
+      assertTrue(zone, lines.get(at + 1).equals("BEGIN:STANDARD")
+          || lines.get(at + 1).equals("BEGIN:DAYLIGHT"));
+    }
+    return new ArrayList<>(used);
+  }
+
   private static String sanitizeForTest(String value) {
     if (value == null) {
       return "";
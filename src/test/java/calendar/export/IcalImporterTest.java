@@ -0,0 +1,221 @@
+package calendar.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.internal.InMemoryCalendar;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests for IcalImporter: times land in the calendar's zone, supported RRULEs become series,
+ * and VEVENTs that cannot be imported are reported without stopping the import.
+ */
+public final class IcalImporterTest {
+  private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+  private static String ics(String... lines) {
+    return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("\r\n", lines)
+        + "\r\nEND:VCALENDAR\r\n";
+  }
+
+  private static ImportReport load(CalendarApi cal, String text) throws IOException {
+    return new IcalImporter(CalendarSettings.defaults(), 2)
+        .importInto(new StringReader(text), cal, NEW_YORK);
+  }
+
+  private static List<Long> lines(ImportReport report) {
+    List<Long> lines = new ArrayList<>();
+    for (ImportReport.Problem p : report.problems()) {
+      lines.add(p.line());
+    }
+    return lines;
+  }
+
+  @Test
+  public void import_convertsZonesAndUnfoldsLines() throws IOException {
+    String text = ics(
+        "BEGIN:VTIMEZONE", "TZID:Europe/Paris", "BEGIN:STANDARD", "END:STANDARD", "END:VTIMEZONE",
+        "BEGIN:VEVENT", "SUMMARY:Utc", "DTSTART:20250505T140000Z", "DTEND:20250505T150000Z",
+        "DESCRIPTION:Line one\\nline two\\, with comma and semi\\;",
+        "LOCATION:Room", " 101", "CLASS:PRIVATE",
+        "BEGIN:VALARM", "SUMMARY:Not an event", "END:VALARM", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Paris", "DTSTART;TZID=\"Europe/Paris\":20250505T150000",
+        "DURATION:PT1H30M", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Floating", "DTSTART:20250505T080000",
+        "DTEND:20250505T083000", "END:VEVENT");
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = load(cal, text);
+
+    assertEquals(3, report.imported());
+    assertEquals(0, report.rejected());
+    List<Event> events = cal.allEvents();
+    assertEquals("Floating", events.get(0).subject());
+    assertEquals(LocalDateTime.of(2025, 5, 5, 8, 0), events.get(0).start());
+    assertEquals("Paris", events.get(1).subject());
+    assertEquals(LocalDateTime.of(2025, 5, 5, 9, 0), events.get(1).start());
+    assertEquals(LocalDateTime.of(2025, 5, 5, 10, 30), events.get(1).end());
+    Event utc = events.get(2);
+    assertEquals(LocalDateTime.of(2025, 5, 5, 10, 0), utc.start());
+    assertEquals("Line one\nline two, with comma and semi;", utc.description().orElse(""));
+    assertEquals("Room101", utc.location().orElse(""));
+    assertEquals(Status.PRIVATE, utc.status());
+  }
+
+  @Test
+  public void import_placesAllDayEventsInTheAllDayWindow() throws IOException {
+    CalendarSettings settings = CalendarSettings.defaults();
+    String text = ics(
+        "BEGIN:VEVENT", "SUMMARY:One day", "DTSTART;VALUE=DATE:20250601", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Three days", "DTSTART;VALUE=DATE:20250602",
+        "DTEND;VALUE=DATE:20250605", "END:VEVENT");
+    CalendarApi cal = new InMemoryCalendar(settings);
+    load(cal, text);
+
+    List<Event> events = cal.allEvents();
+    assertEquals(LocalDate.of(2025, 6, 1).atTime(settings.allDayStart()), events.get(0).start());
+    assertEquals(LocalDate.of(2025, 6, 1).atTime(settings.allDayEnd()), events.get(0).end());
+    assertEquals(LocalDate.of(2025, 6, 4).atTime(settings.allDayEnd()), events.get(1).end());
+  }
+
+  @Test
+  public void import_turnsSupportedRulesIntoSeries() throws IOException {
+    String text = ics(
+        "BEGIN:VEVENT", "UID:standup", "SUMMARY:Standup", "DTSTART:20250505T090000",
+        "DTEND:20250505T091500", "RRULE:FREQ=WEEKLY;BYDAY=MO,WE;COUNT=4", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Gym", "DTSTART;VALUE=DATE:20250506",
+        "RRULE:FREQ=DAILY;UNTIL=20250508", "END:VEVENT");
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = load(cal, text);
+
+    assertEquals(2, report.imported());
+    List<LocalDateTime> standups = new ArrayList<>();
+    int gym = 0;
+    for (Event e : cal.allEvents()) {
+      assertTrue(cal.seriesOfEvent(e.id()).isPresent());
+      if (e.subject().equals("Standup")) {
+        standups.add(e.start());
+      } else {
+        gym++;
+      }
+    }
+    assertEquals(List.of(LocalDateTime.of(2025, 5, 5, 9, 0), LocalDateTime.of(2025, 5, 7, 9, 0),
+        LocalDateTime.of(2025, 5, 12, 9, 0), LocalDateTime.of(2025, 5, 14, 9, 0)), standups);
+    assertEquals(3, gym);
+  }
+
+  @Test
+  public void import_splitsSeriesAtExcludedDates() throws IOException {
+    String text = ics(
+        "BEGIN:VEVENT", "SUMMARY:Skips", "DTSTART;TZID=America/New_York:20250505T090000",
+        "DTEND;TZID=America/New_York:20250505T100000", "RRULE:FREQ=WEEKLY;BYDAY=MO,TU;COUNT=6",
+        "EXDATE;TZID=America/New_York:20250506T090000,20250512T090000",
+        "EXDATE;TZID=America/New_York:20250520T090000", "END:VEVENT");
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = load(cal, text);
+
+    assertEquals(1, report.imported());
+    List<LocalDate> dates = new ArrayList<>();
+    for (Event e : cal.allEvents()) {
+      assertTrue(cal.seriesOfEvent(e.id()).isPresent());
+      dates.add(e.start().toLocalDate());
+    }
+    assertEquals(List.of(LocalDate.of(2025, 5, 5), LocalDate.of(2025, 5, 13),
+        LocalDate.of(2025, 5, 19)), dates);
+  }
+
+  @Test
+  public void import_appliesRecurrenceIdOverridesToOneOccurrence() throws IOException {
+    String text = ics(
+        "BEGIN:VEVENT", "UID:s1", "SUMMARY:Moved", "RECURRENCE-ID:20250512T090000",
+        "DTSTART:20250512T100000", "DTEND:20250512T103000", "END:VEVENT",
+        "BEGIN:VEVENT", "UID:s1", "SUMMARY:Review", "DTSTART:20250505T090000",
+        "DTEND:20250505T093000", "RRULE:FREQ=WEEKLY;COUNT=3", "END:VEVENT",
+        "BEGIN:VEVENT", "UID:missing", "SUMMARY:Orphan", "RECURRENCE-ID:20250512T090000",
+        "DTSTART:20250512T100000", "DTEND:20250512T103000", "END:VEVENT");
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = load(cal, text);
+
+    assertEquals(2, report.imported());
+    assertEquals(List.of(17L), lines(report));
+    List<Event> events = cal.allEvents();
+    assertEquals(3, events.size());
+    assertEquals("Moved", events.get(1).subject());
+    assertEquals(LocalDateTime.of(2025, 5, 12, 10, 0), events.get(1).start());
+    assertEquals("Review", events.get(2).subject());
+  }
+
+  @Test
+  public void import_reportsWhatItCannotRepresent() throws IOException {
+    String text = ics(
+        "BEGIN:VEVENT", "SUMMARY:Monthly", "DTSTART:20250505T090000", "DTEND:20250505T100000",
+        "RRULE:FREQ=MONTHLY;COUNT=3", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Forever", "DTSTART:20250505T090000", "DTEND:20250505T100000",
+        "RRULE:FREQ=WEEKLY", "END:VEVENT",
+        "BEGIN:VEVENT", "DTSTART:20250505T090000", "DTEND:20250505T100000", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Mars", "DTSTART;TZID=Mars/Olympus:20250505T090000",
+        "DTEND:20250505T100000", "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Kept", "DTSTART:20250505T090000", "DTEND:20250505T100000",
+        "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Kept", "DTSTART:20250505T090000", "DTEND:20250505T100000",
+        "END:VEVENT",
+        "BEGIN:VEVENT", "SUMMARY:Cut off", "DTSTART:20250505T090000");
+    CalendarApi cal = new InMemoryCalendar();
+    ImportReport report = load(cal, text);
+
+    assertEquals(1, report.imported());
+    assertEquals(6, report.rejected());
+    assertEquals(List.of(3L, 9L, 15L, 19L, 29L, 34L), lines(report));
+    assertTrue(report.problems().get(0).message().contains("MONTHLY"));
+    assertTrue(report.problems().get(2).message().contains("SUMMARY"));
+    assertTrue(report.problems().get(3).message().contains("Mars/Olympus"));
+    assertEquals(1, cal.allEvents().size());
+  }
+
+  @Test
+  public void import_readsBackWhatIcalExporterWrote() throws IOException {
+    CalendarSettings settings = CalendarSettings.defaults();
+    LocalDate d = LocalDate.of(2025, 5, 5);
+    List<Event> events = List.of(
+        new Event.Builder().subject("All; day").start(d.atTime(settings.allDayStart()))
+            .end(d.atTime(settings.allDayEnd())).build(),
+        new Event.Builder().subject("Meeting, weekly").start(d.atTime(9, 0))
+            .end(d.atTime(10, 0)).description("Line one\nline two \\ done")
+            .location("Room 1").status(Status.PRIVATE).build());
+    Path tmp = Files.createTempFile("calendar", ".ics");
+    try {
+      new IcalExporter(settings).export(tmp, events);
+      CalendarApi cal = new InMemoryCalendar(settings);
+      ImportReport report = new IcalImporter(settings).importInto(tmp, cal);
+
+      assertEquals(2, report.imported());
+      List<Event> back = cal.allEvents();
+      for (int i = 0; i < events.size(); i++) {
+        Event want = events.get(i);
+        Event got = back.get(i);
+        assertEquals(want.subject(), got.subject());
+        assertEquals(want.start(), got.start());
+        assertEquals(want.end(), got.end());
+        assertEquals(want.description(), got.description());
+        assertEquals(want.location(), got.location());
+        assertEquals(want.status(), got.status());
+        assertFalse(cal.seriesOfEvent(got.id()).isPresent());
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+}
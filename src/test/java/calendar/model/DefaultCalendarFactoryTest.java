@@ -0,0 +1,193 @@
+package calendar.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import calendar.model.api.EventDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.EventStore;
+import calendar.model.exception.ConflictException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DefaultCalendarFactory} event store selection and mapped calendar files.
+ */
+public final class DefaultCalendarFactoryTest {
+  private static final LocalDateTime NINE = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+  private Path dir;
+
+  private static EventDraft meeting() {
+    EventDraft d = new EventDraft();
+    d.subject = "Meeting";
+    d.start = Optional.of(NINE);
+    d.end = Optional.of(NINE.plusHours(1));
+    return d;
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("factory");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(p);
+      }
+    }
+  }
+
+  private DefaultCalendarFactory mapped() {
+    return new DefaultCalendarFactory(
+        CalendarSettings.defaults().withEventStore(EventStore.MAPPED), dir);
+  }
+
+  private long files() throws IOException {
+    try (Stream<Path> paths = Files.list(dir)) {
+      return paths.count();
+    }
+  }
+
+  @Test
+  public void everyStore_behavesLikeACalendar() throws IOException {
+    for (EventStore store : EventStore.values()) {
+      CalendarSettings settings = CalendarSettings.defaults().withEventStore(store);
+      try (TimeZoneInMemoryCalendarInterface cal = new DefaultCalendarFactory(settings, dir)
+          .create("America/New_York", store.name())) {
+        cal.create(meeting());
+        assertEquals(store.name(), 1, cal.eventsOn(NINE.toLocalDate()).size());
+      }
+    }
+  }
+
+  /**
+   * A mapped calendar created again under the same name sees the events of the first; a
+   * rejected name or timezone leaves no file.
+   */
+  @Test
+  public void mapped_reopensByName() throws IOException {
+    DefaultCalendarFactory factory = mapped();
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("UTC", "Work / Home")) {
+      cal.create(meeting());
+    }
+    assertEquals(1, files());
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("UTC", " Work / Home ")) {
+      assertEquals(1, cal.allEvents().size());
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> factory.create("Mars/Base", "Other"));
+    assertThrows(IllegalArgumentException.class, () -> factory.create("UTC", "  "));
+    assertEquals(1, files());
+  }
+
+  /**
+   * The file of an open calendar cannot be mapped again.
+   */
+  @Test
+  public void mapped_refusesSecondOpen() throws IOException {
+    DefaultCalendarFactory factory = mapped();
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("UTC", "Work")) {
+      assertThrows(UncheckedIOException.class, () -> factory.create("UTC", "Work"));
+      cal.create(meeting());
+    }
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("UTC", "Work")) {
+      assertEquals(1, cal.allEvents().size());
+    }
+  }
+
+  /**
+   * A renamed calendar keeps its file under the new name, and a new calendar under the old name,
+   * or under the old name in another case, gets a file of its own.
+   */
+  @Test
+  public void mapped_renameThenCreateWithOldName() throws IOException {
+    try (CalendarManager manager = new CalendarManager(mapped())) {
+      manager.createCalendar("Work", "UTC").create(meeting());
+      manager.editCalendarName("Work", "Home");
+      TimeZoneInMemoryCalendarInterface work = manager.createCalendar("Work", "UTC");
+      assertEquals(0, work.allEvents().size());
+      EventDraft other = meeting();
+      other.subject = "Other";
+      work.create(other);
+      manager.createCalendar("work", "UTC");
+      assertEquals(1, manager.getCalendar("Home").allEvents().size());
+      assertEquals(3, files());
+    }
+
+    try (CalendarManager manager = new CalendarManager(mapped())) {
+      assertEquals("Meeting",
+          manager.createCalendar("Home", "UTC").allEvents().get(0).subject());
+      assertEquals("Other", manager.createCalendar("Work", "UTC").allEvents().get(0).subject());
+      assertEquals(0, manager.createCalendar("work", "UTC").allEvents().size());
+    }
+  }
+
+  /**
+   * A calendar cannot take a name whose file is not open, since that name would then find two
+   * files.
+   */
+  @Test
+  public void mapped_renameToAStoredNameConflicts() throws IOException {
+    try (CalendarManager manager = new CalendarManager(mapped())) {
+      manager.createCalendar("Home", "UTC").create(meeting());
+    }
+    try (CalendarManager manager = new CalendarManager(mapped())) {
+      manager.createCalendar("Work", "UTC");
+      assertThrows(ConflictException.class, () -> manager.editCalendarName("Work", "Home"));
+      assertEquals(1, manager.createCalendar("Home", "UTC").allEvents().size());
+    }
+  }
+
+  /**
+   * A blank rename is rejected before the file records it.
+   */
+  @Test
+  public void mapped_blankRenameLeavesTheFileAlone() throws IOException {
+    try (TimeZoneInMemoryCalendarInterface cal = mapped().create("UTC", "Work")) {
+      cal.create(meeting());
+      assertThrows(IllegalArgumentException.class, () -> cal.setName("  "));
+      assertThrows(IllegalArgumentException.class, () -> cal.setName(null));
+      assertEquals("Work", cal.getName());
+    }
+    try (TimeZoneInMemoryCalendarInterface cal = mapped().create("UTC", "Work")) {
+      assertEquals(1, cal.allEvents().size());
+    }
+    assertEquals(1, files());
+  }
+
+  /**
+   * Reopening a calendar under another timezone keeps its events' instants.
+   */
+  @Test
+  public void mapped_reopenUnderAnotherZone() throws IOException {
+    DefaultCalendarFactory factory = mapped();
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("UTC", "Work")) {
+      cal.create(meeting());
+    }
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("America/New_York", "Work")) {
+      assertEquals(NINE.minusHours(4), cal.allEvents().get(0).start());
+    }
+    try (TimeZoneInMemoryCalendarInterface cal = factory.create("America/New_York", "Work")) {
+      assertEquals(NINE.minusHours(4), cal.allEvents().get(0).start());
+    }
+  }
+
+  @Test
+  public void mapped_needsADataDirectory() {
+    DefaultCalendarFactory factory = new DefaultCalendarFactory(
+        CalendarSettings.defaults().withEventStore(EventStore.MAPPED));
+    assertThrows(IllegalStateException.class, () -> factory.create("UTC", "Work"));
+  }
+}
@@ -4,11 +4,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThrows;
 
+import calendar.model.api.CalendarSnapshot;
 import calendar.model.api.EditScope;
 import calendar.model.api.EventDraft;
 import calendar.model.api.EventPatch;
 import calendar.model.api.EventSelector;
 import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.TimeStorage;
 import calendar.model.domain.BusyStatus;
 import calendar.model.domain.Event;
 import calendar.model.recurrence.RecurrenceRule;
@@ -17,7 +20,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import org.junit.Test;
 
@@ -158,4 +163,99 @@ public final class TimeZoneInMemoryCalendarTest {
     assertEquals(BusyStatus.AVAILABLE, calendar.statusAt(LocalDateTime.of(2025, 8, 1, 11, 0)));
   }
 
+  /**
+   * Under INSTANT storage a zone change is not applied to the stored events, yet every query,
+   * single edit, series-wide edit, all-day create and new series gives what LOCAL gives.
+   */
+  @Test
+  public void instantStorage_matchesLocalStorage() {
+    TimeZoneInMemoryCalendar local = new TimeZoneInMemoryCalendar("America/New_York", "A",
+        CalendarSettings.defaults());
+    TimeZoneInMemoryCalendar instant = new TimeZoneInMemoryCalendar("America/New_York", "B",
+        CalendarSettings.defaults().withTimeStorage(TimeStorage.INSTANT));
+    for (TimeZoneInMemoryCalendar cal : List.of(local, instant)) {
+      EventDraft late = new EventDraft();
+      late.subject = "Late call";
+      late.start = Optional.of(LocalDateTime.of(2025, 6, 2, 22, 0));
+      late.end = Optional.of(LocalDateTime.of(2025, 6, 2, 23, 30));
+      cal.create(late);
+      SeriesDraft standup = new SeriesDraft();
+      standup.subject = "Standup";
+      standup.startDate = LocalDate.of(2025, 6, 2);
+      standup.startTime = Optional.of(LocalTime.of(9, 0));
+      standup.endTime = Optional.of(LocalTime.of(9, 15));
+      standup.rule = new RecurrenceRule(EnumSet.of(Weekday.M, Weekday.W), Optional.of(6),
+          Optional.empty());
+      cal.createSeries(standup);
+    }
+    CalendarSnapshot before = instant.snapshot();
+
+    for (TimeZoneInMemoryCalendar cal : List.of(local, instant)) {
+      cal.setZoneId(ZoneId.of("Asia/Tokyo"));
+    }
+    assertSameView(local, instant);
+    assertEquals(1, before.eventsBySubjectAndStart("Late call",
+        LocalDateTime.of(2025, 6, 2, 22, 0)).size());
+
+    for (TimeZoneInMemoryCalendar cal : List.of(local, instant)) {
+      EventSelector call = new EventSelector();
+      call.subject = "Late call";
+      call.start = LocalDateTime.of(2025, 6, 3, 11, 0);
+      EventPatch later = new EventPatch();
+      later.start = Optional.of(LocalDateTime.of(2025, 6, 3, 13, 0));
+      cal.updateBySelector(call, later, EditScope.SINGLE);
+      EventSelector standup = new EventSelector();
+      standup.subject = "Standup";
+      standup.start = LocalDateTime.of(2025, 6, 4, 22, 0);
+      EventPatch room = new EventPatch();
+      room.location = Optional.of("Room 2");
+      cal.updateBySelector(standup, room, EditScope.FOLLOWING);
+    }
+    assertSameView(local, instant);
+
+    for (TimeZoneInMemoryCalendar cal : List.of(local, instant)) {
+      EventSelector standup = new EventSelector();
+      standup.subject = "Standup";
+      standup.start = LocalDateTime.of(2025, 6, 2, 22, 0);
+      EventPatch earlier = new EventPatch();
+      earlier.start = Optional.of(LocalDateTime.of(2025, 6, 2, 21, 0));
+      cal.updateBySelector(standup, earlier, EditScope.ENTIRE_SERIES);
+      EventDraft offsite = new EventDraft();
+      offsite.subject = "Offsite";
+      offsite.allDayDate = Optional.of(LocalDate.of(2025, 6, 6));
+      cal.create(offsite);
+      cal.setZoneId(ZoneId.of("Europe/London"));
+    }
+    assertSameView(local, instant);
+  }
+
+  private static void assertSameView(TimeZoneInMemoryCalendar expected,
+                                     TimeZoneInMemoryCalendar actual) {
+    assertEquals(shape(expected.allEvents()), shape(actual.allEvents()));
+    assertEquals(shape(expected.snapshot().allEvents()), shape(actual.snapshot().allEvents()));
+    LocalDateTime t = LocalDateTime.of(2025, 6, 1, 0, 0);
+    for (int i = 0; i < 24 * 4 * 14; i++) {
+      assertEquals(expected.statusAt(t), actual.statusAt(t));
+      if (i % 96 == 0) {
+        assertEquals(shape(expected.eventsOn(t.toLocalDate())),
+            shape(actual.eventsOn(t.toLocalDate())));
+      }
+      t = t.plusMinutes(15);
+    }
+    for (Event e : expected.allEvents()) {
+      assertEquals(shape(List.of(e)),
+          shape(actual.eventsBySubjectAndStart(e.subject(), e.start())));
+      assertEquals(expected.seriesOfEvent(e.id()).isPresent(),
+          actual.seriesOfEvent(actual.eventsBySubjectAndStart(e.subject(), e.start()).get(0)
+              .id()).isPresent());
+    }
+  }
+
+  private static List<String> shape(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.location().orElse(""));
+    }
+    return out;
+  }
 }
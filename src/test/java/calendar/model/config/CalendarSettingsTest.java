@@ -31,5 +31,50 @@ public final class CalendarSettingsTest {
     assertNotNull(settings.allDayStart());
     assertNotNull(settings.allDayEnd());
   }
-}
 
+  /**
+   * Series storage defaults to materialized and can be switched without touching other fields.
+   */
+  @Test
+  public void withSeriesStorage_keepsOtherFields() {
+    CalendarSettings settings = CalendarSettings.defaults();
+    assertEquals(SeriesStorage.MATERIALIZED, settings.seriesStorage());
+
+    CalendarSettings virtual = settings.withSeriesStorage(SeriesStorage.VIRTUAL);
+    assertEquals(SeriesStorage.VIRTUAL, virtual.seriesStorage());
+    assertEquals(settings.allDayStart(), virtual.allDayStart());
+    assertEquals(settings.allDayEnd(), virtual.allDayEnd());
+    assertEquals(settings.defaultStatus(), virtual.defaultStatus());
+  }
+
+  /**
+   * Time storage defaults to local and survives the other with-methods.
+   */
+  @Test
+  public void withTimeStorage_keepsOtherFields() {
+    CalendarSettings settings = CalendarSettings.defaults();
+    assertEquals(TimeStorage.LOCAL, settings.timeStorage());
+
+    CalendarSettings instant = settings.withTimeStorage(TimeStorage.INSTANT)
+        .withSeriesStorage(SeriesStorage.VIRTUAL).withLockingMode(LockingMode.SNAPSHOT);
+    assertEquals(TimeStorage.INSTANT, instant.timeStorage());
+    assertEquals(SeriesStorage.VIRTUAL, instant.seriesStorage());
+    assertEquals(LockingMode.SNAPSHOT, instant.lockingMode());
+    assertEquals(settings.allDayStart(), instant.allDayStart());
+  }
+
+  /**
+   * Event store defaults to objects and survives the other with-methods.
+   */
+  @Test
+  public void withEventStore_keepsOtherFields() {
+    CalendarSettings settings = CalendarSettings.defaults();
+    assertEquals(EventStore.OBJECTS, settings.eventStore());
+
+    CalendarSettings mapped = settings.withEventStore(EventStore.MAPPED)
+        .withTimeStorage(TimeStorage.INSTANT).withLockingMode(LockingMode.READ_WRITE);
+    assertEquals(EventStore.MAPPED, mapped.eventStore());
+    assertEquals(TimeStorage.INSTANT, mapped.timeStorage());
+    assertEquals(LockingMode.READ_WRITE, mapped.lockingMode());
+  }
+}
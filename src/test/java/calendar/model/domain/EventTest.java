@@ -141,4 +141,26 @@ public final class EventTest {
     assertNotEquals(e1, e2);
     assertNotEquals(e1.hashCode(), e2.hashCode());
   }
+
+  @Test
+  public void primitiveTimes_roundTripExactly() {
+    LocalDateTime start = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123_456_789);
+    LocalDateTime end = start.plusNanos(1);
+    Event e = new Event.Builder().subject("Edge").start(start).end(end).build();
+
+    assertEquals(start, e.start());
+    assertEquals(end, e.end());
+    assertEquals(-1L, e.startEpochSecond());
+    assertEquals(123_456_789, e.startNano());
+    assertEquals(-1L, e.endEpochSecond());
+    assertEquals(123_456_790, e.endNano());
+  }
+
+  @Test
+  public void builder_rejectsEndBeforeStartWithinSameSecond() {
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0, 0, 500);
+    Event.Builder b = new Event.Builder()
+        .subject("X").start(start).end(start.minusNanos(1));
+    assertThrows(IllegalArgumentException.class, b::build);
+  }
 }
@@ -0,0 +1,159 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for BusyIntervals merging, removal and lookups.
+ */
+public final class BusyIntervalsTest {
+
+  private static LocalDateTime at(int h, int min) {
+    return LocalDateTime.of(2025, 5, 5, h, min);
+  }
+
+  private static Event ev(LocalDateTime s, LocalDateTime e) {
+    return new Event.Builder().subject("E").start(s).end(e).status(Status.PUBLIC).build();
+  }
+
+  /**
+   * Overlapping and touching ranges coalesce; gaps stay separate.
+   */
+  @Test
+  public void add_coalescesOverlappingAndTouchingRanges() {
+    BusyIntervals busy = new BusyIntervals();
+    busy.add(at(9, 0), at(10, 0));
+    busy.add(at(12, 0), at(13, 0));
+    assertEquals(2, busy.size());
+
+    busy.add(at(10, 0), at(11, 0));
+    assertEquals(2, busy.size());
+
+    busy.add(at(10, 30), at(12, 30));
+    assertEquals(1, busy.size());
+    assertTrue(busy.contains(at(9, 0)));
+    assertTrue(busy.contains(at(12, 59)));
+    assertFalse(busy.contains(at(13, 0)));
+    assertFalse(busy.contains(at(8, 59)));
+  }
+
+  /**
+   * Removing an event rebuilds only its range from what the time index still holds.
+   */
+  @Test
+  public void remove_rebuildsRangeFromTimeIndex() {
+    TimeIndex index = new TimeIndex();
+    Event a = ev(at(9, 0), at(11, 0));
+    Event b = ev(at(10, 0), at(12, 0));
+    Event c = ev(at(14, 0), at(15, 0));
+    index.add(a);
+    index.add(b);
+    index.add(c);
+    assertTrue(index.covers(at(11, 30)));
+
+    index.remove(b);
+    assertTrue(index.covers(at(10, 30)));
+    assertFalse(index.covers(at(11, 30)));
+    assertTrue(index.covers(at(14, 30)));
+
+    index.remove(a);
+    assertFalse(index.covers(at(9, 30)));
+  }
+
+  /**
+   * Removing a range that was never busy is a programming error.
+   */
+  @Test
+  public void remove_untrackedRange_throws() {
+    BusyIntervals busy = new BusyIntervals();
+    busy.add(at(9, 0), at(10, 0));
+    assertThrows(IllegalStateException.class,
+        () -> busy.remove(at(11, 0), at(12, 0), new TimeIndex()));
+  }
+
+  /**
+   * Randomized agreement with brute force across adds, removes and a reset.
+   */
+  @Test
+  public void contains_matchesBruteForce() {
+    Random rnd = new Random(7);
+    TimeIndex index = new TimeIndex();
+    List<Event> live = new ArrayList<>();
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 600; i++) {
+      if (!live.isEmpty() && rnd.nextInt(4) == 0) {
+        index.remove(live.remove(rnd.nextInt(live.size())));
+      } else {
+        LocalDateTime s = base.plusMinutes(rnd.nextInt(60 * 24 * 20));
+        Event e = ev(s, s.plusMinutes(1 + rnd.nextInt(600)));
+        index.add(e);
+        live.add(e);
+      }
+    }
+    assertCoverageMatches(index, live, rnd, base);
+
+    index.reset(live);
+    assertCoverageMatches(index, live, rnd, base);
+  }
+
+  /**
+   * Ranges added out of order merge into the same ranges as a sorted sweep over them.
+   */
+  @Test
+  public void add_outOfOrder_matchesSortedSweep() {
+    Random rnd = new Random(11);
+    BusyIntervals busy = new BusyIntervals();
+    List<int[]> added = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      int s = rnd.nextInt(60 * 24 * 30);
+      int[] range = {s, s + 1 + rnd.nextInt(90)};
+      busy.add(at(0, 0).plusMinutes(range[0]), at(0, 0).plusMinutes(range[1]));
+      added.add(range);
+    }
+    added.sort((x, y) -> Integer.compare(x[0], y[0]));
+    int ranges = 0;
+    int end = Integer.MIN_VALUE;
+    for (int[] range : added) {
+      if (range[0] > end) {
+        ranges++;
+      }
+      end = Math.max(end, range[1]);
+    }
+    assertEquals(ranges, busy.size());
+    for (int m = 0; m < 60 * 24 * 31; m += 7) {
+      boolean expected = false;
+      for (int[] range : added) {
+        if (range[0] <= m && m < range[1]) {
+          expected = true;
+          break;
+        }
+      }
+      assertEquals(expected, busy.contains(at(0, 0).plusMinutes(m)));
+    }
+  }
+
+  private static void assertCoverageMatches(TimeIndex index, List<Event> live, Random rnd,
+                                            LocalDateTime base) {
+    for (int q = 0; q < 2000; q++) {
+      LocalDateTime t = base.plusMinutes(rnd.nextInt(60 * 24 * 21));
+      boolean expected = false;
+      for (Event e : live) {
+        if (!e.start().isAfter(t) && e.end().isAfter(t)) {
+          expected = true;
+          break;
+        }
+      }
+      assertEquals(expected, index.covers(t));
+    }
+  }
+}
@@ -0,0 +1,283 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.exception.BatchException;
+import calendar.model.exception.ConflictException;
+import calendar.model.exception.NotFoundException;
+import calendar.model.exception.ValidationException;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ColumnarCalendar}, mostly by replaying the same operations on an
+ * {@link InMemoryCalendar} and comparing every answer.
+ */
+public final class ColumnarCalendarTest {
+  private static final LocalDate MONDAY = LocalDate.of(2025, 5, 5);
+  private static final String[] SUBJECTS = {"Standup", "Review", "Gym", "Lunch"};
+
+  private static EventDraft timed(String s, LocalDateTime start, LocalDateTime end) {
+    EventDraft d = new EventDraft();
+    d.subject = s;
+    d.start = Optional.of(start);
+    d.end = Optional.of(end);
+    return d;
+  }
+
+  private static SeriesDraft weekly(String subject, LocalDate from, LocalTime start, int count) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = subject;
+    d.startDate = from;
+    d.startTime = Optional.of(start);
+    d.endTime = Optional.of(start.plusMinutes(45));
+    d.rule = new RecurrenceRule(EnumSet.of(Weekday.M, Weekday.W, Weekday.F), Optional.of(count),
+        Optional.empty());
+    return d;
+  }
+
+  private static EventSelector at(String subject, LocalDateTime start) {
+    EventSelector s = new EventSelector();
+    s.subject = subject;
+    s.start = start;
+    return s;
+  }
+
+  /**
+   * Events as comparable strings, with series members labelled by the start of the first
+   * member of their series so that series grouping is compared too. Sorted, since events
+   * with equal times are ordered by their random IDs.
+   */
+  private static List<String> describe(CalendarApi cal) {
+    List<Event> all = cal.allEvents();
+    Map<Object, LocalDateTime> firstOfSeries = new HashMap<>();
+    for (Event e : all) {
+      cal.seriesOfEvent(e.id()).ifPresent(sid -> firstOfSeries.putIfAbsent(sid, e.start()));
+    }
+    List<String> out = new ArrayList<>();
+    for (Event e : all) {
+      out.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status() + "|"
+          + e.description().orElse("") + "|" + e.location().orElse("") + "|"
+          + cal.seriesOfEvent(e.id()).map(firstOfSeries::get).orElse(null));
+    }
+    Collections.sort(out);
+    return out;
+  }
+
+  private static String outcome(Runnable op) {
+    try {
+      op.run();
+      return "ok";
+    } catch (RuntimeException ex) {
+      return ex.getClass().getSimpleName();
+    }
+  }
+
+  /**
+   * Random creates, series and edits in every scope leave both calendars with the same events,
+   * the same series grouping, the same errors and the same query answers. Each series gets its
+   * own subject: InMemoryCalendar keeps the occurrences before a conflicting one, while this
+   * class rejects the series as a whole.
+   */
+  @Test
+  public void randomOperations_matchInMemoryCalendar() {
+    Random rnd = new Random(11);
+    CalendarApi expected = new InMemoryCalendar();
+    ColumnarCalendar actual = new ColumnarCalendar();
+
+    for (int step = 0; step < 600; step++) {
+      String subject = SUBJECTS[rnd.nextInt(SUBJECTS.length)];
+      LocalDate day = MONDAY.plusDays(rnd.nextInt(28));
+      LocalDateTime start = day.atTime(8 + rnd.nextInt(8), 15 * rnd.nextInt(4));
+      int kind = rnd.nextInt(10);
+      if (kind < 3) {
+        EventDraft d = timed(subject, start, start.plusMinutes(30 + 15 * rnd.nextInt(8)));
+        d.status = Optional.of(rnd.nextBoolean() ? Status.PUBLIC : Status.PRIVATE);
+        assertEquals(outcome(() -> expected.create(d)), outcome(() -> actual.create(d)));
+      } else if (kind < 5) {
+        SeriesDraft d = weekly(subject + " " + step, day, start.toLocalTime(),
+            2 + rnd.nextInt(6));
+        assertEquals(outcome(() -> expected.createSeries(d)),
+            outcome(() -> actual.createSeries(d)));
+      } else {
+        List<Event> pool = expected.allEvents();
+        if (pool.isEmpty()) {
+          continue;
+        }
+        Event target = pool.get(rnd.nextInt(pool.size()));
+        EventSelector sel = at(target.subject().toUpperCase(), target.start());
+        if (rnd.nextBoolean()) {
+          sel.end = Optional.of(target.end());
+        }
+        EventPatch p = new EventPatch();
+        switch (rnd.nextInt(4)) {
+          case 0:
+            p.subject = Optional.of(SUBJECTS[rnd.nextInt(SUBJECTS.length)]);
+            break;
+          case 1:
+            p.start = Optional.of(target.start().plusMinutes(15 * (rnd.nextInt(5) - 2)));
+            break;
+          case 2:
+            p.location = Optional.of("Room " + rnd.nextInt(3));
+            p.status = Optional.of(Status.PRIVATE);
+            break;
+          default:
+            p.end = Optional.of(target.end().plusMinutes(15 * rnd.nextInt(3)));
+            break;
+        }
+        EditScope scope = EditScope.values()[rnd.nextInt(EditScope.values().length)];
+        assertEquals("step " + step, outcome(() -> expected.updateBySelector(sel, p, scope)),
+            outcome(() -> actual.updateBySelector(sel, p, scope)));
+      }
+    }
+
+    assertEquals(describe(expected), describe(actual));
+    LocalDateTime t = MONDAY.atStartOfDay();
+    for (int i = 0; i < 28 * 24 * 4; i++) {
+      assertEquals(expected.statusAt(t), actual.statusAt(t));
+      t = t.plusMinutes(15);
+    }
+    for (int d = 0; d < 30; d++) {
+      assertEquals(expected.eventsOn(MONDAY.plusDays(d)).size(),
+          actual.eventsOn(MONDAY.plusDays(d)).size());
+    }
+    for (Event e : expected.allEvents()) {
+      assertEquals(expected.eventsBySubjectAndStart(e.subject(), e.start()).size(),
+          actual.eventsBySubjectAndStart(" " + e.subject().toLowerCase(), e.start()).size());
+    }
+  }
+
+  @Test
+  public void selectorErrors_matchInMemoryCalendar() {
+    ColumnarCalendar cal = new ColumnarCalendar();
+    LocalDateTime nine = MONDAY.atTime(9, 0);
+    cal.create(timed("Sync", nine, nine.plusHours(1)));
+    cal.create(timed("sync", nine, nine.plusHours(2)));
+    EventPatch p = new EventPatch();
+    p.location = Optional.of("Here");
+
+    assertThrows(ValidationException.class,
+        () -> cal.updateBySelector(at("SYNC", nine), p, EditScope.SINGLE));
+    assertThrows(NotFoundException.class,
+        () -> cal.updateBySelector(at("Other", nine), p, EditScope.SINGLE));
+    assertThrows(ConflictException.class, () -> cal.create(timed(" SYNC", nine,
+        nine.plusHours(1))));
+
+    EventSelector exact = at("Sync", nine);
+    exact.end = Optional.of(nine.plusHours(2));
+    cal.updateBySelector(exact, p, EditScope.SINGLE);
+    assertEquals(Optional.of("Here"),
+        cal.eventsOverlapping(nine, nine.plusHours(2)).get(1).location());
+  }
+
+  @Test
+  public void batches_areAllOrNothing() {
+    ColumnarCalendar cal = new ColumnarCalendar();
+    LocalDateTime nine = MONDAY.atTime(9, 0);
+    List<EventDraft> drafts = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      drafts.add(timed("E" + i % 5, nine.plusHours(i), nine.plusHours(i).plusMinutes(30)));
+    }
+    drafts.add(timed("e0", nine, nine.plusMinutes(30)));
+
+    BatchException ex = assertThrows(BatchException.class, () -> cal.createAll(drafts));
+    assertEquals(List.of(200), new ArrayList<>(ex.failures().keySet()));
+    assertEquals(0, cal.allEvents().size());
+
+    drafts.remove(200);
+    assertEquals(200, cal.createAll(drafts).size());
+    List<Event> all = cal.allEvents();
+    for (int i = 1; i < all.size(); i++) {
+      assertTrue(all.get(i - 1).start().isBefore(all.get(i).start()));
+    }
+
+    List<SeriesDraft> series = List.of(weekly("Gym", MONDAY, LocalTime.of(6, 0), 4),
+        weekly("gym", MONDAY, LocalTime.of(6, 0), 2), weekly("Swim", MONDAY,
+            LocalTime.of(7, 0), 3));
+    ex = assertThrows(BatchException.class, () -> cal.createSeriesAll(series));
+    assertEquals(List.of(1), new ArrayList<>(ex.failures().keySet()));
+    assertEquals(200, cal.allEvents().size());
+    assertEquals(2, cal.createSeriesAll(List.of(series.get(0), series.get(2))).size());
+    assertEquals(207, cal.allEvents().size());
+  }
+
+  @Test
+  public void restore_keepsIdsAndRejectsDuplicatesWhole() {
+    ColumnarCalendar original = new ColumnarCalendar();
+    original.createSeries(weekly("Gym", MONDAY, LocalTime.of(6, 0), 4));
+    original.create(timed("Lunch", MONDAY.atTime(12, 0), MONDAY.atTime(13, 0)));
+    CalendarSnapshot saved = original.snapshot();
+
+    ColumnarCalendar cal = new ColumnarCalendar();
+    cal.create(timed("lunch", MONDAY.atTime(12, 0), MONDAY.atTime(13, 0)));
+    assertThrows(ConflictException.class,
+        () -> cal.restore(saved.allEvents(), saved.seriesMembership()));
+    assertEquals(1, cal.allEvents().size());
+
+    ColumnarCalendar copy = new ColumnarCalendar();
+    copy.restore(saved.allEvents(), saved.seriesMembership());
+    assertEquals(describe(original), describe(copy));
+    assertEquals(saved.seriesMembership(), copy.snapshot().seriesMembership());
+  }
+
+  @Test
+  public void aggregates_countAndMergeOverlaps() {
+    ColumnarCalendar cal = new ColumnarCalendar();
+    LocalDateTime nine = MONDAY.atTime(9, 0);
+    cal.create(timed("A", nine, nine.plusHours(2)));
+    cal.create(timed("B", nine.plusHours(1), nine.plusHours(3)));
+    cal.create(timed("C", nine.plusHours(5), nine.plusHours(6)));
+    cal.create(timed("Trip", nine.minusDays(3), nine.minusDays(2)));
+
+    assertEquals(3, cal.countOverlapping(nine, nine.plusHours(8)));
+    assertEquals(2, cal.countOverlapping(nine.plusMinutes(90), nine.plusHours(2)));
+    assertEquals(Duration.ofHours(4), cal.busyTime(nine, nine.plusHours(8)));
+    assertEquals(Duration.ofMinutes(180),
+        cal.busyTime(nine.plusMinutes(30), nine.plusHours(5).plusMinutes(30)));
+    assertEquals(Duration.ZERO, cal.busyTime(nine.plusHours(3), nine.plusHours(5)));
+    assertThrows(ValidationException.class, () -> cal.busyTime(nine, nine));
+  }
+
+  @Test
+  public void snapshot_isIsolated_andTimezoneConversionKeepsOrder() {
+    ColumnarCalendar cal = new ColumnarCalendar();
+    cal.createSeries(weekly("Standup", MONDAY, LocalTime.of(9, 0), 6));
+    CalendarSnapshot before = cal.snapshot();
+
+    cal.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Europe/Paris"));
+    cal.create(timed("Late", MONDAY.atTime(23, 0), MONDAY.atTime(23, 30)));
+
+    assertEquals(6, before.allEvents().size());
+    assertEquals(LocalTime.of(9, 0), before.allEvents().get(0).start().toLocalTime());
+    List<Event> after = cal.allEvents();
+    assertEquals(7, after.size());
+    assertEquals(LocalTime.of(15, 0), after.get(0).start().toLocalTime());
+    assertEquals("Late", after.get(1).subject());
+    assertTrue(cal.seriesOfEvent(after.get(0).id()).isPresent());
+  }
+}
@@ -0,0 +1,70 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for {@link EventColumns}.
+ */
+public final class EventColumnsTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 6, 0, 0);
+
+  private static Event event(int i, Status status) {
+    LocalDateTime start = BASE.plusMinutes(i);
+    return new Event.Builder()
+        .subject("E" + i % 7)
+        .start(start)
+        .end(start.plusMinutes(5))
+        .location(i % 3 == 0 ? "Room " + i % 2 : "")
+        .status(status)
+        .build();
+  }
+
+  /**
+   * Status bits, strings and times follow their rows through inserts and removals at every
+   * position, across many bitset words, and through a batch merge.
+   */
+  @Test
+  public void insertsAndRemovals_keepEveryColumnAligned() {
+    Random rnd = new Random(5);
+    EventColumns columns = new EventColumns();
+    List<Event> expected = new ArrayList<>();
+    for (int step = 0; step < 3000; step++) {
+      if (expected.isEmpty() || rnd.nextInt(3) > 0) {
+        Event e = event(rnd.nextInt(400), rnd.nextBoolean() ? Status.PRIVATE : Status.PUBLIC);
+        columns.insert(e, null);
+        expected.add(e);
+      } else {
+        int row = rnd.nextInt(columns.size());
+        expected.remove(columns.event(row));
+        columns.remove(row);
+      }
+    }
+    int mark = columns.size();
+    for (int i = 0; i < 300; i++) {
+      Event e = event(rnd.nextInt(400), i % 2 == 0 ? Status.PRIVATE : Status.PUBLIC);
+      columns.append(e, null);
+      expected.add(e);
+    }
+    columns.sort(mark);
+
+    expected.sort(TimeIndex::compare);
+    assertEquals(expected.size(), columns.size());
+    for (int row = 0; row < columns.size(); row++) {
+      Event want = expected.get(row);
+      Event got = columns.event(row);
+      assertEquals(want, got);
+      assertEquals(want.subject(), got.subject());
+      assertEquals(want.start(), got.start());
+      assertEquals(want.location(), got.location());
+      assertEquals(want.status(), got.status());
+    }
+  }
+}
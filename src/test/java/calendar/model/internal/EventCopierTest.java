@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 
 import calendar.model.TimeZoneInMemoryCalendar;
 import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.api.CalendarSnapshot;
 import calendar.model.api.EditScope;
 import calendar.model.api.EventDraft;
 import calendar.model.api.EventPatch;
@@ -28,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.Test;
 
@@ -282,6 +284,17 @@ public final class EventCopierTest {
       return events;
     }
 
+    @Override
+    public List<Event> eventsBySubjectAndStart(String subject, LocalDateTime start) {
+      List<Event> out = new ArrayList<>();
+      for (Event e : events) {
+        if (e.subject().equalsIgnoreCase(subject.trim()) && e.start().equals(start)) {
+          out.add(e);
+        }
+      }
+      return out;
+    }
+
     @Override
     public Optional<SeriesId> seriesOfEvent(EventId eventId) {
       return Optional.empty();
@@ -297,6 +310,16 @@ public final class EventCopierTest {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public List<EventId> createAll(List<EventDraft> drafts) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<SeriesId> createSeriesAll(List<SeriesDraft> drafts) {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public void updateBySelector(EventSelector selector, EventPatch patch, EditScope scope) {
       throw new UnsupportedOperationException();
@@ -306,5 +329,15 @@ public final class EventCopierTest {
     public BusyStatus statusAt(LocalDateTime instant) {
       return BusyStatus.AVAILABLE;
     }
+
+    @Override
+    public CalendarSnapshot snapshot() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void restore(List<Event> events, Map<EventId, SeriesId> series) {
+      throw new UnsupportedOperationException();
+    }
   }
 }
@@ -0,0 +1,228 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.SeriesStorage;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.domain.EventId;
+import calendar.model.domain.SeriesId;
+import calendar.model.domain.Status;
+import calendar.model.exception.BatchException;
+import calendar.model.exception.ConflictException;
+import calendar.model.exception.ValidationException;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for {@link InMemoryCalendar#createAll}, {@link InMemoryCalendar#createSeriesAll} and
+ * {@link InMemoryCalendar#restore}.
+ */
+public final class InMemoryCalendarBatchTest {
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 5, 5, 8, 0);
+
+  private static EventDraft timed(String s, LocalDateTime start, LocalDateTime end) {
+    EventDraft d = new EventDraft();
+    d.subject = s;
+    d.start = Optional.of(start);
+    d.end = Optional.of(end);
+    return d;
+  }
+
+  private static SeriesDraft weekly(String subject, LocalTime start, int count) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = subject;
+    d.startDate = BASE.toLocalDate();
+    d.startTime = Optional.of(start);
+    d.endTime = Optional.of(start.plusMinutes(30));
+    d.rule = new RecurrenceRule(EnumSet.of(Weekday.M, Weekday.W), Optional.of(count),
+        Optional.empty());
+    return d;
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status());
+    }
+    return out;
+  }
+
+  /**
+   * A shuffled batch, added to a calendar that already has events, ends up exactly as if the
+   * drafts had been created one by one.
+   */
+  @Test
+  public void createAll_matchesOneByOne() {
+    CalendarApi single = new InMemoryCalendar();
+    CalendarApi batch = new InMemoryCalendar();
+    EventDraft existing = timed("Existing", BASE.minusHours(3), BASE.plusHours(30));
+    single.create(existing);
+    batch.create(existing);
+
+    List<EventDraft> drafts = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      LocalDateTime s = BASE.plusMinutes(37L * i);
+      drafts.add(timed("E" + (i % 7), s, s.plusMinutes(20 + i % 50)));
+    }
+    EventDraft allDay = new EventDraft();
+    allDay.subject = "Offsite";
+    allDay.allDayDate = Optional.of(LocalDate.of(2025, 6, 1));
+    drafts.add(allDay);
+    Collections.shuffle(drafts, new Random(3));
+
+    for (EventDraft d : drafts) {
+      single.create(d);
+    }
+    List<EventId> ids = batch.createAll(drafts);
+
+    assertEquals(drafts.size(), ids.size());
+    assertEquals(describe(single.allEvents()), describe(batch.allEvents()));
+    assertEquals(ids.get(0), batch.eventsBySubjectAndStart(drafts.get(0).subject,
+        drafts.get(0).start.orElse(LocalDateTime.of(2025, 6, 1, 8, 0))).get(0).id());
+    LocalDateTime t = BASE.minusHours(4);
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(single.statusAt(t), batch.statusAt(t));
+      t = t.plusMinutes(11);
+    }
+  }
+
+  /**
+   * One bad draft rejects the whole batch, with every failing item reported by index.
+   */
+  @Test
+  public void createAll_isAllOrNothing() {
+    CalendarApi cal = new InMemoryCalendar();
+    cal.create(timed("Taken", BASE, BASE.plusHours(1)));
+
+    List<EventDraft> drafts = new ArrayList<>();
+    drafts.add(timed("Fine", BASE.plusHours(2), BASE.plusHours(3)));
+    drafts.add(timed("taken", BASE, BASE.plusHours(1)));
+    drafts.add(timed("Backwards", BASE.plusHours(5), BASE.plusHours(4)));
+    drafts.add(timed("Twice", BASE.plusHours(6), BASE.plusHours(7)));
+    drafts.add(timed(" TWICE ", BASE.plusHours(6), BASE.plusHours(7)));
+
+    BatchException ex = assertThrows(BatchException.class, () -> cal.createAll(drafts));
+    assertEquals(List.of(1, 2, 4), new ArrayList<>(ex.failures().keySet()));
+    assertTrue(ex.failures().get(1) instanceof ConflictException);
+    assertTrue(ex.failures().get(2) instanceof ValidationException);
+    assertTrue(ex.getMessage().startsWith("3 of 5 items rejected"));
+
+    assertEquals(1, cal.allEvents().size());
+    assertEquals(BusyStatus.AVAILABLE, cal.statusAt(BASE.plusHours(2)));
+    drafts.remove(4);
+    drafts.remove(2);
+    drafts.remove(1);
+    assertEquals(2, cal.createAll(drafts).size());
+    assertEquals(3, cal.allEvents().size());
+  }
+
+  /**
+   * Series batches register every series, reject duplicates between drafts of the same batch,
+   * and leave nothing behind on rejection, for both storages.
+   */
+  @Test
+  public void createSeriesAll_registersSeries_andRollsBack() {
+    for (SeriesStorage storage : SeriesStorage.values()) {
+      CalendarApi cal = new InMemoryCalendar(
+          CalendarSettings.defaults().withSeriesStorage(storage));
+      List<SeriesId> sids = cal.createSeriesAll(List.of(weekly("Standup", LocalTime.of(9, 0), 6),
+          weekly("Review", LocalTime.of(11, 0), 4)));
+      assertEquals(2, sids.size());
+      assertEquals(10, cal.allEvents().size());
+      for (Event e : cal.allEvents()) {
+        SeriesId expected = e.subject().equals("Standup") ? sids.get(0) : sids.get(1);
+        assertEquals(storage.name(), Optional.of(expected), cal.seriesOfEvent(e.id()));
+      }
+
+      SeriesDraft broken = weekly("Broken", LocalTime.of(14, 0), 3);
+      broken.endTime = Optional.of(LocalTime.of(13, 0));
+      List<SeriesDraft> rejected = List.of(weekly("Gym", LocalTime.of(7, 0), 5),
+          weekly("gym", LocalTime.of(7, 0), 2), broken, weekly("review", LocalTime.of(11, 0), 1));
+      BatchException ex = assertThrows(BatchException.class,
+          () -> cal.createSeriesAll(rejected));
+      assertEquals(List.of(1, 2, 3), new ArrayList<>(ex.failures().keySet()));
+      assertEquals(10, cal.allEvents().size());
+      assertEquals(BusyStatus.AVAILABLE, cal.statusAt(BASE.withHour(7)));
+
+      cal.createSeriesAll(List.of(weekly("Gym", LocalTime.of(7, 0), 5)));
+      assertEquals(15, cal.allEvents().size());
+    }
+  }
+
+  /**
+   * A snapshot restored into an empty calendar answers the same, keeps IDs and series, and
+   * takes a series-wide edit the same way as the original.
+   */
+  @Test
+  public void restore_rebuildsSnapshotWithSeries() {
+    CalendarApi original = new InMemoryCalendar(
+        CalendarSettings.defaults().withSeriesStorage(SeriesStorage.VIRTUAL));
+    original.createSeries(weekly("Gym", LocalTime.of(7, 0), 8));
+    original.create(timed("Lunch", BASE.plusHours(4), BASE.plusHours(5)));
+    EventSelector second = new EventSelector();
+    second.subject = "Gym";
+    second.start = BASE.plusDays(2).withHour(7);
+    EventPatch room = new EventPatch();
+    room.location = Optional.of("Pool");
+    original.updateBySelector(second, room, EditScope.SINGLE);
+
+    CalendarSnapshot saved = original.snapshot();
+    for (CalendarApi restored : List.of(new InMemoryCalendar(), new ColumnarCalendar())) {
+      restored.restore(saved.allEvents(), saved.seriesMembership());
+      assertEquals(saved.allEvents(), restored.allEvents());
+      assertEquals(describe(saved.allEvents()), describe(restored.allEvents()));
+      for (Event e : saved.allEvents()) {
+        assertEquals(saved.seriesOfEvent(e.id()), restored.seriesOfEvent(e.id()));
+      }
+
+      EventPatch status = new EventPatch();
+      status.status = Optional.of(Status.PRIVATE);
+      restored.updateBySelector(second, status, EditScope.ENTIRE_SERIES);
+      int changed = 0;
+      for (Event e : restored.allEvents()) {
+        changed += e.status() == Status.PRIVATE ? 1 : 0;
+      }
+      assertEquals(8, changed);
+    }
+  }
+
+  @Test
+  public void restore_isAllOrNothing() {
+    CalendarApi cal = new InMemoryCalendar();
+    cal.create(timed("Existing", BASE, BASE.plusHours(1)));
+    Event fresh = new Event.Builder().subject("Fresh").start(BASE.plusHours(2))
+        .end(BASE.plusHours(3)).build();
+    Event duplicate = new Event.Builder().subject("existing").start(BASE)
+        .end(BASE.plusHours(1)).build();
+
+    assertThrows(ConflictException.class,
+        () -> cal.restore(List.of(fresh, duplicate), Map.of()));
+    assertEquals(1, cal.allEvents().size());
+
+    cal.restore(List.of(fresh), Map.of());
+    assertEquals(List.of("Existing", "Fresh"), List.of(cal.allEvents().get(0).subject(),
+        cal.allEvents().get(1).subject()));
+  }
+}
@@ -5,11 +5,26 @@ import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import calendar.model.api.CalendarApi;
+import calendar.model.api.EditScope;
 import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.SeriesStorage;
 import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
 import calendar.model.exception.ValidationException;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import org.junit.Test;
 
@@ -67,5 +82,88 @@ public final class InMemoryCalendarQueryTest {
 
     assertTrue(!cal.eventsOn(LocalDate.of(2025, 1, 1)).isEmpty());
   }
-}
 
+  /**
+   * Queries follow events after they are moved by an edit or a timezone conversion.
+   */
+  @Test
+  public void queries_trackEditsAndTimezoneConversion() {
+    CalendarApi cal = new InMemoryCalendar();
+    cal.create(timed("B", at(2025, 1, 1, 13, 0), at(2025, 1, 1, 14, 0)));
+    cal.create(timed("A", at(2025, 1, 1, 10, 0), at(2025, 1, 1, 11, 0)));
+
+    EventSelector sel = new EventSelector();
+    sel.subject = "A";
+    sel.start = at(2025, 1, 1, 10, 0);
+    EventPatch patch = new EventPatch();
+    patch.start = Optional.of(at(2025, 1, 2, 10, 0));
+    patch.end = Optional.of(at(2025, 1, 2, 11, 0));
+    cal.updateBySelector(sel, patch, EditScope.SINGLE);
+
+    assertEquals(1, cal.eventsOn(LocalDate.of(2025, 1, 1)).size());
+    assertEquals("A", cal.eventsOn(LocalDate.of(2025, 1, 2)).get(0).subject());
+    assertEquals(BusyStatus.AVAILABLE, cal.statusAt(at(2025, 1, 1, 10, 30)));
+    assertEquals("B", cal.allEvents().get(0).subject());
+
+    cal.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Europe/London"));
+    assertEquals(BusyStatus.BUSY, cal.statusAt(at(2025, 1, 1, 18, 30)));
+    assertEquals("A", cal.eventsOn(LocalDate.of(2025, 1, 2)).get(0).subject());
+    assertEquals(at(2025, 1, 2, 15, 0), cal.allEvents().get(1).start());
+  }
+
+  /**
+   * eventsBySubjectAndStart ignores subject case and follows renames.
+   */
+  @Test
+  public void eventsBySubjectAndStart_tracksRenames() {
+    CalendarApi cal = new InMemoryCalendar();
+    cal.create(timed("Standup", at(2025, 1, 1, 9, 0), at(2025, 1, 1, 9, 15)));
+    assertEquals(1, cal.eventsBySubjectAndStart("STANDUP", at(2025, 1, 1, 9, 0)).size());
+
+    EventSelector sel = new EventSelector();
+    sel.subject = "standup";
+    sel.start = at(2025, 1, 1, 9, 0);
+    EventPatch patch = new EventPatch();
+    patch.subject = Optional.of("Sync");
+    cal.updateBySelector(sel, patch, EditScope.SINGLE);
+
+    assertTrue(cal.eventsBySubjectAndStart("Standup", at(2025, 1, 1, 9, 0)).isEmpty());
+    assertEquals("Sync",
+        cal.eventsBySubjectAndStart("sync", at(2025, 1, 1, 9, 0)).get(0).subject());
+  }
+
+  /**
+   * eventsInOrder walks stored events and virtual series across several pages in the same
+   * order as allEvents, and picks up an event created after the walk began.
+   */
+  @Test
+  public void eventsInOrder_matchesAllEventsAcrossPages() {
+    CalendarApi cal = new InMemoryCalendar(
+        CalendarSettings.defaults().withSeriesStorage(SeriesStorage.VIRTUAL));
+    for (int i = 0; i < 1500; i++) {
+      LocalDateTime start = at(2025, 1, 1, 8, 0).plusMinutes(45L * (i % 700));
+      cal.create(timed("E" + i, start, start.plusMinutes(30 + i % 3)));
+    }
+    SeriesDraft series = new SeriesDraft();
+    series.subject = "Daily";
+    series.startDate = LocalDate.of(2025, 1, 1);
+    series.startTime = Optional.of(LocalTime.of(9, 0));
+    series.endTime = Optional.of(LocalTime.of(9, 30));
+    series.rule = new RecurrenceRule(EnumSet.allOf(Weekday.class), Optional.of(900),
+        Optional.empty());
+    cal.createSeries(series);
+
+    List<Event> walked = new ArrayList<>();
+    cal.eventsInOrder().forEachRemaining(walked::add);
+    assertEquals(cal.allEvents(), walked);
+
+    Iterator<Event> it = cal.eventsInOrder();
+    it.next();
+    cal.create(timed("Late", at(2030, 1, 1, 9, 0), at(2030, 1, 1, 10, 0)));
+    Event last = null;
+    while (it.hasNext()) {
+      last = it.next();
+    }
+    assertEquals("Late", last.subject());
+  }
+}
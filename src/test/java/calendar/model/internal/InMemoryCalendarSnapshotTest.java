@@ -0,0 +1,192 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.LockingMode;
+import calendar.model.config.SeriesStorage;
+import calendar.model.domain.BusyStatus;
+import calendar.model.domain.Event;
+import calendar.model.exception.ConflictException;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Tests for snapshot() and for SNAPSHOT locking mode, which must answer every query exactly
+ * like the locked modes.
+ */
+public final class InMemoryCalendarSnapshotTest {
+
+  private static CalendarApi calendar(LockingMode mode, SeriesStorage storage) {
+    return new InMemoryCalendar(
+        CalendarSettings.defaults().withLockingMode(mode).withSeriesStorage(storage));
+  }
+
+  private static EventDraft draft(String subject, LocalDateTime start, LocalDateTime end) {
+    EventDraft d = new EventDraft();
+    d.subject = subject;
+    d.start = Optional.of(start);
+    d.end = Optional.of(end);
+    return d;
+  }
+
+  private static SeriesDraft series(String subject, EnumSet<Weekday> days, LocalTime start,
+                                    LocalTime end, int count) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = subject;
+    d.startDate = LocalDate.of(2025, 5, 5);
+    d.startTime = Optional.of(start);
+    d.endTime = Optional.of(end);
+    d.rule = new RecurrenceRule(days, Optional.of(count), Optional.empty());
+    return d;
+  }
+
+  private static EventSelector at(String subject, LocalDateTime start) {
+    EventSelector s = new EventSelector();
+    s.subject = subject;
+    s.start = start;
+    return s;
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.id() + "|" + e.subject() + "|" + e.start() + "|" + e.end() + "|"
+          + e.description().orElse("") + "|" + e.location().orElse(""));
+    }
+    return out;
+  }
+
+  private static Set<Set<String>> seriesGroups(CalendarApi cal) {
+    Map<Object, Set<String>> groups = new HashMap<>();
+    for (Event e : cal.allEvents()) {
+      Object key = cal.seriesOfEvent(e.id()).map(s -> (Object) s).orElse(e.id());
+      groups.computeIfAbsent(key, k -> new HashSet<>()).add(e.subject() + "|" + e.start());
+    }
+    return new HashSet<>(groups.values());
+  }
+
+  private static void assertSameView(CalendarApi expected, CalendarApi actual) {
+    assertEquals(expected.allEvents().size(), actual.allEvents().size());
+    assertEquals(seriesGroups(expected), seriesGroups(actual));
+    LocalDateTime t = LocalDateTime.of(2025, 5, 4, 0, 0);
+    for (int i = 0; i < 24 * 2 * 40; i++) {
+      assertEquals(expected.statusAt(t), actual.statusAt(t));
+      if (i % 48 == 0) {
+        assertEquals(shape(expected.eventsOn(t.toLocalDate())),
+            shape(actual.eventsOn(t.toLocalDate())));
+      }
+      t = t.plusMinutes(30);
+    }
+  }
+
+  private static List<String> shape(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.description().orElse(""));
+    }
+    return out;
+  }
+
+  /**
+   * A snapshot keeps showing the calendar as it was, in every locking mode.
+   */
+  @Test
+  public void snapshot_isUnaffectedByLaterWrites() {
+    for (LockingMode mode : LockingMode.values()) {
+      CalendarApi cal = calendar(mode, SeriesStorage.MATERIALIZED);
+      LocalDateTime nine = LocalDateTime.of(2025, 5, 5, 9, 0);
+      cal.create(draft("Review", nine, nine.plusHours(1)));
+      CalendarSnapshot before = cal.snapshot();
+
+      EventPatch later = new EventPatch();
+      later.start = Optional.of(nine.plusHours(3));
+      cal.updateBySelector(at("Review", nine), later, EditScope.SINGLE);
+      cal.create(draft("Lunch", nine.plusHours(4), nine.plusHours(5)));
+
+      assertEquals(mode.name(), 1, before.allEvents().size());
+      assertEquals(BusyStatus.BUSY, before.statusAt(nine.plusMinutes(30)));
+      assertEquals(1, before.eventsBySubjectAndStart(" review ", nine).size());
+      assertTrue(before.eventsOn(nine.toLocalDate().plusDays(1)).isEmpty());
+
+      CalendarSnapshot after = cal.snapshot();
+      assertEquals(describe(cal.allEvents()), describe(after.allEvents()));
+      assertEquals(BusyStatus.AVAILABLE, after.statusAt(nine.plusMinutes(30)));
+      assertEquals(BusyStatus.BUSY, after.statusAt(nine.plusHours(3)));
+    }
+  }
+
+  /**
+   * The same script of creates, series edits, a rejected edit and a timezone conversion gives
+   * identical answers in SNAPSHOT and MONITOR mode, for both series storages.
+   */
+  @Test
+  public void snapshotMode_matchesLockedMode() {
+    for (SeriesStorage storage : SeriesStorage.values()) {
+      CalendarApi locked = calendar(LockingMode.MONITOR, storage);
+      CalendarApi snap = calendar(LockingMode.SNAPSHOT, storage);
+      for (CalendarApi cal : List.of(locked, snap)) {
+        cal.createSeries(series("Standup", EnumSet.of(Weekday.M, Weekday.W, Weekday.F),
+            LocalTime.of(10, 0), LocalTime.of(10, 15), 30));
+        cal.createSeries(series("Review", EnumSet.of(Weekday.M), LocalTime.of(11, 0),
+            LocalTime.of(11, 30), 8));
+        cal.create(draft("Dentist", LocalDateTime.of(2025, 5, 6, 14, 0),
+            LocalDateTime.of(2025, 5, 6, 15, 0)));
+
+        EventPatch room = new EventPatch();
+        room.description = Optional.of("room 4");
+        cal.updateBySelector(at("Standup", LocalDateTime.of(2025, 5, 7, 10, 0)), room,
+            EditScope.SINGLE);
+
+        EventPatch move = new EventPatch();
+        move.start = Optional.of(LocalDateTime.of(2025, 5, 19, 9, 0));
+        cal.updateBySelector(at("Standup", LocalDateTime.of(2025, 5, 19, 10, 0)), move,
+            EditScope.FOLLOWING);
+
+        EventPatch clash = new EventPatch();
+        clash.subject = Optional.of("Standup");
+        clash.start = Optional.of(LocalDateTime.of(2025, 5, 5, 10, 0));
+        clash.end = Optional.of(LocalDateTime.of(2025, 5, 5, 10, 15));
+        assertThrows(ConflictException.class, () -> cal.updateBySelector(
+            at("Review", LocalDateTime.of(2025, 5, 5, 11, 0)), clash,
+            EditScope.ENTIRE_SERIES));
+
+        EventPatch all = new EventPatch();
+        all.description = Optional.of("weekly");
+        cal.updateBySelector(at("Review", LocalDateTime.of(2025, 5, 12, 11, 0)), all,
+            EditScope.ENTIRE_SERIES);
+      }
+      assertSameView(locked, snap);
+      assertEquals(shape(locked.eventsBySubjectAndStart("standup",
+          LocalDateTime.of(2025, 5, 7, 10, 0))), shape(snap.eventsBySubjectAndStart("standup",
+          LocalDateTime.of(2025, 5, 7, 10, 0))));
+
+      locked.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Asia/Tokyo"));
+      snap.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Asia/Tokyo"));
+      assertEquals(shape(locked.allEvents()), shape(snap.allEvents()));
+      assertEquals(seriesGroups(locked), seriesGroups(snap));
+    }
+  }
+}
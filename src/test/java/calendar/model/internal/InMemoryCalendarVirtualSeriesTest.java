@@ -0,0 +1,229 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarApi;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.SeriesStorage;
+import calendar.model.domain.Event;
+import calendar.model.domain.SeriesId;
+import calendar.model.exception.ConflictException;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs the same operations against a materialized and a virtual calendar and checks that
+ * every observable result agrees.
+ */
+public final class InMemoryCalendarVirtualSeriesTest {
+  private CalendarApi materialized;
+  private CalendarApi virtual;
+
+  /**
+   * Creates one calendar per storage mode.
+   */
+  @Before
+  public void setUp() {
+    materialized = new InMemoryCalendar();
+    virtual = new InMemoryCalendar(
+        CalendarSettings.defaults().withSeriesStorage(SeriesStorage.VIRTUAL));
+  }
+
+  private static SeriesDraft series(String subject, EnumSet<Weekday> days, LocalTime start,
+                                    LocalTime end, Optional<Integer> count,
+                                    Optional<LocalDate> until) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = subject;
+    d.startDate = LocalDate.of(2025, 5, 5);
+    d.allDay = start == null;
+    d.startTime = Optional.ofNullable(start);
+    d.endTime = Optional.ofNullable(end);
+    d.rule = new RecurrenceRule(days, count, until);
+    d.location = Optional.of("Room 1");
+    return d;
+  }
+
+  private static EventSelector at(String subject, LocalDateTime start) {
+    EventSelector s = new EventSelector();
+    s.subject = subject;
+    s.start = start;
+    return s;
+  }
+
+  private static String describe(Event e) {
+    return e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.description().orElse("")
+        + "|" + e.location().orElse("") + "|" + e.status();
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(describe(e));
+    }
+    return out;
+  }
+
+  /**
+   * Events plus their grouping into series, independent of generated IDs.
+   */
+  private static Set<Set<String>> seriesGroups(CalendarApi cal) {
+    Map<Object, Set<String>> groups = new HashMap<>();
+    for (Event e : cal.allEvents()) {
+      Object key = cal.seriesOfEvent(e.id()).map(s -> (Object) s).orElse(e.id());
+      groups.computeIfAbsent(key, k -> new HashSet<>()).add(describe(e));
+    }
+    return new HashSet<>(groups.values());
+  }
+
+  private void assertSame() {
+    assertEquals(describe(materialized.allEvents()), describe(virtual.allEvents()));
+    assertEquals(seriesGroups(materialized), seriesGroups(virtual));
+    LocalDateTime t = LocalDateTime.of(2025, 5, 4, 0, 0);
+    for (int i = 0; i < 24 * 4 * 80; i++) {
+      LocalDateTime next = t.plusMinutes(15);
+      assertEquals(materialized.statusAt(t), virtual.statusAt(t));
+      if (i % 96 == 0) {
+        assertEquals(describe(materialized.eventsOn(t.toLocalDate())),
+            describe(virtual.eventsOn(t.toLocalDate())));
+      }
+      t = next;
+    }
+  }
+
+  private void update(EventSelector selector, EventPatch patch, EditScope scope) {
+    materialized.updateBySelector(selector, patch, scope);
+    virtual.updateBySelector(selector, patch, scope);
+    assertSame();
+  }
+
+  private void both(SeriesDraft draft) {
+    materialized.createSeries(draft);
+    virtual.createSeries(draft);
+  }
+
+  /**
+   * A scripted mix of single, following and whole-series edits leaves both calendars equal.
+   */
+  @Test
+  public void edits_matchMaterializedStorage() {
+    both(series("Standup", EnumSet.of(Weekday.M, Weekday.T, Weekday.W, Weekday.R, Weekday.F),
+        LocalTime.of(10, 0), LocalTime.of(10, 15), Optional.of(40), Optional.empty()));
+    both(series("Gym", EnumSet.of(Weekday.T, Weekday.R), null, null, Optional.empty(),
+        Optional.of(LocalDate.of(2025, 7, 1))));
+    assertSame();
+
+    EventPatch location = new EventPatch();
+    location.location = Optional.of("Room 9");
+    update(at("standup", LocalDateTime.of(2025, 5, 7, 10, 0)), location, EditScope.SINGLE);
+
+    EventPatch moveOne = new EventPatch();
+    moveOne.start = Optional.of(LocalDateTime.of(2025, 5, 8, 11, 0));
+    update(at("Standup", LocalDateTime.of(2025, 5, 8, 10, 0)), moveOne, EditScope.SINGLE);
+
+    EventPatch rename = new EventPatch();
+    rename.subject = Optional.of("Daily");
+    update(at("Standup", LocalDateTime.of(2025, 5, 14, 10, 0)), rename, EditScope.FOLLOWING);
+
+    EventPatch later = new EventPatch();
+    later.start = Optional.of(LocalDateTime.of(2025, 5, 20, 10, 30));
+    later.end = Optional.of(LocalDateTime.of(2025, 5, 20, 11, 0));
+    update(at("Daily", LocalDateTime.of(2025, 5, 20, 10, 0)), later, EditScope.FOLLOWING);
+
+    EventPatch describeAll = new EventPatch();
+    describeAll.description = Optional.of("sync");
+    update(at("Standup", LocalDateTime.of(2025, 5, 5, 10, 0)), describeAll,
+        EditScope.ENTIRE_SERIES);
+    update(at("Daily", LocalDateTime.of(2025, 5, 27, 10, 30)), describeAll,
+        EditScope.ENTIRE_SERIES);
+
+    EventPatch endOnly = new EventPatch();
+    endOnly.end = Optional.of(LocalDateTime.of(2025, 12, 31, 17, 0));
+    update(at("Gym", LocalDateTime.of(2025, 5, 15, 8, 0)), endOnly, EditScope.FOLLOWING);
+
+    EventPatch earlier = new EventPatch();
+    earlier.start = Optional.of(LocalDateTime.of(2025, 5, 6, 7, 0));
+    update(at("Gym", LocalDateTime.of(2025, 5, 6, 8, 0)), earlier, EditScope.ENTIRE_SERIES);
+
+    materialized.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Europe/Paris"));
+    virtual.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Europe/Paris"));
+    assertEquals(describe(materialized.allEvents()), describe(virtual.allEvents()));
+    assertEquals(seriesGroups(materialized), seriesGroups(virtual));
+  }
+
+  /**
+   * Virtual occurrences own their keys: duplicates are rejected on create, on series creation
+   * and on edits, and a rejected series edit changes nothing.
+   */
+  @Test
+  public void virtualOccurrences_takePartInUniqueness() {
+    both(series("Standup", EnumSet.of(Weekday.M), LocalTime.of(10, 0), LocalTime.of(10, 15),
+        Optional.of(10), Optional.empty()));
+    both(series("Review", EnumSet.of(Weekday.M), LocalTime.of(11, 0), LocalTime.of(11, 15),
+        Optional.of(10), Optional.empty()));
+
+    EventDraft dup = new EventDraft();
+    dup.subject = "STANDUP";
+    dup.start = Optional.of(LocalDateTime.of(2025, 6, 2, 10, 0));
+    dup.end = Optional.of(LocalDateTime.of(2025, 6, 2, 10, 15));
+    assertThrows(ConflictException.class, () -> virtual.create(dup));
+
+    assertThrows(ConflictException.class, () -> virtual.createSeries(series("standup",
+        EnumSet.of(Weekday.M), LocalTime.of(10, 0), LocalTime.of(10, 15), Optional.of(2),
+        Optional.empty())));
+
+    EventPatch clash = new EventPatch();
+    clash.subject = Optional.of("Standup");
+    clash.start = Optional.of(LocalDateTime.of(2025, 5, 5, 10, 0));
+    assertThrows(ConflictException.class, () -> virtual.updateBySelector(
+        at("Review", LocalDateTime.of(2025, 5, 5, 11, 0)), clash, EditScope.ENTIRE_SERIES));
+    assertEquals(2, virtual.eventsOn(LocalDate.of(2025, 6, 9)).size());
+    assertEquals(describe(materialized.allEvents()), describe(virtual.allEvents()));
+  }
+
+  /**
+   * A decade-long series answers window queries, lookups and series membership.
+   */
+  @Test
+  public void longSeries_isQueryableWithoutExpansion() {
+    SeriesId sid = virtual.createSeries(series("Standup",
+        EnumSet.of(Weekday.M, Weekday.T, Weekday.W, Weekday.R, Weekday.F), LocalTime.of(9, 0),
+        LocalTime.of(9, 15), Optional.empty(), Optional.of(LocalDate.of(2035, 12, 31))));
+
+    List<Event> day = virtual.eventsOn(LocalDate.of(2034, 3, 1));
+    assertEquals(1, day.size());
+    assertEquals(Optional.of(sid), virtual.seriesOfEvent(day.get(0).id()));
+    assertEquals(day.get(0).id(), virtual.eventsBySubjectAndStart(" standup ",
+        LocalDateTime.of(2034, 3, 1, 9, 0)).get(0).id());
+    assertTrue(virtual.eventsOn(LocalDate.of(2034, 3, 4)).isEmpty());
+
+    EventPatch note = new EventPatch();
+    note.description = Optional.of("moved rooms");
+    virtual.updateBySelector(at("Standup", LocalDateTime.of(2034, 3, 1, 9, 0)), note,
+        EditScope.SINGLE);
+    Event edited = virtual.eventsOn(LocalDate.of(2034, 3, 1)).get(0);
+    assertEquals(day.get(0).id(), edited.id());
+    assertEquals(Optional.of("moved rooms"), edited.description());
+    assertEquals(Optional.of(sid), virtual.seriesOfEvent(edited.id()));
+  }
+}
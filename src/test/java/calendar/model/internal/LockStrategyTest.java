@@ -0,0 +1,109 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.EventDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.config.LockingMode;
+import calendar.model.domain.BusyStatus;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * Tests for LockStrategy implementations and concurrent use of InMemoryCalendar.
+ */
+public final class LockStrategyTest {
+
+  /**
+   * Only the stamped strategy offers optimistic reads, and a write invalidates them.
+   */
+  @Test
+  public void optimisticRead_invalidatedByWrite() {
+    assertEquals(0L, LockStrategy.of(LockingMode.MONITOR).tryOptimisticRead());
+    assertEquals(0L, LockStrategy.of(LockingMode.READ_WRITE).tryOptimisticRead());
+
+    LockStrategy stamped = LockStrategy.of(LockingMode.STAMPED);
+    long optimistic = stamped.tryOptimisticRead();
+    assertNotEquals(0L, optimistic);
+    assertTrue(stamped.validate(optimistic));
+
+    long write = stamped.writeLock();
+    assertEquals(0L, stamped.tryOptimisticRead());
+    stamped.unlockWrite(write);
+    assertFalse(stamped.validate(optimistic));
+  }
+
+  /**
+   * Read-write strategies let a second reader in while the first still holds the lock.
+   */
+  @Test
+  public void readLocks_areShared() throws InterruptedException {
+    for (LockingMode mode : new LockingMode[] {LockingMode.READ_WRITE, LockingMode.STAMPED}) {
+      LockStrategy lock = LockStrategy.of(mode);
+      long held = lock.readLock();
+      CountDownLatch second = new CountDownLatch(1);
+      Thread t = new Thread(() -> {
+        long s = lock.readLock();
+        lock.unlockRead(s);
+        second.countDown();
+      });
+      t.start();
+      assertTrue(mode.name(), second.await(5, TimeUnit.SECONDS));
+      lock.unlockRead(held);
+      t.join();
+    }
+  }
+
+  /**
+   * Readers running alongside a writer never see an error, whatever the mode, and see the
+   * writer's events once it is done.
+   */
+  @Test
+  public void concurrentReadsDuringWrites() throws InterruptedException {
+    for (LockingMode mode : LockingMode.values()) {
+      InMemoryCalendar cal =
+          new InMemoryCalendar(CalendarSettings.defaults().withLockingMode(mode));
+      LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+      CountDownLatch done = new CountDownLatch(1);
+      Thread[] readers = new Thread[3];
+      for (int r = 0; r < readers.length; r++) {
+        readers[r] = new Thread(() -> {
+          try {
+            while (done.getCount() > 0) {
+              cal.statusAt(base.plusMinutes(45));
+              cal.eventsOn(base.toLocalDate());
+              cal.allEvents();
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        });
+        readers[r].start();
+      }
+      for (int i = 0; i < 300; i++) {
+        EventDraft d = new EventDraft();
+        d.subject = "E" + i;
+        d.start = Optional.of(base.plusMinutes(i * 30L));
+        d.end = Optional.of(base.plusMinutes(i * 30L + 15));
+        cal.create(d);
+      }
+      done.countDown();
+      for (Thread t : readers) {
+        t.join();
+      }
+      assertNull(mode.name(), failure.get());
+      assertEquals(300, cal.allEvents().size());
+      assertEquals(BusyStatus.BUSY, cal.statusAt(base.plusMinutes(30)));
+      assertEquals(BusyStatus.AVAILABLE, cal.statusAt(base.plusMinutes(45)));
+    }
+  }
+}
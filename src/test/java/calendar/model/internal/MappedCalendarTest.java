@@ -0,0 +1,308 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.CalendarSnapshot;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.config.CalendarSettings;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.exception.ConflictException;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MappedCalendar}: the same answers as {@link ColumnarCalendar}, and the same
+ * events after the file is closed and reopened.
+ */
+public final class MappedCalendarTest {
+  private static final LocalDate MONDAY = LocalDate.of(2025, 5, 5);
+
+  private Path dir;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("mapped-calendar");
+    file = dir.resolve("work.cal");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(p);
+      }
+    }
+  }
+
+  private static EventDraft timed(String s, LocalDateTime start, LocalDateTime end) {
+    EventDraft d = new EventDraft();
+    d.subject = s;
+    d.start = Optional.of(start);
+    d.end = Optional.of(end);
+    return d;
+  }
+
+  private static SeriesDraft weekly(String subject, LocalTime start, int count) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = subject;
+    d.startDate = MONDAY;
+    d.startTime = Optional.of(start);
+    d.endTime = Optional.of(start.plusMinutes(45));
+    d.rule = new RecurrenceRule(EnumSet.of(Weekday.M, Weekday.W, Weekday.F), Optional.of(count),
+        Optional.empty());
+    return d;
+  }
+
+  private MappedCalendar open() throws IOException {
+    return MappedCalendar.open(file, "Work", ZoneId.of("UTC"), CalendarSettings.defaults());
+  }
+
+  private static EventSelector at(String subject, LocalDateTime start) {
+    EventSelector s = new EventSelector();
+    s.subject = subject;
+    s.start = start;
+    return s;
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.id() + "|" + fields(e));
+    }
+    return out;
+  }
+
+  /**
+   * Events without their random IDs, sorted, for comparing two calendars.
+   */
+  private static List<String> contents(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(fields(e));
+    }
+    Collections.sort(out);
+    return out;
+  }
+
+  private static String fields(Event e) {
+    return e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status()
+        + "|" + e.description().orElse("") + "|" + e.location().orElse("");
+  }
+
+  @Test
+  public void edits_surviveCloseAndReopen() throws IOException {
+    LocalDateTime nine = MONDAY.atTime(9, 0);
+    List<String> before;
+    try (MappedCalendar cal = open()) {
+      cal.createSeries(weekly("Standup", LocalTime.of(9, 30), 6));
+      EventDraft d = timed("Caf\u00e9 \u2615", nine, nine.plusMinutes(20));
+      d.location = Optional.of("Kitchen");
+      d.status = Optional.of(Status.PRIVATE);
+      cal.create(d);
+      EventPatch p = new EventPatch();
+      p.start = Optional.of(MONDAY.plusDays(2).atTime(10, 0));
+      cal.updateBySelector(at("standup", MONDAY.plusDays(2).atTime(9, 30)), p,
+          EditScope.FOLLOWING);
+      before = describe(cal.allEvents());
+    }
+
+    try (MappedCalendar cal = open()) {
+      assertEquals(before, describe(cal.allEvents()));
+      assertEquals(Optional.of("Kitchen"),
+          cal.eventsBySubjectAndStart("CAF\u00c9 \u2615", nine).get(0).location());
+      assertThrows(ConflictException.class,
+          () -> cal.create(timed("caf\u00e9 \u2615", nine, nine.plusMinutes(20))));
+      List<Event> all = cal.allEvents();
+      assertEquals(cal.seriesOfEvent(all.get(2).id()), cal.seriesOfEvent(all.get(6).id()));
+      assertTrue(cal.seriesOfEvent(all.get(1).id()).isPresent());
+      assertEquals(Optional.empty(), cal.seriesOfEvent(all.get(0).id()));
+
+      EventPatch p = new EventPatch();
+      p.subject = Optional.of("Daily");
+      cal.updateBySelector(at("Standup", MONDAY.plusDays(4).atTime(10, 0)), p,
+          EditScope.ENTIRE_SERIES);
+      assertEquals(5, cal.allEvents().stream().filter(e -> e.subject().equals("Daily")).count());
+      assertEquals("Standup", cal.allEvents().get(1).subject());
+    }
+  }
+
+  /**
+   * Loading far more rows and strings than the initial file holds grows it, and the grown file
+   * reopens with every event.
+   */
+  @Test
+  public void growth_keepsEveryEvent() throws IOException {
+    LocalDateTime base = MONDAY.atTime(0, 0);
+    List<EventDraft> drafts = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      EventDraft d = timed("Event " + i, base.plusMinutes(7L * i),
+          base.plusMinutes(7L * i + 30));
+      d.description = Optional.of("Notes for event number " + i + " ".repeat(i % 20));
+      drafts.add(d);
+    }
+    List<String> expected;
+    try (MappedCalendar cal = open()) {
+      cal.createAll(drafts.subList(0, 2000));
+      for (EventDraft d : drafts.subList(2000, 5000)) {
+        cal.create(d);
+      }
+      expected = describe(cal.allEvents());
+      assertEquals(5000, expected.size());
+    }
+    try (MappedCalendar cal = open()) {
+      assertEquals(expected, describe(cal.allEvents()));
+      assertEquals(4, cal.countOverlapping(base.plusHours(10), base.plusHours(10).plusMinutes(1)));
+    }
+  }
+
+  /**
+   * Random creates, edits and a timezone change give the same events and aggregates as a
+   * heap ColumnarCalendar.
+   */
+  @Test
+  public void randomOperations_matchColumnarCalendar() throws IOException {
+    Random rnd = new Random(3);
+    ColumnarCalendar expected = new ColumnarCalendar();
+    try (MappedCalendar actual = open()) {
+      for (int step = 0; step < 400; step++) {
+        LocalDateTime start = MONDAY.plusDays(rnd.nextInt(21))
+            .atTime(8 + rnd.nextInt(8), 15 * rnd.nextInt(4));
+        if (step % 3 == 0) {
+          EventDraft d = timed("E" + rnd.nextInt(5), start, start.plusMinutes(60));
+          String a = outcome(() -> expected.create(d));
+          String b = outcome(() -> actual.create(d));
+          assertEquals(a, b);
+        } else if (step % 7 == 0) {
+          SeriesDraft d = weekly("S" + step, start.toLocalTime(), 2 + rnd.nextInt(5));
+          assertEquals(outcome(() -> expected.createSeries(d)),
+              outcome(() -> actual.createSeries(d)));
+        } else {
+          List<Event> pool = expected.allEvents();
+          if (pool.isEmpty()) {
+            continue;
+          }
+          Event target = pool.get(rnd.nextInt(pool.size()));
+          EventSelector sel = at(target.subject(), target.start());
+          sel.end = Optional.of(target.end());
+          EventPatch p = new EventPatch();
+          if (rnd.nextBoolean()) {
+            p.start = Optional.of(target.start().plusMinutes(15 * (rnd.nextInt(5) - 2)));
+          } else {
+            p.location = Optional.of("Room " + rnd.nextInt(3));
+          }
+          EditScope scope = EditScope.values()[rnd.nextInt(EditScope.values().length)];
+          assertEquals(outcome(() -> expected.updateBySelector(sel, p, scope)),
+              outcome(() -> actual.updateBySelector(sel, p, scope)));
+        }
+      }
+      expected.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Asia/Tokyo"));
+      actual.convertTimeZone(ZoneId.of("America/New_York"), ZoneId.of("Asia/Tokyo"));
+
+      assertEquals(contents(expected.allEvents()), contents(actual.allEvents()));
+      LocalDateTime from = MONDAY.atStartOfDay();
+      for (int d = 0; d < 25; d++) {
+        LocalDateTime to = from.plusDays(1);
+        assertEquals(expected.busyTime(from, to), actual.busyTime(from, to));
+        assertEquals(expected.countOverlapping(from, to), actual.countOverlapping(from, to));
+        from = to;
+      }
+    }
+  }
+
+  @Test
+  public void snapshot_isDetachedFromTheFile() throws IOException {
+    try (MappedCalendar cal = open()) {
+      LocalDateTime nine = MONDAY.atTime(9, 0);
+      cal.create(timed("A", nine, nine.plusHours(1)));
+      CalendarSnapshot snap = cal.snapshot();
+      cal.create(timed("B", nine, nine.plusHours(3)));
+
+      assertEquals(1, snap.allEvents().size());
+      assertEquals(Duration.ofHours(3), cal.busyTime(nine.minusHours(1), nine.plusHours(5)));
+    }
+  }
+
+  @Test
+  public void open_rejectsForeignFile() throws IOException {
+    Files.write(file, "BEGIN:VCALENDAR\nEND:VCALENDAR\n".repeat(4).getBytes());
+    assertThrows(IOException.class, () -> open());
+  }
+
+  /**
+   * A file is mapped by one calendar at a time, and only by the calendar it records.
+   */
+  @Test
+  public void open_rejectsOpenOrOtherCalendarsFile() throws IOException {
+    try (MappedCalendar cal = open()) {
+      assertThrows(IOException.class, () -> open());
+    }
+    assertThrows(IOException.class, () -> MappedCalendar.open(file, "work", ZoneId.of("UTC"),
+        CalendarSettings.defaults()));
+    assertEquals("Work", MappedCalendar.storedName(file));
+    try (MappedCalendar cal = open()) {
+      cal.rename("Home");
+    }
+    assertEquals("Home", MappedCalendar.storedName(file));
+  }
+
+  /**
+   * The file records the zone of its local times, so reopening under another zone keeps each
+   * event's instant.
+   */
+  @Test
+  public void open_convertsFromStoredZone() throws IOException {
+    LocalDateTime nine = MONDAY.atTime(9, 0);
+    try (MappedCalendar cal = open()) {
+      cal.create(timed("A", nine, nine.plusHours(1)));
+    }
+    ZoneId newYork = ZoneId.of("America/New_York");
+    try (MappedCalendar cal = MappedCalendar.open(file, "Work", newYork,
+        CalendarSettings.defaults())) {
+      assertEquals(MONDAY.atTime(5, 0), cal.allEvents().get(0).start());
+    }
+    try (MappedCalendar cal = MappedCalendar.open(file, "Work", newYork,
+        CalendarSettings.defaults())) {
+      assertEquals(MONDAY.atTime(5, 0), cal.allEvents().get(0).start());
+      cal.convertTimeZone(newYork, ZoneId.of("UTC"));
+    }
+    try (MappedCalendar cal = open()) {
+      assertEquals(nine, cal.allEvents().get(0).start());
+    }
+  }
+
+  private static String outcome(Runnable op) {
+    try {
+      op.run();
+      return "ok";
+    } catch (RuntimeException ex) {
+      return ex.getClass().getSimpleName();
+    }
+  }
+}
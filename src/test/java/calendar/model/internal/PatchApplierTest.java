@@ -27,20 +27,24 @@ public final class PatchApplierTest {
   public void apply_updates_and_validates_and_conflicts() {
     Map<EventId, Event> byId = new HashMap<>();
     UniquenessIndex idx = new UniquenessIndex();
-    final PatchApplier applier = new PatchApplier(byId, idx);
+    TimeIndex times = new TimeIndex();
+    final PatchApplier applier = new PatchApplier(byId, idx, times, new SubjectStartIndex());
 
     Event a = event("A", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0));
     byId.put(a.id(), a);
     idx.addOrThrow(a.subject(), a.start(), a.end());
+    times.add(a);
 
     EventPatch p = new EventPatch();
     p.subject = java.util.Optional.of("A+");
     applier.apply(a.id(), p);
     assertEquals("A+", byId.get(a.id()).subject());
+    assertEquals("A+", times.all().get(0).subject());
 
     Event b = event("B", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0));
     byId.put(b.id(), b);
     idx.addOrThrow(b.subject(), b.start(), b.end());
+    times.add(b);
     EventPatch collide = new EventPatch();
     collide.subject = java.util.Optional.of("A+");
     assertThrows(ConflictException.class,
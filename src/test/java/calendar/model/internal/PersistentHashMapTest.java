@@ -0,0 +1,132 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for PersistentHashMap against java.util.HashMap.
+ */
+public final class PersistentHashMapTest {
+
+  /**
+   * Key with a chosen hash, to force collisions and deep tries.
+   */
+  private static final class Key {
+    final int hash;
+    final int id;
+
+    Key(int hash, int id) {
+      this.hash = hash;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).id == id && ((Key) o).hash == hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static void assertMatches(Map<Key, Integer> expected, List<Key> universe,
+                                    PersistentHashMap<Key, Integer> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (Key k : universe) {
+      assertEquals(expected.get(k), actual.get(k));
+    }
+  }
+
+  /**
+   * Random puts and removes agree with HashMap, including fully colliding hashes and hashes
+   * that only differ in their top bits.
+   */
+  @Test
+  public void randomOperations_matchHashMap() {
+    Random random = new Random(7);
+    List<Key> universe = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      int hash;
+      switch (i % 4) {
+        case 0:
+          hash = random.nextInt();
+          break;
+        case 1:
+          hash = 42;
+          break;
+        case 2:
+          hash = (i & 3) << 30 | 5;
+          break;
+        default:
+          hash = i & 0xff;
+          break;
+      }
+      universe.add(new Key(hash, i));
+    }
+
+    Map<Key, Integer> expected = new HashMap<>();
+    PersistentHashMap<Key, Integer> actual = PersistentHashMap.empty();
+    for (int step = 0; step < 20000; step++) {
+      Key k = universe.get(random.nextInt(universe.size()));
+      if (random.nextInt(3) == 0) {
+        expected.remove(k);
+        actual = actual.minus(k);
+      } else {
+        expected.put(k, step);
+        actual = actual.plus(k, step);
+      }
+      if (step % 1000 == 0) {
+        assertMatches(expected, universe, actual);
+      }
+    }
+    assertMatches(expected, universe, actual);
+
+    for (Key k : universe) {
+      expected.remove(k);
+      actual = actual.minus(k);
+    }
+    assertMatches(expected, universe, actual);
+    assertEquals(0, actual.size());
+  }
+
+  /**
+   * Older versions keep their contents after newer versions are derived from them.
+   */
+  @Test
+  public void olderVersions_areUnchanged() {
+    PersistentHashMap<String, Integer> v0 = PersistentHashMap.empty();
+    PersistentHashMap<String, Integer> v1 = v0.plus("a", 1).plus("b", 2);
+    PersistentHashMap<String, Integer> v2 = v1.plus("a", 10).minus("b").plus("c", 3);
+
+    assertNull(v0.get("a"));
+    assertEquals(Integer.valueOf(1), v1.get("a"));
+    assertEquals(Integer.valueOf(2), v1.get("b"));
+    assertNull(v1.get("c"));
+    assertEquals(Integer.valueOf(10), v2.get("a"));
+    assertNull(v2.get("b"));
+    assertEquals(2, v1.size());
+    assertEquals(2, v2.size());
+  }
+
+  /**
+   * Removing an absent key, or re-putting the same value, returns the same map.
+   */
+  @Test
+  public void noOpUpdates_returnSameMap() {
+    Integer one = 1;
+    PersistentHashMap<String, Integer> m = PersistentHashMap.<String, Integer>empty()
+        .plus("a", one);
+    assertSame(m, m.minus("zz"));
+    assertSame(m, m.plus("a", one));
+  }
+}
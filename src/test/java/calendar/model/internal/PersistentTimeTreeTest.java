@@ -0,0 +1,110 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for PersistentTimeTree queries and version independence.
+ */
+public final class PersistentTimeTreeTest {
+
+  private static LocalDateTime at(int d, int h, int min) {
+    return LocalDateTime.of(2025, 5, d, h, min);
+  }
+
+  private static Event ev(String subject, LocalDateTime s, LocalDateTime e) {
+    return new Event.Builder().subject(subject).start(s).end(e).status(Status.PUBLIC).build();
+  }
+
+  /**
+   * Each version keeps the events it had, whatever is derived from it later.
+   */
+  @Test
+  public void versions_areIndependent() {
+    Event a = ev("A", at(5, 9, 0), at(5, 10, 0));
+    Event b = ev("B", at(5, 11, 0), at(5, 12, 0));
+    PersistentTimeTree v1 = PersistentTimeTree.EMPTY.plus(a).plus(b);
+    Event moved = new Event.Builder().id(a.id()).subject("A")
+        .start(at(7, 9, 0)).end(at(7, 10, 0)).build();
+    PersistentTimeTree v2 = v1.replace(a, moved);
+
+    assertEquals(List.of(a, b), v1.all());
+    assertEquals(List.of(b, moved), v2.all());
+    assertTrue(v1.covers(at(5, 9, 30)));
+    assertFalse(v2.covers(at(5, 9, 30)));
+    assertEquals(0, PersistentTimeTree.EMPTY.size());
+    assertThrows(IllegalStateException.class, () -> v2.minus(a));
+  }
+
+  /**
+   * Random adds, moves and removes agree with brute force for every query.
+   */
+  @Test
+  public void randomOperations_matchBruteForce() {
+    Random random = new Random(11);
+    List<Event> expected = new ArrayList<>();
+    PersistentTimeTree tree = PersistentTimeTree.EMPTY;
+    LocalDateTime base = at(1, 0, 0);
+    for (int step = 0; step < 3000; step++) {
+      int op = random.nextInt(4);
+      LocalDateTime s = base.plusMinutes(15L * random.nextInt(400));
+      int slots = 1 + random.nextInt(random.nextInt(10) == 0 ? 200 : 8);
+      LocalDateTime e = s.plusMinutes(15L * slots);
+      if (op == 0 && !expected.isEmpty()) {
+        Event gone = expected.remove(random.nextInt(expected.size()));
+        tree = tree.minus(gone);
+      } else if (op == 1 && !expected.isEmpty()) {
+        int i = random.nextInt(expected.size());
+        Event cur = expected.get(i);
+        Event moved = new Event.Builder().id(cur.id()).subject(cur.subject())
+            .start(s).end(e).build();
+        expected.set(i, moved);
+        tree = tree.replace(cur, moved);
+      } else {
+        Event fresh = ev("E" + step, s, e);
+        expected.add(fresh);
+        tree = tree.plus(fresh);
+      }
+
+      if (step % 100 == 0) {
+        List<Event> sorted = new ArrayList<>(expected);
+        sorted.sort(TimeIndex::compare);
+        assertEquals(sorted, tree.all());
+        assertEquals(expected.size(), tree.size());
+        for (int q = 0; q < 20; q++) {
+          LocalDateTime from = base.plusMinutes(15L * random.nextInt(420));
+          LocalDateTime to = from.plusMinutes(15L * (1 + random.nextInt(12)));
+          List<Event> overlap = new ArrayList<>();
+          List<Event> startingAt = new ArrayList<>();
+          boolean covered = false;
+          for (Event ev : sorted) {
+            if (ev.start().isBefore(to) && ev.end().isAfter(from)) {
+              overlap.add(ev);
+            }
+            if (ev.start().equals(from)) {
+              startingAt.add(ev);
+            }
+            covered |= !ev.start().isAfter(from) && ev.end().isAfter(from);
+          }
+          List<Event> actual = new ArrayList<>();
+          tree.collectOverlapping(from, to, actual);
+          assertEquals(overlap, actual);
+          List<Event> actualStarts = new ArrayList<>();
+          tree.collectStartingAt(from, actualStarts);
+          assertEquals(startingAt, actualStarts);
+          assertEquals(covered, tree.covers(from));
+        }
+      }
+    }
+  }
+}
@@ -9,9 +9,12 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import org.junit.Test;
 
 /**
@@ -91,4 +94,59 @@ public final class RecurrenceExpanderTest {
     assertThrows(IllegalStateException.class,
         () -> expander.expand(LocalDate.of(2025, 5, 5), rule));
   }
+
+  /**
+   * Closed-form helpers agree with a day-by-day walk for every weekday combination.
+   */
+  @Test
+  public void closedForms_matchBruteForce() {
+    LocalDate start = LocalDate.of(2025, 5, 7);
+    for (int mask = 1; mask < 128; mask++) {
+      long seen = 0;
+      LocalDate d = start;
+      for (int day = 0; day < 30; day++, d = d.plusDays(1)) {
+        LocalDate firstWalk = d;
+        while (!RecurrenceExpander.matches(mask, firstWalk)) {
+          firstWalk = firstWalk.plusDays(1);
+        }
+        assertEquals(firstWalk, RecurrenceExpander.firstOnOrAfter(mask, d));
+        if (RecurrenceExpander.matches(mask, d)) {
+          seen++;
+          assertEquals(d, RecurrenceExpander.nthOccurrence(mask, start, seen));
+        }
+        assertEquals(seen, RecurrenceExpander.countThrough(mask, start, d));
+      }
+    }
+    assertEquals(0, RecurrenceExpander.countThrough(1, start, start.minusDays(1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> RecurrenceExpander.nthOccurrence(1, start, 0));
+  }
+
+  /**
+   * Iterator and stream yield the same dates as expand, without building the list first.
+   */
+  @Test
+  public void iteratorAndStream_matchExpand() {
+    RecurrenceExpander expander = new RecurrenceExpander();
+    LocalDate start = LocalDate.of(2025, 5, 5);
+    RecurrenceRule rule = new RecurrenceRule(EnumSet.of(Weekday.T, Weekday.S), Optional.empty(),
+        Optional.of(LocalDate.of(2035, 12, 31)));
+
+    List<LocalDate> expected = expander.expand(start, rule);
+    assertEquals(expected, expander.stream(start, rule).collect(Collectors.toList()));
+    assertEquals(expected.size(), expander.stream(start, rule).spliterator().getExactSizeIfKnown());
+    assertEquals(RecurrenceExpander.countThrough(RecurrenceExpander.mask(rule.weekdays), start,
+        LocalDate.of(2035, 12, 31)), expected.size());
+
+    RecurrenceRule counted =
+        new RecurrenceRule(EnumSet.of(Weekday.U), Optional.of(2), Optional.empty());
+    Iterator<LocalDate> it = expander.iterator(start, counted);
+    assertEquals(LocalDate.of(2025, 5, 11), it.next());
+    assertEquals(LocalDate.of(2025, 5, 18), it.next());
+    assertThrows(NoSuchElementException.class, it::next);
+
+    RecurrenceRule empty = new RecurrenceRule(EnumSet.of(Weekday.M), Optional.empty(),
+        Optional.of(start.minusDays(1)));
+    assertEquals(0, expander.stream(start, empty).count());
+  }
 }
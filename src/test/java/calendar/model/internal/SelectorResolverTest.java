@@ -28,6 +28,12 @@ public final class SelectorResolverTest {
         .build();
   }
 
+  private static SubjectStartIndex index(Map<EventId, Event> byId) {
+    SubjectStartIndex index = new SubjectStartIndex();
+    index.reset(byId.values());
+    return index;
+  }
+
   private static EventSelector sel(String subj, LocalDateTime s) {
     EventSelector es = new EventSelector();
     es.subject = subj;
@@ -44,7 +50,7 @@ public final class SelectorResolverTest {
     Event e = ev("A", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0));
     byId.put(e.id(), e);
 
-    final SelectorResolver r = new SelectorResolver(byId);
+    final SelectorResolver r = new SelectorResolver(byId, index(byId), new SeriesIndex());
     EventSelector s = new EventSelector();
     s.subject = "A";
     s.start = LocalDateTime.of(2025, 1, 1, 9, 0);
@@ -62,7 +68,7 @@ public final class SelectorResolverTest {
     Event e = ev("A", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0));
     byId.put(e.id(), e);
 
-    final SelectorResolver r = new SelectorResolver(byId);
+    final SelectorResolver r = new SelectorResolver(byId, index(byId), new SeriesIndex());
     EventSelector s = new EventSelector();
     s.subject = "A";
     s.start = LocalDateTime.of(2025, 1, 1, 9, 0);
@@ -81,7 +87,7 @@ public final class SelectorResolverTest {
     Event e = ev("A", LocalDateTime.of(2025, 1, 1, 9, 0), LocalDateTime.of(2025, 1, 1, 10, 0));
     byId.put(e.id(), e);
 
-    final SelectorResolver r = new SelectorResolver(byId);
+    final SelectorResolver r = new SelectorResolver(byId, index(byId), new SeriesIndex());
     EventSelector s = new EventSelector();
     s.subject = "A";
     s.start = LocalDateTime.of(2025, 1, 1, 9, 30);
@@ -105,7 +111,7 @@ public final class SelectorResolverTest {
     byId.put(a2.id(), a2);
     byId.put(duplicateStart.id(), duplicateStart);
 
-    SelectorResolver r = new SelectorResolver(byId);
+    SelectorResolver r = new SelectorResolver(byId, index(byId), new SeriesIndex());
 
     assertThrows(ValidationException.class,
         () -> r.resolve(sel("A", LocalDateTime.of(2025, 1, 1, 9, 0))));
@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
 import java.util.UUID;
 import org.junit.Test;
 
@@ -34,20 +36,19 @@ public final class SeriesIndexTest {
   public void detach_removesFromSeries_andCleansEmptySeries() {
     SeriesIndex index = new SeriesIndex();
 
-    List<EventId> ids = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
     for (int i = 0; i < 2; i++) {
-      Event e =
-          ev(LocalDateTime.of(2025, 5, 5, 10 + i, 0), LocalDateTime.of(2025, 5, 5, 11 + i, 0));
-      ids.add(e.id());
+      events.add(
+          ev(LocalDateTime.of(2025, 5, 5, 10 + i, 0), LocalDateTime.of(2025, 5, 5, 11 + i, 0)));
     }
 
-    UUID sid = index.registerSeries(ids);
+    UUID sid = index.registerSeries(events);
     assertEquals(2, index.all(sid).size());
 
-    index.detach(ids.get(0));
+    index.detach(events.get(0).id(), events.get(0).start());
     assertEquals(1, index.all(sid).size());
 
-    index.detach(ids.get(1));
+    index.detach(events.get(1).id(), events.get(1).start());
     assertTrue(index.all(sid).isEmpty());
   }
 
@@ -57,27 +58,25 @@ public final class SeriesIndexTest {
   @Test
   public void splitFollowing_movesEventsAtOrAfterCutoffToNewSeries() {
     SeriesIndex index = new SeriesIndex();
-    Map<EventId, Event> byId = new HashMap<>();
 
-    List<EventId> ids = new ArrayList<>();
+    List<Event> ids = new ArrayList<>();
     LocalDateTime base = LocalDateTime.of(2025, 5, 5, 10, 0);
     for (int i = 0; i < 3; i++) {
       Event e = ev(base.plusDays(i), base.plusDays(i).plusHours(1));
-      byId.put(e.id(), e);
-      ids.add(e.id());
+      ids.add(e);
     }
 
     UUID sid = index.registerSeries(ids);
     assertEquals(3, index.all(sid).size());
 
     LocalDateTime cutoff = base.plusDays(1);
-    UUID newSid = index.splitFollowing(sid, cutoff, byId);
+    UUID newSid = index.splitFollowing(sid, cutoff);
 
     assertEquals(1, index.all(sid).size());
     assertEquals(2, index.all(newSid).size());
 
-    assertTrue(index.following(sid, cutoff, byId).isEmpty());
-    assertEquals(2, index.following(newSid, cutoff, byId).size());
+    assertTrue(index.following(sid, cutoff).isEmpty());
+    assertEquals(2, index.following(newSid, cutoff).size());
   }
 
   /**
@@ -87,7 +86,7 @@ public final class SeriesIndexTest {
   public void detach_onUnknownEvent_isNoOp() {
     SeriesIndex index = new SeriesIndex();
     Event e = ev(LocalDateTime.of(2025, 5, 5, 10, 0), LocalDateTime.of(2025, 5, 5, 11, 0));
-    index.detach(e.id());
+    index.detach(e.id(), e.start());
     org.junit.Assert.assertTrue(index.seriesOf(e.id()).isEmpty());
   }
 
@@ -97,19 +96,17 @@ public final class SeriesIndexTest {
   @Test
   public void splitFollowing_nothingToMove_returnsOriginalSid() {
     SeriesIndex index = new SeriesIndex();
-    Map<EventId, Event> byId = new HashMap<>();
 
-    List<EventId> ids = new ArrayList<>();
+    List<Event> ids = new ArrayList<>();
     LocalDateTime base = LocalDateTime.of(2025, 5, 5, 10, 0);
     for (int i = 0; i < 2; i++) {
       Event e = ev(base.plusDays(i), base.plusDays(i).plusHours(1));
-      byId.put(e.id(), e);
-      ids.add(e.id());
+      ids.add(e);
     }
 
     UUID sid = index.registerSeries(ids);
     LocalDateTime cutoff = base.plusDays(3);
-    UUID res = index.splitFollowing(sid, cutoff, byId);
+    UUID res = index.splitFollowing(sid, cutoff);
     assertEquals(sid, res);
     assertEquals(2, index.all(sid).size());
   }
@@ -120,67 +117,114 @@ public final class SeriesIndexTest {
   @Test
   public void splitFollowing_movesAll_removesOriginalSid() {
     SeriesIndex index = new SeriesIndex();
-    Map<EventId, Event> byId = new HashMap<>();
 
-    List<EventId> ids = new ArrayList<>();
+    List<Event> ids = new ArrayList<>();
     LocalDateTime base = LocalDateTime.of(2025, 5, 5, 10, 0);
     for (int i = 0; i < 2; i++) {
       Event e = ev(base.plusDays(i), base.plusDays(i).plusHours(1));
-      byId.put(e.id(), e);
-      ids.add(e.id());
+      ids.add(e);
     }
 
     UUID sid = index.registerSeries(ids);
-    UUID newSid = index.splitFollowing(sid, base, byId);
+    UUID newSid = index.splitFollowing(sid, base);
     org.junit.Assert.assertNotEquals(sid, newSid);
     assertTrue(index.all(sid).isEmpty());
     assertEquals(2, index.all(newSid).size());
   }
 
   /**
-   * splitFollowing ignores ids missing from byId (e == null treated as keep).
+   * detach is safe when series list is missing (list == null), simulated via reflection.
    */
   @Test
-  public void splitFollowing_ignoresNullEventsInById() {
-    final SeriesIndex index = new SeriesIndex();
-    Map<EventId, Event> byId = new HashMap<>();
+  public void detach_whenSeriesListMissing_isSafeNoOp() throws Exception {
+    SeriesIndex index = new SeriesIndex();
 
-    List<EventId> ids = new ArrayList<>();
-    LocalDateTime base = LocalDateTime.of(2025, 5, 5, 10, 0);
-    Event present = ev(base, base.plusHours(1));
-    byId.put(present.id(), present);
-    ids.add(present.id());
-    Event missing = ev(base.plusDays(1), base.plusDays(1).plusHours(1));
-    ids.add(missing.id());
+    Event e = ev(LocalDateTime.of(2025, 5, 5, 10, 0), LocalDateTime.of(2025, 5, 5, 11, 0));
+    UUID sid = index.registerSeries(List.of(e));
 
-    UUID sid = index.registerSeries(ids);
+    java.lang.reflect.Field f = SeriesIndex.class.getDeclaredField("seriesToEvents");
+    f.setAccessible(true);
+    Map<?, ?> map = (Map<?, ?>) f.get(index);
+    map.remove(sid);
 
-    UUID res = index.splitFollowing(sid, base.plusDays(1), byId);
-    assertEquals(sid, res);
-    assertEquals(2, index.all(sid).size());
+    index.detach(e.id(), e.start());
+
+    assertTrue(index.seriesOf(e.id()).isEmpty());
   }
 
   /**
-   * detach is safe when series list is missing (list == null), simulated via reflection.
+   * Members come back in start order whatever order they were added in, and following,
+   * detach and split agree with a brute-force filter over a long series.
    */
   @Test
-  public void detach_whenSeriesListMissing_isSafeNoOp() throws Exception {
+  public void members_stayInStartOrder_throughDetachAndSplit() {
     SeriesIndex index = new SeriesIndex();
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 1000; i += 2) {
+      events.add(ev(base.plusDays(i), base.plusDays(i).plusHours(1)));
+    }
+    UUID sid = index.registerSeries(events);
+    for (int i = 999; i > 0; i -= 2) {
+      Event e = ev(base.plusDays(i), base.plusDays(i).plusHours(1));
+      index.addMember(sid, e);
+      events.add(e);
+    }
+    events.sort(TimeIndex::compare);
 
-    List<EventId> ids = new ArrayList<>();
-    Event e = ev(LocalDateTime.of(2025, 5, 5, 10, 0), LocalDateTime.of(2025, 5, 5, 11, 0));
-    ids.add(e.id());
-    UUID sid = index.registerSeries(ids);
+    Random random = new Random(5);
+    for (int k = 0; k < 600; k++) {
+      Event gone = events.remove(random.nextInt(events.size()));
+      index.detach(gone.id(), gone.start());
+      assertTrue(index.seriesOf(gone.id()).isEmpty());
+    }
+    assertEquals(ids(events), index.all(sid));
+
+    LocalDateTime cutoff = base.plusDays(700);
+    List<Event> tail = new ArrayList<>();
+    for (Event e : events) {
+      if (!e.start().isBefore(cutoff)) {
+        tail.add(e);
+      }
+    }
+    assertEquals(ids(tail), index.following(sid, cutoff.minusHours(1)));
+    UUID newSid = index.splitFollowing(sid, cutoff.minusHours(1));
+    assertEquals(ids(tail), index.all(newSid));
+    assertEquals(events.size() - tail.size(), index.all(sid).size());
+    assertEquals(Optional.of(newSid), index.seriesOf(tail.get(0).id()));
+  }
 
-    java.lang.reflect.Field f = SeriesIndex.class.getDeclaredField("seriesToEvents");
-    f.setAccessible(true);
-    @SuppressWarnings("unchecked")
-    Map<UUID, List<EventId>> map = (Map<UUID, List<EventId>>) f.get(index);
-    map.remove(sid);
+  /**
+   * After members move, startsChanged restores start order for later cutoffs.
+   */
+  @Test
+  public void startsChanged_reordersMovedMembers() {
+    SeriesIndex index = new SeriesIndex();
+    LocalDateTime base = LocalDateTime.of(2025, 5, 5, 10, 0);
+    Map<EventId, Event> byId = new HashMap<>();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Event e = ev(base.plusDays(i), base.plusDays(i).plusHours(1));
+      byId.put(e.id(), e);
+      events.add(e);
+    }
+    UUID sid = index.registerSeries(events);
+    Event first = events.get(0);
+    Event moved = new Event.Builder().id(first.id()).subject("S")
+        .start(base.plusDays(5)).end(base.plusDays(5).plusHours(1)).build();
+    byId.put(moved.id(), moved);
 
-    index.detach(e.id());
+    index.startsChanged(sid, byId);
 
-    assertTrue(index.seriesOf(e.id()).isEmpty());
+    assertEquals(List.of(events.get(1).id(), events.get(2).id(), moved.id()), index.all(sid));
+    assertEquals(List.of(moved.id()), index.following(sid, base.plusDays(3)));
   }
-}
 
+  private static List<EventId> ids(List<Event> events) {
+    List<EventId> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.id());
+    }
+    return out;
+  }
+}
@@ -0,0 +1,64 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests for SubjectStartIndex bucketing and maintenance.
+ */
+public final class SubjectStartIndexTest {
+  private static final LocalDateTime NINE = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+  private static Event ev(String subject, LocalDateTime s, LocalDateTime e) {
+    return new Event.Builder().subject(subject).start(s).end(e).status(Status.PUBLIC).build();
+  }
+
+  /**
+   * Lookup ignores case and surrounding whitespace; same start with different ends share a bucket.
+   */
+  @Test
+  public void lookup_normalizesSubject_andBucketsByStart() {
+    SubjectStartIndex index = new SubjectStartIndex();
+    Event a = ev("Standup", NINE, NINE.plusHours(1));
+    Event b = ev("STANDUP", NINE, NINE.plusHours(2));
+    Event other = ev("Standup", NINE.plusDays(1), NINE.plusDays(1).plusHours(1));
+    index.add(a);
+    index.add(b);
+    index.add(other);
+
+    assertEquals(List.of(a.id(), b.id()), index.lookup("  standup ", NINE));
+    assertEquals(List.of(other.id()), index.lookup("Standup", NINE.plusDays(1)));
+    assertTrue(index.lookup("Retro", NINE).isEmpty());
+  }
+
+  /**
+   * replace re-files on subject or start change; remove drops empty buckets.
+   */
+  @Test
+  public void replace_and_remove_keepBucketsCurrent() {
+    SubjectStartIndex index = new SubjectStartIndex();
+    Event a = ev("Standup", NINE, NINE.plusHours(1));
+    index.add(a);
+
+    Event renamed = new Event.Builder().id(a.id()).subject("Sync")
+        .start(NINE).end(NINE.plusHours(1)).build();
+    index.replace(a, renamed);
+    assertTrue(index.lookup("Standup", NINE).isEmpty());
+    assertEquals(List.of(a.id()), index.lookup("sync", NINE));
+
+    Event sameKey = new Event.Builder().id(a.id()).subject("Sync")
+        .start(NINE).end(NINE.plusHours(3)).build();
+    index.replace(renamed, sameKey);
+    assertEquals(List.of(a.id()), index.lookup("sync", NINE));
+
+    index.remove(sameKey);
+    index.remove(sameKey);
+    assertTrue(index.lookup("sync", NINE).isEmpty());
+  }
+}
@@ -0,0 +1,156 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/**
+ * Tests for TimeIndex ordering, overlap and coverage queries.
+ */
+public final class TimeIndexTest {
+
+  private static LocalDateTime at(int d, int h, int min) {
+    return LocalDateTime.of(2025, 5, d, h, min);
+  }
+
+  private static Event ev(String subject, LocalDateTime s, LocalDateTime e) {
+    return new Event.Builder().subject(subject).start(s).end(e).status(Status.PUBLIC).build();
+  }
+
+  /**
+   * Overlap uses start-inclusive, end-exclusive bounds and returns start order.
+   */
+  @Test
+  public void overlapping_boundaries_and_startOrder() {
+    TimeIndex index = new TimeIndex();
+    Event late = ev("Late", at(5, 14, 0), at(5, 15, 0));
+    Event early = ev("Early", at(5, 9, 0), at(5, 10, 0));
+    Event spanning = ev("Span", at(4, 20, 0), at(6, 8, 0));
+    index.add(late);
+    index.add(early);
+    index.add(spanning);
+
+    assertEquals(List.of(spanning, early, late), index.overlapping(at(5, 0, 0), at(6, 0, 0)));
+    assertEquals(List.of(spanning), index.overlapping(at(5, 10, 0), at(5, 14, 0)));
+    assertTrue(index.overlapping(at(6, 8, 0), at(6, 9, 0)).isEmpty());
+    assertEquals(List.of(spanning, early, late), index.all());
+  }
+
+  /**
+   * covers is true only for start &lt;= t &lt; end of some event.
+   */
+  @Test
+  public void covers_inclusiveStart_exclusiveEnd() {
+    TimeIndex index = new TimeIndex();
+    index.add(ev("A", at(5, 9, 0), at(5, 10, 0)));
+    index.add(ev("Long", at(1, 9, 0), at(3, 9, 0)));
+
+    assertTrue(index.covers(at(5, 9, 0)));
+    assertFalse(index.covers(at(5, 10, 0)));
+    assertTrue(index.covers(at(2, 23, 0)));
+    assertFalse(index.covers(at(4, 0, 0)));
+  }
+
+  /**
+   * replace moves an event in time; removing an absent event fails loudly.
+   */
+  @Test
+  public void replace_and_remove() {
+    TimeIndex index = new TimeIndex();
+    Event a = ev("A", at(5, 9, 0), at(5, 10, 0));
+    index.add(a);
+    Event moved = new Event.Builder().id(a.id()).subject("A")
+        .start(at(7, 9, 0)).end(at(7, 10, 0)).build();
+    index.replace(a, moved);
+
+    assertTrue(index.overlapping(at(5, 0, 0), at(6, 0, 0)).isEmpty());
+    assertEquals(List.of(moved), index.overlapping(at(7, 0, 0), at(8, 0, 0)));
+    assertThrows(IllegalStateException.class, () -> index.remove(a));
+    assertEquals(1, index.size());
+  }
+
+  /**
+   * Randomized agreement with a brute-force scan, including after removals.
+   */
+  @Test
+  public void overlapping_matchesBruteForce() {
+    Random rnd = new Random(42);
+    TimeIndex index = new TimeIndex();
+    List<Event> all = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      LocalDateTime s = LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(rnd.nextInt(60 * 24 * 60));
+      Event e = ev("E" + i, s, s.plusMinutes(1 + rnd.nextInt(60 * 24 * 3)));
+      index.add(e);
+      all.add(e);
+    }
+    for (int i = 0; i < 100; i++) {
+      index.remove(all.remove(rnd.nextInt(all.size())));
+    }
+
+    for (int q = 0; q < 200; q++) {
+      LocalDateTime from =
+          LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(rnd.nextInt(60 * 24 * 62));
+      LocalDateTime to = from.plusMinutes(1 + rnd.nextInt(60 * 24 * 2));
+      List<Event> expected = all.stream()
+          .filter(e -> e.start().isBefore(to) && e.end().isAfter(from))
+          .sorted(Comparator.comparing(Event::start))
+          .collect(Collectors.toList());
+      List<Event> actual = index.overlapping(from, to);
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < actual.size(); i++) {
+        assertEquals(expected.get(i).start(), actual.get(i).start());
+      }
+      boolean busy = all.stream()
+          .anyMatch(e -> !e.start().isAfter(from) && e.end().isAfter(from));
+      assertEquals(busy, index.covers(from));
+    }
+  }
+
+  /**
+   * Bulk adds, both the small incremental path and the merge-and-rebuild path, leave the index
+   * equal to adding the same events one at a time.
+   */
+  @Test
+  public void addAll_matchesSingleAdds() {
+    Random rnd = new Random(7);
+    for (int batch : new int[] {3, 2000}) {
+      TimeIndex single = new TimeIndex();
+      TimeIndex bulk = new TimeIndex();
+      List<Event> existing = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+        LocalDateTime s = at(1, 0, 0).plusMinutes(15L * rnd.nextInt(2000));
+        existing.add(ev("Old" + i, s, s.plusMinutes(15L * (1 + rnd.nextInt(40)))));
+      }
+      List<Event> added = new ArrayList<>();
+      for (int i = 0; i < batch; i++) {
+        LocalDateTime s = at(1, 0, 0).plusMinutes(15L * rnd.nextInt(2000));
+        added.add(ev("New" + i, s, s.plusMinutes(15L * (1 + rnd.nextInt(40)))));
+      }
+      existing.forEach(single::add);
+      added.forEach(single::add);
+      existing.forEach(bulk::add);
+      bulk.addAll(added);
+
+      assertEquals(single.size(), bulk.size());
+      assertEquals(single.all(), bulk.all());
+      for (int q = 0; q < 300; q++) {
+        LocalDateTime t = at(1, 0, 0).plusMinutes(15L * rnd.nextInt(2100));
+        assertEquals(single.covers(t), bulk.covers(t));
+        assertEquals(single.overlapping(t, t.plusHours(3)), bulk.overlapping(t, t.plusHours(3)));
+      }
+      bulk.remove(added.get(0));
+      assertEquals(single.size() - 1, bulk.size());
+    }
+  }
+}
@@ -1,9 +1,16 @@
 package calendar.model.internal;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import calendar.model.domain.Event;
 import calendar.model.exception.ConflictException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.junit.Test;
 
 /**
@@ -11,6 +18,14 @@ import org.junit.Test;
  */
 public final class UniquenessIndexTest {
 
+  private static Event ev(String subject, LocalDateTime s, LocalDateTime e) {
+    return new Event.Builder().subject(subject).start(s).end(e).build();
+  }
+
+  private static Event moved(Event e, String subject, LocalDateTime s, LocalDateTime end) {
+    return new Event.Builder().id(e.id()).subject(subject).start(s).end(end).build();
+  }
+
   @Test
   public void add_duplicate_rejected_and_replace_checks() {
     UniquenessIndex idx = new UniquenessIndex();
@@ -21,14 +36,108 @@ public final class UniquenessIndexTest {
     assertThrows(ConflictException.class,
         () -> idx.addOrThrow("a", s, e));
 
-    String oldKey = UniquenessIndex.key("A", s, e);
-    String newKey = UniquenessIndex.key("A", s.plusMinutes(1), e.plusMinutes(1));
-    idx.replaceOrThrow(oldKey, newKey);
+    Event a = ev("A", s, e);
+    Event shifted = moved(a, "A", s.plusMinutes(1), e.plusMinutes(1));
+    idx.replaceOrThrow(a, shifted);
 
     idx.addOrThrow("B", s, e);
-    String collide = UniquenessIndex.key("b", s, e);
+    Event b = ev("B", s, e);
+    Event collide = moved(b, "b", s.plusMinutes(1), e.plusMinutes(1));
     assertThrows(ConflictException.class,
-        () -> idx.replaceOrThrow(newKey, collide));
+        () -> idx.replaceOrThrow(b, moved(shifted, " a ", s.plusMinutes(1), e.plusMinutes(1))));
+    idx.replaceOrThrow(b, collide);
+    assertTrue(idx.contains("B", s.plusMinutes(1), e.plusMinutes(1)));
+    assertFalse(idx.contains("B", s, e));
   }
-}
 
+  /**
+   * Subjects compare trimmed and case-insensitively; times compare exactly, nanos included.
+   */
+  @Test
+  public void keys_normalizeSubject_butKeepExactTimes() {
+    UniquenessIndex idx = new UniquenessIndex();
+    LocalDateTime s = LocalDateTime.of(2025, 1, 1, 10, 0);
+    LocalDateTime e = LocalDateTime.of(2025, 1, 1, 11, 0);
+    idx.addOrThrow("Team Sync", s, e);
+
+    assertTrue(idx.contains("  team sync ", s, e));
+    assertFalse(idx.contains("Team Sync", s.plusSeconds(1), e));
+    idx.addOrThrow("Team Sync", s.plusNanos(1), e);
+    assertEquals(2, idx.size());
+  }
+
+  /**
+   * A subject is forgotten with its last key, and its id can go to another subject without
+   * the old subject matching.
+   */
+  @Test
+  public void subjects_droppedWithTheirLastKey() {
+    UniquenessIndex idx = new UniquenessIndex();
+    LocalDateTime s = LocalDateTime.of(2025, 1, 1, 10, 0);
+    LocalDateTime e = LocalDateTime.of(2025, 1, 1, 11, 0);
+    Event current = ev("Draft 0", s, e);
+    idx.addOrThrow(current);
+    for (int i = 1; i <= 20_000; i++) {
+      Event renamed = moved(current, "Draft " + i, s, e);
+      idx.replaceOrThrow(current, renamed);
+      current = renamed;
+    }
+    assertEquals(1, idx.subjects());
+
+    idx.addOrThrow("Other", s, e);
+    idx.remove("other", s, e);
+    assertEquals(1, idx.subjects());
+
+    idx.replaceOrThrow(current, moved(current, "Final", s, e));
+    idx.addOrThrow("Fresh", s, e);
+    assertEquals(2, idx.subjects());
+    assertFalse(idx.contains("Draft 20000", s, e));
+    assertTrue(idx.contains("FRESH", s, e));
+    assertTrue(idx.contains("final", s, e));
+  }
+
+  /**
+   * Randomized adds/replaces through several resizes agree with a reference list.
+   */
+  @Test
+  public void randomizedAgainstReference() {
+    Random rnd = new Random(11);
+    UniquenessIndex idx = new UniquenessIndex();
+    List<Event> live = new ArrayList<>();
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 3000; i++) {
+      LocalDateTime s = base.plusMinutes(15L * rnd.nextInt(400));
+      Event candidate = ev("S" + rnd.nextInt(5), s, s.plusMinutes(30));
+      boolean exists = live.stream().anyMatch(x -> sameKey(x, candidate));
+      if (!live.isEmpty() && rnd.nextBoolean()) {
+        int pick = rnd.nextInt(live.size());
+        Event cur = live.get(pick);
+        Event upd = moved(cur, candidate.subject(), candidate.start(), candidate.end());
+        if (exists && !sameKey(cur, upd)) {
+          assertThrows(ConflictException.class, () -> idx.replaceOrThrow(cur, upd));
+        } else {
+          idx.replaceOrThrow(cur, upd);
+          live.set(pick, upd);
+        }
+      } else if (exists) {
+        assertThrows(ConflictException.class,
+            () -> idx.addOrThrow(candidate.subject(), candidate.start(), candidate.end()));
+      } else {
+        idx.addOrThrow(candidate.subject(), candidate.start(), candidate.end());
+        live.add(candidate);
+      }
+      assertEquals(live.size(), idx.size());
+    }
+    for (Event e : live) {
+      assertTrue(idx.contains(e.subject().toUpperCase(), e.start(), e.end()));
+    }
+
+    idx.reset(live);
+    assertEquals(live.size(), idx.size());
+  }
+
+  private static boolean sameKey(Event a, Event b) {
+    return a.subject().equalsIgnoreCase(b.subject())
+        && a.start().equals(b.start()) && a.end().equals(b.end());
+  }
+}
@@ -0,0 +1,159 @@
+package calendar.model.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.api.EventPatch;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.Test;
+
+/**
+ * Tests for VirtualSeries occurrence generation, derived IDs and template edits.
+ */
+public final class VirtualSeriesTest {
+  private static final LocalDate MON = LocalDate.of(2025, 5, 5);
+
+  private static VirtualSeries series(EnumSet<Weekday> days, Optional<Integer> count,
+                                     Optional<LocalDate> until) {
+    return VirtualSeries.create(UUID.randomUUID(), " Standup ", MON,
+        new RecurrenceRule(days, count, until), LocalTime.of(10, 0), LocalTime.of(10, 30),
+        "", "Room 1", Status.PUBLIC);
+  }
+
+  private static List<LocalDate> dates(VirtualSeries run) {
+    List<Event> out = new ArrayList<>();
+    run.collectAll(out);
+    List<LocalDate> dates = new ArrayList<>();
+    for (Event e : out) {
+      dates.add(e.start().toLocalDate());
+    }
+    return dates;
+  }
+
+  /**
+   * Count and until rules produce exactly the dates RecurrenceExpander produces.
+   */
+  @Test
+  public void occurrences_matchExpander() {
+    RecurrenceExpander expander = new RecurrenceExpander();
+    EnumSet<Weekday> days = EnumSet.of(Weekday.T, Weekday.R, Weekday.S);
+    for (int count = 1; count <= 20; count++) {
+      RecurrenceRule rule = new RecurrenceRule(days, Optional.of(count), Optional.empty());
+      assertEquals(expander.expand(MON, rule),
+          dates(series(days, Optional.of(count), Optional.empty())));
+    }
+    LocalDate until = MON.plusDays(45);
+    RecurrenceRule rule = new RecurrenceRule(days, Optional.empty(), Optional.of(until));
+    assertEquals(expander.expand(MON, rule),
+        dates(series(days, Optional.empty(), Optional.of(until))));
+  }
+
+  /**
+   * Occurrence IDs are stable and decode back to their date and ID base.
+   */
+  @Test
+  public void derivedIds_roundTrip() {
+    VirtualSeries run = series(EnumSet.of(Weekday.M), Optional.of(3), Optional.empty());
+    Event e = run.occurrence(MON.plusWeeks(1));
+
+    assertEquals(e.id(), run.occurrence(MON.plusWeeks(1)).id());
+    assertEquals(MON.plusWeeks(1), VirtualSeries.dateOf(e.id()));
+    assertEquals(run.idBase(), VirtualSeries.baseOf(e.id()));
+    assertEquals("Standup", e.subject());
+    assertEquals(LocalDateTime.of(2025, 5, 12, 10, 30), e.end());
+  }
+
+  /**
+   * Window queries and coverage only look at dates near the window.
+   */
+  @Test
+  public void collectOverlapping_andCovers() {
+    VirtualSeries run = series(EnumSet.of(Weekday.M, Weekday.W), Optional.empty(),
+        Optional.of(LocalDate.of(2035, 12, 31)));
+
+    List<Event> out = new ArrayList<>();
+    run.collectOverlapping(LocalDateTime.of(2030, 1, 1, 0, 0),
+        LocalDateTime.of(2030, 1, 8, 0, 0), out);
+    assertEquals(2, out.size());
+    assertEquals(LocalDateTime.of(2030, 1, 2, 10, 0), out.get(0).start());
+    assertEquals(LocalDateTime.of(2030, 1, 7, 10, 0), out.get(1).start());
+
+    assertTrue(run.covers(LocalDateTime.of(2030, 1, 2, 10, 0)));
+    assertFalse(run.covers(LocalDateTime.of(2030, 1, 2, 10, 30)));
+    assertFalse(run.covers(LocalDateTime.of(2030, 1, 3, 10, 15)));
+  }
+
+  /**
+   * Exceptions and splits remove dates without touching the template.
+   */
+  @Test
+  public void except_andSplit() {
+    VirtualSeries run = series(EnumSet.of(Weekday.M), Optional.of(4), Optional.empty());
+    VirtualSeries without = run.except(MON.plusWeeks(1));
+
+    assertTrue(run.occursOn(MON.plusWeeks(1)));
+    assertFalse(without.occursOn(MON.plusWeeks(1)));
+    assertEquals(MON.plusWeeks(2), without.nextDate(MON.plusDays(1), without.last()));
+
+    LocalDate cut = without.cutoffDate(LocalDateTime.of(2025, 5, 19, 10, 0));
+    assertEquals(MON.plusWeeks(2), cut);
+    assertEquals(List.of(MON), dates(without.before(cut)));
+    assertEquals(List.of(MON.plusWeeks(2), MON.plusWeeks(3)), dates(without.from(cut)));
+    assertEquals(MON.plusWeeks(2).plusDays(1),
+        run.cutoffDate(LocalDateTime.of(2025, 5, 19, 10, 1)));
+    assertNull(run.nextDate(MON.plusWeeks(4), MON.plusWeeks(10)));
+  }
+
+  /**
+   * Template edits follow the per-occurrence patch rules: times land on each date, a start
+   * alone keeps the duration, and an end alone cannot be a template.
+   */
+  @Test
+  public void retemplate_followsPerOccurrenceRules() {
+    VirtualSeries run = series(EnumSet.of(Weekday.M), Optional.of(2), Optional.empty());
+
+    EventPatch moveStart = new EventPatch();
+    moveStart.start = Optional.of(LocalDateTime.of(2000, 1, 1, 9, 0));
+    Event moved = run.retemplate(moveStart).occurrence(MON);
+    assertEquals(LocalDateTime.of(2025, 5, 5, 9, 0), moved.start());
+    assertEquals(Duration.ofMinutes(30), Duration.between(moved.start(), moved.end()));
+
+    EventPatch both = new EventPatch();
+    both.start = Optional.of(LocalDateTime.of(2000, 1, 1, 13, 0));
+    both.end = Optional.of(LocalDateTime.of(2000, 1, 1, 15, 0));
+    both.subject = Optional.of("standup");
+    VirtualSeries reshaped = run.retemplate(both);
+    assertEquals(LocalDateTime.of(2025, 5, 12, 15, 0), reshaped.occurrence(MON.plusWeeks(1)).end());
+    assertFalse(reshaped.sameKeysAs(run));
+
+    EventPatch rename = new EventPatch();
+    rename.subject = Optional.of("STANDUP");
+    rename.location = Optional.of("Room 2");
+    assertTrue(run.retemplate(rename).sameKeysAs(run));
+
+    EventPatch endOnly = new EventPatch();
+    endOnly.end = Optional.of(LocalDateTime.of(2025, 6, 1, 12, 0));
+    assertFalse(VirtualSeries.canRetemplate(endOnly));
+    assertThrows(IllegalStateException.class, () -> run.retemplate(endOnly));
+
+    EventPatch backwards = new EventPatch();
+    backwards.start = Optional.of(LocalDateTime.of(2000, 1, 1, 12, 0));
+    backwards.end = Optional.of(LocalDateTime.of(2000, 1, 1, 11, 0));
+    assertThrows(IllegalArgumentException.class, () -> run.retemplate(backwards));
+  }
+}
@@ -0,0 +1,363 @@
+package calendar.model.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.CalendarManager;
+import calendar.model.DefaultCalendarFactory;
+import calendar.model.TimeZoneInMemoryCalendarInterface;
+import calendar.model.api.EditScope;
+import calendar.model.api.EventDraft;
+import calendar.model.api.EventPatch;
+import calendar.model.api.EventSelector;
+import calendar.model.api.SeriesDraft;
+import calendar.model.domain.Event;
+import calendar.model.domain.Status;
+import calendar.model.recurrence.RecurrenceRule;
+import calendar.model.recurrence.Weekday;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Journal}: reopening the log rebuilds the same calendars, events included,
+ * as the session that wrote it, whether from the log alone or from a snapshot and the log
+ * segments after it.
+ */
+public final class JournalTest {
+  private static final LocalDate MONDAY = LocalDate.of(2025, 5, 5);
+
+  private Path dir;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("journal");
+    file = dir.resolve("calendar.log");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+      for (Path p : files) {
+        Files.deleteIfExists(p);
+      }
+    }
+    Files.deleteIfExists(dir);
+  }
+
+  private Journal open() throws IOException {
+    return Journal.open(file, WalOptions.defaults(), new DefaultCalendarFactory());
+  }
+
+  private static EventDraft timed(String s, LocalDateTime start, LocalDateTime end) {
+    EventDraft d = new EventDraft();
+    d.subject = s;
+    d.start = Optional.of(start);
+    d.end = Optional.of(end);
+    return d;
+  }
+
+  private static SeriesDraft weekly(String subject, LocalTime start, int count) {
+    SeriesDraft d = new SeriesDraft();
+    d.subject = subject;
+    d.startDate = MONDAY;
+    d.startTime = Optional.of(start);
+    d.endTime = Optional.of(start.plusMinutes(45));
+    d.rule = new RecurrenceRule(EnumSet.of(Weekday.M, Weekday.W, Weekday.F), Optional.of(count),
+        Optional.empty());
+    return d;
+  }
+
+  private static EventSelector select(String subject, LocalDateTime start) {
+    EventSelector s = new EventSelector();
+    s.subject = subject;
+    s.start = start;
+    return s;
+  }
+
+  /** Every calendar's name, zone and events, without the randomly generated ids. */
+  private static Map<String, String> state(CalendarManager manager) {
+    Map<String, String> out = new TreeMap<>();
+    for (TimeZoneInMemoryCalendarInterface cal : manager.getAllCalendars().values()) {
+      List<String> events = new ArrayList<>();
+      for (Event e : cal.allEvents()) {
+        events.add(e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status()
+            + "|" + e.description().orElse("") + "|" + e.location().orElse("")
+            + "|" + cal.seriesOfEvent(e.id()).isPresent());
+      }
+      Collections.sort(events);
+      out.put(cal.getName(), cal.getZoneId() + " " + events);
+    }
+    return out;
+  }
+
+  @Test
+  public void reopen_rebuildsCalendarsAndEvents() throws IOException {
+    Map<String, String> expected;
+    try (Journal journal = open()) {
+      CalendarManager manager = journal.manager();
+      TimeZoneInMemoryCalendarInterface work = manager.createCalendar("Work", "America/New_York");
+      manager.createCalendar("Home", "Europe/London");
+      LocalDateTime nine = MONDAY.atTime(9, 0);
+      work.create(timed("Standup", nine, nine.plusMinutes(15)));
+      work.createSeries(weekly("Gym", LocalTime.of(18, 0), 6));
+      work.createAll(List.of(timed("A", nine.plusHours(2), nine.plusHours(3)),
+          timed("B", nine.plusHours(4), nine.plusHours(5))));
+
+      EventPatch patch = new EventPatch();
+      patch.location = Optional.of("Room 2");
+      patch.status = Optional.of(Status.PRIVATE);
+      work.updateBySelector(select("Gym", MONDAY.plusDays(2).atTime(18, 0)), patch,
+          EditScope.FOLLOWING);
+
+      manager.copyEvent("Work", "Standup", nine, "Home", MONDAY.atTime(14, 0));
+      manager.editCalendarName("Work", "Office");
+      manager.editCalendarTimezone("Home", ZoneId.of("Asia/Tokyo"));
+      manager.getCalendar("Office").create(timed("Late", nine.plusDays(1), nine.plusDays(1)
+          .plusHours(1)));
+      expected = state(manager);
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(expected, state(journal.manager()));
+      assertEquals(Set.of("Office", "Home"), journal.manager().getCalendarNames());
+    }
+  }
+
+  @Test
+  public void reopen_repeatsFailedCallsTheSameWay() throws IOException {
+    Map<String, String> expected;
+    try (Journal journal = open()) {
+      CalendarManager manager = journal.manager();
+      TimeZoneInMemoryCalendarInterface cal = manager.createCalendar("Work", "UTC");
+      LocalDateTime wednesday = MONDAY.plusDays(2).atTime(18, 0);
+      cal.create(timed("Gym", wednesday, wednesday.plusMinutes(45)));
+      assertThrows(RuntimeException.class,
+          () -> cal.createSeries(weekly("Gym", LocalTime.of(18, 0), 6)));
+      assertThrows(RuntimeException.class,
+          () -> cal.create(timed("Backwards", wednesday, wednesday.minusHours(1))));
+      assertThrows(RuntimeException.class, () -> manager.editCalendarName("Work", " "));
+      expected = state(manager);
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(expected, state(journal.manager()));
+    }
+  }
+
+  @Test
+  public void reopen_doesNotLogTheReplay() throws IOException {
+    try (Journal journal = open()) {
+      journal.manager().createCalendar("Work", "UTC")
+          .createSeries(weekly("Gym", LocalTime.of(7, 0), 9));
+    }
+    long size = Files.size(file);
+
+    try (Journal journal = open()) {
+      assertEquals(2, journal.recovered());
+    }
+    assertEquals(size, Files.size(file));
+
+    try (Journal journal = open()) {
+      journal.manager().createCalendar("Home", "UTC");
+    }
+    try (Journal journal = open()) {
+      assertEquals(3, journal.recovered());
+      assertTrue(journal.manager().hasCalendar("Home"));
+    }
+  }
+
+  @Test
+  public void createCalendar_rejectedByManagerIsNotLogged() throws IOException {
+    try (Journal journal = open()) {
+      journal.manager().createCalendar("Work", "UTC");
+      assertThrows(RuntimeException.class,
+          () -> journal.manager().createCalendar("Work", "UTC"));
+      assertThrows(RuntimeException.class,
+          () -> journal.manager().createCalendar("Bad", "Not/AZone"));
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(1, journal.recovered());
+      assertFalse(journal.manager().hasCalendar("Bad"));
+    }
+  }
+
+  private Map<String, String> fillWorkCalendar(CalendarManager manager) {
+    TimeZoneInMemoryCalendarInterface work = manager.createCalendar("Work", "America/New_York");
+    LocalDateTime nine = MONDAY.atTime(9, 0);
+    work.create(timed("Standup", nine, nine.plusMinutes(15)));
+    work.createSeries(weekly("Gym", LocalTime.of(18, 0), 6));
+    EventPatch patch = new EventPatch();
+    patch.location = Optional.of("Room 2");
+    work.updateBySelector(select("Gym", MONDAY.plusDays(2).atTime(18, 0)), patch,
+        EditScope.FOLLOWING);
+    return state(manager);
+  }
+
+  @Test
+  public void snapshot_thenTailRebuildsTheSameState() throws IOException {
+    Map<String, String> expected;
+    try (Journal journal = open()) {
+      CalendarManager manager = journal.manager();
+      fillWorkCalendar(manager);
+      journal.snapshot();
+      manager.editCalendarName("Work", "Office");
+      manager.createCalendar("Home", "Europe/London");
+      manager.getCalendar("Office").create(timed("Late", MONDAY.atTime(20, 0),
+          MONDAY.atTime(21, 0)));
+      manager.getCalendar("Office").updateBySelector(select("Gym", MONDAY.atTime(18, 0)),
+          new EventPatch(), EditScope.ENTIRE_SERIES);
+      expected = state(manager);
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(4, journal.recovered());
+      assertEquals(expected, state(journal.manager()));
+    }
+    try (Journal journal = open()) {
+      assertEquals(expected, state(journal.manager()));
+    }
+  }
+
+  @Test
+  public void snapshot_truncatesTheLog() throws IOException {
+    try (Journal journal = open()) {
+      CalendarManager manager = journal.manager();
+      fillWorkCalendar(manager);
+      long before = Files.size(file);
+      journal.snapshot();
+      assertTrue(Files.size(file) < before);
+      assertFalse(Files.exists(dir.resolve("calendar.log.0")));
+      assertTrue(Files.exists(dir.resolve("calendar.log.snapshot")));
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(0, journal.recovered());
+      assertEquals(1, journal.manager().getAllCalendars().size());
+    }
+  }
+
+  @Test
+  public void snapshot_failedWriteKeepsTheSegmentsForReplay() throws IOException {
+    Map<String, String> expected;
+    try (Journal journal = open()) {
+      expected = fillWorkCalendar(journal.manager());
+      Files.createDirectory(dir.resolve("calendar.log.snapshot.tmp"));
+      Files.write(dir.resolve("calendar.log.snapshot.tmp").resolve("x"), new byte[1]);
+      assertThrows(IOException.class, journal::snapshot);
+      assertTrue(Files.exists(dir.resolve("calendar.log.0")));
+      Files.delete(dir.resolve("calendar.log.snapshot.tmp").resolve("x"));
+      Files.delete(dir.resolve("calendar.log.snapshot.tmp"));
+      journal.manager().createCalendar("Home", "UTC");
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(5, journal.recovered());
+      expected.put("Home", "UTC []");
+      assertEquals(expected, state(journal.manager()));
+    }
+  }
+
+  @Test
+  public void open_deletesSegmentsTheSnapshotCovers() throws IOException {
+    Map<String, String> expected;
+    Path copy = dir.resolve("copy");
+    try (Journal journal = open()) {
+      expected = fillWorkCalendar(journal.manager());
+      journal.sync();
+      Files.copy(file, copy);
+      journal.snapshot();
+    }
+    Files.move(copy, dir.resolve("calendar.log.0"));
+
+    try (Journal journal = open()) {
+      assertEquals(0, journal.recovered());
+      assertEquals(expected, state(journal.manager()));
+    }
+    assertFalse(Files.exists(dir.resolve("calendar.log.0")));
+  }
+
+  @Test
+  public void open_skipsALiveLogTheSnapshotCovers() throws IOException {
+    Map<String, String> expected;
+    Path copy = dir.resolve("copy");
+    try (Journal journal = open()) {
+      expected = fillWorkCalendar(journal.manager());
+      journal.sync();
+      Files.copy(file, copy);
+      journal.snapshot();
+    }
+    // As if the process died after writing the snapshot but before renaming the new log.
+    Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING);
+
+    try (Journal journal = open()) {
+      assertEquals(expected, state(journal.manager()));
+      journal.manager().createCalendar("Home", "UTC");
+    }
+    try (Journal journal = open()) {
+      assertEquals(1, journal.recovered());
+      assertEquals(Set.of("Work", "Home"), journal.manager().getCalendarNames());
+    }
+  }
+
+  @Test
+  public void snapshotEvery_takesSnapshotsInTheBackground() throws IOException {
+    Map<String, String> expected;
+    WalOptions options = WalOptions.defaults().withSnapshotEvery(10);
+    try (Journal journal = Journal.open(file, options, new DefaultCalendarFactory())) {
+      TimeZoneInMemoryCalendarInterface cal = journal.manager().createCalendar("Work", "UTC");
+      LocalDateTime nine = MONDAY.atTime(9, 0);
+      for (int i = 0; i < 45; i++) {
+        cal.create(timed("E" + i, nine.plusHours(i), nine.plusHours(i).plusMinutes(30)));
+      }
+      expected = state(journal.manager());
+    }
+
+    assertTrue(Files.exists(dir.resolve("calendar.log.snapshot")));
+    try (Journal journal = open()) {
+      assertTrue(journal.recovered() < 46);
+      assertEquals(expected, state(journal.manager()));
+    }
+  }
+
+  @Test
+  public void restore_isLoggedLikeAnyMutation() throws IOException {
+    Map<String, String> expected;
+    List<Event> restored;
+    try (Journal journal = open()) {
+      CalendarManager manager = journal.manager();
+      fillWorkCalendar(manager);
+      TimeZoneInMemoryCalendarInterface work = manager.getCalendar("Work");
+      TimeZoneInMemoryCalendarInterface copy = manager.createCalendar("Copy", "America/New_York");
+      copy.restore(work.snapshot().allEvents(), work.snapshot().seriesMembership());
+      restored = copy.allEvents();
+      expected = state(manager);
+    }
+
+    try (Journal journal = open()) {
+      assertEquals(expected, state(journal.manager()));
+      assertEquals(restored, journal.manager().getCalendar("Copy").allEvents());
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package calendar.model.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import calendar.model.domain.Event;
+import calendar.model.domain.SeriesId;
+import calendar.model.domain.Status;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SnapshotFile}: calendars come back field for field, and a damaged or
+ * foreign file is refused whole.
+ */
+public final class SnapshotFileTest {
+  private static final LocalDateTime NINE = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+  private Path dir;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("snapshot");
+    file = dir.resolve("calendar.log.snapshot");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(dir);
+  }
+
+  private static List<String> describe(List<Event> events) {
+    List<String> out = new ArrayList<>();
+    for (Event e : events) {
+      out.add(e.id() + "|" + e.subject() + "|" + e.start() + "|" + e.end() + "|" + e.status()
+          + "|" + e.description().orElse("-") + "|" + e.location().orElse("-"));
+    }
+    return out;
+  }
+
+  private static List<SnapshotFile.Calendar> sample() {
+    Event plain = new Event.Builder().subject("Standup").start(NINE)
+        .end(NINE.plusMinutes(15).plusNanos(5)).build();
+    Event full = new Event.Builder().subject("Review \u00e9").start(NINE.plusHours(2))
+        .end(NINE.plusHours(3)).description("Quarterly").location("Room 2")
+        .status(Status.PRIVATE).build();
+    Event member = new Event.Builder().subject("Gym").start(NINE.plusDays(1))
+        .end(NINE.plusDays(1).plusHours(1)).location("Room 2").build();
+    SeriesId series = new SeriesId(UUID.randomUUID());
+    return List.of(
+        new SnapshotFile.Calendar("Work", ZoneId.of("America/New_York"),
+            List.of(plain, full, member), Map.of(member.id(), series)),
+        new SnapshotFile.Calendar("Empty", ZoneId.of("UTC"), List.of(), Map.of()));
+  }
+
+  @Test
+  public void read_returnsWhatWasWritten() throws IOException {
+    List<SnapshotFile.Calendar> written = sample();
+    SnapshotFile.write(file, 7, written);
+
+    List<SnapshotFile.Calendar> read = new ArrayList<>();
+    assertEquals(7, SnapshotFile.read(file, read::add));
+    assertEquals(written.size(), read.size());
+    for (int i = 0; i < written.size(); i++) {
+      SnapshotFile.Calendar expected = written.get(i);
+      SnapshotFile.Calendar actual = read.get(i);
+      assertEquals(expected.name, actual.name);
+      assertEquals(expected.zone, actual.zone);
+      assertEquals(describe(expected.events), describe(actual.events));
+      assertEquals(expected.series, actual.series);
+    }
+    assertFalse(Files.exists(dir.resolve("calendar.log.snapshot.tmp")));
+  }
+
+  @Test
+  public void read_refusesDamagedFile() throws IOException {
+    SnapshotFile.write(file, 1, sample());
+    byte[] raw = Files.readAllBytes(file);
+    raw[raw.length / 2] ^= 1;
+    Files.write(file, raw);
+
+    List<SnapshotFile.Calendar> read = new ArrayList<>();
+    IOException ex = assertThrows(IOException.class, () -> SnapshotFile.read(file, read::add));
+    assertTrue(ex.getMessage().contains("damaged"));
+    assertEquals(0, read.size());
+  }
+
+  @Test
+  public void read_refusesTruncatedFile() throws IOException {
+    SnapshotFile.write(file, 1, sample());
+    byte[] raw = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(raw, raw.length - 3));
+
+    assertThrows(IOException.class, () -> SnapshotFile.read(file, c -> { }));
+  }
+
+  @Test
+  public void read_refusesForeignFile() throws IOException {
+    Files.write(file, "BEGIN:VCALENDAR and some more bytes".getBytes(StandardCharsets.UTF_8));
+
+    IOException ex = assertThrows(IOException.class, () -> SnapshotFile.read(file, c -> { }));
+    assertTrue(ex.getMessage().startsWith("Not a calendar snapshot"));
+  }
+
+  @Test
+  public void write_replacesPreviousSnapshot() throws IOException {
+    SnapshotFile.write(file, 1, sample());
+    SnapshotFile.write(file, 2, List.of());
+
+    List<SnapshotFile.Calendar> read = new ArrayList<>();
+    assertEquals(2, SnapshotFile.read(file, read::add));
+    assertEquals(0, read.size());
+  }
+}
@@ -0,0 +1,314 @@
+package calendar.model.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link WriteAheadLog}: records come back in order, and a torn or corrupt tail is
+ * cut off instead of replayed.
+ */
+public final class WriteAheadLogTest {
+  private Path dir;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("wal");
+    file = dir.resolve("calendar.log");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(dir);
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private void write(WalOptions options, String... records) throws IOException {
+    try (WriteAheadLog log = WriteAheadLog.open(file, options, p -> { })) {
+      for (String r : records) {
+        log.append(bytes(r), r.length());
+      }
+    }
+  }
+
+  private List<String> read() throws IOException {
+    List<String> out = new ArrayList<>();
+    try (WriteAheadLog log = WriteAheadLog.open(file, WalOptions.defaults(), p -> {
+      byte[] b = new byte[p.remaining()];
+      p.get(b);
+      out.add(new String(b, StandardCharsets.UTF_8));
+    })) {
+      assertEquals(out.size(), log.recovered());
+    }
+    return out;
+  }
+
+  @Test
+  public void replay_returnsRecordsInAppendOrder() throws IOException {
+    write(WalOptions.defaults(), "one", "two", "", "three");
+    write(WalOptions.defaults(), "four");
+
+    assertEquals(Arrays.asList("one", "two", "", "three", "four"), read());
+  }
+
+  @Test
+  public void replay_newFileIsEmpty() throws IOException {
+    assertEquals(List.of(), read());
+    assertEquals(8, Files.size(file));
+  }
+
+  @Test
+  public void replay_largeRecordSurvives() throws IOException {
+    byte[] big = new byte[3 << 20];
+    Arrays.fill(big, (byte) 'x');
+    big[big.length - 1] = 'y';
+    try (WriteAheadLog log = WriteAheadLog.open(file, WalOptions.defaults(), p -> { })) {
+      log.append(big, big.length);
+      log.append(bytes("after"), 5);
+    }
+
+    List<String> records = read();
+    assertEquals(2, records.size());
+    assertEquals(new String(big, StandardCharsets.UTF_8), records.get(0));
+    assertEquals("after", records.get(1));
+  }
+
+  @Test
+  public void replay_tornTailIsTruncated() throws IOException {
+    write(WalOptions.defaults(), "kept", "torn");
+    long full = Files.size(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(full - 2);
+    }
+
+    assertEquals(List.of("kept"), read());
+    assertEquals(full - 12, Files.size(file));
+
+    write(WalOptions.defaults(), "next");
+    assertEquals(Arrays.asList("kept", "next"), read());
+  }
+
+  @Test
+  public void replay_badChecksumEndsTheLog() throws IOException {
+    write(WalOptions.defaults(), "first", "second", "third");
+    byte[] raw = Files.readAllBytes(file);
+    int secondPayload = 8 + (8 + 5) + 8;
+    raw[secondPayload] ^= 1;
+    Files.write(file, raw);
+
+    assertEquals(List.of("first"), read());
+  }
+
+  @Test
+  public void replay_truncatedHeaderEndsTheLog() throws IOException {
+    write(WalOptions.defaults(), "first");
+    Files.write(file, new byte[] {0, 0}, StandardOpenOption.APPEND);
+
+    assertEquals(List.of("first"), read());
+  }
+
+  @Test
+  public void open_rejectsForeignFile() throws IOException {
+    Files.write(file, bytes("not a log at all"));
+
+    assertThrows(IOException.class, () -> WriteAheadLog.open(file, WalOptions.defaults(),
+        p -> { }));
+    assertEquals("not a log at all", Files.readString(file));
+  }
+
+  @Test
+  public void append_withGroupCommitKeepsEveryRecord() throws IOException {
+    write(WalOptions.defaults().withSyncEvery(0).withSyncInterval(Duration.ofMillis(5)),
+        "a", "b", "c");
+    write(WalOptions.defaults().withSyncEvery(64), "d");
+
+    assertEquals(Arrays.asList("a", "b", "c", "d"), read());
+  }
+
+  @Test
+  public void append_rejectsOversizedRecord() throws IOException {
+    try (WriteAheadLog log = WriteAheadLog.open(file, WalOptions.defaults(), p -> { })) {
+      assertThrows(IllegalArgumentException.class, () -> log.append(new byte[0], 65 << 20));
+    }
+  }
+
+  @Test
+  public void replay_payloadIsReadOnly() throws IOException {
+    write(WalOptions.defaults(), "x");
+    List<ByteBuffer> seen = new ArrayList<>();
+    WriteAheadLog.open(file, WalOptions.defaults(), seen::add).close();
+
+    assertEquals(1, seen.size());
+    assertTrue(seen.get(0).isReadOnly());
+  }
+
+  @Test
+  public void append_failedWriteLeavesNoTornRecord() throws IOException {
+    FailingChannel channel = new FailingChannel(file);
+    try (WriteAheadLog log = WriteAheadLog.open(file, channel, WalOptions.defaults(),
+        p -> { })) {
+      log.append(bytes("one"), 3);
+      channel.failWrites = true;
+      assertThrows(UncheckedIOException.class, () -> log.append(bytes("two"), 3));
+      channel.failWrites = false;
+      log.append(bytes("three"), 5);
+    }
+
+    assertEquals(Arrays.asList("one", "three"), read());
+  }
+
+  @Test
+  public void append_refusedAfterTornRecordCannotBeCut() throws IOException {
+    FailingChannel channel = new FailingChannel(file);
+    WriteAheadLog log = WriteAheadLog.open(file, channel, WalOptions.defaults(), p -> { });
+    log.append(bytes("one"), 3);
+    channel.failWrites = true;
+    channel.failTruncate = true;
+    assertThrows(UncheckedIOException.class, () -> log.append(bytes("two"), 3));
+    channel.failWrites = false;
+    channel.failTruncate = false;
+
+    assertThrows(UncheckedIOException.class, () -> log.append(bytes("three"), 5));
+    assertThrows(IOException.class, log::close);
+    assertEquals(List.of("one"), read());
+  }
+
+  /**
+   * A file channel that, on request, writes part of a buffer and then fails, and fails to
+   * truncate.
+   */
+  private static final class FailingChannel extends FileChannel {
+    private final FileChannel file;
+    boolean failWrites;
+    boolean failTruncate;
+
+    FailingChannel(Path path) throws IOException {
+      file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (!failWrites) {
+        return file.write(src);
+      }
+      ByteBuffer half = src.duplicate();
+      half.limit(src.position() + src.remaining() / 2);
+      src.position(half.limit());
+      file.write(half);
+      throw new IOException("Simulated write failure");
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+      if (failTruncate) {
+        throw new IOException("Simulated truncate failure");
+      }
+      file.truncate(size);
+      return this;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      return file.read(dst);
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+      return file.read(dsts, offset, length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      return file.write(srcs, offset, length);
+    }
+
+    @Override
+    public long position() throws IOException {
+      return file.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+      file.position(newPosition);
+      return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+      return file.size();
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+      file.force(metaData);
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+        throws IOException {
+      return file.transferTo(position, count, target);
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+        throws IOException {
+      return file.transferFrom(src, position, count);
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+      return file.read(dst, position);
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+      return file.write(src, position);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+      return file.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+      return file.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+      return file.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+      file.close();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package calendar.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+
+/**
+ * Tests for BatchedOutput block handling, ordering and failure reporting.
+ */
+public class BatchedOutputTest {
+
+  private static class FailingAppendable implements Appendable {
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      throw new IOException("x");
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      throw new IOException("x");
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      throw new IOException("x");
+    }
+  }
+
+  @Test
+  public void testEndCommandWritesOnlyFullBlocks() throws IOException {
+    StringBuilder sink = new StringBuilder();
+    BatchedOutput out = BatchedOutput.of(sink, 8);
+    out.append("abc").append('d');
+    out.endCommand();
+    assertEquals("", sink.toString());
+
+    out.append("efgh", 0, 4);
+    out.endCommand();
+    assertEquals("abcdefgh", sink.toString());
+
+    out.append("ij");
+    out.flush();
+    assertEquals("abcdefghij", sink.toString());
+  }
+
+  @Test
+  public void testLongCommandIsWrittenBeforeItEnds() throws IOException {
+    StringBuilder sink = new StringBuilder();
+    BatchedOutput out = BatchedOutput.of(sink, 4);
+    out.append("0123456789abcdef");
+    assertEquals("0123456789abcdef", sink.toString());
+  }
+
+  @Test
+  public void testAsyncKeepsOrderAndFlushesSink() throws IOException {
+    StringWriter sink = new StringWriter();
+    StringBuilder expected = new StringBuilder();
+    try (BatchedOutput out = BatchedOutput.async(sink, 16)) {
+      for (int i = 0; i < 5000; i++) {
+        String line = "line " + i + "\n";
+        out.append(line);
+        expected.append(line);
+        out.endCommand();
+      }
+      out.flush();
+      assertEquals(expected.toString(), sink.toString());
+      out.append("tail");
+    }
+    assertEquals(expected + "tail", sink.toString());
+  }
+
+  @Test
+  public void testSyncWriteFailureIsThrown() throws IOException {
+    BatchedOutput out = BatchedOutput.of(new FailingAppendable(), 4);
+    out.append("ab");
+    assertThrows(IOException.class, out::flush);
+  }
+
+  @Test
+  public void testAsyncWriteFailureIsReportedOnClose() {
+    IOException e = assertThrows(IOException.class, () -> {
+      try (BatchedOutput out = BatchedOutput.async(new FailingAppendable(), 4)) {
+        out.append("abcd");
+        out.endCommand();
+      }
+    });
+    assertTrue(e.getMessage().contains("x"));
+  }
+}
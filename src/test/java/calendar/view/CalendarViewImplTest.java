@@ -96,6 +96,25 @@ public class CalendarViewImplTest {
     assertTrue(s.equals("User is not BUSY\n"));
   }
 
+  @Test
+  public void testPrintEventsFromToPadsDigitsAndFormatsFarYears() {
+    Event early = new Event.Builder()
+        .subject("early").start(LocalDateTime.parse("0987-03-04T05:06"))
+        .end(LocalDateTime.parse("0987-03-04T07:08")).build();
+
+    StringBuilder out = new StringBuilder();
+    CalendarViewImpl view = new CalendarViewImpl(out);
+    view.printEventsFromTo(
+        LocalDateTime.parse("0987-03-04T00:00"),
+        LocalDateTime.of(12025, 1, 2, 3, 4),
+        Arrays.asList(early));
+
+    String s = out.toString();
+    assertTrue(s.contains("Events from 0987-03-04 00:00 to +12025-01-02 03:04:"));
+    assertTrue(
+        s.contains("- early starting on 0987-03-04 at 05:06, ending on 0987-03-04 at 07:08"));
+  }
+
   private static class FailingAppendable implements Appendable {
     @Override
     public Appendable append(CharSequence csq) throws IOException {